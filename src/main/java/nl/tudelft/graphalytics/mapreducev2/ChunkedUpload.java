@@ -0,0 +1,284 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Uploads a local graph file to HDFS as a directory of part files, which are written concurrently. The file is split
+ * into chunks at line boundaries, and each chunk is copied to its own part file by one of a bounded number of
+ * threads, so the upload is not limited by the throughput of a single stream. The part files are numbered in the
+ * order of the chunks in the local file.
+ *
+ * Chunks of an edge-based graph can be aligned to source vertices (see {@link #withSourceAlignedChunks(boolean)}),
+ * so that a file sorted by source vertex results in part files covering disjoint ranges of source vertices, as
+ * required by the conversion of sorted input.
+ *
+ * @author Tim Hegeman
+ */
+public class ChunkedUpload {
+
+	/** Size of the buffer used by each thread to copy its chunk. */
+	private static final int BUFFER_SIZE = 8 << 20;
+	/** Size of the buffer used to scan for chunk boundaries. */
+	private static final int SCAN_BUFFER_SIZE = 64 << 10;
+
+	private String localPath;
+	private String outputPath;
+	private int numThreads;
+	private long chunkSize;
+	private boolean sourceAlignedChunks;
+
+	/**
+	 * @param localPath the path of the file on the local file system
+	 * @param outputPath the path of the directory to write the part files to
+	 */
+	public ChunkedUpload(String localPath, String outputPath) {
+		this.localPath = localPath;
+		this.outputPath = outputPath;
+		this.numThreads = 1;
+		this.chunkSize = 1L << 30;
+		this.sourceAlignedChunks = false;
+	}
+
+	public ChunkedUpload withNumberOfThreads(int numThreads) {
+		this.numThreads = numThreads;
+		return this;
+	}
+
+	/**
+	 * @param chunkSize the approximate size of each part file in bytes
+	 * @return this upload
+	 */
+	public ChunkedUpload withChunkSize(long chunkSize) {
+		this.chunkSize = chunkSize;
+		return this;
+	}
+
+	/**
+	 * @param sourceAlignedChunks true iff consecutive lines starting with the same vertex ID must be written to the
+	 *                            same part file
+	 * @return this upload
+	 */
+	public ChunkedUpload withSourceAlignedChunks(boolean sourceAlignedChunks) {
+		this.sourceAlignedChunks = sourceAlignedChunks;
+		return this;
+	}
+
+	public void run() throws IOException {
+		final Path output = new Path(outputPath);
+		final FileSystem dfs = output.getFileSystem(new Configuration());
+		dfs.delete(output, true);
+		dfs.mkdirs(output);
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try (RandomAccessFile file = new RandomAccessFile(localPath, "r")) {
+			int numChunks = (int)Math.max(1, (file.length() + chunkSize - 1) / chunkSize);
+			long[] boundaries = getChunkBoundaries(file, numChunks, sourceAlignedChunks);
+
+			// Copy every non-empty chunk to its own part file
+			final FileChannel channel = file.getChannel();
+			List<Callable<Void>> tasks = new ArrayList<>();
+			for (int i = 0; i < numChunks; i++) {
+				final long start = boundaries[i];
+				final long end = boundaries[i + 1];
+				final Path partPath = new Path(output, String.format("part-%05d", i));
+				if (end > start) {
+					tasks.add(new Callable<Void>() {
+						@Override
+						public Void call() throws IOException {
+							copyChunk(channel, start, end, dfs, partPath);
+							return null;
+						}
+					});
+				}
+			}
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			dfs.delete(output, true);
+			Throwable cause = (e instanceof ExecutionException ? e.getCause() : e);
+			if (cause instanceof IOException)
+				throw (IOException)cause;
+			throw new IOException("Failed to upload " + localPath + ".", cause);
+		} catch (IOException e) {
+			dfs.delete(output, true);
+			throw e;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void copyChunk(FileChannel channel, long start, long end, FileSystem dfs, Path partPath)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		try (FSDataOutputStream out = dfs.create(partPath, false)) {
+			long position = start;
+			while (position < end) {
+				buffer.clear();
+				buffer.limit((int)Math.min(BUFFER_SIZE, end - position));
+				int bytesRead = channel.read(buffer, position);
+				if (bytesRead < 0)
+					throw new IOException("Unexpected end of file at offset " + position + ".");
+				out.write(buffer.array(), 0, bytesRead);
+				position += bytesRead;
+			}
+		}
+	}
+
+	/**
+	 * Divides a file into chunks of whole lines of roughly equal size.
+	 *
+	 * @param file the file to divide
+	 * @param numChunks the number of chunks
+	 * @param sourceAligned true iff consecutive lines starting with the same token must be in the same chunk
+	 * @return the offsets of the chunks, i.e. chunk i is [boundaries[i], boundaries[i + 1]); chunks may be empty
+	 * @throws IOException if reading the file fails
+	 */
+	public static long[] getChunkBoundaries(RandomAccessFile file, int numChunks, boolean sourceAligned)
+			throws IOException {
+		long length = file.length();
+		long[] boundaries = new long[numChunks + 1];
+		boundaries[numChunks] = length;
+		for (int i = 1; i < numChunks; i++) {
+			long offset = Math.max(length * i / numChunks, boundaries[i - 1]);
+			boundaries[i] = (offset == 0 ? 0 : findChunkStart(new Scanner(file, offset - 1), sourceAligned));
+		}
+		return boundaries;
+	}
+
+	/**
+	 * @return the offset of the first line that starts after the position of the scanner and, if the chunk is
+	 *         source aligned, starts with a different token than the line preceding it
+	 */
+	private static long findChunkStart(Scanner scanner, boolean sourceAligned) throws IOException {
+		scanner.skipLine();
+		if (!sourceAligned || scanner.atEnd())
+			return scanner.position();
+
+		// Skip all lines that start with the same token as the first line
+		byte[] token = scanner.readToken();
+		scanner.skipLine();
+		while (!scanner.atEnd()) {
+			long lineStart = scanner.position();
+			if (!scanner.startsWithToken(token))
+				return lineStart;
+			scanner.skipLine();
+		}
+		return scanner.position();
+	}
+
+	/**
+	 * Buffered forward scanner over a file, used to find chunk boundaries.
+	 */
+	private static class Scanner {
+
+		private final RandomAccessFile file;
+		private final byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+		private long bufferStart;
+		private int bufferLength = 0;
+		private int index = 0;
+
+		public Scanner(RandomAccessFile file, long position) {
+			this.file = file;
+			this.bufferStart = position;
+		}
+
+		public long position() {
+			return bufferStart + index;
+		}
+
+		/**
+		 * @return the next byte without consuming it, or -1 at the end of the file
+		 */
+		public int peek() throws IOException {
+			if (index == bufferLength) {
+				bufferStart += bufferLength;
+				index = 0;
+				file.seek(bufferStart);
+				bufferLength = Math.max(0, file.read(buffer));
+				if (bufferLength == 0)
+					return -1;
+			}
+			return buffer[index] & 0xFF;
+		}
+
+		public boolean atEnd() throws IOException {
+			return peek() == -1;
+		}
+
+		/**
+		 * Consumes the remainder of the current line, including the line terminator.
+		 */
+		public void skipLine() throws IOException {
+			int c;
+			while ((c = peek()) != -1) {
+				index++;
+				if (c == '\n')
+					return;
+			}
+		}
+
+		/**
+		 * Consumes and returns the first token of the current line.
+		 */
+		public byte[] readToken() throws IOException {
+			ByteArrayOutputStream token = new ByteArrayOutputStream();
+			while (!isTokenEnd(peek())) {
+				token.write(buffer[index++]);
+			}
+			return token.toByteArray();
+		}
+
+		/**
+		 * Consumes the current line up to the first byte that differs from the given token.
+		 *
+		 * @return true iff the first token of the current line equals the given token
+		 */
+		public boolean startsWithToken(byte[] token) throws IOException {
+			for (byte b : token) {
+				int c = peek();
+				if (c == -1 || (byte)c != b)
+					return false;
+				index++;
+			}
+			return isTokenEnd(peek());
+		}
+
+		private static boolean isTokenEnd(int c) {
+			return c == -1 || c == ' ' || c == '\t' || c == '\r' || c == '\n';
+		}
+
+	}
+
+}
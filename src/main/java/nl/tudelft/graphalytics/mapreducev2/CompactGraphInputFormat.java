@@ -0,0 +1,97 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileRecordReader;
+import nl.tudelft.graphalytics.mapreducev2.common.CompactAdjacencyList;
+
+/**
+ * Input format that reads a graph stored in the compact encoding of {@link CompactAdjacencyList} (see
+ * {@link nl.tudelft.graphalytics.mapreducev2.conversion.CompactGraphConversion}). Records are returned with the
+ * vertex ID as key and the text record of the vertex as value, so mappers written for
+ * {@link org.apache.hadoop.mapred.TextInputFormat} can process them unchanged. Neighbours are decoded straight into
+ * the text of the record, which the mappers then parse as usual, so reading the compact graph trades CPU time for
+ * fewer bytes read. Only the first iteration of a job reads the stored graph (see {@link MapReduceJob}).
+ *
+ * @author Tim Hegeman
+ */
+public class CompactGraphInputFormat extends FileInputFormat<LongWritable, Text> {
+
+	@Override
+	public RecordReader<LongWritable, Text> getRecordReader(InputSplit split, JobConf job, Reporter reporter)
+			throws IOException {
+		reporter.setStatus(split.toString());
+		return new CompactGraphRecordReader(new SequenceFileRecordReader<NullWritable, CompactAdjacencyList>(
+				job, (FileSplit)split));
+	}
+
+	private static class CompactGraphRecordReader implements RecordReader<LongWritable, Text> {
+
+		private final SequenceFileRecordReader<NullWritable, CompactAdjacencyList> reader;
+		private final CompactAdjacencyList adjacency = new CompactAdjacencyList();
+
+		public CompactGraphRecordReader(SequenceFileRecordReader<NullWritable, CompactAdjacencyList> reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public boolean next(LongWritable key, Text value) throws IOException {
+			if (!reader.next(NullWritable.get(), adjacency))
+				return false;
+			key.set(adjacency.getVertexId());
+			adjacency.toText(value);
+			return true;
+		}
+
+		@Override
+		public LongWritable createKey() {
+			return new LongWritable();
+		}
+
+		@Override
+		public Text createValue() {
+			return new Text();
+		}
+
+		@Override
+		public long getPos() throws IOException {
+			return reader.getPos();
+		}
+
+		@Override
+		public float getProgress() throws IOException {
+			return reader.getProgress();
+		}
+
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+
+	}
+
+}
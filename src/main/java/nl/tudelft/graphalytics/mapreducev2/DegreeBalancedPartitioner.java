@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Partitioner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import nl.tudelft.graphalytics.mapreducev2.conversion.DegreeSummary;
+
+/**
+ * Partitioner that balances the number of edges per reducer, instead of the number of vertices. Vertex buckets from
+ * the {@link DegreeSummary} of the input graph are assigned to reducers using the longest-processing-time-first
+ * heuristic. Keys are partitioned on their vertex ID, so the tagged keys of a vertex are sent to the same reducer as
+ * its text key would be. Falls back to hash partitioning if the input graph has no degree summary.
+ *
+ * @param <K> the map output key type, either {@link Text} vertex IDs or {@link TaggedKey}s
+ * @param <V> the map output value type
+ * @author Tim Hegeman
+ */
+public class DegreeBalancedPartitioner<K, V> implements Partitioner<K, V> {
+	private static final Logger LOG = LogManager.getLogger();
+
+	private int[] reducerForBucket;
+
+	@Override
+	public void configure(JobConf job) {
+		reducerForBucket = null;
+		String graphPath = job.get(MapReduceJob.GRAPH_PATH_KEY);
+		if (graphPath == null)
+			return;
+
+		try {
+			DegreeSummary summary = DegreeSummary.read(FileSystem.get(job), new Path(graphPath));
+			if (summary != null)
+				reducerForBucket = assignBuckets(summary.getBucketWeights(), job.getNumReduceTasks());
+			else
+				LOG.warn("No degree summary found for graph {}, using hash partitioning.", graphPath);
+		} catch (IOException e) {
+			LOG.warn("Failed to read degree summary, using hash partitioning.", e);
+		}
+	}
+
+	/**
+	 * Assigns buckets to reducers, heaviest bucket first, always choosing the reducer with the lowest total weight.
+	 *
+	 * @param bucketWeights the weight of each bucket
+	 * @param numReducers the number of reducers
+	 * @return the reducer assigned to each bucket
+	 */
+	static int[] assignBuckets(final long[] bucketWeights, int numReducers) {
+		Integer[] bucketsByWeight = new Integer[bucketWeights.length];
+		for (int i = 0; i < bucketsByWeight.length; i++) {
+			bucketsByWeight[i] = i;
+		}
+		Arrays.sort(bucketsByWeight, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(bucketWeights[b], bucketWeights[a]);
+			}
+		});
+
+		final long[] reducerWeights = new long[numReducers];
+		PriorityQueue<Integer> reducers = new PriorityQueue<>(numReducers, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				int comparison = Long.compare(reducerWeights[a], reducerWeights[b]);
+				return comparison != 0 ? comparison : Integer.compare(a, b);
+			}
+		});
+		for (int i = 0; i < numReducers; i++) {
+			reducers.add(i);
+		}
+
+		int[] reducerForBucket = new int[bucketWeights.length];
+		for (int bucket : bucketsByWeight) {
+			int reducer = reducers.poll();
+			reducerForBucket[bucket] = reducer;
+			reducerWeights[reducer] += bucketWeights[bucket];
+			reducers.add(reducer);
+		}
+		return reducerForBucket;
+	}
+
+	@Override
+	public int getPartition(K key, V value, int numPartitions) {
+		Text vertexId = TaggedKey.getVertexId(key);
+		if (reducerForBucket == null)
+			return (vertexId.hashCode() & Integer.MAX_VALUE) % numPartitions;
+		return reducerForBucket[DegreeSummary.getBucket(vertexId)] % numPartitions;
+	}
+
+}
@@ -0,0 +1,182 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Persistent catalog of the graphs uploaded to HDFS, so a graph that was uploaded and converted by an earlier
+ * benchmark run can be reused instead of being uploaded and converted again. The catalog is a directory with one
+ * file per graph name, recording the path of the uploaded graph, the size, modification time and checksum of the
+ * local file it was created from, and the version and options of the conversion. An entry is only reused if all of
+ * these match and the uploaded graph still exists.
+ *
+ * @author Tim Hegeman
+ */
+public class GraphCatalog {
+
+	/** Version of the converted graph format; increment when the output of the conversions changes. */
+	public static final int CONVERSION_VERSION = 2;
+
+	private static final int CHECKSUM_BUFFER_SIZE = 8 << 20;
+
+	private final FileSystem dfs;
+	private final Path directory;
+
+	/**
+	 * @param dfs the file system storing the catalog and the graphs
+	 * @param directory the directory of the catalog
+	 */
+	public GraphCatalog(FileSystem dfs, Path directory) {
+		this.dfs = dfs;
+		this.directory = directory;
+	}
+
+	/**
+	 * Looks up an uploaded graph that can be reused for the given local file and conversion options.
+	 *
+	 * @param graphName the name of the graph
+	 * @param source the local file of the graph
+	 * @param conversionOptions a description of the options that affect the uploaded graph
+	 * @return the catalog entry of the graph, or null if the graph is not in the catalog or is out of date
+	 * @throws IOException if reading the catalog or the local file fails
+	 */
+	public Entry lookup(String graphName, File source, String conversionOptions) throws IOException {
+		Path entryPath = getEntryPath(graphName);
+		if (!dfs.exists(entryPath))
+			return null;
+
+		Entry entry = new Entry();
+		try (FSDataInputStream in = dfs.open(entryPath)) {
+			entry.conversionVersion = in.readInt();
+			entry.conversionOptions = in.readUTF();
+			entry.sourceSize = in.readLong();
+			entry.sourceModificationTime = in.readLong();
+			entry.sourceChecksum = in.readLong();
+			entry.graphPath = in.readUTF();
+			entry.splitVertices = in.readBoolean();
+		}
+
+		// Compare the cheap properties first, and only checksum the local file if they match
+		if (entry.conversionVersion != CONVERSION_VERSION || !entry.conversionOptions.equals(conversionOptions) ||
+				entry.sourceSize != source.length() || entry.sourceModificationTime != source.lastModified() ||
+				!dfs.exists(new Path(entry.graphPath)))
+			return null;
+		return (entry.sourceChecksum == checksum(source) ? entry : null);
+	}
+
+	/**
+	 * Adds or replaces the entry of an uploaded graph.
+	 *
+	 * @param graphName the name of the graph
+	 * @param source the local file the graph was uploaded from
+	 * @param conversionOptions a description of the options that affect the uploaded graph
+	 * @param graphPath the path of the uploaded graph
+	 * @param splitVertices true iff the uploaded graph has split hub vertices
+	 * @throws IOException if writing the catalog or reading the local file fails
+	 */
+	public void put(String graphName, File source, String conversionOptions, String graphPath, boolean splitVertices)
+			throws IOException {
+		// Write the entry to a temporary file first, so an interrupted write does not leave a corrupt entry
+		Path entryPath = getEntryPath(graphName);
+		Path temporaryPath = new Path(directory, "." + graphName + ".tmp");
+		dfs.mkdirs(directory);
+		try (FSDataOutputStream out = dfs.create(temporaryPath, true)) {
+			out.writeInt(CONVERSION_VERSION);
+			out.writeUTF(conversionOptions);
+			out.writeLong(source.length());
+			out.writeLong(source.lastModified());
+			out.writeLong(checksum(source));
+			out.writeUTF(graphPath);
+			out.writeBoolean(splitVertices);
+		}
+		dfs.delete(entryPath, false);
+		if (!dfs.rename(temporaryPath, entryPath))
+			throw new IOException("Failed to write catalog entry " + entryPath + ".");
+	}
+
+	/**
+	 * Removes the entry of a graph, if any.
+	 *
+	 * @param graphName the name of the graph
+	 * @throws IOException if the entry could not be removed
+	 */
+	public void remove(String graphName) throws IOException {
+		dfs.delete(getEntryPath(graphName), false);
+	}
+
+	private Path getEntryPath(String graphName) {
+		return new Path(directory, graphName);
+	}
+
+	/**
+	 * @param file a local file
+	 * @return the CRC-32 checksum of the contents of the file
+	 * @throws IOException if reading the file fails
+	 */
+	private static long checksum(File file) throws IOException {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(CHECKSUM_BUFFER_SIZE);
+		try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+			FileChannel channel = input.getChannel();
+			while (channel.read(buffer) > 0) {
+				crc.update(buffer.array(), 0, buffer.position());
+				buffer.clear();
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Uploaded graph recorded in the catalog.
+	 */
+	public static class Entry {
+
+		private int conversionVersion;
+		private String conversionOptions;
+		private long sourceSize;
+		private long sourceModificationTime;
+		private long sourceChecksum;
+		private String graphPath;
+		private boolean splitVertices;
+
+		/**
+		 * @return the path of the uploaded graph
+		 */
+		public String getGraphPath() {
+			return graphPath;
+		}
+
+		/**
+		 * @return true iff the uploaded graph has split hub vertices
+		 */
+		public boolean hasSplitVertices() {
+			return splitVertices;
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Estimates the map output key distribution of a job by running its mapper in the driver on the first records of
+ * a number of input splits. If the job has a combiner, the sampled output of each split is combined before it is
+ * counted, so the estimate reflects the records that reach the shuffle. Keys that would send more records to the
+ * shuffle than an average reducer receives are reported as hot.
+ *
+ * @author Tim Hegeman
+ */
+public class HotKeySampler {
+
+	/** Maximum number of input splits to sample from. */
+	public static final int MAX_SAMPLED_SPLITS = 10;
+	/** Maximum number of input records to read from each sampled split. */
+	public static final int MAX_RECORDS_PER_SPLIT = 10000;
+
+	private final JobConf jobConfiguration;
+
+	/**
+	 * @param jobConfiguration the configuration of the job to sample, including its input paths
+	 */
+	public HotKeySampler(JobConf jobConfiguration) {
+		this.jobConfiguration = jobConfiguration;
+	}
+
+	/**
+	 * Samples the map output keys of the job and selects the keys that account for more than
+	 * <code>1 / numReducers</code> of the sampled (combined) map output.
+	 *
+	 * @param numReducers the number of reducers of the job
+	 * @return the set of hot keys
+	 * @throws IOException if reading the input or running the mapper fails
+	 */
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	public Set<Text> findHotKeys(int numReducers) throws IOException {
+		final Map<Text, Long> keyFrequencies = new HashMap<>();
+		final long[] totalFrequency = new long[1];
+		OutputCollector shuffleCollector = new OutputCollector() {
+			@Override
+			public void collect(Object key, Object value) throws IOException {
+				Text keyText = (Text)key;
+				Long frequency = keyFrequencies.get(keyText);
+				if (frequency == null)
+					keyFrequencies.put(new Text(keyText), 1L);
+				else
+					keyFrequencies.put(keyText, frequency + 1);
+				totalFrequency[0]++;
+			}
+		};
+
+		// Buffer the map output of a split if it is combined before it is counted
+		final Map<Text, List<Writable>> splitOutput = new TreeMap<>();
+		OutputCollector combinerInputCollector = new OutputCollector() {
+			@Override
+			public void collect(Object key, Object value) throws IOException {
+				Text keyText = (Text)key;
+				List<Writable> values = splitOutput.get(keyText);
+				if (values == null) {
+					values = new ArrayList<>();
+					splitOutput.put(new Text(keyText), values);
+				}
+				values.add(WritableUtils.clone((Writable)value, jobConfiguration));
+			}
+		};
+
+		InputFormat inputFormat = jobConfiguration.getInputFormat();
+		InputSplit[] splits = inputFormat.getSplits(jobConfiguration, jobConfiguration.getNumMapTasks());
+		Mapper mapper = ReflectionUtils.newInstance(jobConfiguration.getMapperClass(), jobConfiguration);
+		Class<? extends Reducer> combinerClass = jobConfiguration.getCombinerClass();
+		Reducer combiner = (combinerClass == null ? null : ReflectionUtils.newInstance(combinerClass, jobConfiguration));
+		OutputCollector mapCollector = (combiner == null ? shuffleCollector : combinerInputCollector);
+		try {
+			for (int i = 0; i < splits.length && i < MAX_SAMPLED_SPLITS; i++) {
+				RecordReader reader = inputFormat.getRecordReader(splits[i], jobConfiguration, Reporter.NULL);
+				try {
+					Object key = reader.createKey();
+					Object value = reader.createValue();
+					for (int records = 0; records < MAX_RECORDS_PER_SPLIT && reader.next(key, value); records++) {
+						mapper.map(key, value, mapCollector, Reporter.NULL);
+					}
+				} finally {
+					reader.close();
+				}
+
+				if (combiner != null) {
+					for (Map.Entry<Text, List<Writable>> keyValues : splitOutput.entrySet()) {
+						combiner.reduce(keyValues.getKey(), keyValues.getValue().iterator(), shuffleCollector,
+								Reporter.NULL);
+					}
+					splitOutput.clear();
+				}
+			}
+		} finally {
+			mapper.close();
+			if (combiner != null)
+				combiner.close();
+		}
+
+		Set<Text> hotKeys = new HashSet<>();
+		for (Map.Entry<Text, Long> keyFrequency : keyFrequencies.entrySet()) {
+			if (keyFrequency.getValue() * numReducers > totalFrequency[0])
+				hotKeys.add(keyFrequency.getKey());
+		}
+		return hotKeys;
+	}
+
+}
@@ -16,22 +16,40 @@
 package nl.tudelft.graphalytics.mapreducev2;
 
 import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.Set;
 
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.RawComparator;
+import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileOutputFormat;
 import org.apache.hadoop.mapred.JobClient;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.MapRunner;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputFormat;
+import org.apache.hadoop.mapred.Partitioner;
 import org.apache.hadoop.mapred.Reducer;
 import org.apache.hadoop.mapred.RunningJob;
 import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.apache.hadoop.mapred.lib.IdentityMapper;
+import org.apache.hadoop.mapred.lib.MultithreadedMapRunner;
+import org.apache.hadoop.mapreduce.MRJobConfig;
+import org.apache.hadoop.mapreduce.lib.map.MultithreadedMapper;
 import org.apache.hadoop.util.Tool;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import nl.tudelft.graphalytics.mapreducev2.common.MessageCombiner;
+import nl.tudelft.graphalytics.mapreducev2.conversion.CompactGraphConversion;
 
 /**
  * Base class for MapReduce jobs with hooks for algorithm-specific configuration.
@@ -43,12 +61,23 @@ import org.apache.logging.log4j.Logger;
 public abstract class MapReduceJob<ParamType> extends Configured implements Tool {
 	private static final Logger LOG = LogManager.getLogger();
 
+	/** Configuration key for the path of the input graph, used by partitioners to read graph summaries. */
+	public static final String GRAPH_PATH_KEY = "mapreducev2.graph-path";
+	/** Configuration key for the capacity of the in-mapper message combiners, see {@link MessageCombiner}. */
+	public static final String COMBINER_CAPACITY_KEY = "mapreducev2.combiner-capacity";
+
 	private String inputPath;
 	private String intermediatePath;
 	private String outputPath;
 	private ParamType parameters;
 	private int numMappers;
 	private int numReducers;
+	private int numMapThreads;
+	private int hotKeySaltFactor;
+	@SuppressWarnings("rawtypes")
+	private Class<? extends Partitioner> partitionerClass;
+	private long lookupThreshold;
+	private int combinerCapacity;
 	
 	private int iteration;
 
@@ -65,6 +94,11 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
     	this.parameters = parameters;
     	numMappers = -1;
     	numReducers = -1;
+    	numMapThreads = 1;
+    	hotKeySaltFactor = 1;
+    	partitionerClass = null;
+    	lookupThreshold = 0;
+    	combinerCapacity = 0;
     	iteration = 0;
     }
 
@@ -88,6 +122,70 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
 			this.numReducers = numReducers;
 	}
 
+	/**
+	 * Sets the number of threads used to run the mapper in each map task. Only applies to
+	 * mappers that implement {@link StatelessMapper}; other mappers always run single-threaded.
+	 *
+	 * @param numMapThreads the number of map threads per map task
+	 */
+	public void setNumMapThreads(int numMapThreads) {
+		if (numMapThreads <= 1)
+			this.numMapThreads = 1;
+		else
+			this.numMapThreads = numMapThreads;
+	}
+
+	/**
+	 * Sets the number of reducers over which the map output of a single hot key is spread. Only applies to
+	 * iterations for which {@link #isReduceAssociative()} holds.
+	 *
+	 * @param hotKeySaltFactor the number of reducers per hot key, or 1 to disable hot key detection
+	 */
+	public void setHotKeySaltFactor(int hotKeySaltFactor) {
+		if (hotKeySaltFactor <= 1)
+			this.hotKeySaltFactor = 1;
+		else
+			this.hotKeySaltFactor = hotKeySaltFactor;
+	}
+
+	/**
+	 * Sets the partitioner used to assign map output keys to reducers. Only applies to jobs with {@link Text} or
+	 * {@link TaggedKey} map output keys, as all provided partitioners operate on vertex IDs in text form.
+	 *
+	 * @param partitionerClass the partitioner class, or null to use Hadoop's default hash partitioner
+	 */
+	@SuppressWarnings("rawtypes")
+	public void setPartitionerClass(Class<? extends Partitioner> partitionerClass) {
+		this.partitionerClass = partitionerClass;
+	}
+
+	/**
+	 * Sets the maximum number of active vertices for which a job may read the active vertices from the
+	 * {@link VertexIndex} of the input graph, instead of scanning the whole graph. Only applies to jobs that support
+	 * vertex lookups, on graphs that were indexed when uploaded.
+	 *
+	 * @param lookupThreshold the maximum number of vertices to look up, or zero to always scan the graph
+	 */
+	public void setLookupThreshold(long lookupThreshold) {
+		if (lookupThreshold <= 0)
+			this.lookupThreshold = 0;
+		else
+			this.lookupThreshold = lookupThreshold;
+	}
+
+	/**
+	 * Sets the number of destination vertices for which mappers that support it combine messages in memory before
+	 * writing them to the map output (see {@link MessageCombiner}).
+	 *
+	 * @param combinerCapacity the maximum number of destination vertices per map task, or zero to disable combining
+	 */
+	public void setCombinerCapacity(int combinerCapacity) {
+		if (combinerCapacity <= 0)
+			this.combinerCapacity = 0;
+		else
+			this.combinerCapacity = combinerCapacity;
+	}
+
 	/**
 	 * @return the current algorithm iteration
 	 */
@@ -109,6 +207,48 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
 		return numReducers;
 	}
 
+	/**
+	 * @return the number of map threads per map task set for this job
+	 */
+	public int getNumMapThreads() {
+		return numMapThreads;
+	}
+
+	/**
+	 * @return the number of reducers over which the map output of a single hot key is spread
+	 */
+	public int getHotKeySaltFactor() {
+		return hotKeySaltFactor;
+	}
+
+	/**
+	 * @return the maximum number of vertices to look up in the vertex index, or zero to always scan the graph
+	 */
+	public long getLookupThreshold() {
+		return lookupThreshold;
+	}
+
+	/**
+	 * @return the maximum number of destination vertices for which each map task combines messages
+	 */
+	public int getCombinerCapacity() {
+		return combinerCapacity;
+	}
+
+	/**
+	 * @return the path of the input graph
+	 */
+	protected Path getInputPath() {
+		return new Path(inputPath);
+	}
+
+	/**
+	 * @return the output path of the current iteration
+	 */
+	protected Path getIterationOutputPath() {
+		return new Path(intermediatePath + "/iteration-" + iteration);
+	}
+
 	/**
 	 * @return the algorithm-specific parameters
 	 */
@@ -120,6 +260,7 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
 	public int run(String[] args) throws Exception {
         FileSystem dfs = FileSystem.get(getConf());
         String inPath = inputPath;
+        boolean compactInput = CompactGraphConversion.exists(dfs, getInputPath());
 
         while (!isFinished()) {
         	iteration++;
@@ -135,6 +276,14 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
         	if (getCombinerClass() != null)
         		jobConfiguration.setCombinerClass(getCombinerClass());
         	jobConfiguration.setReducerClass(getReducerClass());
+        	if (getPartitionerClass() != null)
+        		jobConfiguration.setPartitionerClass(getPartitionerClass());
+        	if (getSortComparatorClass() != null)
+        		jobConfiguration.setOutputKeyComparatorClass(getSortComparatorClass());
+        	if (getGroupingComparatorClass() != null)
+        		jobConfiguration.setOutputValueGroupingComparator(getGroupingComparatorClass());
+        	jobConfiguration.set(GRAPH_PATH_KEY, inputPath);
+        	jobConfiguration.setInt(COMBINER_CAPACITY_KEY, getCombinerCapacity());
 
         	jobConfiguration.setOutputKeyClass(getOutputKeyClass());
         	jobConfiguration.setOutputValueClass(getOutputValueClass());
@@ -146,25 +295,43 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
         		jobConfiguration.setNumMapTasks(getNumMappers());
         	if (getNumReducers() != -1)
         		jobConfiguration.setNumReduceTasks(getNumReducers());
+        	configureMapRunner(jobConfiguration);
         	
         	setConfigurationParameters(jobConfiguration);
         	
         	// Set the input and output paths
-        	String outPath = intermediatePath + "/iteration-" + iteration;
-        	FileInputFormat.addInputPath(jobConfiguration, new Path(inPath));
+        	String outPath = getIterationOutputPath().toString();
+        	boolean graphOutput = isGraphOutput();
+        	if (compactInput && inPath.equals(inputPath) && TextInputFormat.class.equals(getInputFormatClass())) {
+        		// Read the input graph from its compact copy, which yields the same text records; iteration output
+        		// is always written as text, so only the first iteration reads compact data
+        		jobConfiguration.setInputFormat(CompactGraphInputFormat.class);
+        		FileInputFormat.addInputPath(jobConfiguration, CompactGraphConversion.getCompactGraphPath(getInputPath()));
+        	} else {
+        		FileInputFormat.addInputPath(jobConfiguration, new Path(inPath));
+        	}
         	FileOutputFormat.setOutputPath(jobConfiguration, new Path(outPath));
         	
-        	// Execute the current iteration
-        	RunningJob jobExecution = JobClient.runJob(jobConfiguration);
+        	// Execute the current iteration, in two phases if hot keys must be spread over multiple reducers
+        	Set<Text> hotKeys = findHotKeys(jobConfiguration);
+        	RunningJob jobExecution;
+        	if (hotKeys.isEmpty())
+        		jobExecution = JobClient.runJob(jobConfiguration);
+        	else
+        		jobExecution = runSaltedJob(jobConfiguration, hotKeys, dfs);
         	jobExecution.waitForCompletion();
-        	        	
-        	// Remove the output of the previous job (unless it is the input graph)
-        	if (iteration != 1) {
-        		dfs.delete(new Path(inPath), true);
+        	processJobOutput(jobExecution);
+        	
+        	if (graphOutput) {
+        		// Remove the output of the previous job (unless it is the input graph)
+        		if (!inPath.equals(inputPath)) {
+        			dfs.delete(new Path(inPath), true);
+        		}
+        		inPath = outPath;
+        	} else {
+        		// Keep the previous graph as input for the next iteration
+        		dfs.delete(new Path(outPath), true);
         	}
-        	inPath = outPath;
-
-            processJobOutput(jobExecution);
         }
 
         // Rename the last job output to the specified output path
@@ -178,6 +345,115 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
         return 0;
 	}
 
+	/**
+	 * Selects a multithreaded map runner if multiple map threads are requested and the mapper
+	 * of the current iteration is stateless. The requested number of virtual cores per map task
+	 * is raised accordingly, so a single map container can use all threads it runs.
+	 *
+	 * @param jobConfiguration the job configuration to update
+	 * @throws IllegalStateException if a mapper marked as stateless has mutable instance state
+	 */
+	private void configureMapRunner(JobConf jobConfiguration) {
+		if (getNumMapThreads() <= 1)
+			return;
+
+		if (StatelessMapper.class.isAssignableFrom(getMapperClass())) {
+			checkStateless(getMapperClass());
+			jobConfiguration.setMapRunnerClass(MultithreadedMapRunner.class);
+			jobConfiguration.setInt(MultithreadedMapper.NUM_THREADS, getNumMapThreads());
+			jobConfiguration.setInt(MRJobConfig.MAP_CPU_VCORES, getNumMapThreads());
+		} else {
+			LOG.debug("Mapper {} is not stateless, running it single-threaded.", getMapperClass().getName());
+		}
+	}
+
+	/**
+	 * Checks that a mapper class has no state that is shared by concurrent calls to map. All fields
+	 * of the class and its superclasses (up to {@link MapReduceBase}) must be final, and instance
+	 * fields must be of an immutable type or hold per-thread state in a {@link ThreadLocal}.
+	 *
+	 * @param mapperClass the mapper class to check
+	 * @throws IllegalStateException if the mapper class has a field that may hold mutable state
+	 */
+	static void checkStateless(Class<?> mapperClass) {
+		for (Class<?> type = mapperClass; type != null && type != MapReduceBase.class && type != Object.class;
+				type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (field.isSynthetic())
+					continue;
+				int modifiers = field.getModifiers();
+				boolean immutable = Modifier.isFinal(modifiers) && (Modifier.isStatic(modifiers) ||
+						isImmutableType(field.getType()) || ThreadLocal.class.isAssignableFrom(field.getType()));
+				if (!immutable) {
+					throw new IllegalStateException("Mapper " + mapperClass.getName() + " is marked as " +
+							StatelessMapper.class.getSimpleName() + ", but field " + type.getName() + "." +
+							field.getName() + " may hold state that is shared by concurrent calls to map.");
+				}
+			}
+		}
+	}
+
+	private static boolean isImmutableType(Class<?> type) {
+		return type.isPrimitive() || type.isEnum() || type == String.class || type == Boolean.class ||
+				type == Character.class || (Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang."));
+	}
+
+	/**
+	 * Samples the map output of the current iteration to find keys that would overload a single reducer. Sampling
+	 * is only done if a salt factor is set, the reduce function is associative, and the job has multiple reducers.
+	 *
+	 * @param jobConfiguration the job configuration of the current iteration
+	 * @return the set of hot keys, or an empty set if no key needs to be spread over multiple reducers
+	 * @throws IOException if sampling the map output fails
+	 */
+	private Set<Text> findHotKeys(JobConf jobConfiguration) throws IOException {
+		if (getHotKeySaltFactor() <= 1 || !isReduceAssociative() || getCombinerClass() == null ||
+				jobConfiguration.getNumReduceTasks() <= 1 || !Text.class.equals(getMapOutputKeyClass()))
+			return Collections.emptySet();
+
+		Set<Text> hotKeys = new HotKeySampler(jobConfiguration).findHotKeys(jobConfiguration.getNumReduceTasks());
+		LOG.info("Found {} hot keys in iteration {}.", hotKeys.size(), iteration);
+		return hotKeys;
+	}
+
+	/**
+	 * Executes the current iteration as two jobs. The first job runs the mapper and uses the combiner as reducer,
+	 * spreading the values of hot keys over multiple reducers. The second job merges the partial results per key
+	 * using the reducer of the current iteration.
+	 *
+	 * @param jobConfiguration the job configuration of the current iteration
+	 * @param hotKeys the keys to spread over multiple reducers in the first job
+	 * @param dfs the file system used for intermediate output
+	 * @return the result of the second job
+	 * @throws IOException if either job fails
+	 */
+	private RunningJob runSaltedJob(JobConf jobConfiguration, Set<Text> hotKeys, FileSystem dfs) throws IOException {
+		Path outPath = FileOutputFormat.getOutputPath(jobConfiguration);
+		Path partialPath = new Path(outPath.toString() + "-partial");
+
+		// Pre-aggregate the map output per key, spreading hot keys over multiple reducers
+		JobConf partialConfiguration = new JobConf(jobConfiguration);
+		partialConfiguration.setReducerClass(getCombinerClass());
+		partialConfiguration.setOutputKeyClass(getMapOutputKeyClass());
+		partialConfiguration.setOutputValueClass(getMapOutputValueClass());
+		partialConfiguration.setOutputFormat(SequenceFileOutputFormat.class);
+		partialConfiguration.setPartitionerClass(SaltedPartitioner.class);
+		SaltedPartitioner.setHotKeys(partialConfiguration, hotKeys, getHotKeySaltFactor());
+		FileOutputFormat.setOutputPath(partialConfiguration, partialPath);
+		JobClient.runJob(partialConfiguration);
+
+		// Merge the partial results with the actual reducer
+		JobConf mergeConfiguration = new JobConf(jobConfiguration);
+		mergeConfiguration.setMapperClass(IdentityMapper.class);
+		mergeConfiguration.setMapRunnerClass(MapRunner.class);
+		mergeConfiguration.setInputFormat(SequenceFileInputFormat.class);
+		FileInputFormat.setInputPaths(mergeConfiguration, partialPath);
+		RunningJob jobExecution = JobClient.runJob(mergeConfiguration);
+
+		dfs.delete(partialPath, true);
+		return jobExecution;
+	}
+
 	/**
 	 * @return the type of the map-phase output keys
 	 */
@@ -222,6 +498,62 @@ public abstract class MapReduceJob<ParamType> extends Configured implements Tool
 	@SuppressWarnings("rawtypes")
 	protected Class<? extends Reducer> getCombinerClass() { return null; }
 
+	/**
+	 * Indicates whether the reduce function of the current iteration may be applied to partial results. If so, the
+	 * combiner must aggregate values of a single key into a partial result, and the reducer must accept such partial
+	 * results. Hot keys of associative iterations can be spread over multiple reducers (see
+	 * {@link #setHotKeySaltFactor(int)}), in which case {@link #processJobOutput(RunningJob)} receives the result of
+	 * the final merge job, which does not include the counters of the mapper.
+	 *
+	 * @return true if the reduce function of the current iteration is associative
+	 */
+	protected boolean isReduceAssociative() { return false; }
+
+	/**
+	 * Indicates whether the current iteration writes the complete graph to its output, for use as input of the next
+	 * iteration. Iterations that do not, e.g. iterations that read only a few vertices using
+	 * {@link VertexLookupInputFormat}, leave the input of the next iteration unchanged, and their output is removed
+	 * after {@link #processJobOutput(RunningJob)}. Called before the iteration is executed.
+	 *
+	 * @return true if the output of the current iteration replaces the graph
+	 */
+	protected boolean isGraphOutput() { return true; }
+
+	/**
+	 * @return the job-specific partitioner class, or null to use Hadoop's default hash partitioner
+	 */
+	@SuppressWarnings("rawtypes")
+	protected Class<? extends Partitioner> getPartitionerClass() {
+		if (partitionerClass != null && !Text.class.equals(getMapOutputKeyClass()) &&
+				!TaggedKey.class.equals(getMapOutputKeyClass())) {
+			LOG.warn("Partitioner {} only supports text and tagged vertex keys, using the default partitioner for {} keys.",
+					partitionerClass.getName(), getMapOutputKeyClass().getSimpleName());
+			return null;
+		}
+		return partitionerClass;
+	}
+
+	/**
+	 * @return the comparator used to sort map output keys, or null to use the natural order of the key type
+	 */
+	@SuppressWarnings("rawtypes")
+	protected Class<? extends RawComparator> getSortComparatorClass() {
+		if (VertexRangePartitioner.class.equals(getPartitionerClass()))
+			return (TaggedKey.class.equals(getMapOutputKeyClass()) ?
+					TaggedKey.NumericComparator.class : NumericTextComparator.class);
+		return null;
+	}
+
+	/**
+	 * Returns the comparator that decides which sorted map output keys are passed to a single reduce call. Jobs use
+	 * this for secondary sorting, e.g. with {@link TaggedKey} map output keys, which group all values sent to a
+	 * vertex while sorting them by tag.
+	 *
+	 * @return the comparator used to group map output keys, or null to group keys by the sort comparator
+	 */
+	@SuppressWarnings("rawtypes")
+	protected Class<? extends RawComparator> getGroupingComparatorClass() { return null; }
+
 	/**
 	 * @return the job-specific reducer class
 	 */
@@ -15,10 +15,20 @@
  */
 package nl.tudelft.graphalytics.mapreducev2;
 
+import java.io.IOException;
+
 import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.Partitioner;
 import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import nl.tudelft.graphalytics.domain.Graph;
+import nl.tudelft.graphalytics.mapreducev2.conversion.DenseIdDictionary;
+import nl.tudelft.graphalytics.mapreducev2.conversion.DenseIdTranslation;
+import nl.tudelft.graphalytics.mapreducev2.conversion.GraphMetadata;
 
 /**
  * Base class for launching MapReduce jobs, with hooks to create algorithm-specific
@@ -28,6 +38,10 @@ import nl.tudelft.graphalytics.domain.Graph;
  * @author Tim Hegeman
  */
 public abstract class MapReduceJobLauncher extends Configured implements Tool {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** Size of the input graph per reducer, used to choose the number of reducers if it is not specified. */
+	private static final long BYTES_PER_REDUCER = 256L * 1024 * 1024;
 	
 	private boolean graphIsDirected;
 	private String inputPath;
@@ -36,6 +50,15 @@ public abstract class MapReduceJobLauncher extends Configured implements Tool {
 	protected Object parameters;
 	protected int numMappers;
 	protected int numReducers;
+	protected int numMapThreads;
+	protected int hotKeySaltFactor;
+	@SuppressWarnings("rawtypes")
+	protected Class<? extends Partitioner> partitionerClass;
+	protected long lookupThreshold;
+	protected int combinerCapacity;
+	private GraphMetadata graphMetadata;
+	private boolean graphMetadataLoaded;
+	private boolean denseIds;
 
 	/**
 	 * Default constructor.
@@ -45,6 +68,14 @@ public abstract class MapReduceJobLauncher extends Configured implements Tool {
 		parameters = null;
 		inputPath = intermediatePath = outputPath = "";
 		numMappers = numReducers = -1;
+		numMapThreads = 1;
+		hotKeySaltFactor = 1;
+		partitionerClass = null;
+		lookupThreshold = 0;
+		combinerCapacity = 0;
+		graphMetadata = null;
+		graphMetadataLoaded = false;
+		denseIds = false;
 	}
 
 	/**
@@ -92,6 +123,104 @@ public abstract class MapReduceJobLauncher extends Configured implements Tool {
 		this.numReducers = numReducers;
 	}
 
+	/**
+	 * @param numMapThreads the number of threads to run stateless mappers with in each map task
+	 */
+	public void setNumMapThreads(int numMapThreads) {
+		this.numMapThreads = numMapThreads;
+	}
+
+	/**
+	 * @param hotKeySaltFactor the number of reducers to spread the map output of each detected hot key over
+	 */
+	public void setHotKeySaltFactor(int hotKeySaltFactor) {
+		this.hotKeySaltFactor = hotKeySaltFactor;
+	}
+
+	/**
+	 * @param partitionerClass the partitioner to assign map output keys to reducers with, or null for the default
+	 */
+	@SuppressWarnings("rawtypes")
+	public void setPartitionerClass(Class<? extends Partitioner> partitionerClass) {
+		this.partitionerClass = partitionerClass;
+	}
+
+	/**
+	 * @param lookupThreshold the maximum number of active vertices to read from the vertex index of the input graph
+	 *                        instead of scanning the graph, or zero to always scan the graph
+	 */
+	public void setLookupThreshold(long lookupThreshold) {
+		this.lookupThreshold = lookupThreshold;
+	}
+
+	/**
+	 * @param combinerCapacity the maximum number of destination vertices for which each map task combines messages in
+	 *                         memory, or zero to disable in-mapper combining
+	 */
+	public void setCombinerCapacity(int combinerCapacity) {
+		this.combinerCapacity = combinerCapacity;
+	}
+
+	/**
+	 * @param denseIds true iff the input graph has dense vertex IDs (see
+	 *                 {@link nl.tudelft.graphalytics.mapreducev2.conversion.DenseIdConversion}), in which case the
+	 *                 output is translated back to the original vertex IDs
+	 */
+	public void setDenseIds(boolean denseIds) {
+		this.denseIds = denseIds;
+	}
+
+	/**
+	 * Translates a vertex ID given by the algorithm parameters to the ID of the vertex in the input graph.
+	 *
+	 * @param vertexId the original ID of a vertex
+	 * @return the ID of the vertex in the input graph, or -1 if the input graph has dense IDs and does not contain
+	 *         the vertex
+	 */
+	protected long toDenseId(long vertexId) {
+		if (!denseIds)
+			return vertexId;
+		try {
+			return DenseIdDictionary.findDenseId(FileSystem.get(getConf()), new Path(inputPath), vertexId);
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to look up the dense ID of vertex " + vertexId + ".", e);
+		}
+	}
+
+	/**
+	 * Reads the metadata of the input graph produced by the conversion jobs, e.g. to choose the number of reducers,
+	 * the partitioner or an algorithm variant. The metadata is read once and cached.
+	 *
+	 * @return the metadata of the input graph, or null if the graph was not converted or the metadata is unreadable
+	 */
+	protected GraphMetadata getGraphMetadata() {
+		if (!graphMetadataLoaded) {
+			graphMetadataLoaded = true;
+			try {
+				graphMetadata = GraphMetadata.read(FileSystem.get(getConf()), new Path(inputPath));
+			} catch (IOException e) {
+				LOG.warn("Failed to read the metadata of graph " + inputPath + ".", e);
+			}
+		}
+		return graphMetadata;
+	}
+
+	/**
+	 * @return true iff the implemented algorithm supports graphs in which vertices are split into multiple records
+	 * with the same vertex ID, as produced by the conversion jobs when a hub split threshold is set
+	 */
+	public boolean supportsSplitVertices() {
+		return false;
+	}
+
+	/**
+	 * @return true iff the implemented algorithm supports graphs with dense vertex IDs, i.e. its output starts with
+	 * the record of each vertex and it translates all vertex IDs in its parameters using {@link #toDenseId(long)}
+	 */
+	public boolean supportsDenseIds() {
+		return false;
+	}
+
 	/**
 	 * Create and launch the MapReduce job(s) for the implemented algorithm.
 	 *
@@ -101,19 +230,41 @@ public abstract class MapReduceJobLauncher extends Configured implements Tool {
 	 */
 	@Override
     public int run(String[] args) throws Exception {
-        // Create the appropriate job
+        // Create the appropriate job, writing to a temporary output if the output must be translated to original IDs
+		String jobOutputPath = (denseIds ? outputPath + "-dense" : outputPath);
 		MapReduceJob<?> job;
         if (graphIsDirected)
-        	job = createDirectedJob(inputPath, intermediatePath, outputPath);
+        	job = createDirectedJob(inputPath, intermediatePath, jobOutputPath);
         else
-        	job = createUndirectedJob(inputPath, intermediatePath, outputPath);
+        	job = createUndirectedJob(inputPath, intermediatePath, jobOutputPath);
+        
+        // Choose the number of reducers based on the size of the graph if not specified, using at least as many
+        // reducers as the Hadoop configuration does
+        if (numReducers == -1 && getGraphMetadata() != null) {
+        	long graphSize = getGraphMetadata().getTotalSize();
+        	numReducers = (int)Math.max(getConf().getInt("mapreduce.job.reduces", 1),
+        			(graphSize + BYTES_PER_REDUCER - 1) / BYTES_PER_REDUCER);
+        	LOG.info("Using {} reducers for a graph of {} bytes.", numReducers, graphSize);
+        }
         
         // Update configuration
         job.setNumMappers(numMappers);
         job.setNumReducers(numReducers);
+        job.setNumMapThreads(numMapThreads);
+        job.setHotKeySaltFactor(hotKeySaltFactor);
+        job.setPartitionerClass(partitionerClass);
+        job.setLookupThreshold(lookupThreshold);
+        job.setCombinerCapacity(combinerCapacity);
         
         // Run it!
-    	return ToolRunner.run(getConf(), job, args);
+    	int result = ToolRunner.run(getConf(), job, args);
+    	if (result != 0 || !denseIds)
+    		return result;
+    	
+    	// Translate the dense vertex IDs in the output back to the original IDs
+    	new DenseIdTranslation(jobOutputPath, outputPath, inputPath).run();
+    	FileSystem.get(getConf()).delete(new Path(jobOutputPath), true);
+    	return 0;
     }
 
 	/**
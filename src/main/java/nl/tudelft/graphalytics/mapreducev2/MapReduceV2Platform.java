@@ -15,9 +15,13 @@
  */
 package nl.tudelft.graphalytics.mapreducev2;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 
 import nl.tudelft.graphalytics.PlatformExecutionException;
 import nl.tudelft.graphalytics.domain.PlatformBenchmarkResult;
@@ -27,6 +31,7 @@ import org.apache.commons.configuration.PropertiesConfiguration;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.Partitioner;
 import org.apache.hadoop.util.ToolRunner;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -37,8 +42,14 @@ import nl.tudelft.graphalytics.configuration.ConfigurationUtil;
 import nl.tudelft.graphalytics.mapreducev2.bfs.BreadthFirstSearchJobLauncher;
 import nl.tudelft.graphalytics.mapreducev2.cd.CommunityDetectionJobLauncher;
 import nl.tudelft.graphalytics.mapreducev2.conn.ConnectedComponentsJobLauncher;
+import nl.tudelft.graphalytics.mapreducev2.conversion.BatchConversion;
+import nl.tudelft.graphalytics.mapreducev2.conversion.CompactGraphConversion;
+import nl.tudelft.graphalytics.mapreducev2.conversion.DenseIdConversion;
 import nl.tudelft.graphalytics.mapreducev2.conversion.DirectedVertexToAdjacencyListConversion;
 import nl.tudelft.graphalytics.mapreducev2.conversion.EdgesToAdjacencyListConversion;
+import nl.tudelft.graphalytics.mapreducev2.conversion.GraphMetadata;
+import nl.tudelft.graphalytics.mapreducev2.conversion.LocalConversion;
+import nl.tudelft.graphalytics.mapreducev2.conversion.VertexIndexConversion;
 import nl.tudelft.graphalytics.mapreducev2.evo.ForestFireModelJobLauncher;
 import nl.tudelft.graphalytics.mapreducev2.stats.STATSJobLauncher;
 
@@ -69,6 +80,10 @@ public class MapReduceV2Platform implements Platform {
 	public static final String HDFS_DIRECTORY = "graphalytics";
 	
 	private Map<String, String> hdfsPathForGraphName = new HashMap<>();
+	private Map<String, String> localPathForGraphName = new HashMap<>();
+	private Set<String> graphsWithSplitVertices = new HashSet<>();
+	/** Uploaded graphs that have not been converted yet, if batch conversion is enabled. */
+	private Map<String, Graph> pendingConversions = new LinkedHashMap<>();
 	
 	private org.apache.commons.configuration.Configuration mrConfig;
 
@@ -93,11 +108,81 @@ public class MapReduceV2Platform implements Platform {
 		
 		String hdfsPathRaw = hdfsDirectory + "/mapreducev2/input/raw-" + graph.getName();
 		String hdfsPath = hdfsDirectory + "/mapreducev2/input/" + graph.getName();
+		localPathForGraphName.put(graph.getName(), graphFilePath);
 		
-		// Establish a connection with HDFS and upload the graph
+		// Establish a connection with HDFS
 		Configuration conf = new Configuration();
 		FileSystem dfs = FileSystem.get(conf);
-		dfs.copyFromLocalFile(new Path(graphFilePath), new Path(hdfsPathRaw));
+		
+		// Reuse the graph uploaded by an earlier run if neither the graph file nor the conversion changed since
+		GraphCatalog catalog = getCatalog();
+		if (catalog != null) {
+			GraphCatalog.Entry entry = catalog.lookup(graph.getName(), new File(graphFilePath),
+					getConversionOptions(graph));
+			if (entry != null) {
+				log.info("Reusing graph {} uploaded to {} by an earlier run.", graph.getName(), entry.getGraphPath());
+				if (entry.hasSplitVertices())
+					graphsWithSplitVertices.add(graph.getName());
+				hdfsPathForGraphName.put(graph.getName(), entry.getGraphPath());
+				buildVertexIndex(entry.getGraphPath());
+				buildDenseGraph(graph, entry.getGraphPath());
+				buildCompactGraphs(graph, entry.getGraphPath());
+				log.exit();
+				return;
+			}
+			
+			// Remove the outdated upload of the graph, if any
+			catalog.remove(graph.getName());
+			dfs.delete(new Path(hdfsPathRaw), true);
+			dfs.delete(new Path(hdfsPath), true);
+		}
+		
+		// Convert small graphs locally and write the converted graph directly to HDFS
+		boolean needsConversion = graph.getGraphFormat().isEdgeBased() || graph.getGraphFormat().isDirected();
+		long localConversionThreshold = mrConfig.getLong("mapreducev2.local-conversion-threshold", 0L);
+		if (needsConversion && localConversionThreshold > 0 &&
+				new File(graphFilePath).length() <= localConversionThreshold) {
+			try {
+				LocalConversion job = new LocalConversion(graphFilePath, hdfsPath, getConversionFormat(graph));
+				if (mrConfig.containsKey("mapreducev2.reducer-count"))
+					job.withNumberOfReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+				if (mrConfig.containsKey("mapreducev2.hub-split-threshold")) {
+					job.withHubSplitThreshold(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.hub-split-threshold"));
+					graphsWithSplitVertices.add(graph.getName());
+				}
+				job.run();
+			} catch (Exception e) {
+				throw new IOException("Failed to preprocess graph: ", e);
+			}
+			hdfsPathForGraphName.put(graph.getName(), hdfsPath);
+			finishUpload(graph);
+			log.exit();
+			return;
+		}
+		
+		// Upload the graph
+		int uploadThreads = mrConfig.getInt("mapreducev2.upload-threads", 1);
+		if (uploadThreads > 1) {
+			// Upload the graph as multiple part files in parallel, keeping the edges of a source vertex together
+			ChunkedUpload upload = new ChunkedUpload(graphFilePath, hdfsPathRaw)
+					.withNumberOfThreads(uploadThreads)
+					.withSourceAlignedChunks(graph.getGraphFormat().isEdgeBased());
+			if (mrConfig.containsKey("mapreducev2.upload-chunk-size"))
+				upload.withChunkSize(mrConfig.getLong("mapreducev2.upload-chunk-size"));
+			upload.run();
+		} else {
+			dfs.copyFromLocalFile(new Path(graphFilePath), new Path(hdfsPathRaw));
+		}
+		
+		// Defer the conversion of the graph if graphs are converted in batches
+		if (needsConversion && mrConfig.getBoolean("mapreducev2.batch-conversion", false)) {
+			if (mrConfig.containsKey("mapreducev2.hub-split-threshold"))
+				graphsWithSplitVertices.add(graph.getName());
+			pendingConversions.put(graph.getName(), graph);
+			hdfsPathForGraphName.put(graph.getName(), hdfsPath);
+			log.exit();
+			return;
+		}
 		
 		// If the graph needs to be preprocessed, do so, otherwise rename it
 		if (graph.getGraphFormat().isEdgeBased()) {
@@ -105,6 +190,11 @@ public class MapReduceV2Platform implements Platform {
 				EdgesToAdjacencyListConversion job = new EdgesToAdjacencyListConversion(hdfsPathRaw, hdfsPath, graph.getGraphFormat().isDirected());
 				if (mrConfig.containsKey("mapreducev2.reducer-count"))
 					job.withNumberOfReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+				if (mrConfig.containsKey("mapreducev2.hub-split-threshold")) {
+					job.withHubSplitThreshold(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.hub-split-threshold"));
+					graphsWithSplitVertices.add(graph.getName());
+				}
+				job.withSortedInput(mrConfig.getBoolean("mapreducev2.sorted-edges", false));
 				job.run();
 			} catch (Exception e) {
 				throw new IOException("Failed to preprocess graph: ", e);
@@ -115,6 +205,10 @@ public class MapReduceV2Platform implements Platform {
 						new DirectedVertexToAdjacencyListConversion(hdfsPathRaw, hdfsPath);
 				if (mrConfig.containsKey("mapreducev2.reducer-count"))
 					job.withNumberOfReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+				if (mrConfig.containsKey("mapreducev2.hub-split-threshold")) {
+					job.withHubSplitThreshold(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.hub-split-threshold"));
+					graphsWithSplitVertices.add(graph.getName());
+				}
 				job.run();
 			} catch (Exception e) {
 				throw new IOException("Failed to preprocess graph: ", e);
@@ -125,25 +219,210 @@ public class MapReduceV2Platform implements Platform {
 		}
 		
 		hdfsPathForGraphName.put(graph.getName(), hdfsPath);
+		finishUpload(graph);
+		log.exit();
+	}
+
+	/**
+	 * Converts all graphs that were uploaded since the last call in a single job, if batch conversion is enabled
+	 * (mapreducev2.batch-conversion). This avoids the startup overhead of one conversion job per graph. Graphs that
+	 * are still pending when an algorithm is executed on them are converted together with all other pending graphs
+	 * at that time.
+	 *
+	 * @throws IOException if the conversion fails
+	 */
+	public void convertPendingGraphs() throws IOException {
+		if (pendingConversions.isEmpty())
+			return;
+		log.entry(pendingConversions.keySet());
+		
+		BatchConversion job = new BatchConversion(hdfsDirectory + "/mapreducev2/intermediate/batch-conversion");
+		for (Graph graph : pendingConversions.values()) {
+			job.withGraph(hdfsDirectory + "/mapreducev2/input/raw-" + graph.getName(),
+					hdfsPathForGraphName.get(graph.getName()), getConversionFormat(graph));
+		}
+		if (mrConfig.containsKey("mapreducev2.reducer-count"))
+			job.withNumberOfReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+		if (mrConfig.containsKey("mapreducev2.hub-split-threshold"))
+			job.withHubSplitThreshold(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.hub-split-threshold"));
+		try {
+			job.run();
+		} catch (Exception e) {
+			throw new IOException("Failed to preprocess graphs: ", e);
+		}
+		
+		for (Graph graph : pendingConversions.values()) {
+			finishUpload(graph);
+		}
+		pendingConversions.clear();
 		log.exit();
 	}
 
+	/**
+	 * @return the format of a graph that needs to be converted
+	 */
+	private static BatchConversion.Format getConversionFormat(Graph graph) {
+		if (graph.getGraphFormat().isEdgeBased())
+			return (graph.getGraphFormat().isDirected() ?
+					BatchConversion.Format.DIRECTED_EDGES :
+					BatchConversion.Format.UNDIRECTED_EDGES);
+		return BatchConversion.Format.DIRECTED_VERTICES;
+	}
+
+	/**
+	 * @return a description of the options that affect the uploaded version of a graph, for the graph catalog
+	 */
+	private String getConversionOptions(Graph graph) {
+		return "edge-based=" + graph.getGraphFormat().isEdgeBased() +
+				",directed=" + graph.getGraphFormat().isDirected() +
+				",reducer-count=" + mrConfig.getString("mapreducev2.reducer-count", "") +
+				",hub-split-threshold=" + mrConfig.getString("mapreducev2.hub-split-threshold", "");
+	}
+
+	/**
+	 * @return the catalog of uploaded graphs, or null if graphs are not reused across runs
+	 */
+	private GraphCatalog getCatalog() throws IOException {
+		if (!mrConfig.getBoolean("mapreducev2.graph-catalog", false))
+			return null;
+		return new GraphCatalog(FileSystem.get(new Configuration()), new Path(hdfsDirectory + "/mapreducev2/catalog"));
+	}
+
+	/**
+	 * Reports the statistics of an uploaded graph, builds its vertex index, dense ID version and compact copies if
+	 * requested, and records it in the graph catalog if enabled.
+	 */
+	private void finishUpload(Graph graph) throws IOException {
+		// Report the statistics of converted graphs
+		String hdfsPath = hdfsPathForGraphName.get(graph.getName());
+		FileSystem dfs = FileSystem.get(new Configuration());
+		GraphMetadata metadata = GraphMetadata.read(dfs, new Path(hdfsPath));
+		if (metadata != null)
+			log.info("Graph {} has {} vertices and {} edges, with vertex IDs in [{}, {}].", graph.getName(),
+					metadata.getNumVertices(), metadata.getNumEdges(), metadata.getMinVertexId(),
+					metadata.getMaxVertexId());
+		
+		buildVertexIndex(hdfsPath);
+		buildDenseGraph(graph, hdfsPath);
+		buildCompactGraphs(graph, hdfsPath);
+		
+		GraphCatalog catalog = getCatalog();
+		if (catalog != null)
+			catalog.put(graph.getName(), new File(localPathForGraphName.get(graph.getName())),
+					getConversionOptions(graph), hdfsPath, graphsWithSplitVertices.contains(graph.getName()));
+	}
+
+	/**
+	 * Builds an index of the vertex records of a graph for random access, if requested and not built yet.
+	 */
+	private void buildVertexIndex(String hdfsPath) throws IOException {
+		FileSystem dfs = FileSystem.get(new Configuration());
+		if (mrConfig.getBoolean("mapreducev2.vertex-index", false) && !VertexIndex.exists(dfs, new Path(hdfsPath))) {
+			try {
+				VertexIndexConversion job = new VertexIndexConversion(hdfsPath);
+				if (mrConfig.containsKey("mapreducev2.reducer-count"))
+					job.withNumberOfReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+				job.run();
+			} catch (Exception e) {
+				throw new IOException("Failed to index graph: ", e);
+			}
+		}
+	}
+
+	/**
+	 * Builds a version of a converted graph with dense vertex IDs, if requested and not built yet. Graphs that were
+	 * not converted, i.e. undirected vertex-based graphs, have no metadata to assign the IDs with and are skipped.
+	 */
+	private void buildDenseGraph(Graph graph, String hdfsPath) throws IOException {
+		FileSystem dfs = FileSystem.get(new Configuration());
+		if (!mrConfig.getBoolean("mapreducev2.dense-ids", false) ||
+				DenseIdConversion.exists(dfs, new Path(hdfsPath)) ||
+				GraphMetadata.read(dfs, new Path(hdfsPath)) == null)
+			return;
+		try {
+			DenseIdConversion job = new DenseIdConversion(hdfsPath, graph.getGraphFormat().isDirected());
+			if (mrConfig.containsKey("mapreducev2.reducer-count"))
+				job.withNumberOfReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+			if (mrConfig.containsKey("mapreducev2.hub-split-threshold"))
+				job.withHubSplitThreshold(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.hub-split-threshold"));
+			job.run();
+		} catch (Exception e) {
+			throw new IOException("Failed to assign dense vertex IDs to graph: ", e);
+		}
+	}
+
+	/**
+	 * Stores a compact copy of a converted graph, and of its dense ID version if it has one, if requested and not
+	 * stored yet. Graphs that were not converted, i.e. undirected vertex-based graphs, are not in the canonical
+	 * record format of the compact encoding and are skipped.
+	 */
+	private void buildCompactGraphs(Graph graph, String hdfsPath) throws IOException {
+		FileSystem dfs = FileSystem.get(new Configuration());
+		if (!mrConfig.getBoolean("mapreducev2.compact-graphs", false) ||
+				GraphMetadata.read(dfs, new Path(hdfsPath)) == null)
+			return;
+		Path denseGraphPath = DenseIdConversion.getDenseGraphPath(new Path(hdfsPath));
+		for (Path graphPath : new Path[] { new Path(hdfsPath), denseGraphPath }) {
+			if (!dfs.exists(graphPath) || CompactGraphConversion.exists(dfs, graphPath))
+				continue;
+			try {
+				new CompactGraphConversion(graphPath.toString(), graph.getGraphFormat().isDirected()).run();
+			} catch (Exception e) {
+				throw new IOException("Failed to store compact graph: ", e);
+			}
+		}
+	}
+
 	public PlatformBenchmarkResult executeAlgorithmOnGraph(Algorithm algorithm, Graph graph, Object parameters)
 			throws PlatformExecutionException {
 		log.entry(algorithm, graph);
 		int result;
 		try {
+			// Convert the graph, and all other pending graphs, if its conversion was deferred
+			if (pendingConversions.containsKey(graph.getName()))
+				convertPendingGraphs();
+			
 			MapReduceJobLauncher job = jobClassesPerAlgorithm.get(algorithm).newInstance();
+			if (graphsWithSplitVertices.contains(graph.getName()) && !job.supportsSplitVertices())
+				throw new PlatformExecutionException("Algorithm " + algorithm + " does not support graphs with " +
+						"split hub vertices, unset mapreducev2.hub-split-threshold to run it.");
 			job.parseGraphData(graph, parameters);
 			job.setInputPath(hdfsPathForGraphName.get(graph.getName()));
+			// Run the algorithm on the graph with dense vertex IDs, if it supports them and the graph has been built
+			Path denseGraphPath = DenseIdConversion.getDenseGraphPath(new Path(hdfsPathForGraphName.get(graph.getName())));
+			if (job.supportsDenseIds() && mrConfig.getBoolean("mapreducev2.dense-ids", false) &&
+					FileSystem.get(new Configuration()).exists(denseGraphPath)) {
+				job.setInputPath(denseGraphPath.toString());
+				job.setDenseIds(true);
+			}
 			job.setIntermediatePath(hdfsDirectory + "/mapreducev2/intermediate/" + algorithm + "-" + graph.getName());
 			job.setOutputPath(hdfsDirectory + "/mapreducev2/output/" + algorithm + "-" + graph.getName());
 			
 			// Set the number of reducers, if specified
 			if (mrConfig.containsKey("mapreducev2.reducer-count"))
 				job.setNumReducers(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.reducer-count"));
+			// Set the number of threads per map task for stateless mappers, if specified
+			if (mrConfig.containsKey("mapreducev2.map-thread-count"))
+				job.setNumMapThreads(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.map-thread-count"));
+			// Set the number of reducers to spread hot keys over, if specified
+			if (mrConfig.containsKey("mapreducev2.hot-key-salt-factor"))
+				job.setHotKeySaltFactor(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.hot-key-salt-factor"));
+			// Set the partitioner, if specified
+			if (mrConfig.containsKey("mapreducev2.partitioner"))
+				job.setPartitionerClass(getPartitionerClass(mrConfig.getString("mapreducev2.partitioner")));
+			// Set the maximum number of vertices to read from the vertex index instead of scanning the graph, if specified
+			if (mrConfig.containsKey("mapreducev2.lookup-threshold"))
+				job.setLookupThreshold(mrConfig.getLong("mapreducev2.lookup-threshold"));
+			// Set the number of destination vertices for which mappers combine messages in memory, if specified
+			if (mrConfig.containsKey("mapreducev2.combiner-capacity"))
+				job.setCombinerCapacity(ConfigurationUtil.getInteger(mrConfig, "mapreducev2.combiner-capacity"));
+			// Set the seed of the forest fire model, if specified
+			if (job instanceof ForestFireModelJobLauncher && mrConfig.containsKey("mapreducev2.evo-seed"))
+				((ForestFireModelJobLauncher)job).setSeed(mrConfig.getLong("mapreducev2.evo-seed"));
 			
 			result = ToolRunner.run(new Configuration(), job, new String[0]);
+		} catch (PlatformExecutionException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new PlatformExecutionException("MapReduce job failed with exception: ", e);
 		}
@@ -153,10 +432,37 @@ public class MapReduceV2Platform implements Platform {
 		return new PlatformBenchmarkResult(NestedConfiguration.empty());
 	}
 
+	@SuppressWarnings("rawtypes")
+	private static Class<? extends Partitioner> getPartitionerClass(String name) throws PlatformExecutionException {
+		switch (name) {
+			case "hash":
+				return null;
+			case "degree-balanced":
+				return DegreeBalancedPartitioner.class;
+			case "total-order":
+				return VertexRangePartitioner.class;
+			default:
+				throw new PlatformExecutionException("Unknown partitioner \"" + name + "\" in mapreducev2.partitioner.");
+		}
+	}
+
 	public void deleteGraph(String graphName) {
-		// TODO Auto-generated method stub
 		log.entry(graphName);
-
+		pendingConversions.remove(graphName);
+		graphsWithSplitVertices.remove(graphName);
+		hdfsPathForGraphName.remove(graphName);
+		localPathForGraphName.remove(graphName);
+		
+		try {
+			// The raw graph is only needed until it is converted. Graphs recorded in the graph catalog are kept, so
+			// later runs can reuse them
+			FileSystem dfs = FileSystem.get(new Configuration());
+			dfs.delete(new Path(hdfsDirectory + "/mapreducev2/input/raw-" + graphName), true);
+			if (getCatalog() == null)
+				dfs.delete(new Path(hdfsDirectory + "/mapreducev2/input/" + graphName), true);
+		} catch (IOException e) {
+			log.warn("Failed to delete graph " + graphName + " from HDFS.", e);
+		}
 		log.exit();
 	}
 	
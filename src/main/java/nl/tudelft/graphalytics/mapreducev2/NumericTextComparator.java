@@ -0,0 +1,100 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Comparator for {@link Text} keys that orders numeric keys (vertex IDs) by their value. Numeric keys sort before
+ * all non-numeric keys, which are ordered by their bytes. Used together with {@link VertexRangePartitioner} to
+ * produce output that is sorted by vertex ID across all reducers.
+ *
+ * @author Tim Hegeman
+ */
+public class NumericTextComparator extends WritableComparator {
+
+	/** Maximum number of digits in a key to be considered numeric, to avoid overflowing a long. */
+	private static final int MAX_DIGITS = 18;
+
+	public NumericTextComparator() {
+		super(Text.class);
+	}
+
+	@Override
+	public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+		int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+		return compareText(b1, s1 + n1, l1 - n1, b2, s2 + n2, l2 - n2);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public int compare(WritableComparable a, WritableComparable b) {
+		Text t1 = (Text)a;
+		Text t2 = (Text)b;
+		return compareText(t1.getBytes(), 0, t1.getLength(), t2.getBytes(), 0, t2.getLength());
+	}
+
+	static int compareText(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		boolean numeric1 = isNumeric(b1, s1, l1);
+		boolean numeric2 = isNumeric(b2, s2, l2);
+		if (numeric1 && numeric2)
+			return Long.compare(parseNumber(b1, s1, l1), parseNumber(b2, s2, l2));
+		else if (numeric1)
+			return -1;
+		else if (numeric2)
+			return 1;
+		else
+			return compareBytes(b1, s1, l1, b2, s2, l2);
+	}
+
+	/**
+	 * @param bytes the UTF-8 bytes of a key
+	 * @param start the offset of the key in the array
+	 * @param length the length of the key
+	 * @return true iff the key is an optional minus sign followed by at most 18 digits
+	 */
+	static boolean isNumeric(byte[] bytes, int start, int length) {
+		int digitsStart = (length > 0 && bytes[start] == '-') ? 1 : 0;
+		int digits = length - digitsStart;
+		if (digits == 0 || digits > MAX_DIGITS)
+			return false;
+		for (int i = start + digitsStart; i < start + length; i++) {
+			if (bytes[i] < '0' || bytes[i] > '9')
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param bytes the UTF-8 bytes of a numeric key, as checked by {@link #isNumeric(byte[], int, int)}
+	 * @param start the offset of the key in the array
+	 * @param length the length of the key
+	 * @return the value of the key
+	 */
+	static long parseNumber(byte[] bytes, int start, int length) {
+		boolean negative = bytes[start] == '-';
+		long value = 0;
+		for (int i = start + (negative ? 1 : 0); i < start + length; i++) {
+			value = value * 10 + (bytes[i] - '0');
+		}
+		return negative ? -value : value;
+	}
+
+}
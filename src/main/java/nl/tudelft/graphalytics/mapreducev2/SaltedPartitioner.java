@@ -0,0 +1,87 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Partitioner;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * Partitioner that spreads the values of a configured set of hot keys over multiple consecutive reducers, and
+ * partitions all other keys like the default hash partitioner. The output for a hot key is thus split over several
+ * reducers, and must be merged by a follow-up job.
+ *
+ * @param <V> the map output value type
+ * @author Tim Hegeman
+ */
+public class SaltedPartitioner<V> implements Partitioner<Text, V> {
+
+	/** Configuration key for the escaped, comma-separated list of hot keys. */
+	public static final String HOT_KEYS_KEY = "mapreducev2.salted-partitioner.hot-keys";
+	/** Configuration key for the number of reducers each hot key is spread over. */
+	public static final String SALT_FACTOR_KEY = "mapreducev2.salted-partitioner.salt-factor";
+
+	private Set<Text> hotKeys;
+	private int saltFactor;
+	private int nextSalt;
+
+	/**
+	 * Stores a set of hot keys and the salt factor in a job configuration.
+	 *
+	 * @param jobConfiguration the job configuration to update
+	 * @param hotKeys the keys to spread over multiple reducers
+	 * @param saltFactor the number of reducers to spread each hot key over
+	 */
+	public static void setHotKeys(JobConf jobConfiguration, Collection<Text> hotKeys, int saltFactor) {
+		String[] escapedKeys = new String[hotKeys.size()];
+		int i = 0;
+		for (Text hotKey : hotKeys) {
+			escapedKeys[i++] = StringUtils.escapeString(hotKey.toString());
+		}
+		jobConfiguration.set(HOT_KEYS_KEY, StringUtils.arrayToString(escapedKeys));
+		jobConfiguration.setInt(SALT_FACTOR_KEY, saltFactor);
+	}
+
+	@Override
+	public void configure(JobConf job) {
+		hotKeys = new HashSet<>();
+		String escapedKeys = job.get(HOT_KEYS_KEY, "");
+		if (!escapedKeys.isEmpty()) {
+			for (String escapedKey : StringUtils.split(escapedKeys)) {
+				hotKeys.add(new Text(StringUtils.unEscapeString(escapedKey)));
+			}
+		}
+		saltFactor = Math.max(1, job.getInt(SALT_FACTOR_KEY, 1));
+		nextSalt = 0;
+	}
+
+	@Override
+	public int getPartition(Text key, V value, int numPartitions) {
+		int partition = (key.hashCode() & Integer.MAX_VALUE) % numPartitions;
+		if (!hotKeys.contains(key))
+			return partition;
+
+		// Assign the values of hot keys to the salted partitions in a round-robin fashion
+		nextSalt = (nextSalt + 1) % saltFactor;
+		return (partition + nextSalt) % numPartitions;
+	}
+
+}
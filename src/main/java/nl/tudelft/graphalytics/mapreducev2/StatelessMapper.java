@@ -0,0 +1,26 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+/**
+ * Marker interface for mappers that keep no state between calls to map, and may thus be invoked
+ * concurrently by multiple threads on a single mapper instance. {@link MapReduceJob} only runs
+ * mappers with a multithreaded map runner if they implement this interface.
+ *
+ * @author Tim Hegeman
+ */
+public interface StatelessMapper {
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Map output key consisting of a vertex ID and a tag, for secondary sorting of the values sent to a vertex. Keys are
+ * sorted by vertex ID and then by tag, but grouped by vertex ID only (see {@link GroupingComparator} and
+ * {@link MapReduceJob#getGroupingComparatorClass()}). As a result, a reducer receives all values sent to a vertex in
+ * a single call, ordered by tag: the vertex record, tagged {@link #VERTEX}, precedes the messages, tagged
+ * {@link #MESSAGE}, so reducers can process messages as they arrive instead of buffering them.
+ *
+ * Vertex IDs are ordered by their bytes, as for {@link Text} keys, and keys are hashed by their vertex ID only, so
+ * the default partitioner assigns vertices to the same reducers as it does for text keys. The vertex partitioners
+ * ({@link DegreeBalancedPartitioner} and {@link VertexRangePartitioner}) likewise partition tagged keys on their
+ * vertex ID; the latter is combined with {@link NumericComparator} to sort keys by the numeric value of their IDs.
+ *
+ * @author Tim Hegeman
+ */
+public class TaggedKey implements WritableComparable<TaggedKey> {
+
+	/** Tag of the record of a vertex, which is sorted before all messages. */
+	public static final byte VERTEX = 0;
+	/** Tag of a message sent to a vertex. */
+	public static final byte MESSAGE = 1;
+
+	private final Text id = new Text();
+	private byte tag;
+
+	static {
+		WritableComparator.define(TaggedKey.class, new Comparator());
+	}
+
+	/**
+	 * @return the vertex ID, which may be modified to reuse the key
+	 */
+	public Text getId() {
+		return id;
+	}
+
+	/**
+	 * @return the tag of the key
+	 */
+	public byte getTag() {
+		return tag;
+	}
+
+	/**
+	 * @param tag the tag of the key
+	 */
+	public void setTag(byte tag) {
+		this.tag = tag;
+	}
+
+	/**
+	 * @param key a map output key that identifies a vertex, either a {@link Text} vertex ID or a tagged key
+	 * @return the vertex ID of the key
+	 */
+	static Text getVertexId(Object key) {
+		return (key instanceof TaggedKey ? ((TaggedKey)key).id : (Text)key);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		id.write(out);
+		out.writeByte(tag);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		id.readFields(in);
+		tag = in.readByte();
+	}
+
+	@Override
+	public int compareTo(TaggedKey other) {
+		int result = id.compareTo(other.id);
+		return (result != 0 ? result : Byte.compare(tag, other.tag));
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		return other instanceof TaggedKey && compareTo((TaggedKey)other) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return id.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return id.toString();
+	}
+
+	/**
+	 * Compares serialized keys by vertex ID and tag, without deserializing them.
+	 */
+	public static class Comparator extends WritableComparator {
+
+		public Comparator() {
+			super(TaggedKey.class);
+		}
+
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			int result = compareIds(b1, s1, l1, b2, s2, l2);
+			return (result != 0 ? result : Byte.compare(b1[s1 + l1 - 1], b2[s2 + l2 - 1]));
+		}
+
+	}
+
+	/**
+	 * Compares serialized keys by the numeric value of their vertex IDs and then by tag, like
+	 * {@link NumericTextComparator} does for text keys. Grouping keys with {@link GroupingComparator} remains valid,
+	 * as all keys of a vertex are still adjacent in this order.
+	 */
+	public static class NumericComparator extends WritableComparator {
+
+		public NumericComparator() {
+			super(TaggedKey.class);
+		}
+
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+			int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+			int result = NumericTextComparator.compareText(b1, s1 + n1, l1 - n1 - 1, b2, s2 + n2, l2 - n2 - 1);
+			return (result != 0 ? result : Byte.compare(b1[s1 + l1 - 1], b2[s2 + l2 - 1]));
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public int compare(WritableComparable a, WritableComparable b) {
+			TaggedKey k1 = (TaggedKey)a;
+			TaggedKey k2 = (TaggedKey)b;
+			int result = NumericTextComparator.compareText(k1.id.getBytes(), 0, k1.id.getLength(),
+					k2.id.getBytes(), 0, k2.id.getLength());
+			return (result != 0 ? result : Byte.compare(k1.tag, k2.tag));
+		}
+
+	}
+
+	/**
+	 * Compares serialized keys by vertex ID only, to group all values sent to a vertex regardless of their tags.
+	 */
+	public static class GroupingComparator extends WritableComparator {
+
+		public GroupingComparator() {
+			super(TaggedKey.class);
+		}
+
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+			return compareIds(b1, s1, l1, b2, s2, l2);
+		}
+
+		@SuppressWarnings("rawtypes")
+		@Override
+		public int compare(WritableComparable a, WritableComparable b) {
+			return ((TaggedKey)a).id.compareTo(((TaggedKey)b).id);
+		}
+
+	}
+
+	private static int compareIds(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+		// A serialized key is a text (length and bytes) followed by the tag
+		int n1 = WritableUtils.decodeVIntSize(b1[s1]);
+		int n2 = WritableUtils.decodeVIntSize(b2[s2]);
+		return WritableComparator.compareBytes(b1, s1 + n1, l1 - n1 - 1, b2, s2 + n2, l2 - n2 - 1);
+	}
+
+}
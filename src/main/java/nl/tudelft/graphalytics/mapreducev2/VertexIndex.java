@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathFilter;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.MapFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+
+/**
+ * Random-access index over the vertex records of a graph, built when the graph is uploaded (see
+ * {@link nl.tudelft.graphalytics.mapreducev2.conversion.VertexIndexConversion}). The index is a set of Hadoop map
+ * files in a hidden directory of the graph, mapping vertex IDs to the text records of the graph, hash partitioned by
+ * vertex ID. Jobs that only need a small set of vertices can read them from the index using
+ * {@link VertexLookupInputFormat} instead of scanning the whole graph.
+ *
+ * @author Tim Hegeman
+ */
+public class VertexIndex implements Closeable {
+
+	/** Name of the index directory within the graph directory. */
+	public static final String DIRECTORY_NAME = "_vertex-index";
+
+	private final MapFile.Reader[] readers;
+	private final HashPartitioner<LongWritable, Text> partitioner = new HashPartitioner<>();
+	private final LongWritable key = new LongWritable();
+
+	/**
+	 * Opens the index of a graph.
+	 *
+	 * @param conf the configuration used to access the file system
+	 * @param graphPath the path of the indexed graph
+	 * @throws IOException if the index could not be opened
+	 */
+	public VertexIndex(Configuration conf, Path graphPath) throws IOException {
+		// Open the map file of each partition, skipping hidden files such as the _SUCCESS marker
+		Path indexPath = getIndexPath(graphPath);
+		FileSystem fs = indexPath.getFileSystem(conf);
+		Path[] partitions = FileUtil.stat2Paths(fs.listStatus(indexPath, new PathFilter() {
+			@Override
+			public boolean accept(Path path) {
+				return !path.getName().startsWith("_") && !path.getName().startsWith(".");
+			}
+		}));
+		Arrays.sort(partitions);
+		this.readers = new MapFile.Reader[partitions.length];
+		for (int i = 0; i < partitions.length; i++) {
+			readers[i] = new MapFile.Reader(partitions[i], conf);
+		}
+	}
+
+	/**
+	 * Looks up the record of a vertex. Lookups are fastest if vertex IDs are looked up in increasing order.
+	 *
+	 * @param vertexId the ID of the vertex to look up
+	 * @param record the record of the vertex, if found
+	 * @return true iff the vertex was found in the index
+	 * @throws IOException if reading the index fails
+	 */
+	public boolean get(long vertexId, Text record) throws IOException {
+		key.set(vertexId);
+		Writable result = MapFileOutputFormat.getEntry(readers, partitioner, key, record);
+		return result != null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		for (MapFile.Reader reader : readers) {
+			reader.close();
+		}
+	}
+
+	/**
+	 * @param graphPath the path of a graph
+	 * @return the path of the index of the graph
+	 */
+	public static Path getIndexPath(Path graphPath) {
+		return new Path(graphPath, DIRECTORY_NAME);
+	}
+
+	/**
+	 * @param dfs the file system containing the graph
+	 * @param graphPath the path of a graph
+	 * @return true iff an index was built for the graph
+	 * @throws IOException if the file system could not be accessed
+	 */
+	public static boolean exists(FileSystem dfs, Path graphPath) throws IOException {
+		return dfs.exists(getIndexPath(graphPath));
+	}
+
+}
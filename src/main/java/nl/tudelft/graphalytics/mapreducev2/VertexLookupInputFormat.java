@@ -0,0 +1,209 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Input format that reads a given set of vertices from the {@link VertexIndex} of the input graph, instead of
+ * scanning the whole graph. The IDs of the vertices to read are stored in a file (see
+ * {@link #writeLookupIds(FileSystem, Path, long[])}), sorted by vertex ID so the lookups of each task visit the
+ * index files in order. Each split covers a contiguous range of the IDs. Records are returned with the vertex ID as
+ * key and the text record of the vertex as value, so mappers written for {@link org.apache.hadoop.mapred.TextInputFormat}
+ * can process them unchanged.
+ *
+ * @author Tim Hegeman
+ */
+public class VertexLookupInputFormat implements InputFormat<LongWritable, Text> {
+
+	/** Configuration key for the path of the file containing the IDs of the vertices to read. */
+	public static final String LOOKUP_IDS_PATH_KEY = "mapreducev2.lookup-ids-path";
+
+	/** Minimum number of lookups per split, to avoid opening the index for only a few vertices. */
+	private static final int MIN_IDS_PER_SPLIT = 1024;
+
+	/**
+	 * Writes the IDs of the vertices to read to a file.
+	 *
+	 * @param dfs the file system to write to
+	 * @param path the file to write
+	 * @param vertexIds the vertex IDs, in increasing order
+	 * @throws IOException if writing the file fails
+	 */
+	public static void writeLookupIds(FileSystem dfs, Path path, long[] vertexIds) throws IOException {
+		try (FSDataOutputStream out = dfs.create(path)) {
+			out.writeLong(vertexIds.length);
+			for (long vertexId : vertexIds) {
+				out.writeLong(vertexId);
+			}
+		}
+	}
+
+	/**
+	 * @param jobConfiguration the configuration of the job reading the vertices
+	 * @param path the file containing the IDs of the vertices to read
+	 */
+	public static void setLookupIds(JobConf jobConfiguration, Path path) {
+		jobConfiguration.set(LOOKUP_IDS_PATH_KEY, path.toString());
+	}
+
+	@Override
+	public InputSplit[] getSplits(JobConf job, int numSplits) throws IOException {
+		Path idsPath = new Path(job.get(LOOKUP_IDS_PATH_KEY));
+		long numIds;
+		try (FSDataInputStream in = idsPath.getFileSystem(job).open(idsPath)) {
+			numIds = in.readLong();
+		}
+
+		// Divide the IDs into contiguous ranges of at least MIN_IDS_PER_SPLIT IDs
+		long maxSplits = (numIds + MIN_IDS_PER_SPLIT - 1) / MIN_IDS_PER_SPLIT;
+		int splitCount = (int)Math.max(1, Math.min(numSplits, maxSplits));
+		List<InputSplit> splits = new ArrayList<>();
+		for (int i = 0; i < splitCount; i++) {
+			long start = numIds * i / splitCount;
+			long end = numIds * (i + 1) / splitCount;
+			if (end > start)
+				splits.add(new LookupSplit(idsPath.toString(), start, end - start));
+		}
+		return splits.toArray(new InputSplit[splits.size()]);
+	}
+
+	@Override
+	public RecordReader<LongWritable, Text> getRecordReader(InputSplit split, JobConf job, Reporter reporter)
+			throws IOException {
+		return new LookupRecordReader((LookupSplit)split, job);
+	}
+
+	/**
+	 * Split covering a contiguous range of the vertex IDs to read.
+	 */
+	public static class LookupSplit implements InputSplit {
+
+		private String idsPath;
+		private long start;
+		private long length;
+
+		public LookupSplit() {
+		}
+
+		public LookupSplit(String idsPath, long start, long length) {
+			this.idsPath = idsPath;
+			this.start = start;
+			this.length = length;
+		}
+
+		@Override
+		public long getLength() {
+			return length;
+		}
+
+		@Override
+		public String[] getLocations() {
+			return new String[0];
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeUTF(idsPath);
+			out.writeLong(start);
+			out.writeLong(length);
+		}
+
+		@Override
+		public void readFields(DataInput in) throws IOException {
+			idsPath = in.readUTF();
+			start = in.readLong();
+			length = in.readLong();
+		}
+
+	}
+
+	private static class LookupRecordReader implements RecordReader<LongWritable, Text> {
+
+		private final long[] vertexIds;
+		private final VertexIndex index;
+		private int position;
+
+		public LookupRecordReader(LookupSplit split, JobConf job) throws IOException {
+			Path idsPath = new Path(split.idsPath);
+			this.vertexIds = new long[(int)split.length];
+			try (FSDataInputStream in = idsPath.getFileSystem(job).open(idsPath)) {
+				in.seek((1 + split.start) * 8);
+				for (int i = 0; i < vertexIds.length; i++) {
+					vertexIds[i] = in.readLong();
+				}
+			}
+			this.index = new VertexIndex(job, new Path(job.get(MapReduceJob.GRAPH_PATH_KEY)));
+			this.position = 0;
+		}
+
+		@Override
+		public boolean next(LongWritable key, Text value) throws IOException {
+			// Skip vertices that are not in the graph
+			while (position < vertexIds.length) {
+				long vertexId = vertexIds[position++];
+				if (index.get(vertexId, value)) {
+					key.set(vertexId);
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public LongWritable createKey() {
+			return new LongWritable();
+		}
+
+		@Override
+		public Text createValue() {
+			return new Text();
+		}
+
+		@Override
+		public long getPos() {
+			return position;
+		}
+
+		@Override
+		public float getProgress() {
+			return vertexIds.length == 0 ? 1.0f : (float)position / vertexIds.length;
+		}
+
+		@Override
+		public void close() throws IOException {
+			index.close();
+		}
+
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Partitioner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import nl.tudelft.graphalytics.mapreducev2.conversion.VertexIdSample;
+
+/**
+ * Total-order partitioner that assigns contiguous ranges of vertex IDs to reducers. Split points are chosen from the
+ * {@link VertexIdSample} of the input graph, so each reducer receives a similar number of vertices. Combined with
+ * {@link NumericTextComparator} (or {@link TaggedKey.NumericComparator} for tagged keys), the part files of a job are
+ * sorted by vertex ID, and part file <i>i</i> only contains IDs smaller than those in part file <i>i + 1</i>.
+ * Non-numeric keys are sent to the last reducer. Falls back to hash partitioning if the input graph has no vertex ID
+ * sample.
+ *
+ * @param <K> the map output key type, either {@link Text} vertex IDs or {@link TaggedKey}s
+ * @param <V> the map output value type
+ * @author Tim Hegeman
+ */
+public class VertexRangePartitioner<K, V> implements Partitioner<K, V> {
+	private static final Logger LOG = LogManager.getLogger();
+
+	private long[] splitPoints;
+
+	@Override
+	public void configure(JobConf job) {
+		splitPoints = null;
+		String graphPath = job.get(MapReduceJob.GRAPH_PATH_KEY);
+		if (graphPath == null)
+			return;
+
+		try {
+			long[] sample = VertexIdSample.read(FileSystem.get(job), new Path(graphPath));
+			if (sample != null && sample.length > 0)
+				splitPoints = selectSplitPoints(sample, job.getNumReduceTasks());
+			else
+				LOG.warn("No vertex ID sample found for graph {}, using hash partitioning.", graphPath);
+		} catch (IOException e) {
+			LOG.warn("Failed to read vertex ID sample, using hash partitioning.", e);
+		}
+	}
+
+	/**
+	 * @param sortedSample a sorted sample of vertex IDs
+	 * @param numReducers the number of reducers
+	 * @return the smallest vertex ID of every reducer but the first
+	 */
+	static long[] selectSplitPoints(long[] sortedSample, int numReducers) {
+		long[] splitPoints = new long[numReducers - 1];
+		for (int i = 1; i < numReducers; i++) {
+			splitPoints[i - 1] = sortedSample[(int)((long)i * sortedSample.length / numReducers)];
+		}
+		return splitPoints;
+	}
+
+	@Override
+	public int getPartition(K key, V value, int numPartitions) {
+		Text vertexId = TaggedKey.getVertexId(key);
+		if (splitPoints == null || splitPoints.length != numPartitions - 1)
+			return (vertexId.hashCode() & Integer.MAX_VALUE) % numPartitions;
+
+		byte[] bytes = vertexId.getBytes();
+		if (!NumericTextComparator.isNumeric(bytes, 0, vertexId.getLength()))
+			return numPartitions - 1;
+
+		// Find the number of split points less than or equal to the vertex ID
+		long id = NumericTextComparator.parseNumber(bytes, 0, vertexId.getLength());
+		int index = Arrays.binarySearch(splitPoints, id);
+		if (index >= 0) {
+			// Skip over duplicate split points
+			while (index + 1 < splitPoints.length && splitPoints[index + 1] == id)
+				index++;
+			return index + 1;
+		} else {
+			return -(index + 1);
+		}
+	}
+
+}
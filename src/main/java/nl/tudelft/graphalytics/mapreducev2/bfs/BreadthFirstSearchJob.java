@@ -42,12 +42,23 @@ import static nl.tudelft.graphalytics.mapreducev2.bfs.BreadthFirstSearchConfigur
 public class BreadthFirstSearchJob extends MapReduceJob<BreadthFirstSearchParameters> {
 	
 	private boolean directed;
+	private long sourceVertex;
 	private boolean finished = false;
 	
 	public BreadthFirstSearchJob(String inputPath, String intermediatePath,
 			String outputPath, BreadthFirstSearchParameters parameters, boolean directed) {
+		this(inputPath, intermediatePath, outputPath, parameters, directed, parameters.getSourceVertex());
+	}
+	
+	/**
+	 * @param sourceVertex the ID of the source vertex in the input graph, which differs from the source vertex in the
+	 *                     parameters if the input graph has dense vertex IDs
+	 */
+	public BreadthFirstSearchJob(String inputPath, String intermediatePath,
+			String outputPath, BreadthFirstSearchParameters parameters, boolean directed, long sourceVertex) {
 		super(inputPath, intermediatePath, outputPath, parameters);
 		this.directed = directed;
+		this.sourceVertex = sourceVertex;
 	}
 
 	@Override
@@ -104,7 +115,7 @@ public class BreadthFirstSearchJob extends MapReduceJob<BreadthFirstSearchParame
 	@Override
 	protected void setConfigurationParameters(JobConf jobConfiguration) {
 		super.setConfigurationParameters(jobConfiguration);
-		jobConfiguration.set(SOURCE_VERTEX_KEY, Long.toString(getParameters().getSourceVertex()));
+		jobConfiguration.set(SOURCE_VERTEX_KEY, Long.toString(sourceVertex));
 	}
 
 	@Override
@@ -33,11 +33,23 @@ public class BreadthFirstSearchJobLauncher extends MapReduceJobLauncher {
 
 	@Override
 	protected MapReduceJob<?> createDirectedJob(String input, String intermediate, String output) {
-		return new BreadthFirstSearchJob(input, intermediate, output, getParameters(), true);
+		return new BreadthFirstSearchJob(input, intermediate, output, getParameters(), true,
+				toDenseId(getParameters().getSourceVertex()));
 	}
 
 	@Override
 	protected MapReduceJob<?> createUndirectedJob(String input, String intermediate, String output) {
-		return new BreadthFirstSearchJob(input, intermediate, output, getParameters(), false);
+		return new BreadthFirstSearchJob(input, intermediate, output, getParameters(), false,
+				toDenseId(getParameters().getSourceVertex()));
+	}
+
+	@Override
+	public boolean supportsSplitVertices() {
+		return true;
+	}
+
+	@Override
+	public boolean supportsDenseIds() {
+		return true;
 	}
 }
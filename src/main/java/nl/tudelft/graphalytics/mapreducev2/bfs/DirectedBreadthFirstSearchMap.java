@@ -18,12 +18,13 @@ package nl.tudelft.graphalytics.mapreducev2.bfs;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.*;
+import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
 import nl.tudelft.graphalytics.mapreducev2.bfs.BreadthFirstSearchConfiguration.NODE_STATUS;
-import nl.tudelft.graphalytics.mapreducev2.common.DirectedNode;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
+import nl.tudelft.graphalytics.mapreducev2.common.MessageCombiner;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 /**
  * @author Marcin Biczak
@@ -31,71 +32,65 @@ import java.util.StringTokenizer;
 public class DirectedBreadthFirstSearchMap extends MapReduceBase
         implements Mapper<LongWritable, Text, Text, Text> {
 	
-    private String srcId;
+    private static final byte[] VISITED_SEPARATOR = { '\t', '$' };
+
+    private long srcId;
+    private final NodeView node = new NodeView();
     private Text id = new Text();
-    private Text dst = new Text();
     private final Text zero = new Text("0");
-    private Text outputValue = new Text("1");
+    private Text outputValue = new Text();
+    private MessageCombiner distances;
     
     public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter)
             throws IOException {
-        String recordString = value.toString();
-        StringTokenizer tokenizer = new StringTokenizer(recordString, "$");
-        if(tokenizer.countTokens() == 1) { // node record
-            DirectedNode node = new DirectedNode();
-            node.readFields(recordString);
-            this.id.set(node.getId());
-
+        int stateStart = node.readDirected(value);
+        node.copyIdTo(this.id);
+        if(stateStart == value.getLength()) { // node record
             // init BFS by SRC_NODE
-            if(node.getId().equals(srcId)) {
+            if(node.getId() == srcId) {
                 reporter.incrCounter(NODE_STATUS.VISITED, 1);
-                for(Edge edge : node.getOutEdges()) {
-                    dst.set(edge.getDest());
-                    output.collect(this.dst, outputValue);
+                for(int i = 0; i < node.getNumOutgoing(); i++) {
+                    distances.collect(node.getOutgoing(i), 1, output);
                 }
                 output.collect(this.id, zero);
             }
 
-            output.collect(this.id, node.toText());
+            node.toDirectedText(outputValue);
+            output.collect(this.id, outputValue);
         } else { // visited node record
             // check if node should propagate bfs
-            String nodeString = tokenizer.nextToken();
-            String dst = tokenizer.nextToken();
-            if(dst.startsWith("T")) { //propagate bfs msg
+            if(stateStart + 1 < value.getLength() && value.getBytes()[stateStart + 1] == 'T') { //propagate bfs msg
                 // mark that iteration should continue, since nodes are still propagating bfs msgs
                 reporter.incrCounter(NODE_STATUS.VISITED, 1);
 
-                DirectedNode node = new DirectedNode();
-                node.readFields(nodeString);
-
-                this.id.set(node.getId());
-                StringTokenizer dstTokenizer = new StringTokenizer(dst, " ");
-                dstTokenizer.nextToken();
-                int distance = Integer.parseInt(dstTokenizer.nextToken());
-                distance++;
+                // the state is "T distance"
+                long distance = RecordParser.parseLong(value.getBytes(), stateStart + 3, value.getLength());
 
                 // propagate bfs
-                for(Edge edge : node.getOutEdges()) {
-                    this.dst.set(edge.getDest());
-                    outputValue.set(String.valueOf(distance));
-                    output.collect(this.dst, outputValue);
+                for(int i = 0; i < node.getNumOutgoing(); i++) {
+                    distances.collect(node.getOutgoing(i), distance + 1, output);
                 }
 
                 // pass itself
-                outputValue.set(node.toText()+"\t$"+ --distance);
+                node.toDirectedText(outputValue);
+                outputValue.append(VISITED_SEPARATOR, 0, VISITED_SEPARATOR.length);
+                node.appendNumber(outputValue, distance);
                 output.collect(this.id, outputValue);
 
             } else { // already visited node
-                DirectedNode node = new DirectedNode();
-                node.readFields(nodeString);
-                this.id.set(node.getId());
                 output.collect(this.id, value);
             }
         }
     }
 
     public void configure(JobConf job) {
-        srcId = job.get(BreadthFirstSearchConfiguration.SOURCE_VERTEX_KEY);
+        srcId = Long.parseLong(job.get(BreadthFirstSearchConfiguration.SOURCE_VERTEX_KEY));
+        // a vertex only needs the smallest distance it is sent
+        distances = new MessageCombiner(job.getInt(MapReduceJob.COMBINER_CAPACITY_KEY, 0), MessageCombiner.MIN);
+    }
+
+    public void close() throws IOException {
+        distances.close();
     }
 }
 
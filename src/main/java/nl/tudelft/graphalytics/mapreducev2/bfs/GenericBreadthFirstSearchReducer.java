@@ -23,13 +23,19 @@ import org.apache.hadoop.mapred.Reducer;
 import org.apache.hadoop.mapred.Reporter;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /*
     GETS:
     - normal filtered node record pattern
     - distance (int wrapped in Text)
     - normal filtered node record pattern + "\t$distance"
+
+    A vertex may be split into multiple node records with the same id (see the hub split
+    threshold of the conversion jobs); all records of a vertex are emitted with the same state,
+    so they are buffered until all distances have been read.
  */
 
 /**
@@ -51,6 +57,7 @@ public class GenericBreadthFirstSearchReducer extends MapReduceBase
         boolean isFirst = true;
         int dst = 0;
         distance = new String();
+        List<String> nodeRecords = new ArrayList<String>();
         while (values.hasNext()) {
             String value = values.next().toString();
             if(value.indexOf("\t") == -1) { // distance
@@ -64,19 +71,23 @@ public class GenericBreadthFirstSearchReducer extends MapReduceBase
                     dst = potentialMinDst;
 
             } else if(value.indexOf("$") != -1) { // already visited node
-                outputVal.set(value);
+                nodeRecords.add(value);
                 isVisited = true;
                 //output.collect(null, outputVal);
             } else { // not visited node
-                outputVal.set(value);
+                nodeRecords.add(value);
             }
         }
 
         if(!distance.isEmpty() && !isVisited) {
             distance = new String("\t$T " + dst);
-            outputVal.append(distance.getBytes(), 0, distance.length());
+        } else {
+            distance = "";
         }
 
-        output.collect(null, outputVal);
+        for(String nodeRecord : nodeRecords) {
+            outputVal.set(nodeRecord + distance);
+            output.collect(null, outputVal);
+        }
     }
 }
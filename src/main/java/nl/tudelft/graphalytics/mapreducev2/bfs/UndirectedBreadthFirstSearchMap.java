@@ -18,12 +18,13 @@ package nl.tudelft.graphalytics.mapreducev2.bfs;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.*;
+import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
 import nl.tudelft.graphalytics.mapreducev2.bfs.BreadthFirstSearchConfiguration.NODE_STATUS;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNode;
+import nl.tudelft.graphalytics.mapreducev2.common.MessageCombiner;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 /*
     GETS:
@@ -38,68 +39,57 @@ import java.util.StringTokenizer;
  */
 public class UndirectedBreadthFirstSearchMap extends MapReduceBase
         implements Mapper<LongWritable, Text, Text, Text> {
+    private static final byte[] VISITED_SEPARATOR = { '\t', '$' };
+
     private long srcId;
+    private final NodeView node = new NodeView();
     private Text id = new Text();
-    private Text dst = new Text();
     private final Text zero = new Text("0");
-    private Text outputValue = new Text("1");
+    private Text outputValue = new Text();
+    private MessageCombiner distances;
     private int counter = 0;
 
     public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter)
             throws IOException {
-        String recordString = value.toString();
-
         counter++;
         if(counter % 10000 == 0)
             reporter.progress();
 
-        StringTokenizer tokenizer = new StringTokenizer(recordString, "$");
-        if(tokenizer.countTokens() == 1) { // node record
-            UndirectedNode node = new UndirectedNode();
-            node.readFields(recordString);
-            this.id.set(node.getId());
-
+        int stateStart = node.readUndirected(value);
+        node.copyIdTo(this.id);
+        if(stateStart == value.getLength()) { // node record
             // init BFS by SRC_NODE
-            if(this.id.toString().equals(Long.toString(srcId))) {
+            if(node.getId() == srcId) {
                 reporter.incrCounter(NODE_STATUS.VISITED, 1);
-                for(Edge edge : node.getEdges()) {
-                    dst.set(edge.getDest());
-                    output.collect(this.dst, outputValue);
+                for(int i = 0; i < node.getNumOutgoing(); i++) {
+                    distances.collect(node.getOutgoing(i), 1, output);
                 }
                 output.collect(this.id, zero);
             }
 
-            output.collect(this.id, node.toText());
+            node.toUndirectedText(outputValue);
+            output.collect(this.id, outputValue);
         } else { // visited node record
             // check if node should propagate bfs
-            String nodeString = tokenizer.nextToken();
-            String dst = tokenizer.nextToken();
-            if(dst.startsWith("T")) { //propagate bfs msg
+            if(stateStart + 1 < value.getLength() && value.getBytes()[stateStart + 1] == 'T') { //propagate bfs msg
                 // mark that iteration should continue, since nodes are still propagating bfs msgs
                 reporter.incrCounter(NODE_STATUS.VISITED, 1);
 
-                UndirectedNode node = new UndirectedNode();
-                node.readFields(nodeString);
-                this.id.set(node.getId());
-                StringTokenizer dstTokenizer = new StringTokenizer(dst, " ");
-                dstTokenizer.nextToken();
-                long distance = Long.parseLong(dstTokenizer.nextToken());
+                // the state is "T distance"
+                long distance = RecordParser.parseLong(value.getBytes(), stateStart + 3, value.getLength());
 
                 // propagate bfs (this vertex's distance plus one)
-	            outputValue.set(String.valueOf(distance + 1));
-                for(Edge edge : node.getEdges()) {
-                    this.dst.set(edge.getDest());
-                    output.collect(this.dst, outputValue);
+                for(int i = 0; i < node.getNumOutgoing(); i++) {
+                    distances.collect(node.getOutgoing(i), distance + 1, output);
                 }
 
                 // pass itself
-                outputValue.set(node.toText()+"\t$"+ distance);
+                node.toUndirectedText(outputValue);
+                outputValue.append(VISITED_SEPARATOR, 0, VISITED_SEPARATOR.length);
+                node.appendNumber(outputValue, distance);
                 output.collect(this.id, outputValue);
 
             } else { // already visited node
-                UndirectedNode node = new UndirectedNode();
-                node.readFields(nodeString);
-                this.id.set(node.getId());
                 output.collect(this.id, value);
             }
         }
@@ -107,5 +97,11 @@ public class UndirectedBreadthFirstSearchMap extends MapReduceBase
 
     public void configure(JobConf job) {
         srcId = Long.parseLong(job.get(BreadthFirstSearchConfiguration.SOURCE_VERTEX_KEY));
+        // a vertex only needs the smallest distance it is sent
+        distances = new MessageCombiner(job.getInt(MapReduceJob.COMBINER_CAPACITY_KEY, 0), MessageCombiner.MIN);
+    }
+
+    public void close() throws IOException {
+        distances.close();
     }
 }
@@ -18,6 +18,7 @@ package nl.tudelft.graphalytics.mapreducev2.cd;
 import java.io.IOException;
 
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.RawComparator;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.Counters;
 import org.apache.hadoop.mapred.InputFormat;
@@ -30,6 +31,7 @@ import org.apache.hadoop.mapred.TextInputFormat;
 import org.apache.hadoop.mapred.TextOutputFormat;
 import nl.tudelft.graphalytics.domain.algorithms.CommunityDetectionParameters;
 import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
+import nl.tudelft.graphalytics.mapreducev2.TaggedKey;
 import nl.tudelft.graphalytics.mapreducev2.cd.CommunityDetectionConfiguration.LABEL_STATUS;
 
 import static nl.tudelft.graphalytics.mapreducev2.cd.CommunityDetectionConfiguration.HOP_ATTENUATION;
@@ -53,7 +55,7 @@ public class CommunityDetectionJob extends MapReduceJob<CommunityDetectionParame
 
 	@Override
 	protected Class<?> getMapOutputKeyClass() {
-		return Text.class;
+		return TaggedKey.class;
 	}
 
 	@Override
@@ -99,6 +101,13 @@ public class CommunityDetectionJob extends MapReduceJob<CommunityDetectionParame
 				UndirectedCambridgeLPAReducer.class);
 	}
 
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected Class<? extends RawComparator> getGroupingComparatorClass() {
+		// The reducers expect the vertex record before the label messages
+		return TaggedKey.GroupingComparator.class;
+	}
+
 	@Override
 	protected boolean isFinished() {
 		return finished || getIteration() >= getParameters().getMaxIterations();
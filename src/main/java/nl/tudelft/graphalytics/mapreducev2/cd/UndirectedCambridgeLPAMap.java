@@ -21,11 +21,12 @@ import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNode;
+import nl.tudelft.graphalytics.mapreducev2.StatelessMapper;
+import nl.tudelft.graphalytics.mapreducev2.TaggedKey;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 /**
 Towards Real-Time Community Detection in Large Networks
@@ -37,45 +38,59 @@ Ian X.Y. Leung,Pan Hui,Pietro Li,and Jon Crowcroft
  * @author Marcin Biczak
  */
 public class UndirectedCambridgeLPAMap extends MapReduceBase
-        implements Mapper<LongWritable, Text, Text, Text> {
-    private Text oKey = new Text();
-    private Text oVal = new Text();
+        implements Mapper<LongWritable, Text, TaggedKey, Text>, StatelessMapper {
 
-    public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter)
-            throws IOException {
-        String record = value.toString();
-        UndirectedNode node = new UndirectedNode();
-        String label;
-        String labelScore; // init label score
+    private static final byte[] SEPARATOR = { '|' };
+    private static final byte[] INITIAL_SCORE = { '|', '1' };
+    private static final byte[] LABEL_SEPARATOR = { '$' };
+
+    /** View of the vertex record, reused for all records mapped by a thread. */
+    private final ThreadLocal<NodeView> nodeView = new ThreadLocal<NodeView>() {
+        @Override
+        protected NodeView initialValue() {
+            return new NodeView();
+        }
+    };
 
+    public void map(LongWritable key, Text value, OutputCollector<TaggedKey, Text> output, Reporter reporter)
+            throws IOException {
+        NodeView node = nodeView.get();
+        TaggedKey oKey = new TaggedKey();
+        Text oVal = new Text();
+        Text label = new Text();
         /* read vertex data */
+        int stateStart = node.readUndirected(value);
         // init iteration
-        if(record.indexOf("$") == -1) {
-            node.readFields(record);
-            label = new String(node.getId());
-            labelScore = new String("1");
+        if(stateStart == value.getLength()) {
+            node.copyIdTo(label);
+            oVal.set(label);
+            oVal.append(INITIAL_SCORE, 0, INITIAL_SCORE.length);
         }
-        // N iteration
+        // N iteration: "label|labelScore"
         else {
-            StringTokenizer tokenizer = new StringTokenizer(record, "$");
-            String nodeData = tokenizer.nextToken();
-            node.readFields(nodeData);
-
-            StringTokenizer labelTokenizer = new StringTokenizer(tokenizer.nextToken(), "|");
-            label = labelTokenizer.nextToken();
-            labelScore = labelTokenizer.nextToken();
+            byte[] bytes = value.getBytes();
+            int labelEnd = RecordParser.indexOf(bytes, stateStart + 1, value.getLength(), '|');
+            int scoreEnd = RecordParser.indexOf(bytes, labelEnd + 1, value.getLength(), '|');
+            label.set(bytes, stateStart + 1, labelEnd - stateStart - 1);
+            oVal.set(bytes, stateStart + 1, scoreEnd - stateStart - 1);
         }
 
+        oVal.append(SEPARATOR, 0, SEPARATOR.length);
+        node.appendNumber(oVal, node.getNumNeighbours());
+
         // send to neighbours
-        oVal.set(label+"|"+labelScore+"|"+node.getEdges().size());
-        for(Edge edge : node.getEdges()) {
-            oKey.set(edge.getDest());
+        oKey.setTag(TaggedKey.MESSAGE);
+        for(int i = 0; i < node.getNumNeighbours(); i++) {
+            node.copyNeighbourTo(i, oKey.getId());
             output.collect(oKey, oVal);
         }
 
-        // propagate vertex data
-        oKey.set(node.getId());
-        oVal.set(node.toText()+"$"+label);
+        // propagate vertex data, which is sorted before the label msgs
+        node.copyIdTo(oKey.getId());
+        oKey.setTag(TaggedKey.VERTEX);
+        node.toUndirectedText(oVal);
+        oVal.append(LABEL_SEPARATOR, 0, LABEL_SEPARATOR.length);
+        oVal.append(label.getBytes(), 0, label.getLength());
         output.collect(oKey, oVal);
     }
 }
@@ -18,8 +18,9 @@ package nl.tudelft.graphalytics.mapreducev2.cd;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.*;
+import nl.tudelft.graphalytics.mapreducev2.TaggedKey;
 import nl.tudelft.graphalytics.mapreducev2.cd.CommunityDetectionConfiguration.LABEL_STATUS;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNode;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 import java.io.IOException;
 import java.util.*;
@@ -35,8 +36,9 @@ Ian X.Y. Leung,Pan Hui,Pietro Li,and Jon Crowcroft
 /**
  * @author Marcin Biczak
  */
-public class UndirectedCambridgeLPAReducer extends MapReduceBase implements Reducer<Text, Text, NullWritable, Text> {
+public class UndirectedCambridgeLPAReducer extends MapReduceBase implements Reducer<TaggedKey, Text, NullWritable, Text> {
     private Text oVal = new Text();
+    private Text nodeText = new Text();
     private final Random rnd = new Random();
     private float deltaParam = 0;
     private float mParam = 0;
@@ -46,32 +48,24 @@ public class UndirectedCambridgeLPAReducer extends MapReduceBase implements Redu
         this.mParam = Float.parseFloat(job.get(CommunityDetectionConfiguration.NODE_PREFERENCE));
     }
 
-    public void reduce(Text key, Iterator<Text> values,
+    public void reduce(TaggedKey key, Iterator<Text> values,
                        OutputCollector<NullWritable, Text> output, Reporter reporter) throws IOException {
-        UndirectedNode node = new UndirectedNode();
-        String label = new String();
-        List<String> labelMsgs = new ArrayList<String>();
-
         float originalDelta = this.deltaParam;
 
-        // group msgs
-        while (values.hasNext()) {
-            String value = values.next().toString();
-            if(value.indexOf("$") != -1) {
-                // vertex data with oldLabel
-                StringTokenizer tokenizer = new StringTokenizer(value, "$");
-                node.readFields(tokenizer.nextToken());
-                label = tokenizer.nextToken();
-            } else if(value.indexOf("|") != -1) {
-                // label MSG
-                labelMsgs.add(new String(value.getBytes())); // avoid Iterator shallow copy
-            } else
-                throw new IOException("Got incorrect msg = "+value+" for key = "+key.toString());
-        }
+        // vertex data with oldLabel, sorted before all label msgs
+        Text value = values.next();
+        int labelStart = RecordParser.indexOf(value.getBytes(), 0, value.getLength(), '$');
+        if(key.getTag() != TaggedKey.VERTEX || labelStart == value.getLength())
+            throw new IOException("Got no vertex data for key = "+key.toString()+", first msg = "+value);
+        nodeText.set(value.getBytes(), 0, labelStart);
+        String label = Text.decode(value.getBytes(), labelStart + 1, value.getLength() - labelStart - 1);
 
-        String[] labelResult = this.determineLabel(labelMsgs.iterator(), label, reporter); // 0 - label, 1 - score
+        // label MSGs are processed as they arrive
+        String[] labelResult = this.determineLabel(key, values, label, reporter); // 0 - label, 1 - score
 
-        oVal.set(node.toText()+"$"+labelResult[0]+"|"+labelResult[1]);
+        byte[] newState = ("$"+labelResult[0]+"|"+labelResult[1]).getBytes();
+        oVal.set(nodeText);
+        oVal.append(newState, 0, newState.length);
         output.collect(null, oVal);
 
         // revert to original delta
@@ -83,7 +77,8 @@ public class UndirectedCambridgeLPAReducer extends MapReduceBase implements Redu
         Algorithm based methods
         @return Returns Array which conatins 0 - new label, 1 - new label score.
     */
-    private String[] determineLabel(Iterator<String> msgIterator, String oldLabel, Reporter reporter) {
+    private String[] determineLabel(TaggedKey key, Iterator<Text> msgIterator, String oldLabel, Reporter reporter)
+            throws IOException {
         String[] result = new String[2]; // 0 - new label, 1 - new label score
         float maxLabelScore = Float.NEGATIVE_INFINITY;
         Map<String, Float> neighboursLabels = new HashMap<String, Float>(); // key - label, value - output of EQ 2
@@ -91,7 +86,9 @@ public class UndirectedCambridgeLPAReducer extends MapReduceBase implements Redu
 
         // gather labels
         while (msgIterator.hasNext()) {
-            String msgLabel = msgIterator.next();
+            String msgLabel = msgIterator.next().toString();
+            if(msgLabel.indexOf("$") != -1 || msgLabel.indexOf("|") == -1)
+                throw new IOException("Got incorrect msg = "+msgLabel+" for key = "+key.toString());
             float eq2 = this.processLabelMsg(msgLabel);
             String neighbourLabel = this.getMsgLabel(msgLabel);
 
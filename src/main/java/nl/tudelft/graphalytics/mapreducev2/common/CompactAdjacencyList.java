@@ -0,0 +1,297 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Vertex record of a stored graph in the compact encoding (see
+ * {@link nl.tudelft.graphalytics.mapreducev2.conversion.CompactGraphConversion}). Every neighbour list is stored as
+ * the differences between consecutive neighbour IDs, the first relative to the vertex ID, each zigzag-encoded as a
+ * varint. The sorted neighbour lists of converted graphs thus take one or two bytes per edge for nearby IDs, instead
+ * of a decimal number and a separator. Records are only decoded into the text format of converted graphs (see
+ * {@link #toText(Text)}), which algorithms parse as before; neighbours are decoded one at a time, without creating an
+ * object per edge.
+ *
+ * @author Tim Hegeman
+ */
+public class CompactAdjacencyList implements Writable {
+
+	private long vertexId;
+	private boolean directed;
+	private final EncodedList incoming = new EncodedList();
+	private final EncodedList outgoing = new EncodedList();
+	private final NeighbourIterator incomingIterator = new NeighbourIterator();
+	private final NeighbourIterator outgoingIterator = new NeighbourIterator();
+	private byte[] textBuffer = new byte[64];
+	private int textLength;
+
+	/**
+	 * Empties the record and assigns it to a vertex.
+	 *
+	 * @param vertexId the ID of the vertex
+	 * @param directed true iff the vertex is part of a directed graph
+	 */
+	public void clear(long vertexId, boolean directed) {
+		this.vertexId = vertexId;
+		this.directed = directed;
+		incoming.clear(vertexId);
+		outgoing.clear(vertexId);
+	}
+
+	/**
+	 * @param neighbour the source of an incoming edge of a vertex in a directed graph
+	 */
+	public void addIncoming(long neighbour) {
+		incoming.add(neighbour);
+	}
+
+	/**
+	 * @param neighbour the destination of an outgoing edge, or a neighbour of a vertex in an undirected graph
+	 */
+	public void addOutgoing(long neighbour) {
+		outgoing.add(neighbour);
+	}
+
+	/**
+	 * @return the ID of the vertex
+	 */
+	public long getVertexId() {
+		return vertexId;
+	}
+
+	/**
+	 * @return true iff the vertex is part of a directed graph
+	 */
+	public boolean isDirected() {
+		return directed;
+	}
+
+	/**
+	 * @return the number of incoming edges in this record
+	 */
+	public int getNumIncoming() {
+		return incoming.count;
+	}
+
+	/**
+	 * @return the number of outgoing edges, or neighbours of an undirected vertex, in this record
+	 */
+	public int getNumOutgoing() {
+		return outgoing.count;
+	}
+
+	/**
+	 * @return an iterator over the sources of the incoming edges in this record; the iterator is reused by every call
+	 */
+	NeighbourIterator getIncoming() {
+		incomingIterator.reset(incoming, vertexId);
+		return incomingIterator;
+	}
+
+	/**
+	 * @return an iterator over the destinations of the outgoing edges, or the neighbours of an undirected vertex, in
+	 *         this record; the iterator is reused by every call
+	 */
+	NeighbourIterator getOutgoing() {
+		outgoingIterator.reset(outgoing, vertexId);
+		return outgoingIterator;
+	}
+
+	/**
+	 * Writes the record in the text format of converted graphs, i.e. "id\t#in,...\t@out,..." (with a trailing tab if
+	 * there are no outgoing edges) for directed graphs and "id n1 n2 ..." for undirected graphs.
+	 *
+	 * @param record the text to write the record to
+	 */
+	public void toText(Text record) {
+		textLength = 0;
+		appendLong(vertexId);
+		if (directed) {
+			appendByte('\t');
+			appendByte('#');
+			appendNeighbours(getIncoming(), ',');
+			appendByte('\t');
+			appendByte('@');
+			appendNeighbours(getOutgoing(), ',');
+			if (outgoing.count == 0)
+				appendByte('\t');
+		} else {
+			NeighbourIterator neighbours = getOutgoing();
+			while (neighbours.hasNext()) {
+				appendByte(' ');
+				appendLong(neighbours.next());
+			}
+		}
+		record.set(textBuffer, 0, textLength);
+	}
+
+	private void appendNeighbours(NeighbourIterator neighbours, char separator) {
+		boolean first = true;
+		while (neighbours.hasNext()) {
+			if (!first)
+				appendByte(separator);
+			appendLong(neighbours.next());
+			first = false;
+		}
+	}
+
+	private void appendByte(char c) {
+		if (textLength == textBuffer.length)
+			textBuffer = Arrays.copyOf(textBuffer, 2 * textBuffer.length);
+		textBuffer[textLength++] = (byte)c;
+	}
+
+	private void appendLong(long value) {
+		if (value == Long.MIN_VALUE) {
+			for (char c : Long.toString(value).toCharArray())
+				appendByte(c);
+			return;
+		}
+		if (value < 0) {
+			appendByte('-');
+			value = -value;
+		}
+		// Write the digits in reverse order and swap them in place
+		int start = textLength;
+		do {
+			appendByte((char)('0' + value % 10));
+			value /= 10;
+		} while (value != 0);
+		for (int i = start, j = textLength - 1; i < j; i++, j--) {
+			byte digit = textBuffer[i];
+			textBuffer[i] = textBuffer[j];
+			textBuffer[j] = digit;
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, vertexId);
+		out.writeBoolean(directed);
+		if (directed)
+			incoming.write(out);
+		outgoing.write(out);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		vertexId = WritableUtils.readVLong(in);
+		directed = in.readBoolean();
+		incoming.clear(vertexId);
+		if (directed)
+			incoming.readFields(in);
+		outgoing.clear(vertexId);
+		outgoing.readFields(in);
+	}
+
+	/**
+	 * Iterator over an encoded neighbour list, decoding one neighbour per call to {@link #next()}.
+	 */
+	static class NeighbourIterator {
+
+		private byte[] bytes;
+		private int position;
+		private int remaining;
+		private long previous;
+
+		private void reset(EncodedList list, long vertexId) {
+			bytes = list.bytes;
+			position = 0;
+			remaining = list.count;
+			previous = vertexId;
+		}
+
+		/**
+		 * @return true iff the list has more neighbours
+		 */
+		public boolean hasNext() {
+			return remaining > 0;
+		}
+
+		/**
+		 * @return the next neighbour in the list
+		 */
+		public long next() {
+			long zigzag = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = bytes[position++];
+				zigzag |= (long)(b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			remaining--;
+			previous += (zigzag >>> 1) ^ -(zigzag & 1);
+			return previous;
+		}
+
+	}
+
+	/**
+	 * Neighbour list encoded as zigzag varints of the differences between consecutive neighbours.
+	 */
+	private static class EncodedList {
+
+		private byte[] bytes = new byte[64];
+		private int length;
+		private int count;
+		private long previous;
+
+		private void clear(long vertexId) {
+			length = 0;
+			count = 0;
+			previous = vertexId;
+		}
+
+		private void add(long neighbour) {
+			if (length + 10 > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(length + 10, 2 * bytes.length));
+			long delta = neighbour - previous;
+			long zigzag = (delta << 1) ^ (delta >> 63);
+			while ((zigzag & ~0x7FL) != 0) {
+				bytes[length++] = (byte)((zigzag & 0x7F) | 0x80);
+				zigzag >>>= 7;
+			}
+			bytes[length++] = (byte)zigzag;
+			previous = neighbour;
+			count++;
+		}
+
+		private void write(DataOutput out) throws IOException {
+			WritableUtils.writeVInt(out, count);
+			WritableUtils.writeVInt(out, length);
+			out.write(bytes, 0, length);
+		}
+
+		private void readFields(DataInput in) throws IOException {
+			count = WritableUtils.readVInt(in);
+			length = WritableUtils.readVInt(in);
+			if (length > bytes.length)
+				bytes = new byte[Math.max(length, 2 * bytes.length)];
+			in.readFully(bytes, 0, length);
+		}
+
+	}
+
+}
@@ -31,6 +31,12 @@ public class DirectedNode implements WritableComparable<DirectedNode> {
     private Vector<Edge> inEdges;
     private Vector<Edge> outEdges;
     private final char ignoreChar = '#';
+    private static final ThreadLocal<RecordParser> parser = new ThreadLocal<RecordParser>() {
+        @Override
+        protected RecordParser initialValue() {
+            return new RecordParser(RecordParser.NODE_DELIMITERS, RecordParser.DIRECTED_MARKERS);
+        }
+    };
 
     public DirectedNode() {}
 
@@ -65,29 +71,30 @@ public class DirectedNode implements WritableComparable<DirectedNode> {
         this.readFields(nodeLine);
     }
 
-    // id \t #[id,id] \t @[id,id]
     public void readFields(String nodeLine) throws IOException {
-        if(nodeLine.charAt(0) != this.ignoreChar) {
-            StringTokenizer tokenizer = new StringTokenizer(nodeLine, "#@");
-            if(tokenizer.countTokens() > 1) {
-                // id
-                this.setId(new StringTokenizer(tokenizer.nextToken(), "\t").nextToken()); // "id\t"
-
-                // IN
-                StringTokenizer edgeTokenizer = new StringTokenizer(tokenizer.nextToken(), " \t\n\r\f,.:;?![]'");
-                Vector<Edge> tmpEdgeList = new Vector<Edge>();
-                while(edgeTokenizer.hasMoreElements()) {
-                    tmpEdgeList.add(new Edge(edgeTokenizer.nextToken(), this.id));
-                }
-                this.setInEdges(tmpEdgeList);
+        this.readFields(new Text(nodeLine));
+    }
 
-                // OUT
-                edgeTokenizer = new StringTokenizer(tokenizer.nextToken(), " \t\n\r\f,.:;?![]'");
-                tmpEdgeList = new Vector<Edge>();
-                while(edgeTokenizer.hasMoreElements()) {
-                    tmpEdgeList.add(new Edge(this.id, edgeTokenizer.nextToken()));
+    // id \t #[id,id] \t @[id,id]
+    public void readFields(Text nodeLine) throws IOException {
+        if(nodeLine.getLength() == 0 || nodeLine.getBytes()[0] != this.ignoreChar) {
+            RecordParser parser = DirectedNode.parser.get();
+            parser.tokenize(nodeLine);
+            if(parser.hasMarker() && parser.getNumTokens() > 0 && parser.getSection(0) == 0) {
+                // id
+                this.setId(parser.getString(0));
+
+                // IN and OUT
+                Vector<Edge> tmpInEdgeList = new Vector<Edge>();
+                Vector<Edge> tmpOutEdgeList = new Vector<Edge>();
+                for(int i = 1; i < parser.getNumTokens(); i++) {
+                    if(parser.getSection(i) == '#')
+                        tmpInEdgeList.add(new Edge(parser.getString(i), this.id));
+                    else if(parser.getSection(i) == '@')
+                        tmpOutEdgeList.add(new Edge(this.id, parser.getString(i)));
                 }
-                this.setOutEdges(tmpEdgeList);
+                this.setInEdges(tmpInEdgeList);
+                this.setOutEdges(tmpOutEdgeList);
             }
             else
                 throw new IOException("Error while reading. File format not supported.");
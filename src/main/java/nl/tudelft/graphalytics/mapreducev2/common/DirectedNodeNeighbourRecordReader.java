@@ -27,7 +27,7 @@ import java.io.IOException;
 /**
  * @author Marcin Biczak
  */
-public class DirectedNodeNeighbourRecordReader implements RecordReader<LongWritable, DirectedNodeNeighbourhood> {
+public class DirectedNodeNeighbourRecordReader implements RecordReader<LongWritable, NodeNeighbourhoodView> {
     private LineRecordReader lineReader;
     private LongWritable lineKey;
     private Text lineValue;
@@ -39,15 +39,13 @@ public class DirectedNodeNeighbourRecordReader implements RecordReader<LongWrita
         lineValue = lineReader.createValue();
     }
 
-    public boolean next(LongWritable key, DirectedNodeNeighbourhood value) throws IOException {
+    public boolean next(LongWritable key, NodeNeighbourhoodView value) throws IOException {
         if (!lineReader.next(lineKey, lineValue)) {
            return false;
         }
 
         key.set(lineKey.get());
-        DirectedNodeNeighbourhood tmp = new DirectedNodeNeighbourhood(this.textValueToObj(lineValue));
-        value.setCentralNode(tmp.getCentralNode());
-        value.setDirectedNodeNeighbourhood(tmp.getDirectedNodeNeighbourhood());
+        value.readDirected(lineValue);
 
         return true;
     }
@@ -56,8 +54,8 @@ public class DirectedNodeNeighbourRecordReader implements RecordReader<LongWrita
         return new LongWritable();
     }
 
-    public DirectedNodeNeighbourhood createValue() {
-        return new DirectedNodeNeighbourhood();
+    public NodeNeighbourhoodView createValue() {
+        return new NodeNeighbourhoodView();
     }
 
     public long getPos() throws IOException {
@@ -71,14 +69,6 @@ public class DirectedNodeNeighbourRecordReader implements RecordReader<LongWrita
     public void close() throws IOException {
         lineReader.close();
     }
-
-    private DirectedNodeNeighbourhood textValueToObj(Text line) throws IOException{
-        String dataLine = line.toString();
-        DirectedNodeNeighbourhood nodeNeighbourhood = new DirectedNodeNeighbourhood();
-        nodeNeighbourhood.readFields(dataLine);
-
-        return nodeNeighbourhood;
-    }
 }
 
 
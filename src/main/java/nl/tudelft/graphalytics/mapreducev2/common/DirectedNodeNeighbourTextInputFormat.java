@@ -23,8 +23,8 @@ import java.io.IOException;
 /**
  * @author Marcin Biczak
  */
-public class DirectedNodeNeighbourTextInputFormat extends FileInputFormat<LongWritable, DirectedNodeNeighbourhood> {
-    public RecordReader<LongWritable, DirectedNodeNeighbourhood> getRecordReader(InputSplit input,
+public class DirectedNodeNeighbourTextInputFormat extends FileInputFormat<LongWritable, NodeNeighbourhoodView> {
+    public RecordReader<LongWritable, NodeNeighbourhoodView> getRecordReader(InputSplit input,
                                                                  JobConf job, Reporter reporter)
             throws IOException {
         return new DirectedNodeNeighbourRecordReader(job, (FileSplit)input);
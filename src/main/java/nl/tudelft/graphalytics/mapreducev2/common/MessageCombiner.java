@@ -0,0 +1,232 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.OutputCollector;
+
+/**
+ * In-mapper combiner for messages sent to vertices. Messages are numbers sent to numeric vertex IDs, e.g. distances
+ * in BFS or labels in CONN. Instead of writing every message to the map output, a mapper passes it to the combiner,
+ * which merges all messages sent to the same vertex using an algorithm-specific {@link MergeFunction}. Merged
+ * messages are written to the map output as text when the combiner is full, and when it is closed at the end of the
+ * map task. Unlike a combiner configured for the job, this avoids serializing and sorting the individual messages.
+ *
+ * The combiner stores messages in a hash table of primitive arrays, bounded by the number of distinct destination
+ * vertices given as capacity, so its memory use is fixed when the mapper is configured. Vertex IDs and messages are
+ * written as decimal numbers, which are equal to the original text for the canonical numeric IDs of converted graphs.
+ * A combiner is not thread-safe, so mappers using one must not implement
+ * {@link nl.tudelft.graphalytics.mapreducev2.StatelessMapper}.
+ *
+ * @author Tim Hegeman
+ */
+public class MessageCombiner {
+
+	/**
+	 * Function that merges two messages sent to the same vertex into one. Messages are merged in an arbitrary order,
+	 * so the function must be commutative and associative.
+	 */
+	public interface MergeFunction {
+		/**
+		 * @param first a message sent to a vertex
+		 * @param second another message sent to the same vertex
+		 * @return the merged message
+		 */
+		long merge(long first, long second);
+	}
+
+	/** Merges messages into the smallest message. */
+	public static final MergeFunction MIN = new MergeFunction() {
+		@Override
+		public long merge(long first, long second) {
+			return Math.min(first, second);
+		}
+	};
+
+	/** Merges messages into the message of which the decimal text sorts first, as for labels compared as strings. */
+	public static final MergeFunction TEXT_MIN = new MergeFunction() {
+		@Override
+		public long merge(long first, long second) {
+			return (compareDecimalText(first, second) <= 0 ? first : second);
+		}
+	};
+
+	private final int capacity;
+	private final MergeFunction mergeFunction;
+	/** Open addressing hash table of destination vertices and merged messages. */
+	private final long[] vertices;
+	private final long[] messages;
+	private final boolean[] used;
+	/** Indices of the used slots of the hash table, in order of insertion. */
+	private final int[] usedSlots;
+	private int size;
+
+	private OutputCollector<Text, Text> output;
+	private final Text outputKey = new Text();
+	private final Text outputValue = new Text();
+	private final byte[] numberBuffer = new byte[20];
+
+	/**
+	 * @param capacity the maximum number of destination vertices to combine messages for, or zero to write all
+	 *                 messages to the map output directly
+	 * @param mergeFunction the function merging two messages sent to the same vertex
+	 */
+	public MessageCombiner(int capacity, MergeFunction mergeFunction) {
+		this.capacity = Math.max(capacity, 0);
+		this.mergeFunction = mergeFunction;
+
+		// Keep the load factor of the table at most one half
+		int tableSize = 1;
+		while (tableSize < 2 * this.capacity) {
+			tableSize *= 2;
+		}
+		this.vertices = new long[this.capacity == 0 ? 0 : tableSize];
+		this.messages = new long[vertices.length];
+		this.used = new boolean[vertices.length];
+		this.usedSlots = new int[this.capacity];
+	}
+
+	/**
+	 * Sends a message to a vertex. The message is merged with earlier messages to the vertex, and written to the
+	 * given output collector when the combiner is flushed.
+	 *
+	 * @param vertex the ID of the destination vertex
+	 * @param message the message
+	 * @param output the output collector of the mapper
+	 * @throws IOException if writing to the output collector fails
+	 */
+	public void collect(long vertex, long message, OutputCollector<Text, Text> output) throws IOException {
+		this.output = output;
+		if (capacity == 0) {
+			write(vertex, message);
+			return;
+		}
+
+		int mask = vertices.length - 1;
+		int slot = hash(vertex) & mask;
+		while (used[slot] && vertices[slot] != vertex) {
+			slot = (slot + 1) & mask;
+		}
+		if (used[slot]) {
+			messages[slot] = mergeFunction.merge(messages[slot], message);
+			return;
+		}
+
+		if (size == capacity) {
+			flush();
+			slot = hash(vertex) & mask;
+		}
+		used[slot] = true;
+		vertices[slot] = vertex;
+		messages[slot] = message;
+		usedSlots[size++] = slot;
+	}
+
+	/**
+	 * Writes all merged messages to the output collector of the mapper and empties the combiner.
+	 *
+	 * @throws IOException if writing to the output collector fails
+	 */
+	public void flush() throws IOException {
+		for (int i = 0; i < size; i++) {
+			int slot = usedSlots[i];
+			write(vertices[slot], messages[slot]);
+			used[slot] = false;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Flushes the remaining messages, to be called when the mapper is closed.
+	 *
+	 * @throws IOException if writing to the output collector fails
+	 */
+	public void close() throws IOException {
+		if (output != null) {
+			flush();
+		}
+	}
+
+	private void write(long vertex, long message) throws IOException {
+		outputKey.clear();
+		appendNumber(outputKey, vertex);
+		outputValue.clear();
+		appendNumber(outputValue, message);
+		output.collect(outputKey, outputValue);
+	}
+
+	private void appendNumber(Text text, long value) {
+		int position = numberBuffer.length;
+		long remainder = value;
+		do {
+			numberBuffer[--position] = (byte)('0' + Math.abs(remainder % 10));
+			remainder /= 10;
+		} while (remainder != 0);
+		if (value < 0) {
+			numberBuffer[--position] = '-';
+		}
+		text.append(numberBuffer, position, numberBuffer.length - position);
+	}
+
+	private static int hash(long vertex) {
+		// Mix the bits of the ID, as consecutive IDs would otherwise fill consecutive slots
+		long hash = vertex * 0x9E3779B97F4A7C15L;
+		return (int)(hash ^ (hash >>> 32));
+	}
+
+	/**
+	 * @return the result of comparing the decimal text of two numbers byte by byte
+	 */
+	static int compareDecimalText(long first, long second) {
+		// A minus sign sorts before all digits
+		if ((first < 0) != (second < 0)) {
+			return (first < 0 ? -1 : 1);
+		}
+		// Compare the digits of both numbers as non-positive numbers, which includes Long.MIN_VALUE
+		long firstDigits = (first < 0 ? first : -first);
+		long secondDigits = (second < 0 ? second : -second);
+		int firstLength = numDigits(firstDigits);
+		int secondLength = numDigits(secondDigits);
+		int commonLength = Math.min(firstLength, secondLength);
+		long firstPrefix = firstDigits / powerOfTen(firstLength - commonLength);
+		long secondPrefix = secondDigits / powerOfTen(secondLength - commonLength);
+		if (firstPrefix != secondPrefix) {
+			// Prefixes of equal length compare like their values; a larger value is more negative here
+			return (firstPrefix < secondPrefix ? 1 : -1);
+		}
+		// If one number is a prefix of the other, the shorter number sorts first
+		return Integer.compare(firstLength, secondLength);
+	}
+
+	private static int numDigits(long nonPositive) {
+		int digits = 1;
+		for (long remainder = nonPositive / 10; remainder != 0; remainder /= 10) {
+			digits++;
+		}
+		return digits;
+	}
+
+	private static long powerOfTen(int exponent) {
+		long result = 1;
+		for (int i = 0; i < exponent; i++) {
+			result *= 10;
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Reusable view of the text record of a node neighbourhood, as read by the neighbourhood record readers of the
+ * STATS job. Reading a record copies its bytes into a buffer owned by the view, locates the central node, its
+ * neighbours, and the edges of the nodes in its neighbourhood in that buffer using a {@link RecordParser}, and stores
+ * their positions in arrays that are reused for all records read into the view. A view thus stays valid after the
+ * record reader reuses its line buffer, e.g. while a multithreaded map runner maps it concurrently with later records.
+ *
+ * The view reads records in the formats written by {@link DirectedNodeNeighbourhood}
+ * ("id\t#in,in\t@out,out|neighbour@dst,dst|...") and {@link UndirectedNodeNeighbourhood}
+ * ("id\tneighbour,neighbour|neighbour@dst,dst|..."). The neighbours of an undirected central node are stored as
+ * outgoing neighbours, like in {@link NodeView}.
+ *
+ * @author Tim Hegeman
+ */
+public class NodeNeighbourhoodView {
+
+	/** Copy of the last record read into the view. */
+	private final Text record = new Text();
+	private final RecordParser parser = new RecordParser(RecordParser.NODE_DELIMITERS, "#@|");
+	/** Token indices of the incoming and outgoing neighbours of the central node. */
+	private int[] incoming = new int[16];
+	private int numIncoming;
+	private int[] outgoing = new int[16];
+	private int numOutgoing;
+	/** Token indices of the IDs of the nodes in the neighbourhood, followed by the number of tokens. */
+	private int[] neighbourhood = new int[16];
+	private int neighbourhoodSize;
+
+	/**
+	 * @param record the text of a {@link DirectedNodeNeighbourhood} record
+	 * @throws IOException if the record does not start with a node ID
+	 */
+	public void readDirected(Text record) throws IOException {
+		read(record, true);
+	}
+
+	/**
+	 * @param record the text of an {@link UndirectedNodeNeighbourhood} record
+	 * @throws IOException if the record does not start with a node ID
+	 */
+	public void readUndirected(Text record) throws IOException {
+		read(record, false);
+	}
+
+	private void read(Text record, boolean directed) throws IOException {
+		this.record.set(record);
+		if (parser.tokenize(this.record) == 0 || parser.getSection(0) != 0) {
+			throw new IOException("Error while reading. File format not supported.");
+		}
+		numIncoming = 0;
+		numOutgoing = 0;
+		neighbourhoodSize = 0;
+
+		// The central node ends at the first '|', after which each '|' starts a node of the neighbourhood
+		int token = 1;
+		for (; token < parser.getNumTokens() && parser.getSection(token) != '|'; token++) {
+			if (parser.getSection(token) == '#') {
+				incoming = add(incoming, numIncoming++, token);
+			} else if (!directed || parser.getSection(token) == '@') {
+				outgoing = add(outgoing, numOutgoing++, token);
+			}
+		}
+		for (; token < parser.getNumTokens(); token++) {
+			// The ID of a node follows the '|', its edges follow the '@' after the ID
+			if (parser.getSection(token) == '|') {
+				neighbourhood = add(neighbourhood, neighbourhoodSize++, token);
+			}
+		}
+		neighbourhood = add(neighbourhood, neighbourhoodSize, parser.getNumTokens());
+	}
+
+	/**
+	 * @return the ID of the central node
+	 */
+	public long getId() {
+		return parser.getLong(0);
+	}
+
+	/**
+	 * @param text the text to set to the ID of the central node
+	 */
+	public void copyIdTo(Text text) {
+		parser.copyTo(0, text);
+	}
+
+	/**
+	 * @return the number of incoming neighbours of a directed central node
+	 */
+	public int getNumIncoming() {
+		return numIncoming;
+	}
+
+	/**
+	 * @return the number of outgoing neighbours of a directed central node, or the number of neighbours of an
+	 *         undirected central node
+	 */
+	public int getNumOutgoing() {
+		return numOutgoing;
+	}
+
+	/**
+	 * @param index the index of an incoming neighbour of the central node
+	 * @return the ID of the neighbour
+	 */
+	public long getIncoming(int index) {
+		return parser.getLong(incoming[index]);
+	}
+
+	/**
+	 * @param index the index of an outgoing neighbour of the central node
+	 * @return the ID of the neighbour
+	 */
+	public long getOutgoing(int index) {
+		return parser.getLong(outgoing[index]);
+	}
+
+	/**
+	 * @return the number of nodes in the neighbourhood, excluding the central node
+	 */
+	public int getNeighbourhoodSize() {
+		return neighbourhoodSize;
+	}
+
+	/**
+	 * @param node the index of a node in the neighbourhood
+	 * @return the ID of the node
+	 */
+	public long getNeighbourhoodId(int node) {
+		return parser.getLong(neighbourhood[node]);
+	}
+
+	/**
+	 * @param node the index of a node in the neighbourhood
+	 * @return the number of outgoing edges of the node
+	 */
+	public int getNumNeighbourhoodEdges(int node) {
+		return neighbourhood[node + 1] - neighbourhood[node] - 1;
+	}
+
+	/**
+	 * @param node the index of a node in the neighbourhood
+	 * @param index the index of an outgoing edge of the node
+	 * @return the destination of the edge
+	 */
+	public long getNeighbourhoodEdge(int node, int index) {
+		return parser.getLong(neighbourhood[node] + 1 + index);
+	}
+
+	private static int[] add(int[] list, int index, int value) {
+		int[] result = (index < list.length ? list : Arrays.copyOf(list, list.length * 2));
+		result[index] = value;
+		return result;
+	}
+
+}
@@ -0,0 +1,312 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Reusable view of the text record of a node, for mappers that process one record at a time. Reading a record only
+ * locates the ID and the neighbours of the node in the bytes of the record using a {@link RecordParser}, so a single
+ * view serves all records of a task without creating objects per record or per edge. The view refers to the bytes of
+ * the record and is valid until they change, e.g. when the record reader reads the next record.
+ *
+ * The view reads records in the formats written by {@link DirectedNode} ("id\t#in,in\t@out,out") and
+ * {@link UndirectedNode} ("id\tneighbour,neighbour"), including those of converted graphs, which separate
+ * neighbours by spaces. Neighbours are accessed by index, and the view writes the node in the formats of
+ * {@link DirectedNode#toText()} and {@link UndirectedNode#toText()}. The neighbours of an undirected node are
+ * stored as outgoing neighbours.
+ *
+ * @author Tim Hegeman
+ */
+public class NodeView {
+
+	private static final byte[] DIRECTED_IN_SEPARATOR = { '\t', '#' };
+	private static final byte[] DIRECTED_OUT_SEPARATOR = { '\t', '@' };
+	private static final byte[] TAB = { '\t' };
+	private static final byte[] COMMA = { ',' };
+
+	private final RecordParser parser = new RecordParser(RecordParser.NODE_DELIMITERS, RecordParser.DIRECTED_MARKERS);
+	private byte[] bytes;
+	private int idStart;
+	private int idEnd;
+	/** Start and end offsets of the incoming and outgoing neighbours in the record. */
+	private int[] incoming = new int[32];
+	private int numIncoming;
+	private int[] outgoing = new int[32];
+	private int numOutgoing;
+	private final byte[] numberBuffer = new byte[20];
+
+	/**
+	 * Reads a directed node record, up to the first '$' that starts the state of an algorithm, if any.
+	 *
+	 * @param record the text of the record
+	 * @return the offset of the first '$' in the record, or the length of the record if it contains no '$'
+	 * @throws IOException if the record does not start with a node ID
+	 */
+	public int readDirected(Text record) throws IOException {
+		int stateStart = RecordParser.indexOf(record.getBytes(), 0, record.getLength(), '$');
+		readId(record.getBytes(), 0, stateStart);
+		addNeighbours(1, true);
+		return stateStart;
+	}
+
+	/**
+	 * Reads an undirected node record, up to the first '$' that starts the state of an algorithm, if any.
+	 *
+	 * @param record the text of the record
+	 * @return the offset of the first '$' in the record, or the length of the record if it contains no '$'
+	 * @throws IOException if the record does not start with a node ID
+	 */
+	public int readUndirected(Text record) throws IOException {
+		int stateStart = RecordParser.indexOf(record.getBytes(), 0, record.getLength(), '$');
+		readId(record.getBytes(), 0, stateStart);
+		addNeighbours(1, false);
+		return stateStart;
+	}
+
+	/**
+	 * Starts reading a record by reading the node ID, i.e., the first token of the given range. Neighbours are added
+	 * to the view by {@link #readDirectedNeighbours(int, int)} or {@link #readUndirectedNeighbours(int, int)}, for
+	 * records that store other data between the ID and the neighbours.
+	 *
+	 * @param bytes the bytes of the record
+	 * @param start the offset of the record
+	 * @param end the end of the range containing the ID
+	 * @return the end of the ID
+	 * @throws IOException if the range does not start with a node ID
+	 */
+	public int readId(byte[] bytes, int start, int end) throws IOException {
+		// The ID may be preceded by delimiters, but not by the start of a neighbour list
+		if (parser.tokenize(bytes, start, end) == 0 || parser.getSection(0) != 0) {
+			throw new IOException("Error while reading. File format not supported.");
+		}
+		this.bytes = bytes;
+		this.idStart = parser.getStart(0);
+		this.idEnd = parser.getEnd(0);
+		this.numIncoming = 0;
+		this.numOutgoing = 0;
+		return idEnd;
+	}
+
+	/**
+	 * Adds the neighbours listed in a range of the record to the view. Neighbours following a '#' are incoming,
+	 * neighbours following a '@' are outgoing, and any tokens before the first '#' or '@' are ignored.
+	 *
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 */
+	public void readDirectedNeighbours(int start, int end) {
+		parser.tokenize(bytes, start, end);
+		addNeighbours(0, true);
+	}
+
+	/**
+	 * Adds all tokens in a range of the record to the view as neighbours of an undirected node.
+	 *
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 */
+	public void readUndirectedNeighbours(int start, int end) {
+		parser.tokenize(bytes, start, end);
+		addNeighbours(0, false);
+	}
+
+	private void addNeighbours(int firstToken, boolean directed) {
+		for (int i = firstToken; i < parser.getNumTokens(); i++) {
+			if (!directed || parser.getSection(i) == '@') {
+				outgoing = add(outgoing, numOutgoing++, parser.getStart(i), parser.getEnd(i));
+			} else if (parser.getSection(i) == '#') {
+				incoming = add(incoming, numIncoming++, parser.getStart(i), parser.getEnd(i));
+			}
+		}
+	}
+
+	/**
+	 * @return the ID of the node
+	 */
+	public long getId() {
+		return RecordParser.parseLong(bytes, idStart, idEnd);
+	}
+
+	/**
+	 * @return the number of incoming neighbours of a directed node
+	 */
+	public int getNumIncoming() {
+		return numIncoming;
+	}
+
+	/**
+	 * @return the number of outgoing neighbours of a directed node, or the number of neighbours of an undirected node
+	 */
+	public int getNumOutgoing() {
+		return numOutgoing;
+	}
+
+	/**
+	 * @return the total number of incoming and outgoing neighbours
+	 */
+	public int getNumNeighbours() {
+		return numIncoming + numOutgoing;
+	}
+
+	/**
+	 * @param index the index of an incoming neighbour
+	 * @return the ID of the neighbour
+	 */
+	public long getIncoming(int index) {
+		return RecordParser.parseLong(bytes, incoming[2 * index], incoming[2 * index + 1]);
+	}
+
+	/**
+	 * @param index the index of an outgoing neighbour
+	 * @return the ID of the neighbour
+	 */
+	public long getOutgoing(int index) {
+		return RecordParser.parseLong(bytes, outgoing[2 * index], outgoing[2 * index + 1]);
+	}
+
+	/**
+	 * @param index the index of a neighbour, counting the incoming neighbours before the outgoing neighbours
+	 * @return the ID of the neighbour
+	 */
+	public long getNeighbour(int index) {
+		return (index < numIncoming ? getIncoming(index) : getOutgoing(index - numIncoming));
+	}
+
+	/**
+	 * @param text the text to set to the ID of the node
+	 */
+	public void copyIdTo(Text text) {
+		text.set(bytes, idStart, idEnd - idStart);
+	}
+
+	/**
+	 * @param index the index of an incoming neighbour
+	 * @param text the text to set to the ID of the neighbour
+	 */
+	public void copyIncomingTo(int index, Text text) {
+		text.set(bytes, incoming[2 * index], incoming[2 * index + 1] - incoming[2 * index]);
+	}
+
+	/**
+	 * @param index the index of an outgoing neighbour
+	 * @param text the text to set to the ID of the neighbour
+	 */
+	public void copyOutgoingTo(int index, Text text) {
+		text.set(bytes, outgoing[2 * index], outgoing[2 * index + 1] - outgoing[2 * index]);
+	}
+
+	/**
+	 * @param index the index of a neighbour, counting the incoming neighbours before the outgoing neighbours
+	 * @param text the text to set to the ID of the neighbour
+	 */
+	public void copyNeighbourTo(int index, Text text) {
+		if (index < numIncoming) {
+			copyIncomingTo(index, text);
+		} else {
+			copyOutgoingTo(index - numIncoming, text);
+		}
+	}
+
+	/**
+	 * @param text the text to append the ID of the node to
+	 */
+	public void appendId(Text text) {
+		text.append(bytes, idStart, idEnd - idStart);
+	}
+
+	/**
+	 * @param text the text to append the comma-separated incoming neighbours to
+	 */
+	public void appendIncoming(Text text) {
+		appendList(text, incoming, numIncoming);
+	}
+
+	/**
+	 * @param text the text to append the comma-separated outgoing neighbours to
+	 */
+	public void appendOutgoing(Text text) {
+		appendList(text, outgoing, numOutgoing);
+	}
+
+	/**
+	 * Sets a text to the node in the format of {@link DirectedNode#toText()}.
+	 *
+	 * @param text the text to write the node to
+	 */
+	public void toDirectedText(Text text) {
+		copyIdTo(text);
+		text.append(DIRECTED_IN_SEPARATOR, 0, DIRECTED_IN_SEPARATOR.length);
+		appendIncoming(text);
+		text.append(DIRECTED_OUT_SEPARATOR, 0, DIRECTED_OUT_SEPARATOR.length);
+		if (numOutgoing == 0) {
+			// DirectedNode always ends the outgoing list with a tab
+			text.append(TAB, 0, TAB.length);
+		} else {
+			appendOutgoing(text);
+		}
+	}
+
+	/**
+	 * Sets a text to the node in the format of {@link UndirectedNode#toText()}.
+	 *
+	 * @param text the text to write the node to
+	 */
+	public void toUndirectedText(Text text) {
+		copyIdTo(text);
+		text.append(TAB, 0, TAB.length);
+		appendOutgoing(text);
+	}
+
+	/**
+	 * Appends the decimal representation of a number to a text.
+	 *
+	 * @param text the text to append to
+	 * @param value the number to append
+	 */
+	public void appendNumber(Text text, long value) {
+		int position = numberBuffer.length;
+		long remainder = value;
+		do {
+			numberBuffer[--position] = (byte)('0' + Math.abs(remainder % 10));
+			remainder /= 10;
+		} while (remainder != 0);
+		if (value < 0) {
+			numberBuffer[--position] = '-';
+		}
+		text.append(numberBuffer, position, numberBuffer.length - position);
+	}
+
+	private void appendList(Text text, int[] list, int size) {
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				text.append(COMMA, 0, COMMA.length);
+			}
+			text.append(bytes, list[2 * i], list[2 * i + 1] - list[2 * i]);
+		}
+	}
+
+	private static int[] add(int[] list, int index, int start, int end) {
+		int[] result = (2 * index + 1 < list.length ? list : Arrays.copyOf(list, list.length * 2));
+		result[2 * index] = start;
+		result[2 * index + 1] = end;
+		return result;
+	}
+
+}
@@ -22,7 +22,6 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Iterator;
-import java.util.StringTokenizer;
 import java.util.Vector;
 
 /**
@@ -32,6 +31,12 @@ public class OutNode implements WritableComparable<OutNode> {
     private String id;
     private Vector<Edge> outEdges;
     private final char ignoreChar = '#';
+    private static final ThreadLocal<RecordParser> parser = new ThreadLocal<RecordParser>() {
+        @Override
+        protected RecordParser initialValue() {
+            return new RecordParser(",", "@");
+        }
+    };
 
     public OutNode() {}
 
@@ -64,14 +69,20 @@ public class OutNode implements WritableComparable<OutNode> {
     }
 
     public void readFields(String nodeLine) throws IOException {
-        if(nodeLine.charAt(0) != this.ignoreChar) {
-            StringTokenizer tokenizer = new StringTokenizer(nodeLine, "@");
-            if(tokenizer.countTokens() == 2) {
-                this.setId(tokenizer.nextToken());
-                StringTokenizer outTokenizer = new StringTokenizer(tokenizer.nextToken(), ",");
+        this.readFields(new Text(nodeLine));
+    }
+
+    // id@[id,id]
+    public void readFields(Text nodeLine) throws IOException {
+        if(nodeLine.getLength() == 0 || nodeLine.getBytes()[0] != this.ignoreChar) {
+            RecordParser parser = OutNode.parser.get();
+            parser.tokenize(nodeLine);
+            if(parser.hasMarker() && parser.getNumTokens() > 0 && parser.getSection(0) == 0) {
+                this.setId(parser.getString(0));
                 Vector<Edge> tmpEdgeList = new Vector<Edge>();
-                while(outTokenizer.hasMoreElements()) {
-                    tmpEdgeList.add(new Edge(this.id, outTokenizer.nextToken()));
+                for(int i = 1; i < parser.getNumTokens(); i++) {
+                    if(parser.getSection(i) == '@')
+                        tmpEdgeList.add(new Edge(this.id, parser.getString(i)));
                 }
                 this.setOutEdges(tmpEdgeList);
             }
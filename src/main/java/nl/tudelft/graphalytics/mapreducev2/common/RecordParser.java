@@ -0,0 +1,304 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Text;
+
+/**
+ * Splits text records into tokens in place, on the bytes of a {@link Text}. Parsing a record only records the
+ * offsets of its tokens, which are then read as longs, copied into other texts, or decoded to strings by the caller.
+ * A parser is reused for all records of a task, and creates no objects per record or per token.
+ *
+ * Records are split on a configurable set of single-byte delimiters, in one of two ways.
+ * {@link #tokenize(byte[], int, int)} skips runs of delimiters like {@link java.util.StringTokenizer}, and
+ * additionally reports for every token the last marker that preceded it. Markers are delimiters that start a section
+ * of the record, e.g. '#' and '@' for the incoming and outgoing neighbours of a directed node ("id\t#in,in\t@out"),
+ * '|' for the neighbours in a neighbourhood record, or '$' for the state of an algorithm.
+ * {@link #split(byte[], int, int)} splits on every delimiter like {@link String#split(String)} does for a character
+ * class, keeping empty fields between consecutive delimiters, as expected for the edge and vertex lists of input
+ * graphs.
+ *
+ * @author Tim Hegeman
+ */
+public class RecordParser {
+
+	/** Delimiters between IDs in the node records of the algorithms, see {@link DirectedNode}. */
+	public static final String NODE_DELIMITERS = " \t\n\r\f,.:;?![]'";
+	/** Delimiters between IDs in the records of converted graphs. */
+	public static final String ADJACENCY_DELIMITERS = " \t,";
+	/** Markers of the incoming ('#') and outgoing ('@') neighbours of a directed node. */
+	public static final String DIRECTED_MARKERS = "#@";
+	/** Delimiters between the fields of input edge lists and vertex lists. */
+	public static final String WHITESPACE_DELIMITERS = " \t";
+
+	private final boolean[] delimiters = new boolean[256];
+	private final boolean[] markers = new boolean[256];
+
+	private byte[] bytes;
+	/** Start and end offset of each token. */
+	private int[] bounds = new int[64];
+	/** Marker preceding each token, or zero. */
+	private byte[] sections = new byte[32];
+	private int numTokens;
+	private boolean hasMarker;
+
+	/**
+	 * @param delimiters the characters that separate tokens
+	 */
+	public RecordParser(String delimiters) {
+		this(delimiters, "");
+	}
+
+	/**
+	 * @param delimiters the characters that separate tokens
+	 * @param markers the characters that separate tokens and start a new section of the record
+	 */
+	public RecordParser(String delimiters, String markers) {
+		for (char c : delimiters.toCharArray()) {
+			this.delimiters[c] = true;
+		}
+		for (char c : markers.toCharArray()) {
+			this.delimiters[c] = true;
+			this.markers[c] = true;
+		}
+	}
+
+	/**
+	 * @param record the record to tokenize
+	 * @return the number of tokens in the record
+	 * @see #tokenize(byte[], int, int)
+	 */
+	public int tokenize(Text record) {
+		return tokenize(record.getBytes(), 0, record.getLength());
+	}
+
+	/**
+	 * Splits a range of bytes into the non-empty tokens separated by runs of delimiters.
+	 *
+	 * @param bytes the bytes of the record
+	 * @param start the start of the range to tokenize
+	 * @param end the end of the range to tokenize
+	 * @return the number of tokens in the range
+	 */
+	public int tokenize(byte[] bytes, int start, int end) {
+		this.bytes = bytes;
+		numTokens = 0;
+		hasMarker = false;
+		byte section = 0;
+		int position = start;
+		while (position < end) {
+			int character = bytes[position] & 0xFF;
+			if (delimiters[character]) {
+				if (markers[character]) {
+					section = (byte)character;
+					hasMarker = true;
+				}
+				position++;
+				continue;
+			}
+			int tokenStart = position;
+			while (position < end && !delimiters[bytes[position] & 0xFF]) {
+				position++;
+			}
+			addToken(tokenStart, position, section);
+		}
+		return numTokens;
+	}
+
+	/**
+	 * @param record the record to split
+	 * @return the number of fields in the record
+	 * @see #split(byte[], int, int)
+	 */
+	public int split(Text record) {
+		return split(record.getBytes(), 0, record.getLength());
+	}
+
+	/**
+	 * Splits a range of bytes on every delimiter. Consecutive delimiters are separated by an empty field, and trailing
+	 * empty fields are dropped, unless the range is empty.
+	 *
+	 * @param bytes the bytes of the record
+	 * @param start the start of the range to split
+	 * @param end the end of the range to split
+	 * @return the number of fields in the range
+	 */
+	public int split(byte[] bytes, int start, int end) {
+		this.bytes = bytes;
+		numTokens = 0;
+		hasMarker = false;
+		int fieldStart = start;
+		for (int position = start; position < end; position++) {
+			if (delimiters[bytes[position] & 0xFF]) {
+				addToken(fieldStart, position, (byte)0);
+				fieldStart = position + 1;
+			}
+		}
+		addToken(fieldStart, end, (byte)0);
+		while (numTokens > 0 && getEnd(numTokens - 1) == getStart(numTokens - 1) && end > start) {
+			numTokens--;
+		}
+		return numTokens;
+	}
+
+	private void addToken(int start, int end, byte section) {
+		if (2 * numTokens + 1 >= bounds.length) {
+			bounds = Arrays.copyOf(bounds, 2 * bounds.length);
+			sections = Arrays.copyOf(sections, 2 * sections.length);
+		}
+		bounds[2 * numTokens] = start;
+		bounds[2 * numTokens + 1] = end;
+		sections[numTokens] = section;
+		numTokens++;
+	}
+
+	/**
+	 * @return the bytes of the last parsed record
+	 */
+	public byte[] getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return the number of tokens in the last parsed record
+	 */
+	public int getNumTokens() {
+		return numTokens;
+	}
+
+	/**
+	 * @return true iff the last tokenized record contains a marker
+	 */
+	public boolean hasMarker() {
+		return hasMarker;
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @return the last marker before the token, or zero if there is none
+	 */
+	public byte getSection(int token) {
+		return sections[token];
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @return the offset of the first byte of the token
+	 */
+	public int getStart(int token) {
+		return bounds[2 * token];
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @return the offset after the last byte of the token
+	 */
+	public int getEnd(int token) {
+		return bounds[2 * token + 1];
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @return the token parsed as a long
+	 * @throws NumberFormatException if the token is not a number
+	 */
+	public long getLong(int token) {
+		return parseLong(bytes, getStart(token), getEnd(token));
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @return the token as a string
+	 */
+	public String getString(int token) {
+		return new String(bytes, getStart(token), getEnd(token) - getStart(token), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @param text the text to set to the token
+	 */
+	public void copyTo(int token, Text text) {
+		text.set(bytes, getStart(token), getEnd(token) - getStart(token));
+	}
+
+	/**
+	 * @param token the index of a token
+	 * @param text the text to append the token to
+	 */
+	public void appendTo(int token, Text text) {
+		text.append(bytes, getStart(token), getEnd(token) - getStart(token));
+	}
+
+	/**
+	 * @param bytes an array of bytes
+	 * @param start the start of the range to search
+	 * @param end the end of the range to search
+	 * @param character the character to find
+	 * @return the offset of the first occurrence of the character in the range, or the end of the range
+	 */
+	public static int indexOf(byte[] bytes, int start, int end, char character) {
+		int position = Math.min(start, end);
+		while (position < end && bytes[position] != character) {
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * Parses a range of bytes as a long, accepting the same (ASCII) input as {@link Long#parseLong(String)}.
+	 *
+	 * @param bytes an array of bytes
+	 * @param start the start of the range
+	 * @param end the end of the range
+	 * @return the parsed number
+	 * @throws NumberFormatException if the range is not a number
+	 */
+	public static long parseLong(byte[] bytes, int start, int end) {
+		int position = start;
+		if (position >= end)
+			throw new NumberFormatException("Empty number");
+		byte first = bytes[position];
+		boolean negative = (first == '-');
+		if (first == '-' || first == '+') {
+			if (++position == end)
+				throw invalidNumber(bytes, start, end);
+		}
+		// Accumulate negatively to handle Long.MIN_VALUE, as Long.parseLong does
+		long limit = (negative ? Long.MIN_VALUE : -Long.MAX_VALUE);
+		long multiplyLimit = limit / 10;
+		long result = 0;
+		for (; position < end; position++) {
+			int digit = bytes[position] - '0';
+			if (digit < 0 || digit > 9 || result < multiplyLimit)
+				throw invalidNumber(bytes, start, end);
+			result *= 10;
+			if (result < limit + digit)
+				throw invalidNumber(bytes, start, end);
+			result -= digit;
+		}
+		return (negative ? result : -result);
+	}
+
+	private static NumberFormatException invalidNumber(byte[] bytes, int start, int end) {
+		return new NumberFormatException("For input string: \"" +
+				new String(bytes, start, end - start, StandardCharsets.UTF_8) + "\"");
+	}
+
+}
@@ -30,6 +30,12 @@ public class UndirectedNode implements WritableComparable<UndirectedNode> {
     private String id;
     private Vector<Edge> edges;
     private final char ignoreChar = '#';
+    private static final ThreadLocal<RecordParser> parser = new ThreadLocal<RecordParser>() {
+        @Override
+        protected RecordParser initialValue() {
+            return new RecordParser(RecordParser.NODE_DELIMITERS);
+        }
+    };
 
     public UndirectedNode() {}
 
@@ -61,13 +67,17 @@ public class UndirectedNode implements WritableComparable<UndirectedNode> {
     }
 
     public void readFields(String nodeLine) throws IOException {
-        if(nodeLine.charAt(0) != this.ignoreChar) {
-            StringTokenizer tokenizer = new StringTokenizer(nodeLine, " \t\n\r\f,.:;?![]'");
-            if(tokenizer.countTokens() > 0) {
-                this.setId(tokenizer.nextToken());
+        this.readFields(new Text(nodeLine));
+    }
+
+    public void readFields(Text nodeLine) throws IOException {
+        if(nodeLine.getLength() == 0 || nodeLine.getBytes()[0] != this.ignoreChar) {
+            RecordParser parser = UndirectedNode.parser.get();
+            if(parser.tokenize(nodeLine) > 0) {
+                this.setId(parser.getString(0));
                 Vector<Edge> tmpEdgeList = new Vector<Edge>();
-                while(tokenizer.hasMoreElements()) {
-                    tmpEdgeList.add(new Edge(this.id, tokenizer.nextToken()));
+                for(int i = 1; i < parser.getNumTokens(); i++) {
+                    tmpEdgeList.add(new Edge(this.id, parser.getString(i)));
                 }
                 this.setEdges(tmpEdgeList);
             }
@@ -24,7 +24,7 @@ import java.io.IOException;
 /**
  * @author Marcin Biczak
  */
-public class UndirectedNodeNeighbourRecordReader implements RecordReader<LongWritable, UndirectedNodeNeighbourhood> {
+public class UndirectedNodeNeighbourRecordReader implements RecordReader<LongWritable, NodeNeighbourhoodView> {
     private LineRecordReader lineReader;
     private LongWritable lineKey;
     private Text lineValue;
@@ -36,15 +36,13 @@ public class UndirectedNodeNeighbourRecordReader implements RecordReader<LongWri
         lineValue = lineReader.createValue();
     }
 
-    public boolean next(LongWritable key, UndirectedNodeNeighbourhood value) throws IOException {
+    public boolean next(LongWritable key, NodeNeighbourhoodView value) throws IOException {
         if (!lineReader.next(lineKey, lineValue)) {
            return false;
         }
 
         key.set(lineKey.get());
-        UndirectedNodeNeighbourhood tmp = new UndirectedNodeNeighbourhood(this.textValueToObj(lineValue));
-        value.setCentralNode(tmp.getCentralNode());
-        value.setNodeNeighbourhood(tmp.getNodeNeighbourhood());
+        value.readUndirected(lineValue);
 
         return true;
     }
@@ -53,8 +51,8 @@ public class UndirectedNodeNeighbourRecordReader implements RecordReader<LongWri
         return new LongWritable();
     }
 
-    public UndirectedNodeNeighbourhood createValue() {
-        return new UndirectedNodeNeighbourhood();
+    public NodeNeighbourhoodView createValue() {
+        return new NodeNeighbourhoodView();
     }
 
     public long getPos() throws IOException {
@@ -68,13 +66,5 @@ public class UndirectedNodeNeighbourRecordReader implements RecordReader<LongWri
     public void close() throws IOException {
         lineReader.close();
     }
-
-    private UndirectedNodeNeighbourhood textValueToObj(Text line) throws IOException{
-        String dataLine = line.toString();
-        UndirectedNodeNeighbourhood nodeNeighbourhood = new UndirectedNodeNeighbourhood();
-        nodeNeighbourhood.readFields(dataLine);
-
-        return nodeNeighbourhood;
-    }
 }
 
@@ -23,8 +23,8 @@ import java.io.IOException;
 /**
  * @author Marcin Biczak
  */
-public class UndirectedNodeNeighbourTextInputFormat extends FileInputFormat<LongWritable, UndirectedNodeNeighbourhood> {
-    public RecordReader<LongWritable, UndirectedNodeNeighbourhood> getRecordReader(InputSplit input,
+public class UndirectedNodeNeighbourTextInputFormat extends FileInputFormat<LongWritable, NodeNeighbourhoodView> {
+    public RecordReader<LongWritable, NodeNeighbourhoodView> getRecordReader(InputSplit input,
                                                                  JobConf job, Reporter reporter)
             throws IOException {
         return new UndirectedNodeNeighbourRecordReader(job, (FileSplit)input);
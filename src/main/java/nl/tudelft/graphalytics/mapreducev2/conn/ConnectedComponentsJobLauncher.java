@@ -34,5 +34,9 @@ public class ConnectedComponentsJobLauncher extends MapReduceJobLauncher {
 	protected MapReduceJob<?> createUndirectedJob(String input, String intermediate, String output) {
 		return new ConnectedComponentsJob(input, intermediate, output, null, false);
 	}
-	
+
+	@Override
+	public boolean supportsSplitVertices() {
+		return true;
+	}
 }
@@ -17,34 +17,41 @@ package nl.tudelft.graphalytics.mapreducev2.conn;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
+import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
+import nl.tudelft.graphalytics.mapreducev2.common.MessageCombiner;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 /**
  * @author Marcin Biczak
  */
 public class LabelDirectedConnectedComponentsMap extends MapReduceBase implements Mapper<LongWritable, Text, Text, Text> {
-    private String id;
-    private String label;
-    private String[] in;
-    private String[] out;
+    private static final byte[] IN_PREFIX = { '$', '#', ' ' };
+    private static final byte[] OUT_PREFIX = { '\t', '@', ' ' };
+
+    private final NodeView node = new NodeView();
+    private Text id = new Text();
+    private Text label = new Text();
+    private Text neighbours = new Text();
+    private MessageCombiner labels;
+
+    public void configure(JobConf job) {
+        // a vertex only needs the smallest label it is sent
+        labels = new MessageCombiner(job.getInt(MapReduceJob.COMBINER_CAPACITY_KEY, 0), MessageCombiner.TEXT_MIN);
+    }
 
     public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter) throws IOException {
-        StringBuilder neighbours = new StringBuilder("# ");
-        this.readNode(value.toString(), reporter);
-
-        output.collect(new Text(this.id), new Text(this.label));
-        for(int i=0; i<this.in.length; i++) {
-            output.collect(new Text(this.in[i]), new Text(this.label));
-            if(i == 0)
-                neighbours.append(this.in[i]);
-            else
-                neighbours.append(",").append(this.in[i]);
+        this.readNode(value);
+        long label = RecordParser.parseLong(this.label.getBytes(), 0, this.label.getLength());
+        for(int i=0; i<node.getNumIncoming(); i++) {
+            labels.collect(node.getIncoming(i), label, output);
 
             //report progress
             if(i % 1000 == 0) reporter.progress();
@@ -52,67 +59,43 @@ public class LabelDirectedConnectedComponentsMap extends MapReduceBase implement
 
         reporter.progress();
 
-        neighbours.append("\t@ ");
-        for(int i=0; i<this.out.length; i++) {
-            output.collect(new Text(this.out[i]), new Text(this.label));
-            if(i == 0)
-                neighbours.append(this.out[i]);
-            else
-                neighbours.append(",").append(this.out[i]);
+        for(int i=0; i<node.getNumOutgoing(); i++) {
+            labels.collect(node.getOutgoing(i), label, output);
 
             //report progress
             if(i % 1000 == 0) reporter.progress();
         }
 
-        output.collect(new Text(this.id), new Text("$" + neighbours));
+        // the vertex keeps its neighbours and its current label, which the reducer compares to the new label
+        this.neighbours.set(this.label);
+        this.neighbours.append(IN_PREFIX, 0, IN_PREFIX.length);
+        node.appendIncoming(this.neighbours);
+        this.neighbours.append(OUT_PREFIX, 0, OUT_PREFIX.length);
+        node.appendOutgoing(this.neighbours);
+        output.collect(this.id, this.neighbours);
     }
 
-    public void readNode(String line, Reporter reporter) throws IOException {
-        StringTokenizer basicTokenizer = new StringTokenizer(line, "\t$");
-        if (basicTokenizer.countTokens() < 3 || basicTokenizer.countTokens() > 4) {
-        	throw new IOException("ConnCompRecord requires 4 basicTokens as pattern got "+basicTokenizer.countTokens());
-        }
-        
-        int tokenCount = basicTokenizer.countTokens();
-        this.id = basicTokenizer.nextToken();
-        if (tokenCount == 3) {
-        	this.label = this.id;
-        } else {
-        	this.label = basicTokenizer.nextToken();
-        }
-        
-        
-        String inNeigh = basicTokenizer.nextToken();
-        String outNeigh = basicTokenizer.nextToken();
-
-        // IN
-        StringTokenizer neighTokenizer = new StringTokenizer(inNeigh,", #");
-        this.in = new String[neighTokenizer.countTokens()];
-        int i=0;
-        while (neighTokenizer.hasMoreTokens()) {
-            String token = neighTokenizer.nextToken();
-            if(token.equals("#")) continue;
-            this.in[i] = token;
-
-            if(i % 1000 == 0) reporter.progress();
-
-            i++;
-        }
-
-        reporter.progress();
-
-        // OUT
-        neighTokenizer = new StringTokenizer(outNeigh,", @");
-        this.out = new String[neighTokenizer.countTokens()];
-        i=0;
-        while (neighTokenizer.hasMoreTokens()) {
-            String token = neighTokenizer.nextToken();
-            if(token.equals("@")) continue;
-            this.out[i] = token;
-
-            if(i % 1000 == 0) reporter.progress();
+    public void close() throws IOException {
+        labels.close();
+    }
 
-            i++;
+    /*
+        Reads "id\t#in\t@out" in the first iteration and "id\tlabel$# in\t@ out" afterwards
+     */
+    public void readNode(Text line) throws IOException {
+        byte[] bytes = line.getBytes();
+        int labelEnd = RecordParser.indexOf(bytes, 0, line.getLength(), '$');
+        if (labelEnd == line.getLength()) {
+            node.readDirected(line);
+            node.copyIdTo(this.label);
+        } else {
+            int labelStart = node.readId(bytes, 0, labelEnd) + 1;
+            if (labelStart < labelEnd)
+                this.label.set(bytes, labelStart, labelEnd - labelStart);
+            else
+                node.copyIdTo(this.label);
+            node.readDirectedNeighbours(labelEnd + 1, line.getLength());
         }
+        node.copyIdTo(this.id);
     }
 }
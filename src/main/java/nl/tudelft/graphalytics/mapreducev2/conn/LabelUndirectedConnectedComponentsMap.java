@@ -17,33 +17,40 @@ package nl.tudelft.graphalytics.mapreducev2.conn;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
+import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
+import nl.tudelft.graphalytics.mapreducev2.common.MessageCombiner;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 import java.io.IOException;
-import java.util.StringTokenizer;
 
 /**
  * @author Marcin Biczak
  */
 public class LabelUndirectedConnectedComponentsMap extends MapReduceBase implements Mapper<LongWritable, Text, Text, Text> {
-    private String id;
-    private String label;
-    private String[] neighbours;
+    private static final byte[] PREFIX = { '$' };
 
-    public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter) throws IOException {
-        StringBuilder neighbours = new StringBuilder();
-        this.readNode(value.toString(), reporter);
+    private final NodeView node = new NodeView();
+    private Text id = new Text();
+    private Text label = new Text();
+    private Text neighbours = new Text();
+    private MessageCombiner labels;
 
-        output.collect(new Text(this.id), new Text(this.label));
-        for(int i=0; i<this.neighbours.length; i++) {
-            output.collect(new Text(this.neighbours[i]), new Text(this.label));
-            if(i == 0)
-                neighbours.append(this.neighbours[i]);
-            else
-                neighbours.append(",").append(this.neighbours[i]);
+    public void configure(JobConf job) {
+        // a vertex only needs the smallest label it is sent
+        labels = new MessageCombiner(job.getInt(MapReduceJob.COMBINER_CAPACITY_KEY, 0), MessageCombiner.TEXT_MIN);
+    }
+
+    public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter) throws IOException {
+        this.readNode(value);
+        long label = RecordParser.parseLong(this.label.getBytes(), 0, this.label.getLength());
+        for(int i=0; i<node.getNumOutgoing(); i++) {
+            labels.collect(node.getOutgoing(i), label, output);
 
             //report progress
             if(i % 1000 == 0) reporter.progress();
@@ -51,54 +58,34 @@ public class LabelUndirectedConnectedComponentsMap extends MapReduceBase impleme
 
         reporter.progress();
 
-        output.collect(new Text(this.id), new Text("$" + neighbours));
+        // the vertex keeps its neighbours and its current label, which the reducer compares to the new label
+        this.neighbours.set(this.label);
+        this.neighbours.append(PREFIX, 0, PREFIX.length);
+        node.appendOutgoing(this.neighbours);
+        output.collect(this.id, this.neighbours);
     }
 
-    public void readNode(String line, Reporter reporter) throws IOException {
-        StringTokenizer basicTokenizer = new StringTokenizer(line, "$");
-        if(basicTokenizer.countTokens() == 2) {
-            String basics = basicTokenizer.nextToken();
-            String neighbours = basicTokenizer.nextToken();
-
-            // ID and Label
-            basicTokenizer = new StringTokenizer(basics, "\t");
-            if (basicTokenizer.countTokens() == 2) {
-            	this.id = basicTokenizer.nextToken();
-            	this.label = basicTokenizer.nextToken();
-            } else {
-            	this.id = basicTokenizer.nextToken();
-            	this.label = this.id;
-            }
-
-            // Neighbours
-            StringTokenizer neighTokenizer = new StringTokenizer(neighbours,", \t");
-            this.neighbours = new String[neighTokenizer.countTokens()];
-            int i=0;
-            while (neighTokenizer.hasMoreTokens()) {
-                this.neighbours[i] = neighTokenizer.nextToken();
-
-                if(i % 1000 == 0) reporter.progress();
+    public void close() throws IOException {
+        labels.close();
+    }
 
-                i++;
-            }
+    /*
+        Reads "id neighbour neighbour" in the first iteration and "id\tlabel$neighbour,neighbour" afterwards
+     */
+    public void readNode(Text line) throws IOException {
+        byte[] bytes = line.getBytes();
+        int labelEnd = RecordParser.indexOf(bytes, 0, line.getLength(), '$');
+        if (labelEnd == line.getLength()) {
+            node.readUndirected(line);
+            node.copyIdTo(this.label);
         } else {
-        	basicTokenizer = new StringTokenizer(line, ", \t");
-        	int tokenCount = basicTokenizer.countTokens(); 
-        	if (tokenCount >= 1) {
-        		this.label = this.id = basicTokenizer.nextToken();
-        		this.neighbours = new String[tokenCount - 1];
-        		int i=0;
-                while (basicTokenizer.hasMoreTokens()) {
-                    this.neighbours[i] = basicTokenizer.nextToken();
-
-                    if(i % 1000 == 0) reporter.progress();
-
-                    i++;
-                }
-        	} else {
-                throw new IOException("ConnCompRecord requires 2 basicTokens as patter got "+basicTokenizer.countTokens());
-            }
-    	} 
+            int labelStart = node.readId(bytes, 0, labelEnd) + 1;
+            if (labelStart < labelEnd)
+                this.label.set(bytes, labelStart, labelEnd - labelStart);
+            else
+                node.copyIdTo(this.label);
+            node.readUndirectedNeighbours(labelEnd + 1, line.getLength());
+        }
+        node.copyIdTo(this.id);
     }
 }
-
@@ -23,51 +23,52 @@ import org.apache.hadoop.mapred.Reporter;
 import nl.tudelft.graphalytics.mapreducev2.conn.ConnectedComponentsConfiguration.LABEL_STATUS;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.Vector;
+import java.util.List;
 
 /**
+ * Vertices split into multiple records with the same id (see the hub split threshold of the
+ * conversion jobs) receive one neighbourhood per record; each is emitted with the same label. All records of a
+ * vertex are buffered until its label is known.
+ *
  * @author Marcin Biczak
  */
 public class LabelUndirectedConnectedComponentsReducer extends MapReduceBase implements Reducer<Text, Text, Text, Text> {
         public void reduce(Text key, Iterator<Text> values,
                        OutputCollector<Text, Text> output, Reporter reporter) throws IOException {
-            Vector<String> potentialLabels = new Vector<String>();
-
-            String link = "";
+            List<String> links = new ArrayList<String>();
+            String oldLabel = null;
             String theTag = "Z";
             int i = 0;
 
             while (values.hasNext()) {
-                Text value = values.next();
+                String value = values.next().toString();
 
-                if(value.toString().startsWith("$"))
-                    link = value.toString();
-                else if(value.toString().compareTo(theTag) < 0) {
-                    theTag = value.toString();
-                    potentialLabels.add(value.toString());
+                // either "label$links" of the vertex itself, or a label sent by a neighbour
+                int linksStart = value.indexOf('$');
+                String label = (linksStart == -1 ? value : value.substring(0, linksStart));
+                if(linksStart != -1) {
+                    oldLabel = label;
+                    links.add(value.substring(linksStart));
                 }
+                if(label.compareTo(theTag) < 0)
+                    theTag = label;
 
                 //report progress
                 if(i % 1000 == 0) reporter.progress();
                 i++;
             }
 
-            output.collect(key, new Text(theTag+link));
+            if(links.isEmpty())
+                links.add("");
+            for(String link : links)
+                output.collect(key, new Text(theTag+link));
             reporter.progress();
 
-            i = 0;
-            Iterator<String> iter = potentialLabels.iterator();
-            while (iter.hasNext()) {
-                String prev = iter.next();
-                if(!theTag.equals(prev)) {
-                    reporter.incrCounter(LABEL_STATUS.UPDATED, 1);
-                }
-
-                //report progress
-                if(i % 1000 == 0) reporter.progress();
-                i++;
-            }
+            // count the vertex as updated iff its label changed, regardless of the number and order of the msgs
+            if(oldLabel != null && !theTag.equals(oldLabel))
+                reporter.incrCounter(LABEL_STATUS.UPDATED, 1);
         }
     }
 
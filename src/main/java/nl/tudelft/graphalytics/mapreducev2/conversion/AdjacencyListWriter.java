@@ -0,0 +1,156 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+/**
+ * Writes the adjacency lists of the vertices of one converted graph, and collects the degree summary, vertex ID
+ * sample and metadata that are stored next to the graph. Lines are written to a {@link LineOutput}, e.g. the output
+ * of a reduce task, a base output path of a {@link MultipleOutputs} if a task converts several graphs, or a file.
+ *
+ * @author Tim Hegeman
+ */
+public abstract class AdjacencyListWriter {
+
+	/**
+	 * Destination of the lines written by an {@link AdjacencyListWriter}.
+	 */
+	public interface LineOutput {
+		/**
+		 * @param line a line of output
+		 * @throws IOException if writing the line fails
+		 * @throws InterruptedException if writing the line fails
+		 */
+		void write(Text line) throws IOException, InterruptedException;
+	}
+
+	private final LineOutput output;
+	private final int partition;
+	private final Text outValue = new Text();
+	/** Maximum number of neighbours per line, or zero or less to write every vertex on one line. */
+	protected final int hubSplitThreshold;
+	private final DegreeSummary degreeSummary;
+	private final VertexIdSample vertexIdSample;
+	private final GraphMetadata graphMetadata;
+
+	/**
+	 * @param output the destination of the written lines
+	 * @param hubSplitThreshold the maximum number of neighbours per line, or zero to disable splitting
+	 * @param partition the index of the partition of the graph that is written
+	 * @param directed true iff the graph is directed
+	 */
+	protected AdjacencyListWriter(LineOutput output, int hubSplitThreshold, int partition, boolean directed) {
+		this.output = output;
+		this.partition = partition;
+		this.hubSplitThreshold = hubSplitThreshold;
+		this.degreeSummary = new DegreeSummary();
+		this.vertexIdSample = new VertexIdSample(partition);
+		this.graphMetadata = new GraphMetadata(directed);
+	}
+
+	/**
+	 * @param context the context of a task
+	 * @return an output that writes lines to the output of the task
+	 */
+	public static LineOutput toContext(final TaskInputOutputContext<?, ?, NullWritable, Text> context) {
+		return new LineOutput() {
+			@Override
+			public void write(Text line) throws IOException, InterruptedException {
+				context.write(NullWritable.get(), line);
+			}
+		};
+	}
+
+	/**
+	 * @param multipleOutputs the multiple outputs of a task
+	 * @param baseOutputPath the base output path to write to
+	 * @return an output that writes lines to the given base output path
+	 */
+	public static LineOutput toMultipleOutputs(final MultipleOutputs<NullWritable, Text> multipleOutputs,
+			final String baseOutputPath) {
+		return new LineOutput() {
+			@Override
+			public void write(Text line) throws IOException, InterruptedException {
+				multipleOutputs.write(NullWritable.get(), line, baseOutputPath);
+			}
+		};
+	}
+
+	/**
+	 * Sorts and deduplicates the edges of a vertex, writes them as one or more lines of output, and adds the vertex
+	 * to the statistics of the graph.
+	 *
+	 * @param vertex the ID of the vertex
+	 * @param adjacency all edges of the vertex, in any order; modified by this method
+	 * @return the number of duplicate edges that were dropped
+	 * @throws IOException if writing the vertex fails
+	 * @throws InterruptedException if writing the vertex fails
+	 */
+	public int write(LongWritable vertex, PartialAdjacency adjacency) throws IOException, InterruptedException {
+		int duplicates = adjacency.sortAndDeduplicate(vertex.get());
+		writeVertex(vertex, adjacency);
+		return duplicates;
+	}
+
+	/**
+	 * Writes the sorted and deduplicated edges of a vertex, using {@link #writeLine(String)} and
+	 * {@link #addVertex(long, long, long, int)}.
+	 */
+	protected abstract void writeVertex(LongWritable vertex, PartialAdjacency adjacency)
+			throws IOException, InterruptedException;
+
+	/**
+	 * @param line a line of output
+	 */
+	protected void writeLine(String line) throws IOException, InterruptedException {
+		outValue.set(line);
+		output.write(outValue);
+	}
+
+	/**
+	 * Adds a written vertex to the statistics of the graph.
+	 *
+	 * @see GraphMetadata#addVertex(long, long, long, int)
+	 */
+	protected void addVertex(long vertexId, long degree, long outDegree, int numRecords) {
+		degreeSummary.addVertex(vertexId, degree);
+		vertexIdSample.addVertex(vertexId);
+		graphMetadata.addVertex(vertexId, degree, outDegree, numRecords);
+	}
+
+	/**
+	 * Stores the degree summary, vertex ID sample and metadata of the written vertices.
+	 *
+	 * @param dfs the file system to write to
+	 * @param directory the directory to write the statistics to, i.e. the (work) output directory of the graph
+	 * @throws IOException if writing the statistics fails
+	 */
+	public void writeStatistics(FileSystem dfs, Path directory) throws IOException {
+		degreeSummary.write(dfs, new Path(directory, DegreeSummary.FILE_PREFIX + partition));
+		vertexIdSample.write(dfs, new Path(directory, VertexIdSample.FILE_PREFIX + partition));
+		graphMetadata.write(dfs, new Path(directory, GraphMetadata.FILE_PREFIX + partition));
+	}
+
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.LazyOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+/**
+ * Job specification for converting several graphs in a single job, to avoid the startup overhead of one conversion
+ * job per graph. Every map task reads the input of a single graph and converts it with the mapper of the regular
+ * conversion for that graph, tagging its output with the index of the graph (see {@link TaggedPartialAdjacency}). The
+ * reducers write the vertices of each graph to a separate directory using multiple outputs, which are moved to the
+ * output paths of the graphs when the job completes. The output of each graph is identical to that of the regular
+ * conversion with the same number of reducers.
+ *
+ * @author Tim Hegeman
+ */
+public class BatchConversion {
+
+	/** Input formats of the graphs that can be converted, with the mapper of their regular conversion. */
+	public enum Format {
+		DIRECTED_EDGES(DirectedEdgeMapper.class, true),
+		UNDIRECTED_EDGES(UndirectedEdgeMapper.class, false),
+		DIRECTED_VERTICES(DirectedVertexMapper.class, true);
+
+		private final Class<? extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency>> mapperClass;
+		private final boolean directed;
+
+		Format(Class<? extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency>> mapperClass,
+				boolean directed) {
+			this.mapperClass = mapperClass;
+			this.directed = directed;
+		}
+
+		/**
+		 * @return the mapper that converts records of this format
+		 */
+		public Class<? extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency>> getMapperClass() {
+			return mapperClass;
+		}
+
+		/**
+		 * @return true iff graphs in this format are directed
+		 */
+		public boolean isDirected() {
+			return directed;
+		}
+	}
+
+	/** Qualified input paths of the graphs, indexed by graph. */
+	private static final String INPUT_PATHS_KEY = "CONVERSION.BatchInputPaths";
+	/** Formats of the graphs, indexed by graph. */
+	private static final String FORMATS_KEY = "CONVERSION.BatchFormats";
+
+	private String workPath;
+	private List<String> inputPaths;
+	private List<String> outputPaths;
+	private List<Format> formats;
+	private int numReducers;
+	private int hubSplitThreshold;
+
+	/**
+	 * @param workPath a directory for the output of the job, from which the converted graphs are moved
+	 */
+	public BatchConversion(String workPath) {
+		this.workPath = workPath;
+		this.inputPaths = new ArrayList<>();
+		this.outputPaths = new ArrayList<>();
+		this.formats = new ArrayList<>();
+		this.numReducers = 1;
+		this.hubSplitThreshold = 0;
+	}
+
+	/**
+	 * Adds a graph to convert.
+	 *
+	 * @param inputPath the path of the graph to convert
+	 * @param outputPath the path to write the converted graph to
+	 * @param format the format of the graph to convert
+	 * @return this conversion job
+	 */
+	public BatchConversion withGraph(String inputPath, String outputPath, Format format) {
+		inputPaths.add(inputPath);
+		outputPaths.add(outputPath);
+		formats.add(format);
+		return this;
+	}
+
+	public BatchConversion withNumberOfReducers(int numReducers) {
+		this.numReducers = numReducers;
+		return this;
+	}
+
+	/**
+	 * @param hubSplitThreshold the maximum number of neighbours per output line, or zero to disable splitting
+	 * @return this conversion job
+	 * @see EdgesToAdjacencyListConversion#withHubSplitThreshold(int)
+	 */
+	public BatchConversion withHubSplitThreshold(int hubSplitThreshold) {
+		this.hubSplitThreshold = hubSplitThreshold;
+		return this;
+	}
+
+	/**
+	 * @return the number of graphs added to this conversion
+	 */
+	public int getNumGraphs() {
+		return inputPaths.size();
+	}
+
+	public void run() throws IOException, ClassNotFoundException, InterruptedException {
+		Job job = Job.getInstance();
+		job.setJarByClass(getClass());
+		
+		job.setMapperClass(BatchConversionMapper.class);
+		job.setMapOutputKeyClass(LongWritable.class);
+		job.setMapOutputValueClass(TaggedPartialAdjacency.class);
+		job.setCombinerClass(TaggedPartialAdjacencyCombiner.class);
+		
+		job.setReducerClass(BatchVertexReducer.class);
+		job.setOutputKeyClass(NullWritable.class);
+		job.setOutputValueClass(Text.class);
+		
+		job.setInputFormatClass(TextInputFormat.class);
+		LazyOutputFormat.setOutputFormatClass(job, TextOutputFormat.class);
+		
+		job.setNumReduceTasks(numReducers);
+		job.getConfiguration().setInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, hubSplitThreshold);
+		
+		// Store the input path and format of every graph, so tasks can find the graph they convert
+		Path outputPath = new Path(workPath);
+		FileSystem dfs = outputPath.getFileSystem(job.getConfiguration());
+		dfs.delete(outputPath, true);
+		String[] qualifiedInputPaths = new String[inputPaths.size()];
+		String[] formatNames = new String[formats.size()];
+		for (int graph = 0; graph < inputPaths.size(); graph++) {
+			Path inputPath = dfs.makeQualified(new Path(inputPaths.get(graph)));
+			FileInputFormat.addInputPath(job, inputPath);
+			qualifiedInputPaths[graph] = inputPath.toString();
+			formatNames[graph] = formats.get(graph).name();
+		}
+		job.getConfiguration().setStrings(INPUT_PATHS_KEY, qualifiedInputPaths);
+		job.getConfiguration().setStrings(FORMATS_KEY, formatNames);
+		FileOutputFormat.setOutputPath(job, outputPath);
+		
+		if (!job.waitForCompletion(true))
+			throw new IOException("Batch conversion of " + inputPaths + " failed.");
+		
+		// Move every converted graph to its output path
+		for (int graph = 0; graph < outputPaths.size(); graph++) {
+			Path graphPath = new Path(outputPath, getGraphDirectory(graph));
+			Path graphOutputPath = new Path(outputPaths.get(graph));
+			dfs.mkdirs(graphPath);
+			dfs.mkdirs(graphOutputPath.getParent());
+			if (!dfs.rename(graphPath, graphOutputPath))
+				throw new IOException("Failed to move converted graph to " + graphOutputPath + ".");
+		}
+		dfs.delete(outputPath, true);
+	}
+
+	/**
+	 * @param graph the index of a graph
+	 * @return the directory of the converted graph within the output of the job
+	 */
+	static String getGraphDirectory(int graph) {
+		return "graph-" + graph;
+	}
+
+	/**
+	 * @param conf the configuration of a batch conversion job
+	 * @return the formats of the converted graphs, indexed by graph
+	 */
+	static Format[] getFormats(Configuration conf) {
+		String[] formatNames = conf.getTrimmedStrings(FORMATS_KEY);
+		Format[] formats = new Format[formatNames.length];
+		for (int graph = 0; graph < formatNames.length; graph++) {
+			formats[graph] = Format.valueOf(formatNames[graph]);
+		}
+		return formats;
+	}
+
+	/**
+	 * @param conf the configuration of a batch conversion job
+	 * @param file a qualified input file of the job
+	 * @return the index of the graph the file belongs to
+	 * @throws IOException if the file does not belong to any graph
+	 */
+	static int getGraphIndex(Configuration conf, Path file) throws IOException {
+		// Find the longest input path that contains the file
+		String filePath = file.toUri().getPath();
+		String[] inputPaths = conf.getTrimmedStrings(INPUT_PATHS_KEY);
+		int graphIndex = -1;
+		int matchLength = -1;
+		for (int graph = 0; graph < inputPaths.length; graph++) {
+			String inputPath = new Path(inputPaths[graph]).toUri().getPath();
+			if ((filePath.equals(inputPath) || filePath.startsWith(inputPath + Path.SEPARATOR)) &&
+					inputPath.length() > matchLength) {
+				graphIndex = graph;
+				matchLength = inputPath.length();
+			}
+		}
+		if (graphIndex < 0)
+			throw new IOException("Input file " + file + " does not belong to any graph of the batch conversion.");
+		return graphIndex;
+	}
+
+}
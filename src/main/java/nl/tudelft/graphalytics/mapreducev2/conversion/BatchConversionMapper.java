@@ -0,0 +1,47 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.util.ReflectionUtils;
+
+/**
+ * Mapper of a {@link BatchConversion}, which runs the mapper of the regular conversion of the graph that the input
+ * split of the task belongs to. The index of the graph is stored in the configuration of the task, so the
+ * {@link PartialAdjacencyBuffer} of the mapper tags its output with it.
+ *
+ * @author Tim Hegeman
+ */
+public class BatchConversionMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
+
+	@Override
+	public void run(Context context) throws IOException, InterruptedException {
+		int graph = BatchConversion.getGraphIndex(context.getConfiguration(),
+				((FileSplit)context.getInputSplit()).getPath());
+		context.getConfiguration().setInt(ConversionConfiguration.GRAPH_INDEX_KEY, graph);
+
+		BatchConversion.Format format = BatchConversion.getFormats(context.getConfiguration())[graph];
+		Mapper<LongWritable, Text, LongWritable, PartialAdjacency> mapper =
+				ReflectionUtils.newInstance(format.getMapperClass(), context.getConfiguration());
+		mapper.run(context);
+	}
+
+}
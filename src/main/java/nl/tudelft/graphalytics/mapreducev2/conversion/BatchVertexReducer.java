@@ -0,0 +1,95 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MultipleOutputs;
+
+/**
+ * Reducer of a {@link BatchConversion}. Separates the tagged edges of each vertex by graph, and writes the vertex of
+ * every graph it occurs in to the output directory of that graph, as the reducer of the regular conversion would.
+ *
+ * @author Tim Hegeman
+ */
+public class BatchVertexReducer extends Reducer<LongWritable, PartialAdjacency, NullWritable, Text> {
+
+	private MultipleOutputs<NullWritable, Text> multipleOutputs;
+	private AdjacencyListWriter[] writers;
+	private PartialAdjacency[] adjacencies;
+	/** Indices of the graphs that contain the current vertex. */
+	private List<Integer> graphs = new ArrayList<>();
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		multipleOutputs = new MultipleOutputs<>(context);
+		BatchConversion.Format[] formats = BatchConversion.getFormats(context.getConfiguration());
+		writers = new AdjacencyListWriter[formats.length];
+		adjacencies = new PartialAdjacency[formats.length];
+		int hubSplitThreshold = context.getConfiguration().getInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, 0);
+		int partition = context.getTaskAttemptID().getTaskID().getId();
+		for (int graph = 0; graph < formats.length; graph++) {
+			AdjacencyListWriter.LineOutput output = AdjacencyListWriter.toMultipleOutputs(multipleOutputs,
+					BatchConversion.getGraphDirectory(graph) + Path.SEPARATOR + "part");
+			writers[graph] = (formats[graph].isDirected() ?
+					new DirectedAdjacencyListWriter(output, hubSplitThreshold, partition) :
+					new UndirectedAdjacencyListWriter(output, hubSplitThreshold, partition));
+			adjacencies[graph] = new PartialAdjacency();
+		}
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		// Store the degree summary, vertex ID sample and metadata of this partition next to each output graph
+		Path workPath = FileOutputFormat.getWorkOutputPath(context);
+		FileSystem dfs = workPath.getFileSystem(context.getConfiguration());
+		for (int graph = 0; graph < writers.length; graph++) {
+			writers[graph].writeStatistics(dfs, new Path(workPath, BatchConversion.getGraphDirectory(graph)));
+		}
+		multipleOutputs.close();
+	}
+
+	@Override
+	protected void reduce(LongWritable key, Iterable<PartialAdjacency> values, Context context)
+			throws IOException, InterruptedException {
+		// Collect the edges of the vertex per graph
+		graphs.clear();
+		for (PartialAdjacency edges : values) {
+			int graph = ((TaggedPartialAdjacency)edges).getGraph();
+			if (!graphs.contains(graph)) {
+				adjacencies[graph].clear();
+				graphs.add(graph);
+			}
+			adjacencies[graph].addAll(edges);
+		}
+
+		for (int graph : graphs) {
+			int duplicates = writers[graph].write(key, adjacencies[graph]);
+			if (duplicates > 0)
+				context.getCounter(Counters.DroppedEdges.DUPLICATES).increment(duplicates);
+		}
+	}
+
+}
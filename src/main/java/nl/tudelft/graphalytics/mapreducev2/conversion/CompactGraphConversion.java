@@ -0,0 +1,94 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
+import nl.tudelft.graphalytics.mapreducev2.CompactGraphInputFormat;
+import nl.tudelft.graphalytics.mapreducev2.common.CompactAdjacencyList;
+
+/**
+ * Job specification for storing a converted graph in the compact encoding of {@link CompactAdjacencyList}, using a
+ * map-only job. The compact graph is written as sequence files to a subdirectory of a hidden directory within the
+ * graph directory, like the graph with dense IDs (see {@link DenseIdConversion}). The first iteration of jobs that
+ * read the converted graph as text reads the compact graph through {@link CompactGraphInputFormat} instead, which
+ * yields the same records. Later iterations read the text output of the previous iteration.
+ *
+ * @author Tim Hegeman
+ */
+public class CompactGraphConversion {
+
+	/** Name of the hidden directory within the graph directory that contains the compact graph. */
+	public static final String DIRECTORY_NAME = "_compact";
+	/** Name of the compact graph within the hidden directory; input formats skip hidden input paths. */
+	private static final String GRAPH_NAME = "graph";
+
+	private String graphPath;
+	private boolean directed;
+
+	public CompactGraphConversion(String graphPath, boolean directed) {
+		this.graphPath = graphPath;
+		this.directed = directed;
+	}
+
+	public void run() throws IOException, ClassNotFoundException, InterruptedException {
+		Job job = Job.getInstance();
+		job.setJarByClass(getClass());
+
+		job.setMapperClass(CompactGraphMapper.class);
+		job.setNumReduceTasks(0);
+		job.setOutputKeyClass(NullWritable.class);
+		job.setOutputValueClass(CompactAdjacencyList.class);
+
+		job.setInputFormatClass(TextInputFormat.class);
+		job.setOutputFormatClass(SequenceFileOutputFormat.class);
+
+		job.getConfiguration().setBoolean(ConversionConfiguration.DIRECTED_KEY, directed);
+
+		FileInputFormat.addInputPath(job, new Path(graphPath));
+		FileOutputFormat.setOutputPath(job, getCompactGraphPath(new Path(graphPath)));
+
+		if (!job.waitForCompletion(true))
+			throw new IOException("Failed to store graph " + graphPath + " in the compact encoding.");
+	}
+
+	/**
+	 * @param graphPath the path of a graph
+	 * @return the path of the compact copy of the graph
+	 */
+	public static Path getCompactGraphPath(Path graphPath) {
+		return new Path(new Path(graphPath, DIRECTORY_NAME), GRAPH_NAME);
+	}
+
+	/**
+	 * @param dfs the file system containing the graph
+	 * @param graphPath the path of a graph
+	 * @return true iff a compact copy of the graph was stored
+	 * @throws IOException if the file system could not be accessed
+	 */
+	public static boolean exists(FileSystem dfs, Path graphPath) throws IOException {
+		return dfs.exists(getCompactGraphPath(graphPath));
+	}
+
+}
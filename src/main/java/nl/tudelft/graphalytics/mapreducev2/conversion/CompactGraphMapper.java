@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import nl.tudelft.graphalytics.mapreducev2.common.CompactAdjacencyList;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
+
+/**
+ * Encodes each vertex record of a converted graph as a {@link CompactAdjacencyList}. Every record is decoded again
+ * and compared to the original, so jobs reading the compact graph see exactly the records of the converted graph.
+ *
+ * @author Tim Hegeman
+ */
+public class CompactGraphMapper extends Mapper<LongWritable, Text, NullWritable, CompactAdjacencyList> {
+
+	private final RecordParser parser = new RecordParser(RecordParser.ADJACENCY_DELIMITERS,
+			RecordParser.DIRECTED_MARKERS);
+	private final CompactAdjacencyList adjacency = new CompactAdjacencyList();
+	private final Text decoded = new Text();
+	private boolean directed;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		directed = context.getConfiguration().getBoolean(ConversionConfiguration.DIRECTED_KEY, true);
+	}
+
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		// The vertex ID is the first field of the record
+		if (parser.tokenize(value) == 0 || parser.getSection(0) != 0)
+			throw new IOException("Record at offset " + key.get() + " does not start with a vertex ID.");
+		adjacency.clear(parser.getLong(0), directed);
+
+		// In directed records, incoming edges follow '#' and outgoing edges follow '@'
+		for (int i = 1; i < parser.getNumTokens(); i++) {
+			if (parser.getSection(i) == '#')
+				adjacency.addIncoming(parser.getLong(i));
+			else
+				adjacency.addOutgoing(parser.getLong(i));
+		}
+
+		adjacency.toText(decoded);
+		if (!decoded.equals(value))
+			throw new IOException("Record of vertex " + adjacency.getVertexId() +
+					" is not in the format of a converted graph.");
+		context.write(NullWritable.get(), adjacency);
+	}
+
+}
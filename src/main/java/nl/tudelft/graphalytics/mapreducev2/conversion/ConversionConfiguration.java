@@ -0,0 +1,41 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+/**
+ * Configuration constants for the graph conversion jobs.
+ *
+ * @author Tim Hegeman
+ */
+public final class ConversionConfiguration {
+	/**
+	 * Maximum number of neighbours written on a single output line. Vertices with a higher degree are split into
+	 * several sub-vertex records that share the vertex ID. A value of zero or less disables splitting.
+	 */
+	public static final String HUB_SPLIT_THRESHOLD_KEY = "CONVERSION.HubSplitThreshold";
+	/** True iff the graph being converted is directed. */
+	public static final String DIRECTED_KEY = "CONVERSION.Directed";
+	/** Smallest source vertex of the outgoing edges merged by every reducer but the first, for sorted input. */
+	public static final String SPLIT_POINTS_KEY = "CONVERSION.SplitPoints";
+	/** Prefix of the keys listing the files of outgoing edges merged by each reducer, for sorted input. */
+	public static final String OUTGOING_EDGE_FILES_KEY_PREFIX = "CONVERSION.OutgoingEdgeFiles.";
+	/** Index of the graph converted by a map task of a batch conversion; set by the task itself. */
+	public static final String GRAPH_INDEX_KEY = "CONVERSION.GraphIndex";
+	/** Names of the part files of a graph being assigned dense vertex IDs, in order of their first dense ID. */
+	public static final String DENSE_ID_FILES_KEY = "CONVERSION.DenseIdFiles";
+	/** First dense vertex ID of every part file, followed by the total number of vertices. */
+	public static final String DENSE_ID_OFFSETS_KEY = "CONVERSION.DenseIdOffsets";
+}
@@ -27,5 +27,14 @@ public class Counters {
 		NUMBER_FORMAT_EXCEPTION,
 		INVALID_LINE_FORMAT
 	}
+
+	public enum DroppedEdges {
+		SELF_LOOPS,
+		DUPLICATES
+	}
+
+	public enum SortedInput {
+		OUT_OF_ORDER_LINES
+	}
 	
 }
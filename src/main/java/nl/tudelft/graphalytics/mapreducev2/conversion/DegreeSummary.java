@@ -0,0 +1,103 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Summary of the degree distribution of a graph, produced by the conversion jobs. Vertices are hashed into a fixed
+ * number of buckets, and the summary stores the total weight (degree plus one) of the vertices in each bucket. The
+ * summary is stored next to the converted graph in files that are ignored as job input.
+ *
+ * @author Tim Hegeman
+ */
+public class DegreeSummary {
+
+	/** Number of buckets vertices are hashed into. */
+	public static final int NUM_BUCKETS = 4096;
+	/** Prefix of the file names of (partial) degree summaries in a graph directory. */
+	public static final String FILE_PREFIX = "_degree-summary-";
+
+	private final long[] bucketWeights = new long[NUM_BUCKETS];
+
+	/**
+	 * @param vertexId the ID of a vertex, formatted as the map output keys of the algorithms
+	 * @return the bucket the vertex belongs to
+	 */
+	public static int getBucket(Text vertexId) {
+		return (vertexId.hashCode() & Integer.MAX_VALUE) % NUM_BUCKETS;
+	}
+
+	/**
+	 * @param vertexId the ID of a vertex
+	 * @param degree the number of neighbours of the vertex
+	 */
+	public void addVertex(long vertexId, long degree) {
+		bucketWeights[getBucket(new Text(Long.toString(vertexId)))] += degree + 1;
+	}
+
+	/**
+	 * @return the total weight of the vertices in each bucket
+	 */
+	public long[] getBucketWeights() {
+		return bucketWeights;
+	}
+
+	/**
+	 * @param dfs the file system to write to
+	 * @param path the file to write the summary to
+	 * @throws IOException if writing the summary fails
+	 */
+	public void write(FileSystem dfs, Path path) throws IOException {
+		try (FSDataOutputStream out = dfs.create(path)) {
+			for (long bucketWeight : bucketWeights) {
+				out.writeLong(bucketWeight);
+			}
+		}
+	}
+
+	/**
+	 * Reads and merges all partial degree summaries stored in a graph directory.
+	 *
+	 * @param dfs the file system to read from
+	 * @param graphPath the directory of the converted graph
+	 * @return the merged degree summary, or null if the graph has no degree summary
+	 * @throws IOException if reading the summary fails
+	 */
+	public static DegreeSummary read(FileSystem dfs, Path graphPath) throws IOException {
+		FileStatus[] summaryFiles = dfs.globStatus(new Path(graphPath, FILE_PREFIX + "*"));
+		if (summaryFiles == null || summaryFiles.length == 0)
+			return null;
+
+		DegreeSummary summary = new DegreeSummary();
+		for (FileStatus summaryFile : summaryFiles) {
+			try (FSDataInputStream in = dfs.open(summaryFile.getPath())) {
+				for (int i = 0; i < NUM_BUCKETS; i++) {
+					summary.bucketWeights[i] += in.readLong();
+				}
+			}
+		}
+		return summary;
+	}
+
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Partial adjacency list of a vertex (the MapReduce key, by original ID) with the dense IDs of its neighbours, used by
+ * {@link DenseIdConversion}. The dense ID of the vertex itself is known to the map task reading the record of the
+ * vertex only; that task sends it with an empty adjacency list.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdAdjacency extends PartialAdjacency {
+
+	private long denseId = -1;
+
+	/**
+	 * @return the dense ID of the vertex, or -1 if it is not known to the sender of this list
+	 */
+	public long getDenseId() {
+		return denseId;
+	}
+
+	/**
+	 * @param denseId the dense ID of the vertex, or -1 if it is not known
+	 */
+	public void setDenseId(long denseId) {
+		this.denseId = denseId;
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		denseId = -1;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVLong(out, denseId);
+		super.write(out);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		denseId = WritableUtils.readVLong(in);
+		super.readFields(in);
+	}
+
+}
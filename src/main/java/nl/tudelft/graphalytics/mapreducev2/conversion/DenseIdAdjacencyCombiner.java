@@ -0,0 +1,45 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ * Concatenates the partial adjacency lists of a vertex in {@link DenseIdConversion}, keeping the dense ID of the
+ * vertex if any of the lists carries it.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdAdjacencyCombiner
+		extends Reducer<LongWritable, DenseIdAdjacency, LongWritable, DenseIdAdjacency> {
+
+	private final DenseIdAdjacency outValue = new DenseIdAdjacency();
+
+	@Override
+	protected void reduce(LongWritable key, Iterable<DenseIdAdjacency> values, Context context)
+			throws IOException, InterruptedException {
+		outValue.clear();
+		for (DenseIdAdjacency value : values) {
+			outValue.addAll(value);
+			outValue.setDenseId(Math.max(outValue.getDenseId(), value.getDenseId()));
+		}
+		context.write(key, outValue);
+	}
+
+}
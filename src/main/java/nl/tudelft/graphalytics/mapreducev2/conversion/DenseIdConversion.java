@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+/**
+ * Job specification for renumbering the vertices of a converted graph with dense IDs, i.e. 0 to n - 1 for a graph
+ * of n vertices. Vertices are numbered in the order of the part files of the converted graph, and in the order of
+ * their records within each file, so vertices written by the same conversion reducer get a contiguous range of IDs.
+ * The number of vertices in each part file is taken from the {@link GraphMetadata} of the graph, which allows every
+ * map task to number the vertices of its file without coordinating with other tasks.
+ *
+ * The graph with dense IDs is written to a subdirectory of a hidden directory within the graph directory, so jobs
+ * reading the original graph ignore it, while jobs can still use the dense graph itself as input. A
+ * {@link DenseIdDictionary} next to the dense graph maps the IDs back to the original IDs.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdConversion {
+
+	/** Name of the hidden directory within the graph directory that contains the graph with dense IDs. */
+	public static final String DIRECTORY_NAME = "_dense";
+	/** Name of the graph with dense IDs within the hidden directory; input formats skip hidden input paths. */
+	private static final String GRAPH_NAME = "graph";
+
+	private String graphPath;
+	private boolean directed;
+	private int numReducers;
+	private int hubSplitThreshold;
+
+	public DenseIdConversion(String graphPath, boolean directed) {
+		this.graphPath = graphPath;
+		this.directed = directed;
+		this.numReducers = 1;
+		this.hubSplitThreshold = 0;
+	}
+
+	public DenseIdConversion withNumberOfReducers(int numReducers) {
+		this.numReducers = numReducers;
+		return this;
+	}
+
+	/**
+	 * @param hubSplitThreshold the maximum number of neighbours per output line, or zero to disable splitting
+	 * @return this conversion job
+	 * @see EdgesToAdjacencyListConversion#withHubSplitThreshold(int)
+	 */
+	public DenseIdConversion withHubSplitThreshold(int hubSplitThreshold) {
+		this.hubSplitThreshold = hubSplitThreshold;
+		return this;
+	}
+
+	public void run() throws IOException, ClassNotFoundException, InterruptedException {
+		Job job = Job.getInstance();
+		job.setJarByClass(getClass());
+
+		job.setMapperClass(DenseIdMapper.class);
+		job.setMapOutputKeyClass(LongWritable.class);
+		job.setMapOutputValueClass(DenseIdAdjacency.class);
+		job.setCombinerClass(DenseIdAdjacencyCombiner.class);
+		job.setReducerClass(DenseIdReducer.class);
+
+		job.setOutputKeyClass(NullWritable.class);
+		job.setOutputValueClass(Text.class);
+
+		job.setInputFormatClass(WholeFileTextInputFormat.class);
+		job.setOutputFormatClass(TextOutputFormat.class);
+
+		job.setNumReduceTasks(numReducers);
+		job.getConfiguration().setInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, hubSplitThreshold);
+		job.getConfiguration().setBoolean(ConversionConfiguration.DIRECTED_KEY, directed);
+
+		// Assign a range of dense IDs to every part file, based on the number of vertices in its partition
+		Path inputPath = new Path(graphPath);
+		FileSystem dfs = inputPath.getFileSystem(job.getConfiguration());
+		FileStatus[] partFiles = dfs.globStatus(new Path(inputPath, "part-*"));
+		if (partFiles == null || partFiles.length == 0)
+			throw new IOException("Graph " + graphPath + " has no part files.");
+		Arrays.sort(partFiles);
+		String[] fileNames = new String[partFiles.length];
+		String[] offsets = new String[partFiles.length + 1];
+		long numVertices = 0;
+		for (int i = 0; i < partFiles.length; i++) {
+			fileNames[i] = partFiles[i].getPath().getName();
+			offsets[i] = Long.toString(numVertices);
+			GraphMetadata metadata = GraphMetadata.readPartition(dfs, inputPath, getPartition(fileNames[i]));
+			if (metadata == null)
+				throw new IOException("Graph " + graphPath + " has no metadata for part file " + fileNames[i] + ".");
+			numVertices += metadata.getNumVertices();
+			FileInputFormat.addInputPath(job, partFiles[i].getPath());
+		}
+		offsets[partFiles.length] = Long.toString(numVertices);
+		job.getConfiguration().setStrings(ConversionConfiguration.DENSE_ID_FILES_KEY, fileNames);
+		job.getConfiguration().setStrings(ConversionConfiguration.DENSE_ID_OFFSETS_KEY, offsets);
+
+		FileOutputFormat.setOutputPath(job, getDenseGraphPath(inputPath));
+
+		if (!job.waitForCompletion(true))
+			throw new IOException("Failed to assign dense vertex IDs to graph " + graphPath + ".");
+	}
+
+	/**
+	 * @param fileName the name of a part file, e.g. "part-r-00003"
+	 * @return the partition of the part file, i.e. the number after the last dash
+	 */
+	private static int getPartition(String fileName) {
+		return Integer.parseInt(fileName.substring(fileName.lastIndexOf('-') + 1));
+	}
+
+	/**
+	 * @param graphPath the path of a graph
+	 * @return the path of the graph with dense IDs
+	 */
+	public static Path getDenseGraphPath(Path graphPath) {
+		return new Path(new Path(graphPath, DIRECTORY_NAME), GRAPH_NAME);
+	}
+
+	/**
+	 * @param dfs the file system containing the graph
+	 * @param graphPath the path of a graph
+	 * @return true iff a graph with dense IDs was built for the graph
+	 * @throws IOException if the file system could not be accessed
+	 */
+	public static boolean exists(FileSystem dfs, Path graphPath) throws IOException {
+		return dfs.exists(getDenseGraphPath(graphPath));
+	}
+
+	/**
+	 * Text input format that reads every file as a single split, so a map task sees all records of its part file.
+	 */
+	public static class WholeFileTextInputFormat extends TextInputFormat {
+
+		@Override
+		protected boolean isSplitable(JobContext context, Path file) {
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Mapping between the original vertex IDs of a graph and the dense vertex IDs assigned by {@link DenseIdConversion}.
+ * Each reducer of the conversion stores the pairs of original and dense ID of the vertices it writes in a file next
+ * to the dense graph, sorted by original ID. The dictionary loads the reverse mapping, from dense to original ID, as
+ * a single array of 8 bytes per vertex.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdDictionary {
+
+	/** Prefix of the file names of (partial) dictionaries in a dense graph directory. */
+	public static final String FILE_PREFIX = "_dictionary-";
+
+	/** Size in bytes of a pair of original and dense ID. */
+	private static final int ENTRY_SIZE = 16;
+
+	private final long[] originalIds;
+
+	private DenseIdDictionary(long[] originalIds) {
+		this.originalIds = originalIds;
+	}
+
+	/**
+	 * @param denseId the dense ID of a vertex
+	 * @return the original ID of the vertex
+	 */
+	public long getOriginalId(long denseId) {
+		return originalIds[(int)denseId];
+	}
+
+	/**
+	 * @return the number of vertices in the dictionary
+	 */
+	public int size() {
+		return originalIds.length;
+	}
+
+	/**
+	 * Reads the mapping from dense to original IDs of a graph.
+	 *
+	 * @param dfs the file system to read from
+	 * @param denseGraphPath the directory of the graph with dense IDs
+	 * @return the dictionary of the graph
+	 * @throws IOException if reading the dictionary fails, or the graph has too many vertices to load the dictionary
+	 */
+	public static DenseIdDictionary read(FileSystem dfs, Path denseGraphPath) throws IOException {
+		FileStatus[] files = getFiles(dfs, denseGraphPath);
+		long numVertices = 0;
+		for (FileStatus file : files) {
+			numVertices += file.getLen() / ENTRY_SIZE;
+		}
+		if (numVertices > Integer.MAX_VALUE)
+			throw new IOException("Dictionary of " + numVertices + " vertices does not fit in a single array.");
+
+		long[] originalIds = new long[(int)numVertices];
+		for (FileStatus file : files) {
+			try (FSDataInputStream in = dfs.open(file.getPath())) {
+				for (long i = file.getLen() / ENTRY_SIZE; i > 0; i--) {
+					long originalId = in.readLong();
+					long denseId = in.readLong();
+					if (denseId < 0 || denseId >= numVertices)
+						throw new IOException("Dense ID " + denseId + " in " + file.getPath() + " is out of range.");
+					originalIds[(int)denseId] = originalId;
+				}
+			}
+		}
+		return new DenseIdDictionary(originalIds);
+	}
+
+	/**
+	 * Looks up the dense ID of a single vertex, using a binary search in each dictionary file.
+	 *
+	 * @param dfs the file system to read from
+	 * @param denseGraphPath the directory of the graph with dense IDs
+	 * @param originalId the original ID of a vertex
+	 * @return the dense ID of the vertex, or -1 if the vertex is not in the graph
+	 * @throws IOException if reading the dictionary fails
+	 */
+	public static long findDenseId(FileSystem dfs, Path denseGraphPath, long originalId) throws IOException {
+		for (FileStatus file : getFiles(dfs, denseGraphPath)) {
+			try (FSDataInputStream in = dfs.open(file.getPath())) {
+				long low = 0;
+				long high = file.getLen() / ENTRY_SIZE;
+				while (low < high) {
+					long middle = (low + high) >>> 1;
+					in.seek(middle * ENTRY_SIZE);
+					long middleId = in.readLong();
+					if (middleId == originalId)
+						return in.readLong();
+					else if (middleId < originalId)
+						low = middle + 1;
+					else
+						high = middle;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private static FileStatus[] getFiles(FileSystem dfs, Path denseGraphPath) throws IOException {
+		FileStatus[] files = dfs.globStatus(new Path(denseGraphPath, FILE_PREFIX + "*"));
+		if (files == null || files.length == 0)
+			throw new IOException("No dense ID dictionary found in " + denseGraphPath + ".");
+		return files;
+	}
+
+}
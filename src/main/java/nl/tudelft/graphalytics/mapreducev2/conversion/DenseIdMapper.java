@@ -0,0 +1,98 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
+
+/**
+ * Assigns dense IDs to the vertices of one part file of a converted graph, in the order of the records in the file,
+ * starting at the offset of the file (see {@link DenseIdConversion}). For every record, the dense ID of its vertex is
+ * sent to each of its neighbours, with the direction of the edge as seen from the neighbour. Since every edge is
+ * stored in the records of both endpoints, each vertex receives the dense IDs of all its neighbours, and its own
+ * dense ID from this mapper.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
+
+	private final RecordParser parser = new RecordParser(RecordParser.ADJACENCY_DELIMITERS,
+			RecordParser.DIRECTED_MARKERS);
+	private final PartialAdjacencyBuffer buffer = new PartialAdjacencyBuffer(new DenseIdAdjacency());
+	private final LongWritable outKey = new LongWritable();
+	private final DenseIdAdjacency outValue = new DenseIdAdjacency();
+	private boolean directed;
+	private long nextDenseId;
+	private long endDenseId;
+	private long currentVertex;
+	private long currentDenseId = -1;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		// Find the range of dense IDs of the part file read by this task
+		Configuration conf = context.getConfiguration();
+		directed = conf.getBoolean(ConversionConfiguration.DIRECTED_KEY, true);
+		String fileName = ((FileSplit)context.getInputSplit()).getPath().getName();
+		int file = Arrays.asList(conf.getTrimmedStrings(ConversionConfiguration.DENSE_ID_FILES_KEY)).indexOf(fileName);
+		if (file < 0)
+			throw new IOException("No dense IDs were assigned to part file " + fileName + ".");
+		String[] offsets = conf.getTrimmedStrings(ConversionConfiguration.DENSE_ID_OFFSETS_KEY);
+		nextDenseId = Long.parseLong(offsets[file]);
+		endDenseId = Long.parseLong(offsets[file + 1]);
+	}
+
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		// Assign the next dense ID to the vertex, unless this is another record of the previous vertex
+		if (parser.tokenize(value) == 0 || parser.getSection(0) != 0)
+			throw new IOException("Record at offset " + key.get() + " does not start with a vertex ID.");
+		long vertex = parser.getLong(0);
+		if (currentDenseId < 0 || vertex != currentVertex) {
+			if (nextDenseId == endDenseId)
+				throw new IOException("Part file contains more vertices than recorded in the graph metadata.");
+			currentVertex = vertex;
+			currentDenseId = nextDenseId++;
+			outKey.set(vertex);
+			outValue.setDenseId(currentDenseId);
+			context.write(outKey, outValue);
+		}
+
+		// Send the dense ID to all neighbours; in directed records, incoming edges follow '#', outgoing edges '@'
+		for (int i = 1; i < parser.getNumTokens(); i++)
+			addNeighbour(parser.getLong(i), parser.getSection(i) != '#', context);
+	}
+
+	private void addNeighbour(long neighbour, boolean isOutgoing, Context context)
+			throws IOException, InterruptedException {
+		// An outgoing edge of this vertex is an incoming edge of the neighbour, and vice versa
+		buffer.add(neighbour, currentDenseId, directed ? !isOutgoing : true, context);
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if (nextDenseId != endDenseId)
+			throw new IOException("Part file contains fewer vertices than recorded in the graph metadata.");
+		buffer.flush(context);
+	}
+
+}
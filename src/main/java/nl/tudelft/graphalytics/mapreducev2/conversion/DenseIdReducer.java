@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+
+/**
+ * Writes the record of a vertex of a graph with dense vertex IDs, from the dense ID of the vertex and the dense IDs
+ * of its neighbours. The mapping from the original ID of each vertex to its dense ID is stored in a
+ * {@link DenseIdDictionary} file next to the output graph.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdReducer extends Reducer<LongWritable, DenseIdAdjacency, NullWritable, Text> {
+
+	private final PartialAdjacency adjacency = new PartialAdjacency();
+	private final LongWritable denseKey = new LongWritable();
+	private AdjacencyListWriter writer;
+	private FSDataOutputStream dictionary;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		int partition = context.getTaskAttemptID().getTaskID().getId();
+		int hubSplitThreshold = conf.getInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, 0);
+		writer = (conf.getBoolean(ConversionConfiguration.DIRECTED_KEY, true) ?
+				new DirectedAdjacencyListWriter(AdjacencyListWriter.toContext(context), hubSplitThreshold, partition) :
+				new UndirectedAdjacencyListWriter(AdjacencyListWriter.toContext(context), hubSplitThreshold, partition));
+
+		Path workPath = FileOutputFormat.getWorkOutputPath(context);
+		dictionary = workPath.getFileSystem(conf).create(
+				new Path(workPath, DenseIdDictionary.FILE_PREFIX + partition));
+	}
+
+	@Override
+	protected void reduce(LongWritable key, Iterable<DenseIdAdjacency> values, Context context)
+			throws IOException, InterruptedException {
+		// Collect the dense IDs of all neighbours, and the dense ID of the vertex itself
+		long denseId = -1;
+		adjacency.clear();
+		for (DenseIdAdjacency edges : values) {
+			adjacency.addAll(edges);
+			denseId = Math.max(denseId, edges.getDenseId());
+		}
+		if (denseId < 0)
+			throw new IOException("Vertex " + key.get() + " is a neighbour of another vertex, but has no record.");
+
+		// Keys arrive in increasing order of original ID, so the dictionary file is sorted by original ID
+		dictionary.writeLong(key.get());
+		dictionary.writeLong(denseId);
+		denseKey.set(denseId);
+		int duplicates = writer.write(denseKey, adjacency);
+		if (duplicates > 0)
+			context.getCounter(Counters.DroppedEdges.DUPLICATES).increment(duplicates);
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		dictionary.close();
+		Path workPath = FileOutputFormat.getWorkOutputPath(context);
+		writer.writeStatistics(workPath.getFileSystem(context.getConfiguration()), workPath);
+	}
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+
+/**
+ * Job specification for translating the output of an algorithm run on a graph with dense IDs (see
+ * {@link DenseIdConversion}) back to the original vertex IDs, using a map-only job. Every map task loads the
+ * complete {@link DenseIdDictionary} of the graph.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdTranslation {
+
+	/** Path of the graph with dense IDs of which the dictionary is used for the translation. */
+	public static final String DENSE_GRAPH_PATH_KEY = "CONVERSION.DenseGraphPath";
+
+	private String inputPath;
+	private String outputPath;
+	private String denseGraphPath;
+
+	public DenseIdTranslation(String inputPath, String outputPath, String denseGraphPath) {
+		this.inputPath = inputPath;
+		this.outputPath = outputPath;
+		this.denseGraphPath = denseGraphPath;
+	}
+
+	public void run() throws IOException, ClassNotFoundException, InterruptedException {
+		Job job = Job.getInstance();
+		job.setJarByClass(getClass());
+
+		job.setMapperClass(DenseIdTranslationMapper.class);
+		job.setNumReduceTasks(0);
+		job.setOutputKeyClass(NullWritable.class);
+		job.setOutputValueClass(Text.class);
+
+		job.setInputFormatClass(TextInputFormat.class);
+		job.setOutputFormatClass(TextOutputFormat.class);
+
+		job.getConfiguration().set(DENSE_GRAPH_PATH_KEY, denseGraphPath);
+
+		FileInputFormat.addInputPath(job, new Path(inputPath));
+		FileOutputFormat.setOutputPath(job, new Path(outputPath));
+
+		if (!job.waitForCompletion(true))
+			throw new IOException("Failed to translate dense vertex IDs in " + inputPath + ".");
+	}
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+
+/**
+ * Translates the vertex IDs in the output of an algorithm run on a graph with dense IDs back to the original IDs.
+ * Output records start with the record of a vertex in the graph format, in which every number is a vertex ID,
+ * followed by the results of the algorithm after the first '$'; only the numbers before the first '$' are
+ * translated.
+ *
+ * @author Tim Hegeman
+ */
+public class DenseIdTranslationMapper extends Mapper<LongWritable, Text, NullWritable, Text> {
+
+	private final StringBuilder sb = new StringBuilder();
+	private final Text outValue = new Text();
+	private DenseIdDictionary dictionary;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		Configuration conf = context.getConfiguration();
+		Path denseGraphPath = new Path(conf.get(DenseIdTranslation.DENSE_GRAPH_PATH_KEY));
+		dictionary = DenseIdDictionary.read(denseGraphPath.getFileSystem(conf), denseGraphPath);
+	}
+
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		String record = value.toString();
+		int end = record.indexOf('$');
+		if (end < 0)
+			end = record.length();
+
+		sb.setLength(0);
+		int i = 0;
+		while (i < end) {
+			char c = record.charAt(i);
+			if (c < '0' || c > '9') {
+				sb.append(c);
+				i++;
+				continue;
+			}
+			int start = i;
+			while (i < end && record.charAt(i) >= '0' && record.charAt(i) <= '9')
+				i++;
+			sb.append(dictionary.getOriginalId(Long.parseLong(record.substring(start, i))));
+		}
+		sb.append(record, end, record.length());
+
+		outValue.set(sb.toString());
+		context.write(NullWritable.get(), outValue);
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+
+/**
+ * Writes the edges in both directions of a vertex of a directed graph as a single line of output. The incoming and
+ * outgoing neighbours are written in increasing order of ID. If a hub split threshold is configured, vertices with
+ * more neighbours than the threshold are written as multiple lines that share the vertex ID, each containing part of
+ * the incoming and outgoing edges.
+ *
+ * @author Tim Hegeman
+ */
+public class DirectedAdjacencyListWriter extends AdjacencyListWriter {
+
+	/**
+	 * @see AdjacencyListWriter#AdjacencyListWriter(LineOutput, int, int, boolean)
+	 */
+	public DirectedAdjacencyListWriter(LineOutput output, int hubSplitThreshold, int partition) {
+		super(output, hubSplitThreshold, partition, true);
+	}
+
+	@Override
+	protected void writeVertex(LongWritable vertex, PartialAdjacency adjacency)
+			throws IOException, InterruptedException {
+		// Fill separate buffers for incoming and outgoing edges
+		StringBuilder sbIn = new StringBuilder();
+		StringBuilder sbOut = new StringBuilder();
+		boolean foundIn = false, foundOut = false;
+		int neighboursOnLine = 0;
+		long degree = adjacency.size();
+		long outDegree = 0;
+		int numRecords = 1;
+		for (int i = 0; i < adjacency.size(); i++) {
+			// Flush the current sub-vertex record if it is full
+			if (hubSplitThreshold > 0 && neighboursOnLine == hubSplitThreshold) {
+				writeLine(vertex, sbIn, sbOut, foundOut);
+				sbIn.setLength(0);
+				sbOut.setLength(0);
+				foundIn = foundOut = false;
+				neighboursOnLine = 0;
+				numRecords++;
+			}
+
+			if (adjacency.isOutgoing(i)) {
+				if (foundOut)
+					sbOut.append(',');
+				sbOut.append(adjacency.getNeighbour(i));
+				foundOut = true;
+				outDegree++;
+			} else {
+				if (foundIn)
+					sbIn.append(',');
+				sbIn.append(adjacency.getNeighbour(i));
+				foundIn = true;
+			}
+			neighboursOnLine++;
+		}
+		
+		writeLine(vertex, sbIn, sbOut, foundOut);
+		addVertex(vertex.get(), degree, outDegree, numRecords);
+	}
+
+	private void writeLine(LongWritable vertex, StringBuilder sbIn, StringBuilder sbOut, boolean foundOut)
+			throws IOException, InterruptedException {
+		// Combine the vertex ID and neighbour lists using Marcin's format
+		StringBuilder out = new StringBuilder(vertex.toString());
+		out.append("\t#")
+			.append(sbIn.toString())
+			.append("\t@")
+			.append(sbOut.toString());
+		if (!foundOut)
+			out.append('\t');
+		writeLine(out.toString());
+	}
+
+}
@@ -16,46 +16,59 @@
 package nl.tudelft.graphalytics.mapreducev2.conversion;
 
 import java.io.IOException;
-import java.util.regex.Pattern;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 /**
- * Maps each directed edge in the input to an edge in both directions. The direction and target make up the value class.
+ * Maps each directed edge in the input to an edge in both directions. Edges are aggregated per vertex within each map
+ * task and emitted as partial adjacency lists.
  *
  * @author Tim Hegeman
  */
-public class DirectedEdgeMapper extends Mapper<LongWritable, Text, LongWritable, EdgeData> {
+public class DirectedEdgeMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
 
-	/** Pre-compiled regular expression for splitting input lines on whitespace. */
-	private static final Pattern whitespacePattern = Pattern.compile("[\t ]");
+	/** Parser for splitting input lines on whitespace. */
+	private final RecordParser parser = new RecordParser(RecordParser.WHITESPACE_DELIMITERS);
 	
-	private LongWritable sourceId = new LongWritable();
-	private LongWritable destinationId = new LongWritable();
+	private PartialAdjacencyBuffer buffer = new PartialAdjacencyBuffer();
 	
 	@Override
 	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
 		// Parse the line (value) as a pair of longs: source-vertex destination-vertex
-		String[] vertices = whitespacePattern.split(value.toString());
-		if (vertices.length != 2) {
+		int numVertices = parser.split(value);
+		if (numVertices != 2) {
 			context.getCounter(Counters.ParseErrors.INVALID_LINE_FORMAT).increment(1);
 			return;
 		}
 		
 		// Parse both longs
+		long sourceId, destinationId;
 		try {
-			sourceId.set(Long.parseLong(vertices[0]));
-			destinationId.set(Long.parseLong(vertices[1]));
+			sourceId = parser.getLong(0);
+			destinationId = parser.getLong(1);
 		} catch (NumberFormatException ex) {
 			context.getCounter(Counters.ParseErrors.NUMBER_FORMAT_EXCEPTION).increment(1);
 			return;
 		}
 		
-		// Output the edge both ways
-		context.write(sourceId, new EdgeData(destinationId.get(), true));
-		context.write(destinationId, new EdgeData(sourceId.get(), false));
+		// Drop self-loops, but keep the vertex
+		if (sourceId == destinationId) {
+			context.getCounter(Counters.DroppedEdges.SELF_LOOPS).increment(1);
+			buffer.add(sourceId, sourceId, true, context);
+			return;
+		}
+		
+		// Buffer the edge both ways
+		buffer.add(sourceId, destinationId, true, context);
+		buffer.add(destinationId, sourceId, false, context);
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		buffer.flush(context);
 	}
 	
 }
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+
+/**
+ * Reducer for the conversion of sorted edge lists, which merges the shuffled incoming edges of each vertex with the
+ * outgoing edges written by the map-only pass, read directly from its output by an {@link OutgoingEdgeReader}.
+ * Vertices without incoming edges are not passed to {@link #reduce}, so they are written while advancing the reader.
+ *
+ * @author Tim Hegeman
+ */
+public class DirectedMergingVertexReducer extends DirectedVertexReducer {
+
+	private PartialAdjacency adjacency = new PartialAdjacency();
+	private OutgoingEdgeReader outgoingEdges;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		super.setup(context);
+		int partition = context.getTaskAttemptID().getTaskID().getId();
+		outgoingEdges = new OutgoingEdgeReader(context.getConfiguration(), context.getConfiguration().getTrimmedStrings(
+				ConversionConfiguration.OUTGOING_EDGE_FILES_KEY_PREFIX + partition));
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		writeOutgoingEdgesBefore(null, context);
+		outgoingEdges.close();
+		super.cleanup(context);
+	}
+
+	@Override
+	protected void reduce(LongWritable key, Iterable<PartialAdjacency> values, Context context)
+			throws IOException, InterruptedException {
+		writeOutgoingEdgesBefore(key, context);
+
+		// Collect the edges of the vertex from the map-only pass and the shuffle
+		adjacency.clear();
+		if (outgoingEdges.hasVertex() && outgoingEdges.getVertex().get() == key.get()) {
+			adjacency.addAll(outgoingEdges.getAdjacency());
+			outgoingEdges.next();
+		}
+		for (PartialAdjacency edges : values) {
+			adjacency.addAll(edges);
+		}
+		writeAdjacency(key, adjacency, context);
+	}
+
+	/**
+	 * Writes the vertices read from the map-only pass that precede a vertex, or all remaining vertices.
+	 *
+	 * @param key the ID of the vertex to stop at, or null to write all remaining vertices
+	 */
+	private void writeOutgoingEdgesBefore(LongWritable key, Context context) throws IOException, InterruptedException {
+		while (outgoingEdges.hasVertex() && (key == null || outgoingEdges.getVertex().get() < key.get())) {
+			writeAdjacency(outgoingEdges.getVertex(), outgoingEdges.getAdjacency(), context);
+			outgoingEdges.next();
+		}
+	}
+
+}
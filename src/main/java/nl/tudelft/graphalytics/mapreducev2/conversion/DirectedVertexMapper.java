@@ -16,51 +16,64 @@
 package nl.tudelft.graphalytics.mapreducev2.conversion;
 
 import java.io.IOException;
-import java.util.regex.Pattern;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 /**
  * Maps each directed vertex to a set of edges. Each edge is emitted in both directions, with the direction specified
- * as a flag.
+ * as a flag. Edges are aggregated per vertex within each map task and emitted as partial adjacency lists.
  *
  * @author Tim Hegeman
  */
-public class DirectedVertexMapper extends Mapper<LongWritable, Text, LongWritable, EdgeData> {
+public class DirectedVertexMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
 
-	/** Pre-compiled regular expression for splitting input lines on whitespace. */
-	private static final Pattern whitespacePattern = Pattern.compile("[\t ]");
+	/** Parser for splitting input lines on whitespace. */
+	private final RecordParser parser = new RecordParser(RecordParser.WHITESPACE_DELIMITERS);
+
+	private PartialAdjacencyBuffer buffer = new PartialAdjacencyBuffer();
 
 	@Override
 	protected void map(LongWritable key, Text value, Context context)
 			throws IOException, InterruptedException {
 		// Parse the line (value) as a list of longs: vertex-id neighbour-1 neighbour-2 ...
-		String[] vertices = whitespacePattern.split(value.toString());
-		if (vertices.length == 0) {
+		int numVertices = parser.split(value);
+		if (numVertices == 0) {
 			context.getCounter(Counters.ParseErrors.INVALID_LINE_FORMAT).increment(1);
 			return;
-		} else if (vertices.length == 1) {
-			long vertexId = Long.parseLong(vertices[0]);
-			context.write(new LongWritable(vertexId), new EdgeData(vertexId, true));
+		} else if (numVertices == 1) {
+			long vertexId = parser.getLong(0);
+			buffer.add(vertexId, vertexId, true, context);
 			return;
 		}
 
-		LongWritable sourceId;
-		LongWritable destinationId;
+		long sourceId;
+		long destinationId;
 		try {
-			// Loop through the neighbour IDs and output an edge both ways for each
-			sourceId = new LongWritable(Long.parseLong(vertices[0]));
-			for (int i = 1; i < vertices.length; i++) {
-				destinationId = new LongWritable(Long.parseLong(vertices[i]));
-				context.write(sourceId, new EdgeData(destinationId.get(), true));
-				context.write(destinationId, new EdgeData(sourceId.get(), false));
+			// Loop through the neighbour IDs and buffer an edge both ways for each
+			sourceId = parser.getLong(0);
+			for (int i = 1; i < numVertices; i++) {
+				destinationId = parser.getLong(i);
+				if (destinationId == sourceId) {
+					// Drop self-loops, but keep the vertex
+					context.getCounter(Counters.DroppedEdges.SELF_LOOPS).increment(1);
+					buffer.add(sourceId, sourceId, true, context);
+					continue;
+				}
+				buffer.add(sourceId, destinationId, true, context);
+				buffer.add(destinationId, sourceId, false, context);
 			}
 		} catch (NumberFormatException ex) {
 			context.getCounter(Counters.ParseErrors.NUMBER_FORMAT_EXCEPTION).increment(1);
 			return;
 		}
 	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		buffer.flush(context);
+	}
 	
 }
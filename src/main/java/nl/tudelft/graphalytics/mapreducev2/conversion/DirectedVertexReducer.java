@@ -17,57 +17,64 @@ package nl.tudelft.graphalytics.mapreducev2.conversion;
 
 import java.io.IOException;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 /**
- * Reduces a list of edges in both directions for a single vertex to a single line of output.
+ * Reduces a list of edges in both directions for a single vertex to one or more lines of output, written by a
+ * {@link DirectedAdjacencyListWriter}.
  *
  * @author Tim Hegeman
  */
-public class DirectedVertexReducer extends Reducer<LongWritable, EdgeData, NullWritable, Text> {
+public class DirectedVertexReducer extends Reducer<LongWritable, PartialAdjacency, NullWritable, Text> {
 
-	private Text outValue = new Text();
+	private PartialAdjacency adjacency = new PartialAdjacency();
+	private AdjacencyListWriter writer;
 
 	@Override
-	protected void reduce(LongWritable key, Iterable<EdgeData> values, Context context)
-			throws IOException, InterruptedException {
-		// Fill separate buffers for incoming and outgoing edges
-		StringBuffer sbIn = new StringBuffer();
-		StringBuffer sbOut = new StringBuffer();
+	protected void setup(Context context) throws IOException, InterruptedException {
+		writer = new DirectedAdjacencyListWriter(AdjacencyListWriter.toContext(context),
+				context.getConfiguration().getInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, 0),
+				context.getTaskAttemptID().getTaskID().getId());
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		// Store the degree summary, vertex ID sample and metadata of this partition next to the output graph
+		Path workPath = FileOutputFormat.getWorkOutputPath(context);
+		writer.writeStatistics(workPath.getFileSystem(context.getConfiguration()), workPath);
+	}
 
-		// Loop through the messages and add them to the buffers
-		boolean foundIn = false, foundOut = false;
-		for (EdgeData edge : values) {
-			if (edge.getTargetId() == key.get()) {
-				// Ignore, this self-edge was added to force this vertex's existence
-			} else if (edge.isOutgoing()) {
-				if (foundOut)
-					sbOut.append(',');
-				sbOut.append(edge.getTargetId());
-				foundOut = true;
-			} else {
-				if (foundIn)
-					sbIn.append(',');
-				sbIn.append(edge.getTargetId());
-				foundIn = true;
-			}
+	@Override
+	protected void reduce(LongWritable key, Iterable<PartialAdjacency> values, Context context)
+			throws IOException, InterruptedException {
+		// Collect all edges of the vertex
+		adjacency.clear();
+		for (PartialAdjacency edges : values) {
+			adjacency.addAll(edges);
 		}
-		
-		// Combine the vertex ID and neighbour lists using Marcin's format
-		StringBuffer out = new StringBuffer(key.toString());
-		out.append("\t#")
-			.append(sbIn.toString())
-			.append("\t@")
-			.append(sbOut.toString());
-		if (!foundOut)
-			out.append('\t');
-		
-		// Output the constructed line
-		outValue.set(out.toString());
-		context.write(NullWritable.get(), outValue);
+		writeAdjacency(key, adjacency, context);
+	}
+
+	/**
+	 * Sorts and deduplicates the edges of a vertex, writes them as one or more lines of output, and adds the vertex
+	 * to the statistics of this partition.
+	 *
+	 * @param key the ID of the vertex
+	 * @param adjacency all edges of the vertex, in any order; modified by this method
+	 * @param context the context to write the vertex to
+	 * @throws IOException if writing the vertex fails
+	 * @throws InterruptedException if writing the vertex fails
+	 */
+	protected void writeAdjacency(LongWritable key, PartialAdjacency adjacency, Context context)
+			throws IOException, InterruptedException {
+		int duplicates = writer.write(key, adjacency);
+		if (duplicates > 0)
+			context.getCounter(Counters.DroppedEdges.DUPLICATES).increment(duplicates);
 	}
 	
 }
@@ -37,11 +37,13 @@ public class DirectedVertexToAdjacencyListConversion  {
 	private String inputPath;
 	private String outputPath;
 	private int numReducers;
+	private int hubSplitThreshold;
 	
 	public DirectedVertexToAdjacencyListConversion(String inputPath, String outputPath) {
 		this.inputPath = inputPath;
 		this.outputPath = outputPath;
 		this.numReducers = 1;
+		this.hubSplitThreshold = 0;
 	}
 	
 	public DirectedVertexToAdjacencyListConversion withNumberOfReducers(int numReducers) {
@@ -49,13 +51,28 @@ public class DirectedVertexToAdjacencyListConversion  {
 		return this;
 	}
 	
+	/**
+	 * Splits vertices with more than the given number of neighbours into multiple sub-vertex records with the same
+	 * vertex ID. Only algorithms that merge the state of sub-vertex records (BFS and CONN) support split graphs. This
+	 * bounds the size of input lines, but not of reduce groups: algorithms still group all records of a vertex by its
+	 * ID.
+	 *
+	 * @param hubSplitThreshold the maximum number of neighbours per output line, or zero to disable splitting
+	 * @return this conversion job
+	 */
+	public DirectedVertexToAdjacencyListConversion withHubSplitThreshold(int hubSplitThreshold) {
+		this.hubSplitThreshold = hubSplitThreshold;
+		return this;
+	}
+	
 	public void run() throws IOException, ClassNotFoundException, InterruptedException {
 		Job job = Job.getInstance();
 		job.setJarByClass(getClass());
 		
 		job.setMapperClass(DirectedVertexMapper.class);
 		job.setMapOutputKeyClass(LongWritable.class);
-		job.setMapOutputValueClass(EdgeData.class);
+		job.setMapOutputValueClass(PartialAdjacency.class);
+		job.setCombinerClass(PartialAdjacencyCombiner.class);
 		
 		job.setReducerClass(DirectedVertexReducer.class);
 		job.setOutputKeyClass(NullWritable.class);
@@ -65,6 +82,7 @@ public class DirectedVertexToAdjacencyListConversion  {
 		job.setOutputFormatClass(TextOutputFormat.class);
 		
 		job.setNumReduceTasks(numReducers);
+		job.getConfiguration().setInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, hubSplitThreshold);
 		
 		FileInputFormat.addInputPath(job, new Path(inputPath));
 		FileOutputFormat.setOutputPath(job, new Path(outputPath));
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of edge endpoints, i.e. (vertex, neighbour, direction) triples, stored in primitive arrays. Used to
+ * aggregate edges per vertex before they are written as adjacency lists.
+ *
+ * @author Tim Hegeman
+ */
+public class EdgeList {
+
+	private long[] vertices;
+	private long[] neighbours;
+	private boolean[] outgoing;
+	private int size = 0;
+
+	/**
+	 * @param initialCapacity the number of edge endpoints the list can hold before it grows
+	 */
+	public EdgeList(int initialCapacity) {
+		vertices = new long[initialCapacity];
+		neighbours = new long[initialCapacity];
+		outgoing = new boolean[initialCapacity];
+	}
+
+	/**
+	 * @param vertex the ID of the vertex
+	 * @param neighbour the ID of the neighbour
+	 * @param isOutgoing true iff the edge is an outgoing edge of the vertex
+	 */
+	public void add(long vertex, long neighbour, boolean isOutgoing) {
+		if (size == vertices.length)
+			grow(size + 1);
+		vertices[size] = vertex;
+		neighbours[size] = neighbour;
+		outgoing[size] = isOutgoing;
+		size++;
+	}
+
+	/**
+	 * @param other a list of edge endpoints to append to this list
+	 */
+	public void addAll(EdgeList other) {
+		if (size + other.size > vertices.length)
+			grow(size + other.size);
+		System.arraycopy(other.vertices, 0, vertices, size, other.size);
+		System.arraycopy(other.neighbours, 0, neighbours, size, other.size);
+		System.arraycopy(other.outgoing, 0, outgoing, size, other.size);
+		size += other.size;
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = Math.max(minCapacity, vertices.length + (vertices.length >> 1) + 16);
+		vertices = Arrays.copyOf(vertices, capacity);
+		neighbours = Arrays.copyOf(neighbours, capacity);
+		outgoing = Arrays.copyOf(outgoing, capacity);
+	}
+
+	/**
+	 * Removes all edge endpoints.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @return the number of edge endpoints in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index the index of an edge endpoint
+	 * @return the ID of the vertex
+	 */
+	public long getVertex(int index) {
+		return vertices[index];
+	}
+
+	/**
+	 * @param index the index of an edge endpoint
+	 * @return the ID of the neighbour
+	 */
+	public long getNeighbour(int index) {
+		return neighbours[index];
+	}
+
+	/**
+	 * @param index the index of an edge endpoint
+	 * @return true iff the edge is an outgoing edge of the vertex
+	 */
+	public boolean isOutgoing(int index) {
+		return outgoing[index];
+	}
+
+	/**
+	 * Sorts the edge endpoints by vertex, then by neighbour, then by direction.
+	 */
+	public void sort() {
+		sorter.sort(0, size);
+	}
+
+	private final IndexSorter sorter = new IndexSorter() {
+		@Override
+		protected int compare(int i, int j) {
+			if (vertices[i] != vertices[j])
+				return vertices[i] < vertices[j] ? -1 : 1;
+			if (neighbours[i] != neighbours[j])
+				return neighbours[i] < neighbours[j] ? -1 : 1;
+			return Boolean.compare(outgoing[i], outgoing[j]);
+		}
+
+		@Override
+		protected void swap(int i, int j) {
+			long vertex = vertices[i];
+			vertices[i] = vertices[j];
+			vertices[j] = vertex;
+			long neighbour = neighbours[i];
+			neighbours[i] = neighbours[j];
+			neighbours[j] = neighbour;
+			boolean isOutgoing = outgoing[i];
+			outgoing[i] = outgoing[j];
+			outgoing[j] = isOutgoing;
+		}
+	};
+
+}
@@ -16,7 +16,9 @@
 package nl.tudelft.graphalytics.mapreducev2.conversion;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
@@ -25,25 +27,37 @@ import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
 import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
 import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.SequenceFileOutputFormat;
 import org.apache.hadoop.mapreduce.lib.output.TextOutputFormat;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * Job specification for converting edge-based graphs to a vertex-based format.
  *
+ * If the input is sorted by source vertex (see {@link #withSortedInput(boolean)}), the outgoing edges of each vertex
+ * are built by a map-only pass over the input, and only the reverse edges are shuffled. A second job merges the two
+ * per range of source vertices. Input that turns out not to be sorted is converted with the regular job instead.
+ *
  * @author Tim Hegeman
  */
 public class EdgesToAdjacencyListConversion {
+	private static final Logger LOG = LogManager.getLogger();
 
 	private String inputPath;
 	private String outputPath;
 	private boolean directed;
 	private int numReducers;
+	private int hubSplitThreshold;
+	private boolean sortedInput;
 	
 	public EdgesToAdjacencyListConversion(String inputPath, String outputPath, boolean directed) {
 		this.inputPath = inputPath;
 		this.outputPath = outputPath;
 		this.directed = directed;
 		this.numReducers = 1;
+		this.hubSplitThreshold = 0;
+		this.sortedInput = false;
 	}
 	
 	public EdgesToAdjacencyListConversion withNumberOfReducers(int numReducers) {
@@ -51,18 +65,51 @@ public class EdgesToAdjacencyListConversion {
 		return this;
 	}
 	
+	/**
+	 * Splits vertices with more than the given number of neighbours into multiple sub-vertex records with the same
+	 * vertex ID. Only algorithms that merge the state of sub-vertex records (BFS and CONN) support split graphs. This
+	 * bounds the size of input lines, but not of reduce groups: algorithms still group all records of a vertex by its
+	 * ID.
+	 *
+	 * @param hubSplitThreshold the maximum number of neighbours per output line, or zero to disable splitting
+	 * @return this conversion job
+	 */
+	public EdgesToAdjacencyListConversion withHubSplitThreshold(int hubSplitThreshold) {
+		this.hubSplitThreshold = hubSplitThreshold;
+		return this;
+	}
+	
+	/**
+	 * Declares that the lines of the input are sorted by source vertex, i.e. that the edges of each source vertex are
+	 * on consecutive lines of a single file, source vertices appear in increasing order within each file, and the
+	 * files cover disjoint ranges of source vertices.
+	 *
+	 * @param sortedInput true iff the input is sorted by source vertex
+	 * @return this conversion job
+	 */
+	public EdgesToAdjacencyListConversion withSortedInput(boolean sortedInput) {
+		this.sortedInput = sortedInput;
+		return this;
+	}
+	
 	public void run() throws IOException, ClassNotFoundException, InterruptedException {
+		if (sortedInput) {
+			if (runSorted())
+				return;
+			LOG.warn("Input {} is not sorted by source vertex, converting it with a full shuffle.", inputPath);
+		}
+		
 		Job job = Job.getInstance();
 		job.setJarByClass(getClass());
 		
 		job.setMapOutputKeyClass(LongWritable.class);
+		job.setMapOutputValueClass(PartialAdjacency.class);
+		job.setCombinerClass(PartialAdjacencyCombiner.class);
 		if (directed) {
 			job.setMapperClass(DirectedEdgeMapper.class);
-			job.setMapOutputValueClass(EdgeData.class);
 			job.setReducerClass(DirectedVertexReducer.class);
 		} else {
 			job.setMapperClass(UndirectedEdgeMapper.class);
-			job.setMapOutputValueClass(LongWritable.class);
 			job.setReducerClass(UndirectedVertexReducer.class);
 		}
 		
@@ -73,6 +120,7 @@ public class EdgesToAdjacencyListConversion {
 		job.setOutputFormatClass(TextOutputFormat.class);
 		
 		job.setNumReduceTasks(numReducers);
+		job.getConfiguration().setInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, hubSplitThreshold);
 		
 		FileInputFormat.addInputPath(job, new Path(inputPath));
 		FileOutputFormat.setOutputPath(job, new Path(outputPath));
@@ -80,4 +128,91 @@ public class EdgesToAdjacencyListConversion {
 		job.waitForCompletion(true);
 	}
 	
+	/**
+	 * Converts an input that is sorted by source vertex.
+	 *
+	 * @return false iff the input turned out not to be sorted, in which case no output is written
+	 */
+	private boolean runSorted() throws IOException, ClassNotFoundException, InterruptedException {
+		// Build the outgoing edges of all source vertices in a map-only job
+		Path outgoingEdgesPath = new Path(outputPath + "-outgoing-edges");
+		Job outgoingJob = Job.getInstance();
+		outgoingJob.setJarByClass(getClass());
+		outgoingJob.setMapperClass(SortedEdgeMapper.class);
+		outgoingJob.setNumReduceTasks(0);
+		outgoingJob.setOutputKeyClass(LongWritable.class);
+		outgoingJob.setOutputValueClass(PartialAdjacency.class);
+		outgoingJob.setInputFormatClass(SourceAlignedInputFormat.class);
+		outgoingJob.setOutputFormatClass(SequenceFileOutputFormat.class);
+		FileInputFormat.addInputPath(outgoingJob, new Path(inputPath));
+		FileOutputFormat.setOutputPath(outgoingJob, outgoingEdgesPath);
+		
+		FileSystem dfs = outgoingEdgesPath.getFileSystem(outgoingJob.getConfiguration());
+		try {
+			if (!outgoingJob.waitForCompletion(true))
+				throw new IOException("Failed to build the outgoing edges of sorted input " + inputPath + ".");
+			
+			// Check that the input is sorted within and across map tasks
+			if (outgoingJob.getCounters().findCounter(Counters.SortedInput.OUT_OF_ORDER_LINES).getValue() > 0)
+				return false;
+			List<SourceRange> ranges = SourceRange.readAll(dfs, outgoingEdgesPath);
+			for (int i = 1; i < ranges.size(); i++) {
+				if (ranges.get(i).getFirstVertex() <= ranges.get(i - 1).getLastVertex())
+					return false;
+			}
+			
+			// Shuffle the reverse edges to the reducers merging the outgoing edges of the same range of vertices
+			Job job = Job.getInstance();
+			job.setJarByClass(getClass());
+			
+			job.setMapOutputKeyClass(LongWritable.class);
+			job.setMapOutputValueClass(PartialAdjacency.class);
+			job.setCombinerClass(PartialAdjacencyCombiner.class);
+			job.setPartitionerClass(SourceRangePartitioner.class);
+			job.setMapperClass(ReverseEdgeMapper.class);
+			job.setReducerClass(directed ? DirectedMergingVertexReducer.class : UndirectedMergingVertexReducer.class);
+			
+			job.setOutputKeyClass(NullWritable.class);
+			job.setOutputValueClass(Text.class);
+			
+			job.setInputFormatClass(TextInputFormat.class);
+			job.setOutputFormatClass(TextOutputFormat.class);
+			
+			int numMergeReducers = Math.max(1, Math.min(numReducers, ranges.size()));
+			job.setNumReduceTasks(numMergeReducers);
+			job.getConfiguration().setInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, hubSplitThreshold);
+			job.getConfiguration().setBoolean(ConversionConfiguration.DIRECTED_KEY, directed);
+			assignOutgoingEdgeFiles(job, outgoingEdgesPath, ranges, numMergeReducers);
+			
+			FileInputFormat.addInputPath(job, new Path(inputPath));
+			FileOutputFormat.setOutputPath(job, new Path(outputPath));
+			
+			job.waitForCompletion(true);
+			return true;
+		} finally {
+			dfs.delete(outgoingEdgesPath, true);
+		}
+	}
+	
+	/**
+	 * Divides the output files of the map-only pass into contiguous groups, one per reducer, and configures the split
+	 * points of the {@link SourceRangePartitioner} accordingly.
+	 */
+	private static void assignOutgoingEdgeFiles(Job job, Path outgoingEdgesPath, List<SourceRange> ranges,
+			int numMergeReducers) {
+		String[] splitPoints = new String[numMergeReducers - 1];
+		for (int reducer = 0; reducer < numMergeReducers; reducer++) {
+			int firstRange = reducer * ranges.size() / numMergeReducers;
+			int endRange = (reducer + 1) * ranges.size() / numMergeReducers;
+			String[] files = new String[endRange - firstRange];
+			for (int i = firstRange; i < endRange; i++) {
+				files[i - firstRange] = new Path(outgoingEdgesPath, ranges.get(i).getFileName()).toString();
+			}
+			job.getConfiguration().setStrings(ConversionConfiguration.OUTGOING_EDGE_FILES_KEY_PREFIX + reducer, files);
+			if (reducer > 0)
+				splitPoints[reducer - 1] = Long.toString(ranges.get(firstRange).getFirstVertex());
+		}
+		job.getConfiguration().setStrings(ConversionConfiguration.SPLIT_POINTS_KEY, splitPoints);
+	}
+	
 }
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Statistics of a converted graph, produced by the conversion jobs: the number of vertices, edges and records, the
+ * range of vertex IDs, a degree histogram and the highest degree vertices. Each conversion reducer stores the
+ * metadata of its partition next to the converted graph in a file that is ignored as job input;
+ * {@link #read(FileSystem, Path)} merges them and adds the size of each partition of the graph.
+ *
+ * @author Tim Hegeman
+ */
+public class GraphMetadata {
+
+	/** Prefix of the file names of (partial) graph metadata in a graph directory. */
+	public static final String FILE_PREFIX = "_metadata-";
+	/** Number of buckets in the degree histogram; bucket i holds the vertices with a degree in [2^(i-1), 2^i). */
+	public static final int NUM_DEGREE_BUCKETS = 64;
+	/** Number of highest degree vertices to keep track of. */
+	public static final int NUM_TOP_HUBS = 16;
+
+	private boolean directed;
+	private long numVertices = 0;
+	private long numEdges = 0;
+	private long numRecords = 0;
+	private long minVertexId = Long.MAX_VALUE;
+	private long maxVertexId = Long.MIN_VALUE;
+	private final long[] degreeHistogram = new long[NUM_DEGREE_BUCKETS];
+	/** Highest degree vertices, in no particular order. */
+	private final long[] hubIds = new long[NUM_TOP_HUBS];
+	private final long[] hubDegrees = new long[NUM_TOP_HUBS];
+	private int numHubs = 0;
+	/** Sizes of the part files of the graph, only set by {@link #read(FileSystem, Path)}. */
+	private long[] partitionSizes = new long[0];
+
+	/**
+	 * @param directed true iff the graph is directed
+	 */
+	public GraphMetadata(boolean directed) {
+		this.directed = directed;
+	}
+
+	/**
+	 * @param vertexId the ID of a vertex
+	 * @param degree the number of neighbours of the vertex, i.e. incoming plus outgoing edges for directed graphs
+	 * @param outDegree the number of outgoing edges of the vertex, equal to the degree for undirected graphs
+	 * @param numRecords the number of records the vertex was written as
+	 */
+	public void addVertex(long vertexId, long degree, long outDegree, int numRecords) {
+		numVertices++;
+		numEdges += outDegree;
+		this.numRecords += numRecords;
+		minVertexId = Math.min(minVertexId, vertexId);
+		maxVertexId = Math.max(maxVertexId, vertexId);
+		degreeHistogram[getDegreeBucket(degree)]++;
+		addHub(vertexId, degree);
+	}
+
+	private void addHub(long vertexId, long degree) {
+		if (numHubs < NUM_TOP_HUBS) {
+			hubIds[numHubs] = vertexId;
+			hubDegrees[numHubs] = degree;
+			numHubs++;
+			return;
+		}
+
+		// Replace the hub with the lowest degree, if the new vertex has a higher degree
+		int lowest = 0;
+		for (int i = 1; i < numHubs; i++) {
+			if (hubDegrees[i] < hubDegrees[lowest])
+				lowest = i;
+		}
+		if (degree > hubDegrees[lowest]) {
+			hubIds[lowest] = vertexId;
+			hubDegrees[lowest] = degree;
+		}
+	}
+
+	/**
+	 * @param degree the degree of a vertex
+	 * @return the bucket of the degree histogram the vertex belongs to
+	 */
+	public static int getDegreeBucket(long degree) {
+		return 64 - Long.numberOfLeadingZeros(degree);
+	}
+
+	/**
+	 * @return true iff the graph is directed
+	 */
+	public boolean isDirected() {
+		return directed;
+	}
+
+	/**
+	 * @return the number of vertices in the graph
+	 */
+	public long getNumVertices() {
+		return numVertices;
+	}
+
+	/**
+	 * @return the number of edges in the graph, counting each undirected edge once
+	 */
+	public long getNumEdges() {
+		return directed ? numEdges : numEdges / 2;
+	}
+
+	/**
+	 * @return the number of records (lines) in the graph, which exceeds the number of vertices if hubs were split
+	 */
+	public long getNumRecords() {
+		return numRecords;
+	}
+
+	/**
+	 * @return the lowest vertex ID in the graph
+	 */
+	public long getMinVertexId() {
+		return minVertexId;
+	}
+
+	/**
+	 * @return the highest vertex ID in the graph
+	 */
+	public long getMaxVertexId() {
+		return maxVertexId;
+	}
+
+	/**
+	 * @return the number of vertices per degree bucket, see {@link #getDegreeBucket(long)}
+	 */
+	public long[] getDegreeHistogram() {
+		return degreeHistogram;
+	}
+
+	/**
+	 * @return the IDs of the highest degree vertices, in decreasing order of degree
+	 */
+	public long[] getTopHubIds() {
+		sortHubs();
+		return Arrays.copyOf(hubIds, numHubs);
+	}
+
+	/**
+	 * @return the degrees of the highest degree vertices, in decreasing order
+	 */
+	public long[] getTopHubDegrees() {
+		sortHubs();
+		return Arrays.copyOf(hubDegrees, numHubs);
+	}
+
+	private void sortHubs() {
+		for (int i = 1; i < numHubs; i++) {
+			for (int j = i; j > 0 && hubDegrees[j] > hubDegrees[j - 1]; j--) {
+				long id = hubIds[j];
+				hubIds[j] = hubIds[j - 1];
+				hubIds[j - 1] = id;
+				long degree = hubDegrees[j];
+				hubDegrees[j] = hubDegrees[j - 1];
+				hubDegrees[j - 1] = degree;
+			}
+		}
+	}
+
+	/**
+	 * @return the size in bytes of each part file of the graph
+	 */
+	public long[] getPartitionSizes() {
+		return partitionSizes;
+	}
+
+	/**
+	 * @return the total size in bytes of the part files of the graph
+	 */
+	public long getTotalSize() {
+		long totalSize = 0;
+		for (long partitionSize : partitionSizes) {
+			totalSize += partitionSize;
+		}
+		return totalSize;
+	}
+
+	/**
+	 * @param dfs the file system to write to
+	 * @param path the file to write the metadata to
+	 * @throws IOException if writing the metadata fails
+	 */
+	public void write(FileSystem dfs, Path path) throws IOException {
+		try (FSDataOutputStream out = dfs.create(path)) {
+			out.writeBoolean(directed);
+			out.writeLong(numVertices);
+			out.writeLong(numEdges);
+			out.writeLong(numRecords);
+			out.writeLong(minVertexId);
+			out.writeLong(maxVertexId);
+			for (long count : degreeHistogram) {
+				out.writeLong(count);
+			}
+			out.writeInt(numHubs);
+			for (int i = 0; i < numHubs; i++) {
+				out.writeLong(hubIds[i]);
+				out.writeLong(hubDegrees[i]);
+			}
+		}
+	}
+
+	/**
+	 * Reads and merges all partial metadata stored in a graph directory.
+	 *
+	 * @param dfs the file system to read from
+	 * @param graphPath the directory of the converted graph
+	 * @return the merged metadata, or null if the graph has no metadata
+	 * @throws IOException if reading the metadata fails
+	 */
+	public static GraphMetadata read(FileSystem dfs, Path graphPath) throws IOException {
+		FileStatus[] metadataFiles = dfs.globStatus(new Path(graphPath, FILE_PREFIX + "*"));
+		if (metadataFiles == null || metadataFiles.length == 0)
+			return null;
+
+		GraphMetadata metadata = new GraphMetadata(false);
+		for (FileStatus metadataFile : metadataFiles) {
+			metadata.merge(dfs, metadataFile.getPath());
+		}
+
+		FileStatus[] partFiles = dfs.globStatus(new Path(graphPath, "part-*"));
+		metadata.partitionSizes = new long[partFiles == null ? 0 : partFiles.length];
+		for (int i = 0; i < metadata.partitionSizes.length; i++) {
+			metadata.partitionSizes[i] = partFiles[i].getLen();
+		}
+		return metadata;
+	}
+
+	/**
+	 * Reads the metadata of a single partition of a graph, i.e. of the vertices written by one conversion reducer.
+	 *
+	 * @param dfs the file system to read from
+	 * @param graphPath the directory of the converted graph
+	 * @param partition the index of the partition
+	 * @return the metadata of the partition, or null if the graph has no metadata for the partition
+	 * @throws IOException if reading the metadata fails
+	 */
+	public static GraphMetadata readPartition(FileSystem dfs, Path graphPath, int partition) throws IOException {
+		Path metadataPath = new Path(graphPath, FILE_PREFIX + partition);
+		if (!dfs.exists(metadataPath))
+			return null;
+
+		GraphMetadata metadata = new GraphMetadata(false);
+		metadata.merge(dfs, metadataPath);
+		return metadata;
+	}
+
+	private void merge(FileSystem dfs, Path metadataPath) throws IOException {
+		try (FSDataInputStream in = dfs.open(metadataPath)) {
+			directed = in.readBoolean();
+			numVertices += in.readLong();
+			numEdges += in.readLong();
+			numRecords += in.readLong();
+			minVertexId = Math.min(minVertexId, in.readLong());
+			maxVertexId = Math.max(maxVertexId, in.readLong());
+			for (int i = 0; i < NUM_DEGREE_BUCKETS; i++) {
+				degreeHistogram[i] += in.readLong();
+			}
+			int numHubs = in.readInt();
+			for (int i = 0; i < numHubs; i++) {
+				addHub(in.readLong(), in.readLong());
+			}
+		}
+	}
+
+}
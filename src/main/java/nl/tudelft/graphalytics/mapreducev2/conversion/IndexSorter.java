@@ -0,0 +1,74 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+/**
+ * In-place quicksort over the indices of a structure of parallel arrays, such as {@link EdgeList} and
+ * {@link PartialAdjacency}, which cannot be sorted with {@link java.util.Arrays#sort} without boxing. Partitioning is
+ * 3-way, so runs of equal elements (e.g. parallel edges of a hub) are grouped in a single pass instead of degrading
+ * to quadratic time.
+ *
+ * @author Tim Hegeman
+ */
+abstract class IndexSorter {
+
+	/**
+	 * @param i the index of an element
+	 * @param j the index of another element
+	 * @return a negative number, zero, or a positive number if element i is smaller than, equal to, or larger than
+	 * element j
+	 */
+	protected abstract int compare(int i, int j);
+
+	/**
+	 * @param i the index of an element
+	 * @param j the index of another element
+	 */
+	protected abstract void swap(int i, int j);
+
+	/**
+	 * Sorts the elements in [from, to).
+	 */
+	public void sort(int from, int to) {
+		while (to - from > 1) {
+			// Move the middle element to the front and use it as pivot. The pivot is always the first element of
+			// [lt, i), the elements equal to it; [from, lt) is smaller and [gt, to) is larger.
+			swap(from, from + (to - from) / 2);
+			int lt = from;
+			int i = from + 1;
+			int gt = to;
+			while (i < gt) {
+				int comparison = compare(i, lt);
+				if (comparison < 0)
+					swap(lt++, i++);
+				else if (comparison > 0)
+					swap(i, --gt);
+				else
+					i++;
+			}
+
+			// Recurse into the smaller part to bound the stack depth
+			if (lt - from < to - gt) {
+				sort(from, lt);
+				from = gt;
+			} else {
+				sort(gt, to);
+				to = lt;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,381 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputCommitter;
+import org.apache.hadoop.mapreduce.lib.partition.HashPartitioner;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import nl.tudelft.graphalytics.mapreducev2.ChunkedUpload;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
+
+/**
+ * Converts a graph stored on the local file system and writes the converted graph directly to HDFS, without
+ * uploading the raw graph or running a conversion job. Meant for graphs that fit in the memory of the client.
+ *
+ * The input file is divided into one range of lines per thread. Each thread memory-maps its range in windows,
+ * parses the lines with the semantics of the mapper of the regular conversion (see {@link BatchConversion.Format}),
+ * and collects the edges in one {@link EdgeList} per output partition. The partitions are then sorted and written in
+ * parallel, with the same partitioning, file names and statistics as the reducers of the regular conversion. The
+ * output is thus identical to that of the regular conversion with the same number of reducers. It is written to a
+ * temporary directory next to the output path, which is moved to the output path once all files are complete.
+ *
+ * @author Tim Hegeman
+ */
+public class LocalConversion {
+	private static final Logger LOG = LogManager.getLogger();
+
+	/** Maximum number of bytes of the input mapped at once by a thread. */
+	private static final int WINDOW_SIZE = 1 << 28;
+	/** Initial capacity of the edge list of each partition per thread. */
+	private static final int INITIAL_CAPACITY = 1 << 10;
+
+	private String inputPath;
+	private String outputPath;
+	private BatchConversion.Format format;
+	private int numPartitions;
+	private int hubSplitThreshold;
+	private int numThreads;
+
+	/**
+	 * @param inputPath the path of the graph on the local file system
+	 * @param outputPath the path to write the converted graph to
+	 * @param format the format of the graph to convert
+	 */
+	public LocalConversion(String inputPath, String outputPath, BatchConversion.Format format) {
+		this.inputPath = inputPath;
+		this.outputPath = outputPath;
+		this.format = format;
+		this.numPartitions = 1;
+		this.hubSplitThreshold = 0;
+		this.numThreads = Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * @param numReducers the number of output partitions, i.e. the number of reducers of the regular conversion
+	 * @return this conversion
+	 */
+	public LocalConversion withNumberOfReducers(int numReducers) {
+		this.numPartitions = numReducers;
+		return this;
+	}
+
+	/**
+	 * @param hubSplitThreshold the maximum number of neighbours per output line, or zero to disable splitting
+	 * @return this conversion
+	 * @see EdgesToAdjacencyListConversion#withHubSplitThreshold(int)
+	 */
+	public LocalConversion withHubSplitThreshold(int hubSplitThreshold) {
+		this.hubSplitThreshold = hubSplitThreshold;
+		return this;
+	}
+
+	/**
+	 * @param numThreads the number of threads used to parse the input and write the output
+	 * @return this conversion
+	 */
+	public LocalConversion withNumberOfThreads(int numThreads) {
+		this.numThreads = numThreads;
+		return this;
+	}
+
+	public void run() throws IOException {
+		Path output = new Path(outputPath);
+		FileSystem dfs = output.getFileSystem(new Configuration());
+		if (dfs.exists(output))
+			throw new FileAlreadyExistsException("Output directory " + output + " already exists.");
+		// Write to a sibling directory that is renamed into place on success, so a failed conversion never leaves a
+		// partial set of part files at the output path
+		Path temporary = new Path(output.getParent(), output.getName() + "._temporary");
+		dfs.delete(temporary, true);
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try (RandomAccessFile file = new RandomAccessFile(inputPath, "r")) {
+			// Parse the ranges of the input in parallel
+			long[] boundaries = ChunkedUpload.getChunkBoundaries(file, numThreads, false);
+			List<RangeParser> parsers = new ArrayList<>();
+			for (int i = 0; i < numThreads; i++) {
+				if (boundaries[i + 1] > boundaries[i])
+					parsers.add(new RangeParser(file.getChannel(), boundaries[i], boundaries[i + 1]));
+			}
+			invokeAll(executor, parsers);
+
+			// Sort and write the partitions in parallel
+			List<PartitionWriter> writers = new ArrayList<>();
+			for (int partition = 0; partition < numPartitions; partition++) {
+				writers.add(new PartitionWriter(dfs, temporary, partition, parsers));
+			}
+			invokeAll(executor, writers);
+			dfs.create(new Path(temporary, FileOutputCommitter.SUCCEEDED_FILE_NAME)).close();
+			if (!dfs.rename(temporary, output))
+				throw new IOException("Failed to move " + temporary + " to " + output + ".");
+
+			long invalidLines = 0, numberFormatErrors = 0, selfLoops = 0, duplicates = 0;
+			for (RangeParser parser : parsers) {
+				invalidLines += parser.invalidLines;
+				numberFormatErrors += parser.numberFormatErrors;
+				selfLoops += parser.selfLoops;
+			}
+			for (PartitionWriter writer : writers) {
+				duplicates += writer.duplicates;
+			}
+			LOG.info("Converted {} to {}: dropped {} invalid lines, {} lines with invalid numbers, {} self-loops " +
+					"and {} duplicate edges.", inputPath, outputPath, invalidLines, numberFormatErrors, selfLoops,
+					duplicates);
+		} catch (IOException e) {
+			dfs.delete(temporary, true);
+			throw e;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void invokeAll(ExecutorService executor, List<? extends Callable<Void>> tasks) throws IOException {
+		try {
+			for (Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while converting graph.", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException)e.getCause();
+			throw new IOException("Failed to convert graph.", e.getCause());
+		}
+	}
+
+	/**
+	 * Parses a range of lines of the input and collects the edges per output partition.
+	 */
+	private class RangeParser implements Callable<Void> {
+
+		private final FileChannel channel;
+		private final long start;
+		private final long end;
+		private final EdgeList[] edges;
+		private final HashPartitioner<LongWritable, Text> partitioner = new HashPartitioner<>();
+		private final LongWritable partitionKey = new LongWritable();
+		private final RecordParser parser = new RecordParser(RecordParser.WHITESPACE_DELIMITERS);
+		/** Bytes of the current line, copied out of the mapped window so the shared parser can split them. */
+		private byte[] line = new byte[256];
+
+		private long invalidLines = 0;
+		private long numberFormatErrors = 0;
+		private long selfLoops = 0;
+
+		public RangeParser(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.start = start;
+			this.end = end;
+			this.edges = new EdgeList[numPartitions];
+			for (int partition = 0; partition < numPartitions; partition++) {
+				edges[partition] = new EdgeList(INITIAL_CAPACITY);
+			}
+		}
+
+		@Override
+		public Void call() throws IOException {
+			long position = start;
+			int windowSize = WINDOW_SIZE;
+			while (position < end) {
+				int size = (int)Math.min(end - position, windowSize);
+				boolean isLastWindow = (position + size == end);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+
+				// Parse all complete lines in the window, treating \n, \r and \r\n as line terminators
+				int lineStart = 0;
+				int i = 0;
+				while (i < size) {
+					byte c = buffer.get(i);
+					if (c != '\n' && c != '\r') {
+						i++;
+						continue;
+					}
+					int next = i + 1;
+					if (c == '\r') {
+						if (next == size && !isLastWindow)
+							break;
+						if (next < size && buffer.get(next) == '\n')
+							next++;
+					}
+					parseLine(buffer, lineStart, i);
+					lineStart = i = next;
+				}
+
+				if (isLastWindow) {
+					if (lineStart < size)
+						parseLine(buffer, lineStart, size);
+					position = end;
+				} else if (lineStart == 0) {
+					// The window does not contain a complete line, retry with a larger window
+					if (windowSize > Integer.MAX_VALUE / 2)
+						throw new IOException("Line at offset " + position + " of " + inputPath + " is too long.");
+					windowSize *= 2;
+				} else {
+					position += lineStart;
+					windowSize = WINDOW_SIZE;
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Parses the line in [from, to) of the buffer, splitting it on single spaces and tabs like the mappers of the
+		 * regular conversion do.
+		 */
+		private void parseLine(MappedByteBuffer buffer, int from, int to) {
+			int length = to - from;
+			if (length > line.length)
+				line = new byte[Math.max(length, 2 * line.length)];
+			buffer.position(from);
+			buffer.get(line, 0, length);
+			int numTokens = parser.split(line, 0, length);
+
+			try {
+				switch (format) {
+				case DIRECTED_EDGES:
+				case UNDIRECTED_EDGES:
+					if (numTokens != 2) {
+						invalidLines++;
+						return;
+					}
+					long sourceId = parser.getLong(0);
+					long destinationId = parser.getLong(1);
+					addEdge(sourceId, destinationId);
+					break;
+				case DIRECTED_VERTICES:
+					if (numTokens == 0) {
+						invalidLines++;
+						return;
+					}
+					long vertexId = parser.getLong(0);
+					if (numTokens == 1)
+						add(vertexId, vertexId, true);
+					for (int i = 1; i < numTokens; i++) {
+						addEdge(vertexId, parser.getLong(i));
+					}
+					break;
+				}
+			} catch (NumberFormatException ex) {
+				numberFormatErrors++;
+			}
+		}
+
+		private void addEdge(long sourceId, long destinationId) {
+			// Drop self-loops, but keep the vertex
+			if (sourceId == destinationId) {
+				selfLoops++;
+				add(sourceId, sourceId, true);
+				return;
+			}
+			add(sourceId, destinationId, true);
+			add(destinationId, sourceId, format == BatchConversion.Format.UNDIRECTED_EDGES);
+		}
+
+		private void add(long vertex, long neighbour, boolean isOutgoing) {
+			partitionKey.set(vertex);
+			edges[partitioner.getPartition(partitionKey, null, numPartitions)].add(vertex, neighbour, isOutgoing);
+		}
+
+	}
+
+	/**
+	 * Sorts the edges of one output partition and writes its adjacency lists and statistics.
+	 */
+	private class PartitionWriter implements Callable<Void> {
+
+		private final FileSystem dfs;
+		private final Path output;
+		private final int partition;
+		private final List<RangeParser> parsers;
+		private long duplicates = 0;
+
+		public PartitionWriter(FileSystem dfs, Path output, int partition, List<RangeParser> parsers) {
+			this.dfs = dfs;
+			this.output = output;
+			this.partition = partition;
+			this.parsers = parsers;
+		}
+
+		@Override
+		public Void call() throws IOException, InterruptedException {
+			// Merge the edges of the partition collected by all parsers
+			int size = 0;
+			for (RangeParser parser : parsers) {
+				size += parser.edges[partition].size();
+			}
+			EdgeList edges = new EdgeList(Math.max(size, 1));
+			for (RangeParser parser : parsers) {
+				edges.addAll(parser.edges[partition]);
+				parser.edges[partition] = null;
+			}
+			edges.sort();
+
+			// Write the file the reducer of the regular conversion would write for this partition
+			Path file = new Path(output, String.format("part-r-%05d", partition));
+			try (final FSDataOutputStream out = dfs.create(file, false)) {
+				AdjacencyListWriter.LineOutput lineOutput = new AdjacencyListWriter.LineOutput() {
+					@Override
+					public void write(Text line) throws IOException {
+						out.write(line.getBytes(), 0, line.getLength());
+						out.write('\n');
+					}
+				};
+				AdjacencyListWriter writer = (format.isDirected() ?
+						new DirectedAdjacencyListWriter(lineOutput, hubSplitThreshold, partition) :
+						new UndirectedAdjacencyListWriter(lineOutput, hubSplitThreshold, partition));
+
+				LongWritable vertex = new LongWritable();
+				PartialAdjacency adjacency = new PartialAdjacency();
+				int start = 0;
+				while (start < edges.size()) {
+					vertex.set(edges.getVertex(start));
+					adjacency.clear();
+					int end = start;
+					while (end < edges.size() && edges.getVertex(end) == edges.getVertex(start)) {
+						adjacency.add(edges.getNeighbour(end), edges.isOutgoing(end));
+						end++;
+					}
+					duplicates += writer.write(vertex, adjacency);
+					start = end;
+				}
+				writer.writeStatistics(dfs, output);
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+
+/**
+ * Sequential reader over the outgoing edges written by the map-only pass of the conversion of sorted edge lists (see
+ * {@link SortedEdgeMapper}). Reads the files assigned to a reducer in order, so vertices are returned in increasing
+ * order of ID.
+ *
+ * @author Tim Hegeman
+ */
+public class OutgoingEdgeReader implements Closeable {
+
+	private final Configuration conf;
+	private final String[] files;
+	private int nextFile = 0;
+	private SequenceFile.Reader reader = null;
+	private final LongWritable vertex = new LongWritable();
+	private final PartialAdjacency adjacency = new PartialAdjacency();
+	private boolean hasVertex;
+
+	/**
+	 * @param conf the configuration used to access the file system
+	 * @param files the files to read, sorted by source vertex
+	 * @throws IOException if reading the first file fails
+	 */
+	public OutgoingEdgeReader(Configuration conf, String[] files) throws IOException {
+		this.conf = conf;
+		this.files = files;
+		next();
+	}
+
+	/**
+	 * @return true iff there is a current vertex, i.e. not all vertices have been read
+	 */
+	public boolean hasVertex() {
+		return hasVertex;
+	}
+
+	/**
+	 * @return the ID of the current vertex
+	 */
+	public LongWritable getVertex() {
+		return vertex;
+	}
+
+	/**
+	 * @return the outgoing edges of the current vertex
+	 */
+	public PartialAdjacency getAdjacency() {
+		return adjacency;
+	}
+
+	/**
+	 * Advances to the next vertex.
+	 *
+	 * @throws IOException if reading the files fails
+	 */
+	public void next() throws IOException {
+		while (reader == null || !reader.next(vertex, adjacency)) {
+			if (reader != null) {
+				reader.close();
+				reader = null;
+			}
+			if (nextFile == files.length) {
+				hasVertex = false;
+				return;
+			}
+			reader = new SequenceFile.Reader(conf, SequenceFile.Reader.file(new Path(files[nextFile++])));
+		}
+		hasVertex = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (reader != null)
+			reader.close();
+	}
+
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Part of the adjacency list of a single vertex (the vertex is the MapReduce key), i.e. a list of neighbours and the
+ * direction of the edge to each neighbour. Partial adjacency lists are built in the mappers of the conversion jobs
+ * and concatenated by the combiner and reducer, so the shuffle carries one record per vertex per map task instead of
+ * one record per edge endpoint. Neighbours are stored as variable-length longs and directions as a bit set.
+ *
+ * @author Tim Hegeman
+ */
+public class PartialAdjacency implements Writable {
+
+	private long[] neighbours = new long[16];
+	private byte[] outgoing = new byte[2];
+	private int size = 0;
+
+	/**
+	 * Removes all neighbours.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * @param neighbour the ID of a neighbour
+	 * @param isOutgoing true iff the edge to the neighbour is an outgoing edge
+	 */
+	public void add(long neighbour, boolean isOutgoing) {
+		ensureCapacity(size + 1);
+		set(size++, neighbour, isOutgoing);
+	}
+
+	/**
+	 * Appends all neighbours of another partial adjacency list of the same vertex.
+	 *
+	 * @param other the partial adjacency list to append
+	 */
+	public void addAll(PartialAdjacency other) {
+		ensureCapacity(size + other.size);
+		for (int i = 0; i < other.size; i++) {
+			add(other.neighbours[i], other.isOutgoing(i));
+		}
+	}
+
+	/**
+	 * @return the number of neighbours in this partial adjacency list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index the index of a neighbour, in [0, {@link #size()})
+	 * @return the ID of the neighbour
+	 */
+	public long getNeighbour(int index) {
+		return neighbours[index];
+	}
+
+	/**
+	 * @param index the index of a neighbour, in [0, {@link #size()})
+	 * @return true iff the edge to the neighbour is an outgoing edge
+	 */
+	public boolean isOutgoing(int index) {
+		return (outgoing[index >>> 3] & (1 << (index & 7))) != 0;
+	}
+
+	/**
+	 * Sorts the neighbours by ID, with incoming edges before outgoing edges to the same neighbour, and removes
+	 * duplicate edges (same neighbour and direction) and edges to the given vertex.
+	 *
+	 * @param vertex the ID of the vertex this adjacency list belongs to
+	 * @return the number of duplicate edges removed
+	 */
+	public int sortAndDeduplicate(long vertex) {
+		sorter.sort(0, size);
+		int duplicates = 0;
+		int newSize = 0;
+		for (int i = 0; i < size; i++) {
+			if (neighbours[i] == vertex)
+				continue;
+			if (newSize > 0 && neighbours[newSize - 1] == neighbours[i] && isOutgoing(newSize - 1) == isOutgoing(i)) {
+				duplicates++;
+				continue;
+			}
+			set(newSize++, neighbours[i], isOutgoing(i));
+		}
+		size = newSize;
+		return duplicates;
+	}
+
+	private void set(int index, long neighbour, boolean isOutgoing) {
+		neighbours[index] = neighbour;
+		if (isOutgoing)
+			outgoing[index >>> 3] |= 1 << (index & 7);
+		else
+			outgoing[index >>> 3] &= ~(1 << (index & 7));
+	}
+
+	private final IndexSorter sorter = new IndexSorter() {
+		@Override
+		protected int compare(int i, int j) {
+			if (neighbours[i] != neighbours[j])
+				return neighbours[i] < neighbours[j] ? -1 : 1;
+			return Boolean.compare(isOutgoing(i), isOutgoing(j));
+		}
+
+		@Override
+		protected void swap(int i, int j) {
+			long neighbour = neighbours[i];
+			boolean isOutgoing = isOutgoing(i);
+			set(i, neighbours[j], isOutgoing(j));
+			set(j, neighbour, isOutgoing);
+		}
+	};
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > neighbours.length) {
+			int newCapacity = Math.max(capacity, 2 * neighbours.length);
+			neighbours = Arrays.copyOf(neighbours, newCapacity);
+			outgoing = Arrays.copyOf(outgoing, (newCapacity + 7) >>> 3);
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		WritableUtils.writeVInt(out, size);
+		for (int i = 0; i < size; i++) {
+			WritableUtils.writeVLong(out, neighbours[i]);
+		}
+		out.write(outgoing, 0, (size + 7) >>> 3);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException {
+		size = 0;
+		int newSize = WritableUtils.readVInt(in);
+		ensureCapacity(newSize);
+		for (int i = 0; i < newSize; i++) {
+			neighbours[i] = WritableUtils.readVLong(in);
+		}
+		in.readFully(outgoing, 0, (newSize + 7) >>> 3);
+		size = newSize;
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.TaskInputOutputContext;
+
+/**
+ * Buffer used by the mappers of the conversion jobs to aggregate the edges of each vertex within a map task. Edges
+ * are stored in an {@link EdgeList} until the buffer is full; the buffer is then sorted by vertex and emitted as one
+ * {@link PartialAdjacency} per vertex, or one {@link TaggedPartialAdjacency} per vertex in a batch conversion.
+ *
+ * @author Tim Hegeman
+ */
+public class PartialAdjacencyBuffer {
+
+	/** Maximum number of edge endpoints buffered before the buffer is flushed (about 17 MB). */
+	private static final int CAPACITY = 1 << 20;
+
+	private final EdgeList edges = new EdgeList(CAPACITY);
+
+	private final LongWritable outKey = new LongWritable();
+	private PartialAdjacency outValue;
+
+	public PartialAdjacencyBuffer() {
+		this(null);
+	}
+
+	/**
+	 * @param outValue the value to emit the partial adjacency lists with, or null to use a {@link PartialAdjacency},
+	 *                 or a {@link TaggedPartialAdjacency} in a batch conversion
+	 */
+	public PartialAdjacencyBuffer(PartialAdjacency outValue) {
+		this.outValue = outValue;
+	}
+
+	/**
+	 * Adds an edge to the adjacency list of a vertex, flushing the buffer first if it is full.
+	 *
+	 * @param vertex the ID of the vertex
+	 * @param neighbour the ID of the neighbour
+	 * @param isOutgoing true iff the edge is an outgoing edge of the vertex
+	 * @param context the context to flush the buffer to
+	 * @throws IOException if the buffer could not be flushed
+	 * @throws InterruptedException if the buffer could not be flushed
+	 */
+	public void add(long vertex, long neighbour, boolean isOutgoing,
+			TaskInputOutputContext<?, ?, LongWritable, PartialAdjacency> context)
+			throws IOException, InterruptedException {
+		if (edges.size() == CAPACITY)
+			flush(context);
+		edges.add(vertex, neighbour, isOutgoing);
+	}
+
+	/**
+	 * Emits a partial adjacency list for every vertex in the buffer and empties the buffer.
+	 *
+	 * @param context the context to emit the partial adjacency lists to
+	 * @throws IOException if writing to the context fails
+	 * @throws InterruptedException if writing to the context fails
+	 */
+	public void flush(TaskInputOutputContext<?, ?, LongWritable, PartialAdjacency> context)
+			throws IOException, InterruptedException {
+		// Tag the partial adjacency lists with the graph of this task if it is part of a batch conversion
+		if (outValue == null) {
+			int graph = context.getConfiguration().getInt(ConversionConfiguration.GRAPH_INDEX_KEY, -1);
+			outValue = (graph >= 0 ? new TaggedPartialAdjacency(graph) : new PartialAdjacency());
+		}
+
+		edges.sort();
+		int start = 0;
+		while (start < edges.size()) {
+			outKey.set(edges.getVertex(start));
+			outValue.clear();
+			int end = start;
+			while (end < edges.size() && edges.getVertex(end) == edges.getVertex(start)) {
+				outValue.add(edges.getNeighbour(end), edges.isOutgoing(end));
+				end++;
+			}
+			context.write(outKey, outValue);
+			start = end;
+		}
+		edges.clear();
+	}
+
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
+
+/**
+ * Maps each edge in a sorted edge list to an edge from its destination to its source: an incoming edge for directed
+ * graphs, or the second direction of the edge for undirected graphs. The outgoing edges are built by the map-only
+ * pass of {@link SortedEdgeMapper}, which also counts invalid lines and self-loops, so those are skipped silently.
+ *
+ * @author Tim Hegeman
+ */
+public class ReverseEdgeMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
+
+	/** Parser for splitting input lines on whitespace. */
+	private final RecordParser parser = new RecordParser(RecordParser.WHITESPACE_DELIMITERS);
+
+	private PartialAdjacencyBuffer buffer = new PartialAdjacencyBuffer();
+	private boolean directed;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		directed = context.getConfiguration().getBoolean(ConversionConfiguration.DIRECTED_KEY, true);
+	}
+
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		// Parse the line (value) as a pair of longs: source-vertex destination-vertex
+		int numVertices = parser.split(value);
+		if (numVertices != 2)
+			return;
+
+		long sourceId, destinationId;
+		try {
+			sourceId = parser.getLong(0);
+			destinationId = parser.getLong(1);
+		} catch (NumberFormatException ex) {
+			return;
+		}
+
+		// Buffer the edge in the reverse direction
+		if (sourceId != destinationId)
+			buffer.add(destinationId, sourceId, !directed, context);
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		buffer.flush(context);
+	}
+
+}
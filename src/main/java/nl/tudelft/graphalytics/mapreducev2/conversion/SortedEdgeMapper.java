@@ -0,0 +1,106 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
+
+/**
+ * Map-only pass over an edge list that is sorted by source vertex. Combined with {@link SourceAlignedInputFormat},
+ * each map task receives all edges of a contiguous range of source vertices, so the outgoing edges of every source
+ * vertex can be written as a complete adjacency list without a shuffle. The range of source vertices of each task is
+ * stored as a {@link SourceRange}. Input that turns out not to be sorted is counted as
+ * {@link Counters.SortedInput#OUT_OF_ORDER_LINES}, after which the task ignores the rest of its input.
+ *
+ * @author Tim Hegeman
+ */
+public class SortedEdgeMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
+
+	/** Parser for splitting input lines on whitespace. */
+	private final RecordParser parser = new RecordParser(RecordParser.WHITESPACE_DELIMITERS);
+
+	private LongWritable outKey = new LongWritable();
+	private PartialAdjacency outValue = new PartialAdjacency();
+	private boolean hasSource = false;
+	private long firstSource;
+	private boolean isSorted = true;
+
+	@Override
+	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
+		if (!isSorted)
+			return;
+
+		// Parse the line (value) as a pair of longs: source-vertex destination-vertex
+		int numVertices = parser.split(value);
+		if (numVertices != 2) {
+			context.getCounter(Counters.ParseErrors.INVALID_LINE_FORMAT).increment(1);
+			return;
+		}
+
+		// Parse both longs
+		long sourceId, destinationId;
+		try {
+			sourceId = parser.getLong(0);
+			destinationId = parser.getLong(1);
+		} catch (NumberFormatException ex) {
+			context.getCounter(Counters.ParseErrors.NUMBER_FORMAT_EXCEPTION).increment(1);
+			return;
+		}
+
+		// Write the adjacency list of the previous source vertex when the source vertex changes
+		if (!hasSource) {
+			hasSource = true;
+			firstSource = sourceId;
+			outKey.set(sourceId);
+		} else if (sourceId != outKey.get()) {
+			if (sourceId < outKey.get()) {
+				context.getCounter(Counters.SortedInput.OUT_OF_ORDER_LINES).increment(1);
+				isSorted = false;
+				return;
+			}
+			context.write(outKey, outValue);
+			outKey.set(sourceId);
+			outValue.clear();
+		}
+
+		// Self-loops are dropped when the adjacency list is deduplicated, but keep the vertex
+		if (sourceId == destinationId)
+			context.getCounter(Counters.DroppedEdges.SELF_LOOPS).increment(1);
+		outValue.add(destinationId, true);
+	}
+
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		if (!hasSource || !isSorted)
+			return;
+		context.write(outKey, outValue);
+
+		// Store the range of source vertices of this task next to its output
+		Path workPath = FileOutputFormat.getWorkOutputPath(context);
+		FileSystem dfs = workPath.getFileSystem(context.getConfiguration());
+		String fileName = FileOutputFormat.getUniqueFile(context, "part", "");
+		new SourceRange(fileName, firstSource, outKey.get()).write(dfs,
+				new Path(workPath, SourceRange.FILE_PREFIX + context.getTaskAttemptID().getTaskID().getId()));
+	}
+
+}
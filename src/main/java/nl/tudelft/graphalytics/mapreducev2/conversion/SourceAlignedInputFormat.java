@@ -0,0 +1,205 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.lib.input.LineRecordReader;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+
+/**
+ * Text input format for edge lists that are sorted by source vertex, which aligns the boundaries of input splits to
+ * changes of the source vertex. A split does not return the lines at its start that continue the run of edges of the
+ * previous split, and it returns the lines after its end that continue its own last run. Each map task thus sees all
+ * edges of the source vertices it processes, and no other map task sees edges of those vertices. The source vertex of
+ * a line is its first whitespace-separated token; lines are not parsed otherwise.
+ *
+ * @author Tim Hegeman
+ */
+public class SourceAlignedInputFormat extends TextInputFormat {
+
+	@Override
+	public RecordReader<LongWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) {
+		return new SourceAlignedRecordReader();
+	}
+
+	/**
+	 * @param line the bytes of a line of an edge list
+	 * @param length the length of the line
+	 * @return the length of the first token of the line
+	 */
+	private static int getSourceLength(byte[] line, int length) {
+		int sourceLength = 0;
+		while (sourceLength < length && line[sourceLength] != ' ' && line[sourceLength] != '\t')
+			sourceLength++;
+		return sourceLength;
+	}
+
+	private static class SourceAlignedRecordReader extends RecordReader<LongWritable, Text> {
+
+		/** Initial number of bytes read backwards from the start of a split to find the line before it. */
+		private static final int PRECEDING_LINE_WINDOW = 256;
+
+		private final LineRecordReader lineReader = new LineRecordReader();
+		private FileSystem fs;
+		private Path file;
+		private long start;
+		/** Offset of the last byte of the split; lines starting after it are only read to complete the last run. */
+		private long end;
+		private long position;
+		private boolean isFirstLine;
+		private boolean isDone;
+		/** Source vertex of the line before the split, whose run is completed by the previous split. */
+		private Text skippedSource;
+		/** Source vertex of the last line returned by this reader. */
+		private Text lastSource;
+
+		@Override
+		public void initialize(InputSplit genericSplit, TaskAttemptContext context) throws IOException {
+			// Read lines from the start of the split up to the end of the file
+			FileSplit split = (FileSplit)genericSplit;
+			file = split.getPath();
+			fs = file.getFileSystem(context.getConfiguration());
+			long fileLength = fs.getFileStatus(file).getLen();
+			start = split.getStart();
+			end = start + split.getLength();
+			if (end >= fileLength)
+				end = Long.MAX_VALUE;
+			lineReader.initialize(new FileSplit(file, start, Math.max(fileLength - start, split.getLength()),
+					split.getLocations()), context);
+			position = start;
+			isFirstLine = true;
+			isDone = false;
+			skippedSource = null;
+			lastSource = null;
+		}
+
+		@Override
+		public boolean nextKeyValue() throws IOException {
+			while (!isDone && lineReader.nextKeyValue()) {
+				Text line = lineReader.getCurrentValue();
+				long offset = lineReader.getCurrentKey().get();
+
+				// Skip the lines that continue the last run of the previous split
+				if (isFirstLine) {
+					isFirstLine = false;
+					if (start > 0 && offset > 0)
+						skippedSource = readSourceBefore(offset);
+				}
+				if (skippedSource != null) {
+					if (hasSource(line, skippedSource))
+						continue;
+					skippedSource = null;
+				}
+
+				// Lines after the end of the split belong to the next split, unless they continue the last run
+				boolean continuesRun = (lastSource != null && hasSource(line, lastSource));
+				if (offset > end && !continuesRun)
+					break;
+				if (!continuesRun) {
+					lastSource = new Text();
+					lastSource.set(line.getBytes(), 0, getSourceLength(line.getBytes(), line.getLength()));
+				}
+				position = offset;
+				return true;
+			}
+			isDone = true;
+			return false;
+		}
+
+		/**
+		 * @param lineStart the offset of the first byte of a line that is preceded by a line break
+		 * @return the source vertex of the line before the given line
+		 */
+		private Text readSourceBefore(long lineStart) throws IOException {
+			try (FSDataInputStream in = fs.open(file)) {
+				// Skip the line break that ends the preceding line
+				long lineEnd = lineStart - 1;
+				if (lineEnd > 0) {
+					byte[] lineBreak = new byte[1];
+					in.readFully(lineEnd - 1, lineBreak);
+					if (lineBreak[0] == '\r')
+						lineEnd--;
+				}
+
+				// Read increasingly large windows before the line break until the start of the line is found
+				int window = PRECEDING_LINE_WINDOW;
+				while (true) {
+					long from = Math.max(0, lineEnd - window);
+					byte[] bytes = new byte[(int)(lineEnd - from)];
+					in.readFully(from, bytes);
+					int lineBreak = bytes.length - 1;
+					while (lineBreak >= 0 && bytes[lineBreak] != '\n' && bytes[lineBreak] != '\r')
+						lineBreak--;
+					if (lineBreak >= 0 || from == 0) {
+						byte[] line = new byte[bytes.length - lineBreak - 1];
+						System.arraycopy(bytes, lineBreak + 1, line, 0, line.length);
+						Text source = new Text();
+						source.set(line, 0, getSourceLength(line, line.length));
+						return source;
+					}
+					window *= 2;
+				}
+			}
+		}
+
+		private static boolean hasSource(Text line, Text source) {
+			byte[] bytes = line.getBytes();
+			int sourceLength = getSourceLength(bytes, line.getLength());
+			if (sourceLength != source.getLength())
+				return false;
+			byte[] sourceBytes = source.getBytes();
+			for (int i = 0; i < sourceLength; i++) {
+				if (bytes[i] != sourceBytes[i])
+					return false;
+			}
+			return true;
+		}
+
+		@Override
+		public LongWritable getCurrentKey() {
+			return lineReader.getCurrentKey();
+		}
+
+		@Override
+		public Text getCurrentValue() {
+			return lineReader.getCurrentValue();
+		}
+
+		@Override
+		public float getProgress() throws IOException {
+			if (end == Long.MAX_VALUE)
+				return lineReader.getProgress();
+			return Math.min(1.0f, (position - start) / (float)Math.max(1, end - start));
+		}
+
+		@Override
+		public void close() throws IOException {
+			lineReader.close();
+		}
+
+	}
+
+}
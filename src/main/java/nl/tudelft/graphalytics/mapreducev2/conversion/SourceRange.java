@@ -0,0 +1,117 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Range of source vertices in one output file of the map-only pass over an edge list that is sorted by source vertex
+ * (see {@link SortedEdgeMapper}). Every map task stores its range next to its output in a file that is ignored as job
+ * input, so the conversion can order the output files and check that their ranges do not overlap.
+ *
+ * @author Tim Hegeman
+ */
+public class SourceRange implements Comparable<SourceRange> {
+
+	/** Prefix of the file names of source ranges in the output directory of the map-only pass. */
+	public static final String FILE_PREFIX = "_source-range-";
+
+	private final String fileName;
+	private final long firstVertex;
+	private final long lastVertex;
+
+	/**
+	 * @param fileName the name of the output file
+	 * @param firstVertex the smallest source vertex in the file
+	 * @param lastVertex the largest source vertex in the file
+	 */
+	public SourceRange(String fileName, long firstVertex, long lastVertex) {
+		this.fileName = fileName;
+		this.firstVertex = firstVertex;
+		this.lastVertex = lastVertex;
+	}
+
+	/**
+	 * @return the name of the output file
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * @return the smallest source vertex in the file
+	 */
+	public long getFirstVertex() {
+		return firstVertex;
+	}
+
+	/**
+	 * @return the largest source vertex in the file
+	 */
+	public long getLastVertex() {
+		return lastVertex;
+	}
+
+	@Override
+	public int compareTo(SourceRange other) {
+		return Long.compare(firstVertex, other.firstVertex);
+	}
+
+	/**
+	 * @param dfs the file system to write to
+	 * @param path the file to write the range to
+	 * @throws IOException if writing the range fails
+	 */
+	public void write(FileSystem dfs, Path path) throws IOException {
+		try (FSDataOutputStream out = dfs.create(path)) {
+			out.writeUTF(fileName);
+			out.writeLong(firstVertex);
+			out.writeLong(lastVertex);
+		}
+	}
+
+	/**
+	 * Reads the ranges of all output files of the map-only pass.
+	 *
+	 * @param dfs the file system to read from
+	 * @param outputPath the output directory of the map-only pass
+	 * @return the ranges of all non-empty output files, sorted by their smallest source vertex
+	 * @throws IOException if reading the ranges fails
+	 */
+	public static List<SourceRange> readAll(FileSystem dfs, Path outputPath) throws IOException {
+		List<SourceRange> ranges = new ArrayList<>();
+		FileStatus[] rangeFiles = dfs.globStatus(new Path(outputPath, FILE_PREFIX + "*"));
+		if (rangeFiles != null) {
+			for (FileStatus rangeFile : rangeFiles) {
+				try (FSDataInputStream in = dfs.open(rangeFile.getPath())) {
+					ranges.add(new SourceRange(in.readUTF(), in.readLong(), in.readLong()));
+				}
+			}
+		}
+		Collections.sort(ranges);
+		return ranges;
+	}
+
+}
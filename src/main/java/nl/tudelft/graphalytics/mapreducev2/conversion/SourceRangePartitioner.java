@@ -0,0 +1,59 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+/**
+ * Partitioner for the conversion of sorted edge lists, which sends every vertex to the reducer that merges the
+ * outgoing edges of its range of source vertices. The split points are configured by the conversion under
+ * {@link ConversionConfiguration#SPLIT_POINTS_KEY}.
+ *
+ * @author Tim Hegeman
+ */
+public class SourceRangePartitioner extends Partitioner<LongWritable, PartialAdjacency> implements Configurable {
+
+	private Configuration conf;
+	private long[] splitPoints;
+
+	@Override
+	public void setConf(Configuration conf) {
+		this.conf = conf;
+		String[] points = conf.getTrimmedStrings(ConversionConfiguration.SPLIT_POINTS_KEY);
+		splitPoints = new long[points.length];
+		for (int i = 0; i < points.length; i++) {
+			splitPoints[i] = Long.parseLong(points[i]);
+		}
+	}
+
+	@Override
+	public Configuration getConf() {
+		return conf;
+	}
+
+	@Override
+	public int getPartition(LongWritable key, PartialAdjacency value, int numPartitions) {
+		// Find the number of split points less than or equal to the vertex ID; split points are distinct
+		int index = Arrays.binarySearch(splitPoints, key.get());
+		return (index >= 0 ? index + 1 : -(index + 1));
+	}
+
+}
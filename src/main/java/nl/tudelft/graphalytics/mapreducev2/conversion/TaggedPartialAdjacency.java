@@ -19,42 +19,53 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 
-import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
 
 /**
- * Edge specification, with one endpoint (the other endpoint is the MapReduce key) and a direction.
+ * Partial adjacency list tagged with the index of the graph it belongs to, used by {@link BatchConversion} to
+ * convert multiple graphs in a single job.
  *
  * @author Tim Hegeman
  */
-public class EdgeData implements Writable {
+public class TaggedPartialAdjacency extends PartialAdjacency {
 
-	private long targetId;
-	private boolean outgoing;
-	
-	public EdgeData() {
+	private int graph;
+
+	public TaggedPartialAdjacency() {
+		this(0);
 	}
-	public EdgeData(long targetId, boolean outgoing) {
-		this.targetId = targetId;
-		this.outgoing = outgoing;
+
+	/**
+	 * @param graph the index of the graph
+	 */
+	public TaggedPartialAdjacency(int graph) {
+		this.graph = graph;
 	}
-	
-	public boolean isOutgoing() {
-		return outgoing;
+
+	/**
+	 * @return the index of the graph
+	 */
+	public int getGraph() {
+		return graph;
 	}
-	public long getTargetId() {
-		return targetId;
+
+	/**
+	 * @param graph the index of the graph
+	 */
+	public void setGraph(int graph) {
+		this.graph = graph;
 	}
-	
+
 	@Override
 	public void write(DataOutput out) throws IOException {
-		out.writeLong(targetId);
-		out.writeBoolean(outgoing);
+		WritableUtils.writeVInt(out, graph);
+		super.write(out);
 	}
 
 	@Override
 	public void readFields(DataInput in) throws IOException {
-		targetId = in.readLong();
-		outgoing = in.readBoolean();
+		graph = WritableUtils.readVInt(in);
+		super.readFields(in);
 	}
 
 }
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapreduce.Reducer;
+
+/**
+ * Concatenates the partial adjacency lists of a vertex per graph, for batch conversions. A map task converts a single
+ * graph, but combiners may also run on merged map output in a reduce task, which contains values of several graphs.
+ *
+ * @author Tim Hegeman
+ */
+public class TaggedPartialAdjacencyCombiner
+		extends Reducer<LongWritable, PartialAdjacency, LongWritable, PartialAdjacency> {
+
+	/** Combined adjacency list of each graph, indexed by graph. */
+	private List<TaggedPartialAdjacency> outValues = new ArrayList<>();
+	/** Combined adjacency lists of the graphs that have values for the current key. */
+	private List<TaggedPartialAdjacency> combined = new ArrayList<>();
+
+	@Override
+	protected void reduce(LongWritable key, Iterable<PartialAdjacency> values, Context context)
+			throws IOException, InterruptedException {
+		// Concatenate the values of each graph; usually all values belong to the same graph
+		combined.clear();
+		for (PartialAdjacency value : values) {
+			int graph = ((TaggedPartialAdjacency)value).getGraph();
+			while (outValues.size() <= graph)
+				outValues.add(new TaggedPartialAdjacency(outValues.size()));
+			TaggedPartialAdjacency outValue = outValues.get(graph);
+			if (!combined.contains(outValue)) {
+				outValue.clear();
+				combined.add(outValue);
+			}
+			outValue.addAll(value);
+		}
+
+		for (TaggedPartialAdjacency outValue : combined) {
+			context.write(key, outValue);
+		}
+	}
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+
+/**
+ * Writes the neighbours of a vertex of an undirected graph as a single line of output, in increasing order of ID. If
+ * a hub split threshold is configured, vertices with more neighbours than the threshold are written as multiple lines
+ * that share the vertex ID.
+ *
+ * @author Tim Hegeman
+ */
+public class UndirectedAdjacencyListWriter extends AdjacencyListWriter {
+
+	/**
+	 * @see AdjacencyListWriter#AdjacencyListWriter(LineOutput, int, int, boolean)
+	 */
+	public UndirectedAdjacencyListWriter(LineOutput output, int hubSplitThreshold, int partition) {
+		super(output, hubSplitThreshold, partition, false);
+	}
+
+	@Override
+	protected void writeVertex(LongWritable vertex, PartialAdjacency adjacency)
+			throws IOException, InterruptedException {
+		// Combine the vertex ID and neighbour IDs using a StringBuilder
+		StringBuilder sb = new StringBuilder();
+		sb.append(vertex.get());
+		int neighboursOnLine = 0;
+		long degree = adjacency.size();
+		int numRecords = 1;
+		for (int i = 0; i < adjacency.size(); i++) {
+			// Flush the current sub-vertex record if it is full
+			if (hubSplitThreshold > 0 && neighboursOnLine == hubSplitThreshold) {
+				writeLine(sb.toString());
+				sb.setLength(0);
+				sb.append(vertex.get());
+				neighboursOnLine = 0;
+				numRecords++;
+			}
+			sb.append(' ').append(adjacency.getNeighbour(i));
+			neighboursOnLine++;
+		}
+		addVertex(vertex.get(), degree, degree, numRecords);
+		
+		// Output the constructed line
+		writeLine(sb.toString());
+	}
+
+}
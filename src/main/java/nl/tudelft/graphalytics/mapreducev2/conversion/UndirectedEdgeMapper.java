@@ -16,46 +16,59 @@
 package nl.tudelft.graphalytics.mapreducev2.conversion;
 
 import java.io.IOException;
-import java.util.regex.Pattern;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Mapper;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
 
 /**
- * Maps each undirected edge in the undirected input to a directed edge for either direction.
+ * Maps each undirected edge in the undirected input to a directed edge for either direction. Edges are aggregated per
+ * vertex within each map task and emitted as partial adjacency lists.
  *
  * @author Tim Hegeman
  */
-public class UndirectedEdgeMapper extends Mapper<LongWritable, Text, LongWritable, LongWritable> {
+public class UndirectedEdgeMapper extends Mapper<LongWritable, Text, LongWritable, PartialAdjacency> {
 
-	/** Pre-compiled regular expression for splitting input lines on whitespace. */
-	private static final Pattern whitespacePattern = Pattern.compile("[\t ]");
+	/** Parser for splitting input lines on whitespace. */
+	private final RecordParser parser = new RecordParser(RecordParser.WHITESPACE_DELIMITERS);
 	
-	private LongWritable leftId = new LongWritable();
-	private LongWritable rightId = new LongWritable();
+	private PartialAdjacencyBuffer buffer = new PartialAdjacencyBuffer();
 	
 	@Override
 	protected void map(LongWritable key, Text value, Context context) throws IOException, InterruptedException {
 		// Parse the line (value) as a pair of longs: vertex-A vertex-B
-		String[] vertices = whitespacePattern.split(value.toString());
-		if (vertices.length != 2) {
+		int numVertices = parser.split(value);
+		if (numVertices != 2) {
 			context.getCounter(Counters.ParseErrors.INVALID_LINE_FORMAT).increment(1);
 			return;
 		}
 		
 		// Parse both longs
+		long leftId, rightId;
 		try {
-			leftId.set(Long.parseLong(vertices[0]));
-			rightId.set(Long.parseLong(vertices[1]));
+			leftId = parser.getLong(0);
+			rightId = parser.getLong(1);
 		} catch (NumberFormatException ex) {
 			context.getCounter(Counters.ParseErrors.NUMBER_FORMAT_EXCEPTION).increment(1);
 			return;
 		}
 		
-		// Output the edge both ways
-		context.write(leftId, rightId);
-		context.write(rightId, leftId);
+		// Drop self-loops, but keep the vertex
+		if (leftId == rightId) {
+			context.getCounter(Counters.DroppedEdges.SELF_LOOPS).increment(1);
+			buffer.add(leftId, leftId, true, context);
+			return;
+		}
+		
+		// Buffer the edge both ways
+		buffer.add(leftId, rightId, true, context);
+		buffer.add(rightId, leftId, true, context);
+	}
+	
+	@Override
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		buffer.flush(context);
 	}
 	
 }
@@ -17,33 +17,64 @@ package nl.tudelft.graphalytics.mapreducev2.conversion;
 
 import java.io.IOException;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 
 /**
- * Reduces a set of incoming edges for a vertex to a single line of ourput.
+ * Reduces a list of neighbours for a single vertex to one or more lines of output, written by an
+ * {@link UndirectedAdjacencyListWriter}.
  *
  * @author Tim Hegeman
  */
-public class UndirectedVertexReducer extends Reducer<LongWritable, LongWritable, NullWritable, Text> {
+public class UndirectedVertexReducer extends Reducer<LongWritable, PartialAdjacency, NullWritable, Text> {
+
+	private PartialAdjacency adjacency = new PartialAdjacency();
+	private AdjacencyListWriter writer;
+
+	@Override
+	protected void setup(Context context) throws IOException, InterruptedException {
+		writer = new UndirectedAdjacencyListWriter(AdjacencyListWriter.toContext(context),
+				context.getConfiguration().getInt(ConversionConfiguration.HUB_SPLIT_THRESHOLD_KEY, 0),
+				context.getTaskAttemptID().getTaskID().getId());
+	}
 
-	private Text outValue = new Text();
-	
 	@Override
-	protected void reduce(LongWritable key, Iterable<LongWritable> values, Context context)
+	protected void cleanup(Context context) throws IOException, InterruptedException {
+		// Store the degree summary, vertex ID sample and metadata of this partition next to the output graph
+		Path workPath = FileOutputFormat.getWorkOutputPath(context);
+		writer.writeStatistics(workPath.getFileSystem(context.getConfiguration()), workPath);
+	}
+
+	@Override
+	protected void reduce(LongWritable key, Iterable<PartialAdjacency> values, Context context)
 			throws IOException, InterruptedException {
-		// Combine the vertex ID and neighbour IDs using a StringBuilder
-		StringBuilder sb = new StringBuilder();
-		sb.append(key.get());
-		for (LongWritable neighbour : values) {
-			sb.append(' ').append(neighbour.get());
+		// Collect all neighbours of the vertex
+		adjacency.clear();
+		for (PartialAdjacency neighbours : values) {
+			adjacency.addAll(neighbours);
 		}
-		
-		// Output the constructed line
-		outValue.set(sb.toString());
-		context.write(NullWritable.get(), outValue);
+		writeAdjacency(key, adjacency, context);
+	}
+
+	/**
+	 * Sorts and deduplicates the neighbours of a vertex, writes them as one or more lines of output, and adds the vertex
+	 * to the statistics of this partition.
+	 *
+	 * @param key the ID of the vertex
+	 * @param adjacency all neighbours of the vertex, in any order; modified by this method
+	 * @param context the context to write the vertex to
+	 * @throws IOException if writing the vertex fails
+	 * @throws InterruptedException if writing the vertex fails
+	 */
+	protected void writeAdjacency(LongWritable key, PartialAdjacency adjacency, Context context)
+			throws IOException, InterruptedException {
+		int duplicates = writer.write(key, adjacency);
+		if (duplicates > 0)
+			context.getCounter(Counters.DroppedEdges.DUPLICATES).increment(duplicates);
 	}
 	
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Uniform sample of the vertex IDs of a graph, produced by the conversion jobs using reservoir sampling. Each
+ * conversion reducer samples the vertices it outputs and stores its sample, together with the number of vertices it
+ * sampled from, next to the converted graph in a file that is ignored as job input. Reducers receive different
+ * numbers of vertices, so the partial samples are weighted by these counts when they are merged.
+ *
+ * @author Tim Hegeman
+ */
+public class VertexIdSample {
+
+	/** Maximum number of vertex IDs sampled by a single reducer. */
+	public static final int MAX_SAMPLE_SIZE = 10000;
+	/** Prefix of the file names of (partial) vertex ID samples in a graph directory. */
+	public static final String FILE_PREFIX = "_vertex-id-sample-";
+
+	private final long[] sample = new long[MAX_SAMPLE_SIZE];
+	private final Random random;
+	private long numVertices = 0;
+
+	/**
+	 * @param seed seed for the random number generator used for sampling
+	 */
+	public VertexIdSample(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * @param vertexId the ID of a vertex to offer to the sample
+	 */
+	public void addVertex(long vertexId) {
+		if (numVertices < MAX_SAMPLE_SIZE) {
+			sample[(int)numVertices] = vertexId;
+		} else {
+			long index = (long)(random.nextDouble() * (numVertices + 1));
+			if (index < MAX_SAMPLE_SIZE)
+				sample[(int)index] = vertexId;
+		}
+		numVertices++;
+	}
+
+	/**
+	 * @param dfs the file system to write to
+	 * @param path the file to write the sample to
+	 * @throws IOException if writing the sample fails
+	 */
+	public void write(FileSystem dfs, Path path) throws IOException {
+		int sampleSize = (int)Math.min(numVertices, MAX_SAMPLE_SIZE);
+		try (FSDataOutputStream out = dfs.create(path)) {
+			out.writeLong(numVertices);
+			out.writeInt(sampleSize);
+			for (int i = 0; i < sampleSize; i++) {
+				out.writeLong(sample[i]);
+			}
+		}
+	}
+
+	/**
+	 * Reads and merges all partial vertex ID samples stored in a graph directory. Every partial sample contributes a
+	 * number of IDs proportional to the number of vertices it was sampled from, so each ID in the merged sample
+	 * represents roughly the same number of vertices. Partial samples are resampled at evenly spaced ranks to match
+	 * their share, which repeats IDs of samples drawn from more vertices than their size suggests.
+	 *
+	 * @param dfs the file system to read from
+	 * @param graphPath the directory of the converted graph
+	 * @return the sorted vertex IDs in the sample, or null if the graph has no vertex ID sample
+	 * @throws IOException if reading the sample fails
+	 */
+	public static long[] read(FileSystem dfs, Path graphPath) throws IOException {
+		FileStatus[] sampleFiles = dfs.globStatus(new Path(graphPath, FILE_PREFIX + "*"));
+		if (sampleFiles == null || sampleFiles.length == 0)
+			return null;
+
+		long[][] samples = new long[sampleFiles.length][];
+		long[] sampledVertices = new long[sampleFiles.length];
+		for (int file = 0; file < sampleFiles.length; file++) {
+			try (FSDataInputStream in = dfs.open(sampleFiles[file].getPath())) {
+				sampledVertices[file] = in.readLong();
+				samples[file] = new long[in.readInt()];
+				for (int i = 0; i < samples[file].length; i++) {
+					samples[file][i] = in.readLong();
+				}
+			}
+		}
+		return merge(samples, sampledVertices);
+	}
+
+	/**
+	 * @param samples the partial samples
+	 * @param sampledVertices the number of vertices each partial sample was drawn from
+	 * @return the sorted vertex IDs of the merged sample, with as many IDs as the partial samples combined
+	 */
+	static long[] merge(long[][] samples, long[] sampledVertices) {
+		long totalVertices = 0;
+		int totalSampleSize = 0;
+		for (int i = 0; i < samples.length; i++) {
+			totalVertices += sampledVertices[i];
+			totalSampleSize += samples[i].length;
+		}
+
+		long[] merged = new long[totalSampleSize];
+		int size = 0;
+		long verticesBefore = 0;
+		for (int i = 0; i < samples.length; i++) {
+			// Derive the share of each sample from cumulative vertex counts, so rounding errors do not add up
+			int from = (int)Math.round((double)verticesBefore * totalSampleSize / totalVertices);
+			verticesBefore += sampledVertices[i];
+			int to = (int)Math.round((double)verticesBefore * totalSampleSize / totalVertices);
+			if (samples[i].length == 0 || to == from)
+				continue;
+
+			long[] sample = Arrays.copyOf(samples[i], samples[i].length);
+			Arrays.sort(sample);
+			for (int rank = 0; rank < to - from; rank++) {
+				merged[size++] = sample[(int)(((long)2 * rank + 1) * sample.length / (2 * (to - from)))];
+			}
+		}
+		merged = Arrays.copyOf(merged, size);
+		Arrays.sort(merged);
+		return merged;
+	}
+
+}
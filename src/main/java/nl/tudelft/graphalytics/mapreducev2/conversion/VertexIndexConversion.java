@@ -0,0 +1,76 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.Reducer;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.lib.input.TextInputFormat;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
+import org.apache.hadoop.mapreduce.lib.output.MapFileOutputFormat;
+import nl.tudelft.graphalytics.mapreducev2.VertexIndex;
+
+/**
+ * Job specification for building a {@link VertexIndex} over a graph in the vertex-based format used by all
+ * algorithms. The index is written to a hidden directory within the graph directory, so jobs reading the graph
+ * ignore it.
+ *
+ * @author Tim Hegeman
+ */
+public class VertexIndexConversion {
+
+	private String graphPath;
+	private int numReducers;
+
+	public VertexIndexConversion(String graphPath) {
+		this.graphPath = graphPath;
+		this.numReducers = 1;
+	}
+
+	public VertexIndexConversion withNumberOfReducers(int numReducers) {
+		this.numReducers = numReducers;
+		return this;
+	}
+
+	public void run() throws IOException, ClassNotFoundException, InterruptedException {
+		Job job = Job.getInstance();
+		job.setJarByClass(getClass());
+
+		job.setMapperClass(VertexIndexMapper.class);
+		job.setReducerClass(Reducer.class);
+		job.setMapOutputKeyClass(LongWritable.class);
+		job.setMapOutputValueClass(Text.class);
+
+		job.setOutputKeyClass(LongWritable.class);
+		job.setOutputValueClass(Text.class);
+
+		job.setInputFormatClass(TextInputFormat.class);
+		job.setOutputFormatClass(MapFileOutputFormat.class);
+
+		job.setNumReduceTasks(numReducers);
+
+		FileInputFormat.addInputPath(job, new Path(graphPath));
+		FileOutputFormat.setOutputPath(job, VertexIndex.getIndexPath(new Path(graphPath)));
+
+		job.waitForCompletion(true);
+	}
+
+}
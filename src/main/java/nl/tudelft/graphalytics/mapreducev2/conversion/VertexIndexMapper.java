@@ -0,0 +1,56 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper;
+import nl.tudelft.graphalytics.mapreducev2.common.RecordParser;
+
+/**
+ * Maps each vertex record of a converted graph to its vertex ID, to build a vertex index.
+ *
+ * @author Tim Hegeman
+ */
+public class VertexIndexMapper extends Mapper<LongWritable, Text, LongWritable, Text> {
+
+	private final LongWritable vertexId = new LongWritable();
+
+	@Override
+	protected void map(LongWritable key, Text value, Context context)
+			throws IOException, InterruptedException {
+		// The vertex ID is the first field of the record, up to the first tab or space
+		byte[] record = value.getBytes();
+		int end = 0;
+		while (end < value.getLength() && record[end] != '\t' && record[end] != ' ')
+			end++;
+		if (end == 0) {
+			context.getCounter(Counters.ParseErrors.INVALID_LINE_FORMAT).increment(1);
+			return;
+		}
+
+		try {
+			vertexId.set(RecordParser.parseLong(record, 0, end));
+		} catch (NumberFormatException ex) {
+			context.getCounter(Counters.ParseErrors.NUMBER_FORMAT_EXCEPTION).increment(1);
+			return;
+		}
+		context.write(vertexId, value);
+	}
+
+}
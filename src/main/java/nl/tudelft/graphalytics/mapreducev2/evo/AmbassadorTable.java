@@ -0,0 +1,221 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Read-only map from ambassadors to the new vertices they were connected to in the previous forest fire model
+ * iteration. The table is built once per task from a {@link BurnedEdges} file and is backed by primitive arrays:
+ * an open-addressing hash table with linear probing maps ambassador IDs to ranges in a flat array of new vertex IDs.
+ * Lookups do not allocate.
+ *
+ * @author Tim Hegeman
+ */
+public class AmbassadorTable {
+
+	private static final int EMPTY = -1;
+
+	/** Distinct ambassador IDs, in sorted order. */
+	private final long[] ambassadors;
+	/** New vertices of ambassador i are stored at positions [offsets[i], offsets[i + 1]) of newVertices. */
+	private final int[] offsets;
+	private final long[] newVertices;
+	/** Hash table of indices into ambassadors, or EMPTY. */
+	private final int[] slots;
+	private final int slotMask;
+
+	private AmbassadorTable(long[] ambassadors, int[] offsets, long[] newVertices) {
+		this.ambassadors = ambassadors;
+		this.offsets = offsets;
+		this.newVertices = newVertices;
+
+		// Size the hash table to a power of two with a load factor of at most one half
+		int capacity = Integer.highestOneBit(Math.max(1, ambassadors.length) * 2 - 1) << 1;
+		this.slots = new int[capacity];
+		this.slotMask = capacity - 1;
+		Arrays.fill(slots, EMPTY);
+		for (int i = 0; i < ambassadors.length; i++) {
+			int slot = hash(ambassadors[i]) & slotMask;
+			while (slots[slot] != EMPTY)
+				slot = (slot + 1) & slotMask;
+			slots[slot] = i;
+		}
+	}
+
+	/**
+	 * @return a table without any ambassadors
+	 */
+	public static AmbassadorTable empty() {
+		return new AmbassadorTable(new long[0], new int[1], new long[0]);
+	}
+
+	/**
+	 * Builds a table from a file of burned edges, which is sorted by ambassador.
+	 *
+	 * @param conf the configuration used to access the local file system
+	 * @param localPath the local path of the burned edges file
+	 * @return the ambassador table
+	 * @throws IOException if reading the file fails
+	 */
+	public static AmbassadorTable read(Configuration conf, Path localPath) throws IOException {
+		return read(FileSystem.getLocal(conf), localPath);
+	}
+
+	/**
+	 * Builds a table from a file of burned edges, which is sorted by ambassador.
+	 *
+	 * @param fs the file system containing the burned edges file
+	 * @param path the path of the burned edges file
+	 * @return the ambassador table
+	 * @throws IOException if reading the file fails
+	 */
+	public static AmbassadorTable read(FileSystem fs, Path path) throws IOException {
+		return fromSortedPairs(readPairs(fs, path));
+	}
+
+	/**
+	 * Builds the inverse table from a file of burned edges, mapping new vertices to their ambassadors. In the
+	 * inverse table, {@link #find(long)} takes the ID of a new vertex and {@link #getNewVertex(int)} returns the
+	 * IDs of its ambassadors.
+	 *
+	 * @param conf the configuration used to access the local file system
+	 * @param localPath the local path of the burned edges file
+	 * @return the inverse ambassador table
+	 * @throws IOException if reading the file fails
+	 */
+	public static AmbassadorTable readInverse(Configuration conf, Path localPath) throws IOException {
+		long[] pairs = readPairs(FileSystem.getLocal(conf), localPath);
+		for (int i = 0; i < pairs.length; i += 2) {
+			long ambassador = pairs[i];
+			pairs[i] = pairs[i + 1];
+			pairs[i + 1] = ambassador;
+		}
+		BurnedEdges.sortPairs(pairs, 0, pairs.length / 2);
+		return fromSortedPairs(pairs);
+	}
+
+	private static long[] readPairs(FileSystem fs, Path path) throws IOException {
+		try (FSDataInputStream in = fs.open(path)) {
+			long numEdges = in.readLong();
+			if (numEdges > Integer.MAX_VALUE / 2)
+				throw new IOException("Too many burned edges to load in a single task: " + numEdges + ".");
+
+			long[] pairs = new long[2 * (int)numEdges];
+			for (int i = 0; i < pairs.length; i++) {
+				pairs[i] = in.readLong();
+			}
+			return pairs;
+		} catch (EOFException e) {
+			throw new IOException("Burned edges file " + path + " is truncated.", e);
+		}
+	}
+
+	private static AmbassadorTable fromSortedPairs(long[] pairs) {
+		long[] newVertices = new long[pairs.length / 2];
+		long[] ambassadors = new long[16];
+		int[] offsets = new int[17];
+		int numAmbassadors = 0;
+		for (int i = 0; i < newVertices.length; i++) {
+			long ambassador = pairs[2 * i];
+			newVertices[i] = pairs[2 * i + 1];
+			if (numAmbassadors == 0 || ambassadors[numAmbassadors - 1] != ambassador) {
+				if (numAmbassadors == ambassadors.length) {
+					ambassadors = Arrays.copyOf(ambassadors, 2 * numAmbassadors);
+					offsets = Arrays.copyOf(offsets, 2 * numAmbassadors + 1);
+				}
+				ambassadors[numAmbassadors] = ambassador;
+				offsets[numAmbassadors] = i;
+				numAmbassadors++;
+			}
+		}
+		offsets[numAmbassadors] = newVertices.length;
+
+		return new AmbassadorTable(Arrays.copyOf(ambassadors, numAmbassadors),
+				Arrays.copyOf(offsets, numAmbassadors + 1), newVertices);
+	}
+
+	/**
+	 * @param vertexId the ID of a vertex
+	 * @return the index of the vertex in this table, or -1 if it is not an ambassador
+	 */
+	public int find(long vertexId) {
+		int slot = hash(vertexId) & slotMask;
+		while (slots[slot] != EMPTY) {
+			if (ambassadors[slots[slot]] == vertexId)
+				return slots[slot];
+			slot = (slot + 1) & slotMask;
+		}
+		return EMPTY;
+	}
+
+	/**
+	 * @param ambassador the index of an ambassador, in [0, {@link #size()})
+	 * @return the ID of the ambassador; ambassadors are indexed in increasing order of ID
+	 */
+	public long getAmbassador(int ambassador) {
+		return ambassadors[ambassador];
+	}
+
+	/**
+	 * @param ambassador the index of an ambassador, as returned by {@link #find(long)}
+	 * @return the position of the first new vertex of the ambassador
+	 */
+	public int getStart(int ambassador) {
+		return offsets[ambassador];
+	}
+
+	/**
+	 * @param ambassador the index of an ambassador, as returned by {@link #find(long)}
+	 * @return the position after the last new vertex of the ambassador
+	 */
+	public int getEnd(int ambassador) {
+		return offsets[ambassador + 1];
+	}
+
+	/**
+	 * @param position a position in the range of an ambassador
+	 * @return the ID of the new vertex at the given position
+	 */
+	public long getNewVertex(int position) {
+		return newVertices[position];
+	}
+
+	/**
+	 * @return the number of distinct ambassadors in this table
+	 */
+	public int size() {
+		return ambassadors.length;
+	}
+
+	private static int hash(long key) {
+		// Finalization step of MurmurHash3, to spread sequential vertex IDs over the table
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb93e185a6d9bL;
+		key ^= key >>> 33;
+		return (int)key;
+	}
+
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FileUtil;
+import org.apache.hadoop.fs.Path;
+
+/**
+ * Buffer and binary file format for the edges burned by the forest fire model in a single iteration. Each edge
+ * connects an ambassador (an existing vertex) to a new vertex. Burned edges are stored as a count followed by
+ * (ambassador, new vertex) pairs of longs, sorted by ambassador and then by new vertex.
+ *
+ * Every reducer writes the edges it burned to a part file in the output directory of the iteration. The driver
+ * merges the part files into a single file, which is shipped to the mappers of the next iteration using the
+ * distributed cache, where it is loaded into an {@link AmbassadorTable}.
+ *
+ * @author Tim Hegeman
+ */
+public class BurnedEdges {
+
+	/** Prefix of the part files written by the reducers. */
+	public static final String PART_FILE_PREFIX = "_burned-part-";
+	/** Name of the file containing the merged burned edges of an iteration. */
+	public static final String MERGED_FILE_NAME = "_burned-edges";
+	/** Name of the file containing the merged burned edges of all iterations so far. */
+	public static final String ALL_MERGED_FILE_NAME = "_all-burned-edges";
+
+	private long[] pairs = new long[1024];
+	private int size = 0;
+
+	/**
+	 * @param ambassador the ID of the ambassador of the burned edge
+	 * @param newVertex the ID of the new vertex of the burned edge
+	 */
+	public void add(long ambassador, long newVertex) {
+		if (2 * size == pairs.length)
+			pairs = Arrays.copyOf(pairs, 2 * pairs.length);
+		pairs[2 * size] = ambassador;
+		pairs[2 * size + 1] = newVertex;
+		size++;
+	}
+
+	/**
+	 * @return the number of burned edges in this buffer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Sorts the buffered edges and writes them to a file.
+	 *
+	 * @param dfs the file system to write to
+	 * @param path the file to write the burned edges to
+	 * @throws IOException if writing the file fails
+	 */
+	public void write(FileSystem dfs, Path path) throws IOException {
+		sortPairs(pairs, 0, size);
+		try (FSDataOutputStream out = dfs.create(path)) {
+			out.writeLong(size);
+			for (int i = 0; i < 2 * size; i++) {
+				out.writeLong(pairs[i]);
+			}
+		}
+	}
+
+	/**
+	 * Merges the sorted part files in an iteration output directory into a single sorted file.
+	 *
+	 * @param dfs the file system to use
+	 * @param outputPath the output directory of the iteration
+	 * @param mergedPath the file to write the merged burned edges to
+	 * @return the total number of burned edges
+	 * @throws IOException if reading or writing burned edges fails
+	 */
+	public static long merge(FileSystem dfs, Path outputPath, Path mergedPath) throws IOException {
+		FileStatus[] partFiles = dfs.globStatus(new Path(outputPath, PART_FILE_PREFIX + "*"));
+		if (partFiles == null)
+			partFiles = new FileStatus[0];
+		return merge(dfs, FileUtil.stat2Paths(partFiles), mergedPath);
+	}
+
+	/**
+	 * Merges sorted burned edges files into a single sorted file.
+	 *
+	 * @param dfs the file system to use
+	 * @param inputPaths the burned edges files to merge
+	 * @param mergedPath the file to write the merged burned edges to
+	 * @return the total number of burned edges
+	 * @throws IOException if reading or writing burned edges fails
+	 */
+	public static long merge(FileSystem dfs, Path[] inputPaths, Path mergedPath) throws IOException {
+		List<FSDataInputStream> inputs = new ArrayList<>();
+		try {
+			// Open all input files and read the first edge of each
+			long totalEdges = 0;
+			long[] remaining = new long[inputPaths.length];
+			final long[] heads = new long[2 * inputPaths.length];
+			PriorityQueue<Integer> partsByHead = new PriorityQueue<>(Math.max(1, inputPaths.length),
+					new Comparator<Integer>() {
+						@Override
+						public int compare(Integer a, Integer b) {
+							return comparePairs(heads, a, heads, b);
+						}
+					});
+			for (int i = 0; i < inputPaths.length; i++) {
+				FSDataInputStream in = dfs.open(inputPaths[i]);
+				inputs.add(in);
+				remaining[i] = in.readLong();
+				totalEdges += remaining[i];
+				if (readHead(in, heads, remaining, i))
+					partsByHead.add(i);
+			}
+
+			// Repeatedly write the smallest head of all input files
+			try (FSDataOutputStream out = dfs.create(mergedPath)) {
+				out.writeLong(totalEdges);
+				while (!partsByHead.isEmpty()) {
+					int smallest = partsByHead.poll();
+					out.writeLong(heads[2 * smallest]);
+					out.writeLong(heads[2 * smallest + 1]);
+					if (readHead(inputs.get(smallest), heads, remaining, smallest))
+						partsByHead.add(smallest);
+				}
+			}
+			return totalEdges;
+		} finally {
+			for (FSDataInputStream in : inputs) {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * Reads the next edge of an input file into the heads array.
+	 *
+	 * @return true iff the input file had another edge
+	 */
+	private static boolean readHead(DataInputStream in, long[] heads, long[] remaining, int index) throws IOException {
+		if (remaining[index] == 0)
+			return false;
+		heads[2 * index] = in.readLong();
+		heads[2 * index + 1] = in.readLong();
+		remaining[index]--;
+		return true;
+	}
+
+	private static int comparePairs(long[] a, int i, long[] b, int j) {
+		int comparison = Long.compare(a[2 * i], b[2 * j]);
+		return comparison != 0 ? comparison : Long.compare(a[2 * i + 1], b[2 * j + 1]);
+	}
+
+	private static void swapPairs(long[] pairs, int i, int j) {
+		long ambassador = pairs[2 * i];
+		long newVertex = pairs[2 * i + 1];
+		pairs[2 * i] = pairs[2 * j];
+		pairs[2 * i + 1] = pairs[2 * j + 1];
+		pairs[2 * j] = ambassador;
+		pairs[2 * j + 1] = newVertex;
+	}
+
+	/**
+	 * Sorts the pairs with indices in [from, to) using quicksort, recursing only into the smaller partition.
+	 */
+	static void sortPairs(long[] pairs, int from, int to) {
+		while (to - from > 1) {
+			// Move the middle pair to the end and use it as pivot
+			swapPairs(pairs, from + (to - from) / 2, to - 1);
+			int store = from;
+			for (int i = from; i < to - 1; i++) {
+				if (comparePairs(pairs, i, pairs, to - 1) < 0)
+					swapPairs(pairs, i, store++);
+			}
+			swapPairs(pairs, store, to - 1);
+
+			if (store - from < to - store - 1) {
+				sortPairs(pairs, from, store);
+				from = store + 1;
+			} else {
+				sortPairs(pairs, store + 1, to);
+				to = store;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+
+import nl.tudelft.graphalytics.mapreducev2.common.DirectedNode;
+import nl.tudelft.graphalytics.mapreducev2.common.Edge;
+
+/**
+ * Mapper for forest fire model iterations that read the ambassadors of the previous iteration from the vertex index
+ * (see {@link nl.tudelft.graphalytics.mapreducev2.VertexLookupInputFormat}) instead of scanning the graph. For each
+ * ambassador it sends the distinct in and out neighbours of the ambassador to the new vertices of the ambassador as potential
+ * ambassadors, which produces the same messages as the potential ambassadors of {@link DirectedForestFireModelMap} send.
+ * Neither the graph nor the new vertices are output; the reducer recovers the new vertices from the burned edges.
+ *
+ * @author Tim Hegeman
+ */
+public class DirectedForestFireModelLookupMap extends MapReduceBase
+		implements Mapper<LongWritable, Text, LongWritable, Text> {
+
+	private final LongWritable oKey = new LongWritable();
+	private final Text oVal = new Text();
+	private long maxID = 0;
+	private AmbassadorTable ambassadors;
+
+	@Override
+	@SuppressWarnings("deprecation")
+	public void configure(JobConf conf) {
+		maxID = conf.getLong(ForestFireModelUtils.MAX_ID, -1);
+		ambassadors = AmbassadorTable.empty();
+		try {
+			Path[] cacheFiles = org.apache.hadoop.filecache.DistributedCache.getLocalCacheFiles(conf);
+			if (cacheFiles != null) {
+				for (Path cacheFile : cacheFiles) {
+					if (cacheFile.getName().equals(BurnedEdges.MERGED_FILE_NAME))
+						ambassadors = AmbassadorTable.read(conf, cacheFile);
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to read burned edges from the distributed cache.", e);
+		}
+	}
+
+	@Override
+	public void map(LongWritable key, Text value, OutputCollector<LongWritable, Text> output, Reporter reporter)
+			throws IOException {
+		int ambassador = ambassadors.find(key.get());
+		if (ambassador < 0)
+			return;
+
+		DirectedNode node = new DirectedNode();
+		node.readFields(value);
+		// Collect the distinct in and out neighbours
+		long[] neighbours = new long[node.getOutEdges().size() + node.getInEdges().size()];
+		int numNeighbours = 0;
+		for (Edge out : node.getOutEdges())
+			neighbours[numNeighbours++] = Long.parseLong(out.getDest());
+		for (Edge in : node.getInEdges())
+			neighbours[numNeighbours++] = Long.parseLong(in.getSrc());
+		Arrays.sort(neighbours);
+
+		for (int n = 0; n < numNeighbours; n++) {
+			long neighbour = neighbours[n];
+			if (n > 0 && neighbour == neighbours[n - 1])
+				continue;
+			// Ambassadors and new vertices are not potential ambassadors
+			if (neighbour >= maxID || ambassadors.find(neighbour) >= 0)
+				continue;
+			oVal.set(Long.toString(neighbour));
+			for (int i = ambassadors.getStart(ambassador); i < ambassadors.getEnd(ambassador); i++) {
+				oKey.set(ambassadors.getNewVertex(i));
+				output.collect(oKey, oVal);
+			}
+		}
+	}
+
+}
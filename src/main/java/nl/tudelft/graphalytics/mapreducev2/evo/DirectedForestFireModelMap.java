@@ -15,6 +15,7 @@
  */
 package nl.tudelft.graphalytics.mapreducev2.evo;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.*;
@@ -30,81 +31,111 @@ import java.util.*;
 public class DirectedForestFireModelMap extends MapReduceBase implements Mapper<LongWritable, Text, LongWritable, Text> {
     private LongWritable oKey = new LongWritable();
     private Text  oVal = new Text();
-    private boolean isFirst = true; // used in creating new vertices
     private boolean isInit = false;
-    private int taskID = 0;
-    private int newVerticesPerSlot = 0;
     private long maxID = 0;
-    private List<LongWritable> newVertices = new ArrayList<LongWritable>();
-    private Map<LongWritable, List<LongWritable>> ambassadors;   // k - ambassadors, v - newVertices
+    private AmbassadorTable ambassadors;   // ambassadors -> newVertices
+    private AmbassadorTable updates;       // ambassadors -> newVertices, to add to the graph
+    private InitAmbassadorSampler initSampler;
+    private OutputCollector<LongWritable, Text> output;
 
     @Override
+    @SuppressWarnings("deprecation")
     public void configure(JobConf conf) {
-        TaskAttemptID attempt = TaskAttemptID.forName(conf.get("mapred.task.id"));
-        this.taskID = attempt.getTaskID().getId(); // todo verify
-        this.newVerticesPerSlot = conf.getInt(ForestFireModelUtils.NEW_VERTICES_NR, -1);
         this.maxID = conf.getLong(ForestFireModelUtils.MAX_ID, -1);
-        this.isFirst = conf.getBoolean(ForestFireModelUtils.IS_INIT, false);
-        this.isInit = this.isFirst;
+        this.isInit = conf.getBoolean(ForestFireModelUtils.IS_INIT, false);
 
-        if(this.isInit)
-            this.ambassadors = new HashMap<LongWritable, List<LongWritable>>();
-        else
-            this.ambassadors = ForestFireModelUtils.verticesIdsString2Map(conf.get(ForestFireModelUtils.CURRENT_AMBASSADORS));
+        this.ambassadors = AmbassadorTable.empty();
+        this.updates = null;
+        if(this.isInit) {
+            // new vertices are numbered from maxID, independent of the number of mappers
+            this.initSampler = new InitAmbassadorSampler(conf.getInt(ForestFireModelUtils.NEW_VERTICES_NR, 0),
+                    conf.getLong(ForestFireModelUtils.SEED, 0));
+        } else {
+            // read the edges burned in the previous iteration from the distributed cache
+            try {
+                Path[] cacheFiles = org.apache.hadoop.filecache.DistributedCache.getLocalCacheFiles(conf);
+                if(cacheFiles != null) {
+                    for(Path cacheFile : cacheFiles) {
+                        if(cacheFile.getName().equals(BurnedEdges.MERGED_FILE_NAME))
+                            this.ambassadors = AmbassadorTable.read(conf, cacheFile);
+                        else if(cacheFile.getName().equals(BurnedEdges.ALL_MERGED_FILE_NAME))
+                            this.updates = AmbassadorTable.read(conf, cacheFile);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read burned edges from the distributed cache.", e);
+            }
+        }
+        // edges burned in lookup iterations are added to the graph together with those of the previous iteration
+        if(this.updates == null)
+            this.updates = this.ambassadors;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Init step -> send the lowest ranked ambassador candidate of each new vertex
+        if(this.isInit && this.output != null) {
+            for(int i=0; i<this.initSampler.getNumNewVertices(); i++) {
+                if(this.initSampler.hasCandidate(i)) {
+                    oKey.set(this.maxID + i);
+                    oVal.set(this.initSampler.toCandidateMessage(i));
+                    this.output.collect(oKey, oVal);
+                }
+            }
+        }
     }
 
     public void map(LongWritable key, Text value, OutputCollector<LongWritable, Text> output, Reporter reporter)
             throws IOException {
         DirectedNode node = new DirectedNode();
-        node.readFields(value.toString());
-
-        if(this.isFirst) { // INIT_JOB
-            this.isFirst = false;
-            // create N new vertices
-            for(int i=0; i<this.newVerticesPerSlot; i++) {
-                long newID = this.taskID * this.newVerticesPerSlot + i + this.maxID;
-                DirectedNode newVertex = new DirectedNode(String.valueOf(newID), new Vector<Edge>(), new Vector<Edge>());
-
-                this.newVertices.add(new LongWritable(newID)); // same as in Giraph can connect only to worker ambassadors
+        node.readFields(value);
+        long nodeId = Long.parseLong(node.getId());
+        int ambassador;
 
-                oKey.set(newID);
-                oVal.set(newVertex.toText());
-                output.collect(oKey, oVal);
-            }
-        } else if(this.ambassadors.containsKey(new LongWritable(Long.parseLong(node.getId())))) { //update vertex
+        if((ambassador = this.updates.find(nodeId)) >= 0) { //update vertex
             Vector<Edge> edges = node.getInEdges();
 
-            for(LongWritable id : this.ambassadors.get(new LongWritable(Long.parseLong(node.getId()))))
-                edges.add(new Edge(node.getId(), id.toString()));
+            for(int i = this.updates.getStart(ambassador); i < this.updates.getEnd(ambassador); i++) {
+                String newVertex = String.valueOf(this.updates.getNewVertex(i));
+                // the edges of all iterations include those already in the graph
+                if(this.updates == this.ambassadors || !ForestFireModelUtils.containsDest(edges, newVertex))
+                    edges.add(new Edge(node.getId(), newVertex));
+            }
             node.setInEdges(edges);
-        } else if (Long.parseLong(node.getId()) < this.maxID) { // check if potential ambassador n send to new vertex
-            Set<LongWritable> edges = new HashSet<LongWritable>();
+        }
+        if (this.ambassadors.find(nodeId) < 0 && nodeId < this.maxID) { // check if potential ambassador n send to new vertex
+            // collect the distinct in and out neighbours
+            long[] neighbours = new long[node.getOutEdges().size() + node.getInEdges().size()];
+            int numNeighbours = 0;
             for(Edge out : node.getOutEdges())
-                edges.add(new LongWritable(Long.parseLong(out.getDest())));
+                neighbours[numNeighbours++] = Long.parseLong(out.getDest());
             for(Edge in : node.getInEdges())
-                edges.add(new LongWritable(Long.parseLong(in.getSrc())));
+                neighbours[numNeighbours++] = Long.parseLong(in.getSrc());
+            Arrays.sort(neighbours);
 
-            for(LongWritable neighbour : edges) {
-                if(ambassadors.containsKey(neighbour)) {
+            oVal.set(node.getId());
+            for(int n = 0; n < numNeighbours; n++) {
+                if(n > 0 && neighbours[n] == neighbours[n - 1])
+                    continue;
+                int neighbour = this.ambassadors.find(neighbours[n]);
+                if(neighbour >= 0) {
                     // send my id to new vertices
-                    List<LongWritable> newVertices = this.ambassadors.get(neighbour);
-                    for(LongWritable id : newVertices)
-                        output.collect(id, new Text(node.getId()));
+                    for(int i = this.ambassadors.getStart(neighbour); i < this.ambassadors.getEnd(neighbour); i++) {
+                        oKey.set(this.ambassadors.getNewVertex(i));
+                        output.collect(oKey, oVal);
+                    }
                 }
             }
         }
 
-        // Init step -> pass all worker verticesIDs to all newVertices from this worker
+        // Init step -> offer all worker verticesIDs as init ambassador candidates of the new vertices
         if(this.isInit) {
-            oVal.set(node.getId());
-            for(LongWritable id : this.newVertices) {
-                oKey.set(id.get());
-                output.collect(oKey, oVal);
-            }
+            this.initSampler.offer(nodeId);
+            this.output = output;
         }
 
         // pass node
-        oKey.set(Long.parseLong(node.getId()));
+        oKey.set(nodeId);
         oVal.set(node.toText());
         output.collect(oKey, oVal);
     }
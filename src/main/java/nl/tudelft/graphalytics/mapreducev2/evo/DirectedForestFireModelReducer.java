@@ -15,6 +15,7 @@
  */
 package nl.tudelft.graphalytics.mapreducev2.evo;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.LongWritable;
@@ -30,22 +31,59 @@ import java.util.*;
  */
 public class DirectedForestFireModelReducer extends MapReduceBase implements Reducer<LongWritable, Text, NullWritable, Text> {
     private boolean isInit = false;
-    private Random rnd = new Random();
+    private boolean isFinal = false;
+    private boolean isLookup = false;
+    private VertexRandom rnd = new VertexRandom();
+    private long seed = 0;
+    private int iteration = 0;
     private DirectedNode newVertex = new DirectedNode();
     private long maxID = 0;
     private List<Long> potentialAmbassadors = new ArrayList<Long>();
-    private GeometricalMeanUtil gmu = new GeometricalMeanUtil();
     private float pRatio = 0;
     private float rRatio = 0;
 
     private Text oVal = new Text();
+    private BurnedEdges burnedEdges = new BurnedEdges();
+    private InitAmbassadorSampler initSampler;
+    private AmbassadorTable burnedHistory; // newVertices -> all ambassadors, if edges are not in the graph yet
+    private JobConf conf;
 
     @Override
+    @SuppressWarnings("deprecation")
     public void configure(JobConf conf) {
+        this.conf = conf;
         this.isInit = conf.getBoolean(ForestFireModelUtils.IS_INIT, false);
+        this.isFinal = conf.getBoolean(ForestFireModelUtils.IS_FINAL, false);
+        this.isLookup = conf.getBoolean(ForestFireModelUtils.IS_LOOKUP, false);
         this.maxID = conf.getLong(ForestFireModelUtils.MAX_ID, -1);
         this.pRatio = conf.getFloat(ForestFireModelUtils.P_RATIO, 0);
+        this.seed = conf.getLong(ForestFireModelUtils.SEED, 0);
+        this.iteration = conf.getInt(ForestFireModelUtils.ITERATION, 0);
         this.rRatio = conf.getFloat(ForestFireModelUtils.R_RATIO, 0);
+        this.initSampler = new InitAmbassadorSampler(0, this.seed);
+
+        // read the edges burned in all iterations so far, if lookup iterations did not add them to the graph
+        try {
+            Path[] cacheFiles = org.apache.hadoop.filecache.DistributedCache.getLocalCacheFiles(conf);
+            if(cacheFiles != null) {
+                for(Path cacheFile : cacheFiles) {
+                    if(cacheFile.getName().equals(BurnedEdges.ALL_MERGED_FILE_NAME))
+                        this.burnedHistory = AmbassadorTable.readInverse(conf, cacheFile);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read burned edges from the distributed cache.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // write the edges burned by this reducer next to its output
+        if(burnedEdges.size() > 0) {
+            int partition = TaskAttemptID.forName(conf.get("mapred.task.id")).getTaskID().getId();
+            Path path = new Path(FileOutputFormat.getWorkOutputPath(conf), BurnedEdges.PART_FILE_PREFIX + partition);
+            burnedEdges.write(path.getFileSystem(conf), path);
+        }
     }
 
     public void reduce(LongWritable key, Iterator<Text> values,
@@ -53,20 +91,32 @@ public class DirectedForestFireModelReducer extends MapReduceBase implements Red
         this.reset();
         
         // new vertex (also processes immediately regular vertices passing by)
-        if(this.processMsgs(values, output)) {
-            if(this.isInit) {
-                long initAmbassador = this.chooseRndInitAmbassador();
-                Vector<Edge> newEdges = new Vector<Edge>();
-                newEdges.add(new Edge(this.newVertex.getId(), String.valueOf(initAmbassador)));
-                this.newVertex.setOutEdges(newEdges);
-
+        boolean isNewVertex = this.processMsgs(values, output);
+        if(this.isLookup && key.get() >= this.maxID) { // new vertex, not read from the graph in lookup iterations
+            this.newVertex = new DirectedNode(String.valueOf(key.get()), new Vector<Edge>(), new Vector<Edge>());
+            isNewVertex = true;
+        }
+        if(isNewVertex)
+            this.addBurnedHistory();
+        if(this.isInit && this.initSampler.hasMergedCandidate()) { // new vertex, created with its init ambassador
+            this.newVertex = new DirectedNode(String.valueOf(key.get()), new Vector<Edge>(), new Vector<Edge>());
+            long initAmbassador = this.chooseRndInitAmbassador();
+            Vector<Edge> newEdges = new Vector<Edge>();
+            newEdges.add(new Edge(this.newVertex.getId(), String.valueOf(initAmbassador)));
+            this.newVertex.setOutEdges(newEdges);
+
+            output.collect(null, newVertex.toText());
+            burnedEdges.add(initAmbassador, Long.parseLong(this.newVertex.getId()));
+        } else if(isNewVertex) {
+            if(isFinal) {
                 output.collect(null, newVertex.toText());
-                reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+initAmbassador, 1);
             } else { // continue burning
+                this.rnd.reset(this.seed, key.get(), this.iteration);
                 int x = this.calculateOutLinks();
                 int y = this.calculateInLinks();
                 this.burn(x, y, reporter);
-                output.collect(null, this.newVertex.toText());
+                if(!this.isLookup)
+                    output.collect(null, this.newVertex.toText());
             }
         }
     }
@@ -79,6 +129,10 @@ public class DirectedForestFireModelReducer extends MapReduceBase implements Red
 
         while (iterator.hasNext()) {
             String value = iterator.next().toString();
+            if(this.isInit && InitAmbassadorSampler.isCandidateMessage(value)) { // sampled init ambassador
+                this.initSampler.mergeCandidate(value);
+                continue;
+            }
             String[] data = value.split("\t");
 
             // new Vertex
@@ -103,27 +157,46 @@ public class DirectedForestFireModelReducer extends MapReduceBase implements Red
         return result;
     }
 
+    private void addBurnedHistory() {
+        if(this.burnedHistory == null)
+            return;
+        int newVertexIndex = this.burnedHistory.find(Long.parseLong(this.newVertex.getId()));
+        if(newVertexIndex < 0)
+            return;
+
+        Vector<Edge> edges = this.newVertex.getOutEdges();
+        for(int i = this.burnedHistory.getStart(newVertexIndex); i < this.burnedHistory.getEnd(newVertexIndex); i++) {
+            String ambassador = String.valueOf(this.burnedHistory.getNewVertex(i));
+            if(!ForestFireModelUtils.containsDest(edges, ambassador))
+                edges.add(new Edge(this.newVertex.getId(), ambassador));
+        }
+        this.newVertex.setOutEdges(edges);
+    }
+
     private long chooseRndInitAmbassador() {
-        int index = rnd.nextInt(potentialAmbassadors.size());
-        return potentialAmbassadors.get(index);
+        return this.initSampler.getMergedCandidate();
     }
 
     private void reset() {
         this.newVertex = new DirectedNode();
         this.potentialAmbassadors = new ArrayList<Long>();
+        this.initSampler.resetMerge();
     }
 
     private int calculateOutLinks() {
-        return gmu.getGeoDev(1.0 - this.pRatio);
+        return this.rnd.nextGeometric(1.0 - this.pRatio);
     }
 
     private int calculateInLinks() {
-        return gmu.getGeoDev(1.0 - this.rRatio);
+        return this.rnd.nextGeometric(1.0 - this.rRatio);
     }
 
     private void burn(int x, int y, Reporter reporter) {
         Vector<Edge> edges =  this.newVertex.getOutEdges();
 
+        // fixed order, so the burned edges only depend on the random stream of the new vertex
+        Collections.sort(this.potentialAmbassadors);
+
         // filter visited
         for(Edge edge : edges)
             if(this.potentialAmbassadors.contains(Long.valueOf(edge.getDest())))
@@ -141,7 +214,7 @@ public class DirectedForestFireModelReducer extends MapReduceBase implements Red
                 edges.add(new Edge(this.newVertex.getId(), String.valueOf(this.potentialAmbassadors.get(index))));
 
                 // update global view
-                reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+this.potentialAmbassadors.get(index), 1);
+                burnedEdges.add(this.potentialAmbassadors.get(index), Long.parseLong(this.newVertex.getId()));
                 this.potentialAmbassadors.remove(index); // filter out just added
             }
 
@@ -152,21 +225,21 @@ public class DirectedForestFireModelReducer extends MapReduceBase implements Red
                     edges.add(new Edge(this.newVertex.getId(), String.valueOf(this.potentialAmbassadors.get(index))));
 
                     // update global view
-                    reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+this.potentialAmbassadors.get(index), 1);
+                    burnedEdges.add(this.potentialAmbassadors.get(index), Long.parseLong(this.newVertex.getId()));
                     this.potentialAmbassadors.remove(index); // filter out just added
                 }
             } else {
                 for(Long id : potentialAmbassadors) {
                     edges.add(new Edge(this.newVertex.getId(), String.valueOf(id)));
                     // update global view
-                    reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+id, 1);
+                    burnedEdges.add(id, Long.parseLong(this.newVertex.getId()));
                 }
             }
         } else {
             for(Long id : potentialAmbassadors) {
                 edges.add(new Edge(this.newVertex.getId(), String.valueOf(id)));
                 // update global view
-                reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+id, 1);
+                burnedEdges.add(id, Long.parseLong(this.newVertex.getId()));
             }
         }
 
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.*;
+import nl.tudelft.graphalytics.domain.algorithms.ForestFireModelParameters;
+import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
+import nl.tudelft.graphalytics.mapreducev2.VertexIndex;
+import nl.tudelft.graphalytics.mapreducev2.VertexLookupInputFormat;
+
+import java.io.IOException;
+
+/**
+ * Job specification for forest fire model on MapReduce version 2.
+ *
+ * Each iteration after the first burns edges from the new vertices to the neighbours of the ambassadors reached in
+ * the previous iteration. If the input graph has a {@link VertexIndex} and the number of ambassadors is below the
+ * lookup threshold, an iteration reads only the ambassadors from the index instead of scanning the graph. Such
+ * iterations do not rewrite the graph; the edges they burn are added to the graph by the next iteration that scans
+ * it, which is the final iteration at the latest.
+ *
+ * @author Tim Hegeman
+ */
+public class ForestFireModelJob extends MapReduceJob<ForestFireModelParameters> {
+	
+	private final boolean directed;
+	private final long seed;
+	/** Edges burned in the previous iteration, and in all iterations so far (only tracked if lookups are enabled). */
+	private Path burnedEdgesPath;
+	private Path allBurnedEdgesPath;
+	private long numBurnedEdges;
+	private Boolean lookupEnabled;
+	/** IDs of the ambassadors to look up in the current iteration, or null if the iteration scans the graph. */
+	private Path lookupIdsPath;
+	/** True iff edges were burned in lookup iterations and have not been written to the graph yet. */
+	private boolean hasUnappliedEdges;
+	
+    public ForestFireModelJob(String inputPath, String intermediatePath, String outputPath, ForestFireModelParameters parameters,
+    		boolean directed, long seed) {
+    	super(inputPath, intermediatePath, outputPath, parameters);
+    	this.directed = directed;
+    	this.seed = seed;
+    	burnedEdgesPath = null;
+    	allBurnedEdgesPath = null;
+    	numBurnedEdges = 0;
+    	lookupEnabled = null;
+    	lookupIdsPath = null;
+    	hasUnappliedEdges = false;
+    }
+	
+    @Override
+	protected Class<?> getMapOutputKeyClass() {
+		return LongWritable.class;
+	}
+
+	@Override
+	protected Class<?> getMapOutputValueClass() {
+		return Text.class;
+	}
+
+	@Override
+	protected Class<?> getOutputKeyClass() {
+		return NullWritable.class;
+	}
+
+	@Override
+	protected Class<?> getOutputValueClass() {
+		return Text.class;
+	}
+	
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected Class<? extends InputFormat> getInputFormatClass() {
+		return (lookupIdsPath != null ?
+				VertexLookupInputFormat.class :
+				TextInputFormat.class);
+	}
+	
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected Class<? extends OutputFormat> getOutputFormatClass() {
+		return TextOutputFormat.class;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected Class<? extends Mapper> getMapperClass() {
+		if (lookupIdsPath != null)
+			return (directed ?
+					DirectedForestFireModelLookupMap.class :
+					UndirectedForestFireModelLookupMap.class);
+		return (directed ?
+				DirectedForestFireModelMap.class :
+				UndirectedForestFireModelMap.class);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected Class<? extends Reducer> getReducerClass() {
+		return (directed ?
+				DirectedForestFireModelReducer.class :
+				UndirectedForestFireModelReducer.class);
+	}
+
+	@Override
+	protected boolean isGraphOutput() {
+		return lookupIdsPath == null;
+	}
+
+	@Override
+	protected boolean isFinished() {
+		return (getIteration() >= getLastIteration() || (getIteration() > 0 && numBurnedEdges == 0)) &&
+				!hasUnappliedEdges;
+	}
+
+	/**
+	 * @return the last iteration of the algorithm; the undirected algorithm ends with a final iteration that adds the
+	 *         last burned edges to the graph
+	 */
+	private int getLastIteration() {
+		return (directed ?
+				getParameters().getMaxIterations() :
+				getParameters().getMaxIterations() + 1);
+	}
+
+	/**
+	 * @param iteration an iteration of the algorithm
+	 * @return true iff the iteration only writes the final graph, without burning new edges
+	 */
+	private boolean isFinalIteration(int iteration) {
+		return (!directed && iteration == getLastIteration()) || (iteration > 1 && numBurnedEdges == 0);
+	}
+
+	@Override
+	@SuppressWarnings("deprecation")
+	protected void setConfigurationParameters(JobConf jobConfiguration) {
+		super.setConfigurationParameters(jobConfiguration);
+		jobConfiguration.setLong(ForestFireModelUtils.MAX_ID, getParameters().getMaxId() + 1);
+    	jobConfiguration.setFloat(ForestFireModelUtils.P_RATIO, getParameters().getPRatio());
+    	jobConfiguration.setFloat(ForestFireModelUtils.R_RATIO, getParameters().getRRatio());
+    	jobConfiguration.setLong(ForestFireModelUtils.SEED, seed);
+    	jobConfiguration.setInt(ForestFireModelUtils.ITERATION, getIteration());
+    	if (burnedEdgesPath != null)
+    		org.apache.hadoop.filecache.DistributedCache.addCacheFile(burnedEdgesPath.toUri(), jobConfiguration);
+    	if (lookupIdsPath != null || hasUnappliedEdges)
+    		org.apache.hadoop.filecache.DistributedCache.addCacheFile(allBurnedEdgesPath.toUri(), jobConfiguration);
+    	if (lookupIdsPath != null) {
+    		VertexLookupInputFormat.setLookupIds(jobConfiguration, lookupIdsPath);
+    		jobConfiguration.setBoolean(ForestFireModelUtils.IS_LOOKUP, true);
+    	}
+    	
+    	if (getIteration() == 1) {
+    		jobConfiguration.setInt(ForestFireModelUtils.NEW_VERTICES_NR, getParameters().getNumNewVertices());
+    		jobConfiguration.setBoolean(ForestFireModelUtils.IS_INIT, true);
+    	} else if (isFinalIteration(getIteration())) {
+		    jobConfiguration.setBoolean(ForestFireModelUtils.IS_FINAL, true);
+	    }
+	}
+
+	@Override
+	protected void processJobOutput(RunningJob jobExecution) throws IOException {
+		FileSystem dfs = FileSystem.get(getConf());
+		if (lookupEnabled == null)
+			lookupEnabled = getLookupThreshold() > 0 && VertexIndex.exists(dfs, getInputPath());
+		Path previousBurnedEdgesDir = (burnedEdgesPath != null ? burnedEdgesPath.getParent() : null);
+
+		// Merge the edges burned by all reducers, to be shipped to the tasks of the next iteration
+		Path burnedEdgesDir = dfs.makeQualified(getIterationOutputPath().suffix("-burned-edges"));
+		burnedEdgesPath = new Path(burnedEdgesDir, BurnedEdges.MERGED_FILE_NAME);
+		numBurnedEdges = BurnedEdges.merge(dfs, getIterationOutputPath(), burnedEdgesPath);
+		if (lookupEnabled) {
+			Path mergedPath = new Path(burnedEdgesDir, BurnedEdges.ALL_MERGED_FILE_NAME);
+			BurnedEdges.merge(dfs, (allBurnedEdgesPath == null ?
+					new Path[] { burnedEdgesPath } :
+					new Path[] { allBurnedEdgesPath, burnedEdgesPath }), mergedPath);
+			allBurnedEdgesPath = mergedPath;
+		}
+		if (previousBurnedEdgesDir != null)
+			dfs.delete(previousBurnedEdgesDir, true);
+
+		// Iterations that scan the graph write all burned edges to it
+		hasUnappliedEdges = (lookupIdsPath != null);
+
+		// Look up the ambassadors in the next iteration if there are few enough of them. The last iteration always
+		// scans the graph, to add the edges burned in lookup iterations
+		lookupIdsPath = null;
+		if (lookupEnabled && numBurnedEdges > 0 && getIteration() + 1 < getLastIteration()) {
+			AmbassadorTable ambassadors = AmbassadorTable.read(dfs, burnedEdgesPath);
+			if (ambassadors.size() <= getLookupThreshold()) {
+				long[] ambassadorIds = new long[ambassadors.size()];
+				for (int i = 0; i < ambassadorIds.length; i++)
+					ambassadorIds[i] = ambassadors.getAmbassador(i);
+				lookupIdsPath = new Path(burnedEdgesDir, "_lookup-ids");
+				VertexLookupInputFormat.writeLookupIds(dfs, lookupIdsPath, ambassadorIds);
+			}
+		}
+		if (isFinished())
+			dfs.delete(burnedEdgesDir, true);
+
+        System.out.println("\n************************************");
+        System.out.println("* FFM Hoops " + getIteration() + " FINISHED *");
+        System.out.println("************************************\n");
+	}
+	
+}
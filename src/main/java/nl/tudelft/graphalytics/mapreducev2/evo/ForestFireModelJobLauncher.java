@@ -19,6 +19,8 @@ import nl.tudelft.graphalytics.domain.algorithms.ForestFireModelParameters;
 import nl.tudelft.graphalytics.mapreducev2.MapReduceJobLauncher;
 import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
 
+import java.util.Random;
+
 /**
  * Job launcher for the forest fire model algorithm on MapReduce version 2.
  *
@@ -26,6 +28,15 @@ import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
  */
 public class ForestFireModelJobLauncher extends MapReduceJobLauncher {
 	
+	private long seed = new Random().nextLong();
+
+	/**
+	 * @param seed the seed for all random choices of the forest fire model, to generate the same graph in every run
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
 	private ForestFireModelParameters getParameters() {
 		assert (parameters instanceof ForestFireModelParameters);
 		return (ForestFireModelParameters) parameters;
@@ -33,12 +44,12 @@ public class ForestFireModelJobLauncher extends MapReduceJobLauncher {
 
 	@Override
 	protected MapReduceJob<?> createDirectedJob(String input, String intermediate, String output) {
-		return new DirectedForestFireModelJob(input, intermediate, output, getParameters());
+		return new ForestFireModelJob(input, intermediate, output, getParameters(), true, seed);
 	}
 
 	@Override
 	protected MapReduceJob<?> createUndirectedJob(String input, String intermediate, String output) {
-		return new UndirectedForestFireModelJob(input, intermediate, output, getParameters());
+		return new ForestFireModelJob(input, intermediate, output, getParameters(), false, seed);
 	}
 
 }
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import java.util.Arrays;
+
+/**
+ * Selects an initial ambassador for each new vertex of the forest fire model, uniformly at random from all vertices
+ * in the graph. Every vertex draws an independent random rank for every new vertex from its own
+ * {@link VertexRandom} stream, and each new vertex picks the vertex with the lowest rank. The outcome thus only
+ * depends on the seed and the set of vertices, not on how the vertices are divided over mappers.
+ *
+ * The ranks of a vertex are drawn in increasing order, so a vertex only draws ranks until they exceed the highest
+ * rank currently selected by any new vertex. This keeps the cost per vertex close to constant once every new vertex
+ * has a candidate. Mappers emit the lowest ranked candidate of each new vertex, and the reducer merges candidates
+ * from multiple mappers with {@link #mergeCandidate(long, double)}.
+ *
+ * @author Tim Hegeman
+ */
+public class InitAmbassadorSampler {
+
+	/** Separator between the ambassador and the rank of a candidate message. */
+	public static final char CANDIDATE_SEPARATOR = '$';
+
+	private final long seed;
+	private final VertexRandom random = new VertexRandom();
+	private final long[] candidates;
+	private final double[] ranks;
+	/** Index of the new vertex with the highest rank, i.e. the threshold for the ranks of the next vertex. */
+	private int maxRankIndex;
+	/** Number of vertices offered so far, used to mark the new vertices ranked for the current vertex. */
+	private long numOffered;
+	private final long[] rankedAt;
+
+	/** Merged candidate and rank, used by reducers. */
+	private long mergedCandidate;
+	private double mergedRank;
+
+	/**
+	 * @param numNewVertices the number of new vertices to sample an ambassador for
+	 * @param seed the seed of the forest fire model run
+	 */
+	public InitAmbassadorSampler(int numNewVertices, long seed) {
+		this.seed = seed;
+		this.candidates = new long[numNewVertices];
+		this.ranks = new double[numNewVertices];
+		this.rankedAt = new long[numNewVertices];
+		Arrays.fill(this.ranks, Double.POSITIVE_INFINITY);
+		this.maxRankIndex = 0;
+		this.numOffered = 0;
+		resetMerge();
+	}
+
+	/**
+	 * Offers a vertex as candidate ambassador to all new vertices.
+	 *
+	 * @param vertexId the ID of the vertex
+	 */
+	public void offer(long vertexId) {
+		int numNewVertices = candidates.length;
+		numOffered++;
+		random.reset(seed, vertexId, 0);
+		double rank = 0.0;
+		for (int k = 0; k < numNewVertices; k++) {
+			// The next rank is the minimum of the numNewVertices - k ranks that are not drawn yet
+			rank = 1.0 - (1.0 - rank) * Math.pow(1.0 - random.nextDouble(), 1.0 / (numNewVertices - k));
+			if (rank > ranks[maxRankIndex])
+				break;
+
+			// Assign the rank to a new vertex that did not get a rank from this vertex yet
+			int newVertex;
+			do {
+				newVertex = random.nextInt(numNewVertices);
+			} while (rankedAt[newVertex] == numOffered);
+			rankedAt[newVertex] = numOffered;
+
+			if (isLower(rank, vertexId, ranks[newVertex], candidates[newVertex])) {
+				ranks[newVertex] = rank;
+				candidates[newVertex] = vertexId;
+				if (newVertex == maxRankIndex)
+					updateMaxRankIndex();
+			}
+		}
+	}
+
+	private void updateMaxRankIndex() {
+		for (int i = 0; i < ranks.length; i++) {
+			if (ranks[i] > ranks[maxRankIndex])
+				maxRankIndex = i;
+		}
+	}
+
+	private static boolean isLower(double rank, long candidate, double otherRank, long otherCandidate) {
+		return rank < otherRank || (rank == otherRank && candidate < otherCandidate);
+	}
+
+	/**
+	 * @return the number of new vertices to sample an ambassador for
+	 */
+	public int getNumNewVertices() {
+		return candidates.length;
+	}
+
+	/**
+	 * @param newVertex the index of a new vertex
+	 * @return true iff at least one vertex was offered to the new vertex
+	 */
+	public boolean hasCandidate(int newVertex) {
+		return ranks[newVertex] != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @param newVertex the index of a new vertex
+	 * @return the candidate ambassador of the new vertex
+	 */
+	public long getCandidate(int newVertex) {
+		return candidates[newVertex];
+	}
+
+	/**
+	 * @param newVertex the index of a new vertex
+	 * @return the candidate of the new vertex and its rank, formatted as a message for the reducer
+	 */
+	public String toCandidateMessage(int newVertex) {
+		return Long.toString(candidates[newVertex]) + CANDIDATE_SEPARATOR + Double.toString(ranks[newVertex]);
+	}
+
+	/**
+	 * @param message a message value
+	 * @return true iff the message was created by {@link #toCandidateMessage(int)}
+	 */
+	public static boolean isCandidateMessage(String message) {
+		return message.indexOf(CANDIDATE_SEPARATOR) != -1;
+	}
+
+	/**
+	 * Clears the merged candidate, before merging the candidates for the next new vertex.
+	 */
+	public void resetMerge() {
+		mergedCandidate = -1;
+		mergedRank = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Merges a candidate message into the merged candidate.
+	 *
+	 * @param message a message created by {@link #toCandidateMessage(int)}
+	 */
+	public void mergeCandidate(String message) {
+		int separator = message.indexOf(CANDIDATE_SEPARATOR);
+		mergeCandidate(Long.parseLong(message.substring(0, separator)),
+				Double.parseDouble(message.substring(separator + 1).trim()));
+	}
+
+	/**
+	 * Merges a ranked candidate into the merged candidate, keeping the candidate with the lowest rank.
+	 *
+	 * @param candidate a candidate ambassador
+	 * @param rank the rank of the candidate
+	 */
+	public void mergeCandidate(long candidate, double rank) {
+		if (isLower(rank, candidate, mergedRank, mergedCandidate)) {
+			mergedCandidate = candidate;
+			mergedRank = rank;
+		}
+	}
+
+	/**
+	 * @return true iff at least one candidate was merged since the last reset
+	 */
+	public boolean hasMergedCandidate() {
+		return mergedRank != Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return the merged candidate ambassador
+	 */
+	public long getMergedCandidate() {
+		return mergedCandidate;
+	}
+
+}
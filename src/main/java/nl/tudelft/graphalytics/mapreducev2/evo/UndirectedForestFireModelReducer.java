@@ -15,6 +15,7 @@
  */
 package nl.tudelft.graphalytics.mapreducev2.evo;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.LongWritable;
@@ -31,21 +32,56 @@ import java.util.*;
 public class UndirectedForestFireModelReducer extends MapReduceBase implements Reducer<LongWritable, Text, NullWritable, Text> {
     private boolean isInit = false;
 	private boolean isFinal;
-    private Random rnd = new Random();
+    private boolean isLookup = false;
+    private VertexRandom rnd = new VertexRandom();
+    private long seed = 0;
+    private int iteration = 0;
     private UndirectedNode newVertex = new UndirectedNode();
     private long maxID = 0;
     private List<Long> potentialAmbassadors = new ArrayList<Long>();
-    private GeometricalMeanUtil gmu = new GeometricalMeanUtil();
     private float pRatio = 0; // todo directed R_RATIO && Y
 
     private Text oVal = new Text();
+    private BurnedEdges burnedEdges = new BurnedEdges();
+    private InitAmbassadorSampler initSampler;
+    private AmbassadorTable burnedHistory; // newVertices -> all ambassadors, if edges are not in the graph yet
+    private JobConf conf;
 
     @Override
+    @SuppressWarnings("deprecation")
     public void configure(JobConf conf) {
+        this.conf = conf;
         this.isInit = conf.getBoolean(ForestFireModelUtils.IS_INIT, false);
 	    this.isFinal = conf.getBoolean(ForestFireModelUtils.IS_FINAL, false);
+        this.isLookup = conf.getBoolean(ForestFireModelUtils.IS_LOOKUP, false);
         this.maxID = conf.getLong(ForestFireModelUtils.MAX_ID, -1);
         this.pRatio = conf.getFloat(ForestFireModelUtils.P_RATIO, 0);
+        this.seed = conf.getLong(ForestFireModelUtils.SEED, 0);
+        this.iteration = conf.getInt(ForestFireModelUtils.ITERATION, 0);
+        this.initSampler = new InitAmbassadorSampler(0, this.seed);
+
+        // read the edges burned in all iterations so far, if lookup iterations did not add them to the graph
+        try {
+            Path[] cacheFiles = org.apache.hadoop.filecache.DistributedCache.getLocalCacheFiles(conf);
+            if(cacheFiles != null) {
+                for(Path cacheFile : cacheFiles) {
+                    if(cacheFile.getName().equals(BurnedEdges.ALL_MERGED_FILE_NAME))
+                        this.burnedHistory = AmbassadorTable.readInverse(conf, cacheFile);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read burned edges from the distributed cache.", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // write the edges burned by this reducer next to its output
+        if(burnedEdges.size() > 0) {
+            int partition = TaskAttemptID.forName(conf.get("mapred.task.id")).getTaskID().getId();
+            Path path = new Path(FileOutputFormat.getWorkOutputPath(conf), BurnedEdges.PART_FILE_PREFIX + partition);
+            burnedEdges.write(path.getFileSystem(conf), path);
+        }
     }
 
     public void reduce(LongWritable key, Iterator<Text> values,
@@ -53,21 +89,31 @@ public class UndirectedForestFireModelReducer extends MapReduceBase implements R
         this.reset();
 
         // new vertex (also processes immediately regular vertices passing by)
-        if(this.processMsgs(key, values, output)) {
-	        if (this.isInit) {
-		        long initAmbassador = this.chooseRndInitAmbassador();
-		        Vector<Edge> newEdges = new Vector<Edge>();
-		        newEdges.add(new Edge(this.newVertex.getId(), String.valueOf(initAmbassador)));
-		        this.newVertex.setEdges(newEdges);
-
-		        output.collect(null, newVertex.toText());
-		        reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId() + "," + initAmbassador, 1);
-	        } else if (isFinal) {
-		        output.collect(null, newVertex.toText());
+        boolean isNewVertex = this.processMsgs(key, values, output);
+        if(this.isLookup && key.get() >= this.maxID) { // new vertex, not read from the graph in lookup iterations
+            this.newVertex = new UndirectedNode(String.valueOf(key.get()), new Vector<Edge>());
+            isNewVertex = true;
+        }
+        if(isNewVertex)
+            this.addBurnedHistory();
+        if(this.isInit && this.initSampler.hasMergedCandidate()) { // new vertex, created with its init ambassador
+            this.newVertex = new UndirectedNode(String.valueOf(key.get()), new Vector<Edge>());
+            long initAmbassador = this.chooseRndInitAmbassador();
+            Vector<Edge> newEdges = new Vector<Edge>();
+            newEdges.add(new Edge(this.newVertex.getId(), String.valueOf(initAmbassador)));
+            this.newVertex.setEdges(newEdges);
+
+            output.collect(null, newVertex.toText());
+            burnedEdges.add(initAmbassador, Long.parseLong(this.newVertex.getId()));
+        } else if(isNewVertex) {
+            if(isFinal) {
+                output.collect(null, newVertex.toText());
             } else { // continue burning
+                this.rnd.reset(this.seed, key.get(), this.iteration);
                 int x = this.calculateOutLinks();
                 this.burn(x, reporter);
-                output.collect(null, this.newVertex.toText());
+                if(!this.isLookup)
+                    output.collect(null, this.newVertex.toText());
             }
         }
     }
@@ -80,6 +126,10 @@ public class UndirectedForestFireModelReducer extends MapReduceBase implements R
 
         while (iterator.hasNext()) {
             String value = iterator.next().toString();
+            if(this.isInit && InitAmbassadorSampler.isCandidateMessage(value)) { // sampled init ambassador
+                this.initSampler.mergeCandidate(value);
+                continue;
+            }
             String[] data = value.split("\t");
 
             // new Vertex
@@ -104,23 +154,42 @@ public class UndirectedForestFireModelReducer extends MapReduceBase implements R
         return result;
     }
 
+    private void addBurnedHistory() {
+        if(this.burnedHistory == null)
+            return;
+        int newVertexIndex = this.burnedHistory.find(Long.parseLong(this.newVertex.getId()));
+        if(newVertexIndex < 0)
+            return;
+
+        Vector<Edge> edges = this.newVertex.getEdges();
+        for(int i = this.burnedHistory.getStart(newVertexIndex); i < this.burnedHistory.getEnd(newVertexIndex); i++) {
+            String ambassador = String.valueOf(this.burnedHistory.getNewVertex(i));
+            if(!ForestFireModelUtils.containsDest(edges, ambassador))
+                edges.add(new Edge(this.newVertex.getId(), ambassador));
+        }
+        this.newVertex.setEdges(edges);
+    }
+
     private long chooseRndInitAmbassador() {
-        int index = rnd.nextInt(potentialAmbassadors.size());
-        return potentialAmbassadors.get(index);
+        return this.initSampler.getMergedCandidate();
     }
 
     private void reset() {
         this.newVertex = new UndirectedNode();
         this.potentialAmbassadors = new ArrayList<Long>();
+        this.initSampler.resetMerge();
     }
 
     private int calculateOutLinks() {
-        return gmu.getGeoDev(1.0 - this.pRatio);
+        return this.rnd.nextGeometric(1.0 - this.pRatio);
     }
 
     private void burn(int x, Reporter reporter) {
         Vector<Edge> edges =  this.newVertex.getEdges();
 
+        // fixed order, so the burned edges only depend on the random stream of the new vertex
+        Collections.sort(this.potentialAmbassadors);
+
         // filter visited
         for(Edge edge : edges)
             if(this.potentialAmbassadors.contains(Long.valueOf(edge.getDest())))
@@ -138,14 +207,14 @@ public class UndirectedForestFireModelReducer extends MapReduceBase implements R
                 edges.add(new Edge(this.newVertex.getId(), String.valueOf(this.potentialAmbassadors.get(index))));
 
                 // update global view
-                reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+this.potentialAmbassadors.get(index), 1);
+                burnedEdges.add(this.potentialAmbassadors.get(index), Long.parseLong(this.newVertex.getId()));
                 this.potentialAmbassadors.remove(index); // filter out just added
             }
         } else {
             for(Long id : potentialAmbassadors) {
                 edges.add(new Edge(this.newVertex.getId(), String.valueOf(id)));
                 // update global view
-                reporter.incrCounter(ForestFireModelUtils.NEW_VERTICES, this.newVertex.getId()+","+id, 1);
+                burnedEdges.add(id, Long.parseLong(this.newVertex.getId()));
             }
         }
 
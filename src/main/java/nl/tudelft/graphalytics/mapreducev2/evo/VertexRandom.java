@@ -0,0 +1,86 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+/**
+ * Random number generator for the forest fire model, based on SplitMix64. The generator is reset to an independent
+ * stream for every (seed, vertex ID, iteration) triple, so the random choices made for a vertex do not depend on
+ * which task processes it, on the order in which vertices are processed, or on the number of tasks.
+ *
+ * @author Tim Hegeman
+ */
+public class VertexRandom {
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private long state;
+
+	/**
+	 * Creates a generator for an arbitrary stream; call {@link #reset(long, long, int)} to select a stream.
+	 */
+	public VertexRandom() {
+		this.state = 0;
+	}
+
+	/**
+	 * Selects the stream of random numbers for a vertex in a particular iteration.
+	 *
+	 * @param seed the seed of the whole run
+	 * @param vertexId the ID of the vertex
+	 * @param iteration the iteration of the algorithm
+	 */
+	public void reset(long seed, long vertexId, int iteration) {
+		state = mix(mix(seed) ^ mix(vertexId + GOLDEN_GAMMA) ^ mix(iteration * GOLDEN_GAMMA + 1));
+	}
+
+	/**
+	 * @return the next uniformly distributed long
+	 */
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+	/**
+	 * @return the next uniformly distributed double in [0, 1)
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * @param bound the upper bound (exclusive), must be positive
+	 * @return the next uniformly distributed int in [0, bound)
+	 */
+	public int nextInt(int bound) {
+		return (int)((nextLong() >>> 1) % bound);
+	}
+
+	/**
+	 * @param prb the probability of success of each trial
+	 * @return the number of trials up to and including the first success, i.e. a geometrically distributed value
+	 */
+	public int nextGeometric(double prb) {
+		return 1 + (int)Math.floor(Math.log(1.0 - nextDouble()) / Math.log(1.0 - prb));
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
@@ -21,48 +21,55 @@ import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import nl.tudelft.graphalytics.mapreducev2.common.DirectedNode;
-import nl.tudelft.graphalytics.mapreducev2.common.DirectedNodeNeighbourhood;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
-import nl.tudelft.graphalytics.mapreducev2.common.OutNode;
+import nl.tudelft.graphalytics.mapreducev2.StatelessMapper;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeNeighbourhoodView;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 /**
  * @author Marcin Biczak
  * @author Tim Hegeman
  */
 public class DirectedStatsCCMap extends MapReduceBase
-                       implements Mapper<LongWritable, DirectedNodeNeighbourhood, Text, DoubleAverage> {
-	private final Text aggregateKey = new Text("MEAN");
-
-    public void map(LongWritable key, DirectedNodeNeighbourhood value, OutputCollector<Text, DoubleAverage> output, Reporter reporter)
+                       implements Mapper<LongWritable, NodeNeighbourhoodView, Text, DoubleAverage>, StatelessMapper {
+	private static final Text aggregateKey = new Text("MEAN");
+	/** Sorted IDs of the in- and out-neighbours of the central node, reused for all records mapped by a thread. */
+	private final ThreadLocal<long[]> centralNeighbours = new ThreadLocal<long[]>() {
+		@Override
+		protected long[] initialValue() {
+			return new long[64];
+		}
+	};
+
+    public void map(LongWritable key, NodeNeighbourhoodView value, OutputCollector<Text, DoubleAverage> output, Reporter reporter)
             throws IOException {
         double cc = this.nodeCC(value, reporter);
-	    DoubleAverage ccAverage = new DoubleAverage(cc);
+        DoubleAverage ccAverage = new DoubleAverage();
+        ccAverage.set(cc);
 
-	    output.collect(new Text(value.getCentralNode().getId()), ccAverage);
+        Text nodeId = new Text();
+        value.copyIdTo(nodeId);
+        output.collect(nodeId, ccAverage);
         output.collect(aggregateKey, ccAverage);
     }
 
-    private double nodeCC(DirectedNodeNeighbourhood nodeNeighbourhood, Reporter reporter) {
-        DirectedNode centralNode = nodeNeighbourhood.getCentralNode();
-        Map<String, Boolean> centralNeighboursIds = this.buildNeighboursMap(centralNode);
+    private double nodeCC(NodeNeighbourhoodView nodeNeighbourhood, Reporter reporter) {
+        int totalDegree = nodeNeighbourhood.getNumIncoming() + nodeNeighbourhood.getNumOutgoing();
+        long[] centralNeighbours = this.buildNeighboursSet(nodeNeighbourhood, totalDegree);
         int counter = 0;
 
-        for(OutNode outNode : nodeNeighbourhood.getDirectedNodeNeighbourhood()) {
+        for(int node = 0; node < nodeNeighbourhood.getNeighbourhoodSize(); node++) {
             reporter.progress(); //report to master
 
-            for(Edge edge : outNode.getOutEdges()) {
-                if(centralNeighboursIds.get(edge.getDest()) != null) { //comparing only dst; src is known to be a neighbour
+            for(int i = 0; i < nodeNeighbourhood.getNumNeighbourhoodEdges(node); i++) {
+                //comparing only dst; src is known to be a neighbour
+                if(Arrays.binarySearch(centralNeighbours, 0, totalDegree, nodeNeighbourhood.getNeighbourhoodEdge(node, i)) >= 0) {
                     counter++;
                 }
             }
         }
 
-        int totalDegree = centralNode.getInEdges().size() + centralNode.getOutEdges().size();
         double bottom = (totalDegree * (totalDegree - 1));
 
         if(bottom <= 0)
@@ -71,19 +78,28 @@ public class DirectedStatsCCMap extends MapReduceBase
         return counter/bottom;
     }
 
-    private Map<String, Boolean> buildNeighboursMap(DirectedNode node) {
-        Map<String, Boolean> centralNeighboursIds = new HashMap<String, Boolean>();
+    /**
+     * @return an array starting with the degree in- and out-neighbours of the central node in sorted order
+     */
+    private long[] buildNeighboursSet(NodeNeighbourhoodView node, int degree) {
+        long[] centralNeighbours = this.centralNeighbours.get();
+        if(centralNeighbours.length < degree) {
+            centralNeighbours = new long[Math.max(degree, 2 * centralNeighbours.length)];
+            this.centralNeighbours.set(centralNeighbours);
+        }
+
         // IN
-        for(Edge edge : node.getInEdges()) {
-            centralNeighboursIds.put(edge.getSrc(), true);
+        for(int i = 0; i < node.getNumIncoming(); i++) {
+            centralNeighbours[i] = node.getIncoming(i);
         }
 
         // OUT
-        for(Edge edge : node.getOutEdges()) {
-            centralNeighboursIds.put(edge.getDest(), true);
+        for(int i = 0; i < node.getNumOutgoing(); i++) {
+            centralNeighbours[node.getNumIncoming() + i] = node.getOutgoing(i);
         }
 
-        return centralNeighboursIds;
+        Arrays.sort(centralNeighbours, 0, degree);
+        return centralNeighbours;
     }
 }
 
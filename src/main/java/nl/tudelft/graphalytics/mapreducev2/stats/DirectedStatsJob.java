@@ -94,6 +94,11 @@ public class DirectedStatsJob extends MapReduceJob<Object> {
 				DoubleAverageCombiner.class);
 	}
 
+	@Override
+	protected boolean isReduceAssociative() {
+		return (getIteration() == 2);
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	protected Class<? extends Reducer> getReducerClass() {
@@ -47,6 +47,16 @@ public class DoubleAverage implements Writable {
 		this.count = 1;
 	}
 	
+	/**
+	 * Resets this average to a single value, to reuse it as output value.
+	 *
+	 * @param value a single value.
+	 */
+	public void set(double value) {
+		this.sum = value;
+		this.count = 1;
+	}
+
 	/**
 	 * Add another DoubleAverage to this one to yield the
 	 * overall (weighted) average of both.
@@ -21,17 +21,21 @@ import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import nl.tudelft.graphalytics.mapreducev2.common.DirectedNode;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
 
 import java.io.IOException;
-import java.util.*;
+import java.util.Arrays;
 
 /**
  * @author Marcin Biczak
  */
 public class GatherDirectedNodeNeighboursInfoMap extends MapReduceBase
         implements Mapper<LongWritable, Text, Text, Text> {
+    private static final byte[] OUT_SEPARATOR = { '@' };
+    private static final byte[] NO_OUT_EDGES = { '@', ',' };
+
+    private final NodeView node = new NodeView();
+    private long[] neighbours = new long[32];
     private Text centralId = new Text();
     private Text neighbourId = new Text();
     private Text emitData = new Text();
@@ -39,57 +43,50 @@ public class GatherDirectedNodeNeighboursInfoMap extends MapReduceBase
 
     public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter)
             throws IOException {
-        String line = value.toString();
-        DirectedNode node = new DirectedNode();
-        Vector<Edge> outEdges;
-
         // build node
-        node.readFields(line);
+        node.readDirected(value);
 
         // prepare chunks for emission
         // chunk pattern "nodeId@[id,id,...,id]"
-        outEdges = node.getOutEdges();
-        StringBuilder data = new StringBuilder();
-        data.append(node.getId()).append("@");
-        if(outEdges.size() == 0) {
-            data.append(",");
+        node.copyIdTo(emitData);
+        if(node.getNumOutgoing() == 0) {
+            emitData.append(NO_OUT_EDGES, 0, NO_OUT_EDGES.length);
         } else {
-            boolean isFirst = true;
-            for(Edge edge : outEdges) {
-                if(isFirst) {
-                    data.append(edge.getDest());
-                    isFirst = false;
-                } else
-                    data.append(",").append(edge.getDest());
-            }
+            emitData.append(OUT_SEPARATOR, 0, OUT_SEPARATOR.length);
+            node.appendOutgoing(emitData);
         }
-        emitData.set(data.toString());
 
 
         /*
               emit only node.outEdges in "nodeId @ [nodeId]" format
          */
-        for(String neighbourId : this.gatherNeighboursAsMap(node).keySet()) {
-            this.neighbourId.set(neighbourId);
+        int numNeighbours = this.gatherDistinctNeighbours();
+        for(int i = 0; i < numNeighbours; i++) {
+            this.neighbourId.clear();
+            node.appendNumber(this.neighbourId, neighbours[i]);
             output.collect(this.neighbourId, emitData);
         }
 
         // full node data to myself
-        centralId.set(node.getId());
-        nodeText.set(node.toText());
+        node.copyIdTo(centralId);
+        node.toDirectedText(nodeText);
         output.collect(centralId, nodeText);
     }
 
-    private Map<String, Boolean> gatherNeighboursAsMap(DirectedNode node) {
-        Map<String, Boolean> neighboursIdMap = new HashMap<String, Boolean>();
-
-        for(Edge edge : node.getInEdges())
-            neighboursIdMap.put(edge.getSrc(), true);
+    // sorts the in and out neighbours of the node, and returns the number of distinct neighbours
+    private int gatherDistinctNeighbours() {
+        if(neighbours.length < node.getNumNeighbours())
+            neighbours = new long[Math.max(node.getNumNeighbours(), 2 * neighbours.length)];
 
-        for(Edge edge : node.getOutEdges())
-            neighboursIdMap.put(edge.getDest(), true);
+        for(int i = 0; i < node.getNumNeighbours(); i++)
+            neighbours[i] = node.getNeighbour(i);
+        Arrays.sort(neighbours, 0, node.getNumNeighbours());
 
-        return neighboursIdMap;
+        int numDistinct = 0;
+        for(int i = 0; i < node.getNumNeighbours(); i++) {
+            if(numDistinct == 0 || neighbours[i] != neighbours[numDistinct - 1])
+                neighbours[numDistinct++] = neighbours[i];
+        }
+        return numDistinct;
     }
 }
-
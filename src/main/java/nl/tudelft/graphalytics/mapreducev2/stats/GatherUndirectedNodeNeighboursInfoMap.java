@@ -16,7 +16,6 @@
 package nl.tudelft.graphalytics.mapreducev2.stats;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
@@ -24,33 +23,31 @@ import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNode;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeView;
 
 /**
  * @author Marcin Biczak
  */
 public class GatherUndirectedNodeNeighboursInfoMap extends MapReduceBase
-        implements Mapper<LongWritable, Text, Text, UndirectedNode>{
+        implements Mapper<LongWritable, Text, Text, Text>{
+    private final NodeView node = new NodeView();
     private Text centralId = new Text();
     private Text neighbourId = new Text();
-    private UndirectedNode node = new UndirectedNode();
+    private Text nodeText = new Text();
 
-    public void map(LongWritable key, Text value, OutputCollector<Text, UndirectedNode> output, Reporter reporter)
+    public void map(LongWritable key, Text value, OutputCollector<Text, Text> output, Reporter reporter)
             throws IOException {
-        String line = value.toString();
-
         // build node
-        node.readFields(line);
+        node.readUndirected(value);
+        node.toUndirectedText(nodeText);
 
         //broadcast info to all neighbours
-        Iterator<Edge> iterator = node.getEdges().iterator();
-        while (iterator.hasNext()) {
-            neighbourId.set(iterator.next().getDest());
-            output.collect(neighbourId, node);
+        for(int i = 0; i < node.getNumOutgoing(); i++) {
+            node.copyOutgoingTo(i, neighbourId);
+            output.collect(neighbourId, nodeText);
         }
 
-        centralId.set(node.getId());
-        output.collect(centralId, node);
+        node.copyIdTo(centralId);
+        output.collect(centralId, nodeText);
     }
 }
@@ -32,10 +32,10 @@ import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNodeNeighbourhood;
  * @author Marcin Biczak
  */
 public class GatherUndirectedNodeNeighboursInfoReducer extends MapReduceBase
-        implements Reducer<Text, UndirectedNode, NullWritable, UndirectedNodeNeighbourhood>{
+        implements Reducer<Text, Text, NullWritable, UndirectedNodeNeighbourhood>{
     private UndirectedNodeNeighbourhood nodeNeighbourhood = new UndirectedNodeNeighbourhood();
 
-    public void reduce(Text key, Iterator<UndirectedNode> values,
+    public void reduce(Text key, Iterator<Text> values,
                        OutputCollector<NullWritable, UndirectedNodeNeighbourhood> output, Reporter reporter) throws IOException {
 
         // build central node
@@ -44,7 +44,8 @@ public class GatherUndirectedNodeNeighboursInfoReducer extends MapReduceBase
 
         Vector<UndirectedNode> centralNodeNeighbourhood = new Vector<UndirectedNode>();
         while (values.hasNext()) {
-            UndirectedNode tmp = (values.next()).copy();
+            UndirectedNode tmp = new UndirectedNode();
+            tmp.readFields(values.next());
 
             if(tmp.getId().equals(centralNode.getId())) {
                 centralNode.setEdges(tmp.getEdges());
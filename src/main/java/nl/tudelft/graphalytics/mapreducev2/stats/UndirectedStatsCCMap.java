@@ -16,8 +16,7 @@
 package nl.tudelft.graphalytics.mapreducev2.stats;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
@@ -25,43 +24,52 @@ import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import nl.tudelft.graphalytics.mapreducev2.common.Edge;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNode;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNodeNeighbourhood;
+import nl.tudelft.graphalytics.mapreducev2.StatelessMapper;
+import nl.tudelft.graphalytics.mapreducev2.common.NodeNeighbourhoodView;
 
 /**
  * @author Marcin Biczak
  * @author Tim Hegeman
  */
 public class UndirectedStatsCCMap extends MapReduceBase
-                       implements Mapper<LongWritable, UndirectedNodeNeighbourhood, Text, DoubleAverage> {
-    private final Text aggregateKey = new Text("MEAN");
+                       implements Mapper<LongWritable, NodeNeighbourhoodView, Text, DoubleAverage>, StatelessMapper {
+    private static final Text aggregateKey = new Text("MEAN");
+    /** Sorted IDs of the neighbours of the central node, reused for all records mapped by a thread. */
+    private final ThreadLocal<long[]> centralNeighbours = new ThreadLocal<long[]>() {
+        @Override
+        protected long[] initialValue() {
+            return new long[64];
+        }
+    };
 
-    public void map(LongWritable key, UndirectedNodeNeighbourhood value, OutputCollector<Text, DoubleAverage> output, Reporter reporter)
+    public void map(LongWritable key, NodeNeighbourhoodView value, OutputCollector<Text, DoubleAverage> output, Reporter reporter)
             throws IOException {
         double cc = this.nodeCC(value, reporter);
+        DoubleAverage ccAverage = new DoubleAverage();
+        ccAverage.set(cc);
 
-        DoubleAverage ccAverage = new DoubleAverage(cc);
-        output.collect(new Text(value.getCentralNode().getId()), ccAverage);
-	    output.collect(aggregateKey, ccAverage);
+        Text nodeId = new Text();
+        value.copyIdTo(nodeId);
+        output.collect(nodeId, ccAverage);
+        output.collect(aggregateKey, ccAverage);
     }
 
-    private double nodeCC(UndirectedNodeNeighbourhood nodeNeighbourhood, Reporter reporter) {
-        UndirectedNode centralNode = nodeNeighbourhood.getCentralNode();
-        Map<String, Boolean> centralNeighboursIds = this.buildNeighboursMap(centralNode);
+    private double nodeCC(NodeNeighbourhoodView nodeNeighbourhood, Reporter reporter) {
+        int totalDegree = nodeNeighbourhood.getNumOutgoing();
+        long[] centralNeighbours = this.buildNeighboursSet(nodeNeighbourhood, totalDegree);
         int counter = 0;
 
-        for(UndirectedNode outNode : nodeNeighbourhood.getNodeNeighbourhood()) {
+        for(int node = 0; node < nodeNeighbourhood.getNeighbourhoodSize(); node++) {
             reporter.progress(); //report to master
 
-            for(Edge edge : outNode.getEdges()) {
-                if(centralNeighboursIds.get(edge.getDest()) != null) { //comparing only dst; src is known to be a neighbour
+            for(int i = 0; i < nodeNeighbourhood.getNumNeighbourhoodEdges(node); i++) {
+                //comparing only dst; src is known to be a neighbour
+                if(Arrays.binarySearch(centralNeighbours, 0, totalDegree, nodeNeighbourhood.getNeighbourhoodEdge(node, i)) >= 0) {
                     counter++;
                 }
             }
         }
 
-        int totalDegree = centralNode.getEdges().size();
         double bottom = (totalDegree * (totalDegree - 1));
 
         if(bottom <= 0)
@@ -70,13 +78,22 @@ public class UndirectedStatsCCMap extends MapReduceBase
         return counter/bottom;
     }
 
-    private Map<String, Boolean> buildNeighboursMap(UndirectedNode node) {
-        Map<String, Boolean> centralNeighboursIds = new HashMap<String, Boolean>();
-        for(Edge edge : node.getEdges()) {
-            centralNeighboursIds.put(edge.getDest(), true);
+    /**
+     * @return an array starting with the degree neighbours of the central node in sorted order
+     */
+    private long[] buildNeighboursSet(NodeNeighbourhoodView node, int degree) {
+        long[] centralNeighbours = this.centralNeighbours.get();
+        if(centralNeighbours.length < degree) {
+            centralNeighbours = new long[Math.max(degree, 2 * centralNeighbours.length)];
+            this.centralNeighbours.set(centralNeighbours);
+        }
+
+        for(int i = 0; i < degree; i++) {
+            centralNeighbours[i] = node.getOutgoing(i);
         }
 
-        return centralNeighboursIds;
+        Arrays.sort(centralNeighbours, 0, degree);
+        return centralNeighbours;
     }
 }
 
@@ -28,7 +28,6 @@ import org.apache.hadoop.mapred.RunningJob;
 import org.apache.hadoop.mapred.TextInputFormat;
 import org.apache.hadoop.mapred.TextOutputFormat;
 import nl.tudelft.graphalytics.mapreducev2.MapReduceJob;
-import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNode;
 import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNodeNeighbourhood;
 import nl.tudelft.graphalytics.mapreducev2.common.UndirectedNodeNeighbourTextInputFormat;
 
@@ -49,7 +48,7 @@ public class UndirectedStatsJob extends MapReduceJob<Object> {
 	@Override
 	protected Class<?> getMapOutputValueClass() {
 		return (getIteration() == 1 ?
-				UndirectedNode.class :
+				Text.class :
 				DoubleAverage.class);
 	}
 
@@ -95,6 +94,11 @@ public class UndirectedStatsJob extends MapReduceJob<Object> {
 				DoubleAverageCombiner.class);
 	}
 
+	@Override
+	protected boolean isReduceAssociative() {
+		return (getIteration() == 2);
+	}
+
 	@SuppressWarnings("rawtypes")
 	@Override
 	protected Class<? extends Reducer> getReducerClass() {
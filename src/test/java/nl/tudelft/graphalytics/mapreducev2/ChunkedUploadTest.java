@@ -0,0 +1,128 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class ChunkedUploadTest {
+
+	/** Edges sorted by source vertex, with source vertices that are prefixes of each other. */
+	private static final String EDGES =
+			"1 2\n1 3\n1 4\n10 1\n10 2\n10 3\n10 4\n10 5\n10 6\n10 7\n10 8\n100 5\n11 1\n11\t2\n2 1\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testBoundaryInsideRun() throws IOException {
+		// The middle of the file is inside the line "10 5", in the run of vertex 10
+		long[] boundaries = getChunkBoundaries(EDGES, 2, true);
+		assertThat(boundaries[1], is(equalTo((long)EDGES.indexOf("100 5"))));
+
+		boundaries = getChunkBoundaries(EDGES, 2, false);
+		assertThat("unaligned chunks are split at the next line", boundaries[1],
+				is(equalTo((long)EDGES.indexOf("10 6"))));
+	}
+
+	@Test
+	public void testRunLongerThanChunk() throws IOException {
+		// Chunks of a few bytes, most of which start inside the run of vertex 10
+		for (int numChunks = 2; numChunks <= EDGES.length(); numChunks++) {
+			long[] boundaries = getChunkBoundaries(EDGES, numChunks, true);
+			for (long boundary : boundaries) {
+				assertThat("no chunk starts inside the run of vertex 10", boundary > EDGES.indexOf("10 1") &&
+						boundary < EDGES.indexOf("100 5"), is(false));
+			}
+		}
+	}
+
+	@Test
+	public void testCrLfLineBreaks() throws IOException {
+		String edges = EDGES.replace("\n", "\r\n");
+		for (int numChunks = 1; numChunks <= edges.length(); numChunks++) {
+			checkBoundaries(edges, getChunkBoundaries(edges, numChunks, false), false);
+			checkBoundaries(edges, getChunkBoundaries(edges, numChunks, true), true);
+		}
+
+		// A boundary between the carriage return and the line feed starts a chunk at the next line
+		int offset = edges.indexOf("\r\n1 3") + 1;
+		assertThat(getChunkBoundaries(edges, edges.length(), false)[offset],
+				is(equalTo((long)edges.indexOf("1 3"))));
+	}
+
+	@Test
+	public void testAllChunkCounts() throws IOException {
+		for (String edges : new String[] { EDGES, EDGES.substring(0, EDGES.length() - 1), "", "5 6\n", "5 6" }) {
+			for (int numChunks = 1; numChunks <= edges.length() + 2; numChunks++) {
+				checkBoundaries(edges, getChunkBoundaries(edges, numChunks, false), false);
+				checkBoundaries(edges, getChunkBoundaries(edges, numChunks, true), true);
+			}
+		}
+	}
+
+	/**
+	 * Checks that every chunk consists of whole lines and, if the chunks are source aligned, that no source vertex is
+	 * split over multiple chunks.
+	 */
+	private static void checkBoundaries(String edges, long[] boundaries, boolean sourceAligned) {
+		assertThat(boundaries[0], is(equalTo(0L)));
+		assertThat(boundaries[boundaries.length - 1], is(equalTo((long)edges.length())));
+		for (int i = 1; i < boundaries.length - 1; i++) {
+			int boundary = (int)boundaries[i];
+			assertThat("boundaries are in order", boundaries[i - 1] <= boundary, is(true));
+			if (boundary == 0 || boundary == edges.length())
+				continue;
+			assertThat("chunk " + i + " starts at a line", edges.charAt(boundary - 1), is(equalTo('\n')));
+			if (sourceAligned) {
+				int previousLine = edges.lastIndexOf('\n', boundary - 2) + 1;
+				assertThat("chunk " + i + " starts at a new source vertex",
+						getSource(edges, boundary), is(not(equalTo(getSource(edges, previousLine)))));
+			}
+		}
+	}
+
+	private static String getSource(String edges, int lineStart) {
+		int end = lineStart;
+		while (end < edges.length() && " \t\r\n".indexOf(edges.charAt(end)) < 0)
+			end++;
+		return edges.substring(lineStart, end);
+	}
+
+	private long[] getChunkBoundaries(String edges, int numChunks, boolean sourceAligned) throws IOException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), edges.getBytes(StandardCharsets.US_ASCII));
+		try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			return ChunkedUpload.getChunkBoundaries(randomAccessFile, numChunks, sourceAligned);
+		}
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import nl.tudelft.graphalytics.mapreducev2.common.CompactAdjacencyList;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class CompactGraphInputFormatTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testReadRecords() throws IOException {
+		JobConf conf = new JobConf();
+		Path path = new Path(temporaryFolder.getRoot().getPath(), "graph");
+		List<String> expected = new ArrayList<>();
+		try (SequenceFile.Writer writer = SequenceFile.createWriter(conf, SequenceFile.Writer.file(path),
+				SequenceFile.Writer.keyClass(NullWritable.class),
+				SequenceFile.Writer.valueClass(CompactAdjacencyList.class))) {
+			CompactAdjacencyList adjacency = new CompactAdjacencyList();
+
+			adjacency.clear(-4, true);
+			adjacency.addIncoming(Long.MAX_VALUE);
+			adjacency.addOutgoing(7);
+			adjacency.addOutgoing(-9);
+			writer.append(NullWritable.get(), adjacency);
+			expected.add("-4\t#" + Long.MAX_VALUE + "\t@7,-9");
+
+			// A hub split over two records with the same vertex ID
+			adjacency.clear(Long.MIN_VALUE, true);
+			adjacency.addIncoming(3);
+			adjacency.addIncoming(1);
+			writer.append(NullWritable.get(), adjacency);
+			expected.add(Long.MIN_VALUE + "\t#3,1\t@\t");
+			adjacency.clear(Long.MIN_VALUE, true);
+			adjacency.addOutgoing(Long.MAX_VALUE);
+			writer.append(NullWritable.get(), adjacency);
+			expected.add(Long.MIN_VALUE + "\t#\t@" + Long.MAX_VALUE);
+
+			for (long vertex = 0; vertex < 1000; vertex++) {
+				adjacency.clear(vertex, true);
+				adjacency.addIncoming(vertex - 1);
+				adjacency.addOutgoing(vertex + 1);
+				writer.append(NullWritable.get(), adjacency);
+				expected.add(vertex + "\t#" + (vertex - 1) + "\t@" + (vertex + 1));
+			}
+
+			adjacency.clear(12, true);
+			writer.append(NullWritable.get(), adjacency);
+			expected.add("12\t#\t@\t");
+		}
+
+		assertThat(readRecords(conf, path, 1), is(equalTo(expected)));
+		assertThat("every record is read once when the file is split", readRecords(conf, path, 7), is(equalTo(expected)));
+	}
+
+	private static List<String> readRecords(JobConf conf, Path path, int numSplits) throws IOException {
+		FileInputFormat.setInputPaths(conf, path);
+		conf.setLong("mapreduce.input.fileinputformat.split.minsize", 1);
+
+		CompactGraphInputFormat inputFormat = new CompactGraphInputFormat();
+		List<String> records = new ArrayList<>();
+		for (InputSplit split : inputFormat.getSplits(conf, numSplits)) {
+			RecordReader<LongWritable, Text> reader = inputFormat.getRecordReader(split, conf, Reporter.NULL);
+			LongWritable key = reader.createKey();
+			Text value = reader.createValue();
+			while (reader.next(key, value)) {
+				String record = value.toString();
+				assertThat("the key is the vertex ID of the record",
+						Long.toString(key.get()), is(equalTo(record.substring(0, record.indexOf('\t')))));
+				records.add(record);
+			}
+			reader.close();
+		}
+		return records;
+	}
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.apache.hadoop.mapred.lib.LongSumReducer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class HotKeySamplerTest {
+
+	private static final int NUM_REDUCERS = 4;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private JobConf jobConfiguration;
+
+	@Before
+	public void setUp() throws IOException {
+		// Every line is a vertex with one neighbour per line in a ring
+		File input = temporaryFolder.newFile("graph");
+		try (PrintWriter writer = new PrintWriter(input)) {
+			for (int vertex = 0; vertex < 1000; vertex++) {
+				writer.println(vertex + " " + ((vertex + 1) % 1000));
+			}
+		}
+
+		jobConfiguration = new JobConf();
+		jobConfiguration.setInputFormat(TextInputFormat.class);
+		FileInputFormat.setInputPaths(jobConfiguration, new Path(input.getPath()));
+		jobConfiguration.setNumMapTasks(4);
+		jobConfiguration.setMapperClass(AggregateMapper.class);
+		jobConfiguration.setMapOutputKeyClass(Text.class);
+		jobConfiguration.setMapOutputValueClass(LongWritable.class);
+	}
+
+	@Test
+	public void testAggregateKeyIsHotWithoutCombiner() throws IOException {
+		assertThat(new HotKeySampler(jobConfiguration).findHotKeys(NUM_REDUCERS),
+				is(equalTo(Collections.singleton(AggregateMapper.AGGREGATE_KEY))));
+	}
+
+	@Test
+	public void testCombinedAggregateKeyIsNotHot() throws IOException {
+		// The combiner collapses the aggregate key to one record per split
+		jobConfiguration.setCombinerClass(LongSumReducer.class);
+		assertThat(new HotKeySampler(jobConfiguration).findHotKeys(NUM_REDUCERS).isEmpty(), is(true));
+	}
+
+	@Test
+	public void testKeyIsHotAfterCombining() throws IOException {
+		// With fewer distinct keys than reducers, even the combined output of each key overloads a reducer
+		jobConfiguration.setCombinerClass(LongSumReducer.class);
+		jobConfiguration.setMapperClass(FewKeysMapper.class);
+		assertThat(new HotKeySampler(jobConfiguration).findHotKeys(NUM_REDUCERS),
+				is(equalTo((Set<Text>)new HashSet<>(Arrays.asList(
+						AggregateMapper.AGGREGATE_KEY, new Text("EVEN"), new Text("ODD"))))));
+	}
+
+	/**
+	 * Emits a record for each vertex, and one record for an aggregate over all vertices, like the STATS mappers.
+	 */
+	public static class AggregateMapper extends MapReduceBase implements Mapper<LongWritable, Text, Text, LongWritable> {
+		static final Text AGGREGATE_KEY = new Text("MEAN");
+		private final Text vertexId = new Text();
+		private final LongWritable one = new LongWritable(1);
+
+		@Override
+		public void map(LongWritable key, Text value, OutputCollector<Text, LongWritable> output, Reporter reporter)
+				throws IOException {
+			String line = value.toString();
+			vertexId.set(line.substring(0, line.indexOf(' ')));
+			output.collect(vertexId, one);
+			output.collect(AGGREGATE_KEY, one);
+		}
+	}
+
+	/**
+	 * Emits a record for the aggregate over all vertices, and a record for the aggregate of even or odd vertices.
+	 */
+	public static class FewKeysMapper extends MapReduceBase
+			implements Mapper<LongWritable, Text, Text, LongWritable> {
+		private final Text parity = new Text();
+		private final LongWritable one = new LongWritable(1);
+
+		@Override
+		public void map(LongWritable key, Text value, OutputCollector<Text, LongWritable> output, Reporter reporter)
+				throws IOException {
+			String line = value.toString();
+			parity.set(Long.parseLong(line.substring(0, line.indexOf(' '))) % 2 == 0 ? "EVEN" : "ODD");
+			output.collect(parity, one);
+			output.collect(AggregateMapper.AGGREGATE_KEY, one);
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2;
+
+import nl.tudelft.graphalytics.mapreducev2.cd.DirectedCambridgeLPAMap;
+import nl.tudelft.graphalytics.mapreducev2.cd.UndirectedCambridgeLPAMap;
+import nl.tudelft.graphalytics.mapreducev2.stats.DirectedStatsCCMap;
+import nl.tudelft.graphalytics.mapreducev2.stats.UndirectedStatsCCMap;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.junit.Test;
+
+/**
+ * Checks that all mappers marked as {@link StatelessMapper} can be mapped by multiple threads.
+ *
+ * @author Tim Hegeman
+ */
+public class StatelessMapperTest {
+
+	@Test
+	public void testStatelessMappers() {
+		MapReduceJob.checkStateless(DirectedCambridgeLPAMap.class);
+		MapReduceJob.checkStateless(UndirectedCambridgeLPAMap.class);
+		MapReduceJob.checkStateless(DirectedStatsCCMap.class);
+		MapReduceJob.checkStateless(UndirectedStatsCCMap.class);
+	}
+
+	@Test
+	public void testPerThreadState() {
+		MapReduceJob.checkStateless(PerThreadStateMapper.class);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSharedFinalField() {
+		MapReduceJob.checkStateless(SharedFinalFieldMapper.class);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testNonFinalField() {
+		MapReduceJob.checkStateless(NonFinalFieldMapper.class);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testInheritedField() {
+		MapReduceJob.checkStateless(InheritedFieldMapper.class);
+	}
+
+	private static class PerThreadStateMapper extends MapReduceBase implements StatelessMapper {
+		private static final byte[] SEPARATOR = { '|' };
+		private final int capacity = 16;
+		private final String name = "mapper";
+		private final ThreadLocal<Text> text = new ThreadLocal<Text>() {
+			@Override
+			protected Text initialValue() {
+				return new Text();
+			}
+		};
+	}
+
+	private static class SharedFinalFieldMapper extends MapReduceBase implements StatelessMapper {
+		private final Text text = new Text();
+	}
+
+	private static class NonFinalFieldMapper extends MapReduceBase implements StatelessMapper {
+		private long count;
+	}
+
+	private static class InheritedFieldMapper extends NonFinalFieldMapper {
+	}
+
+}
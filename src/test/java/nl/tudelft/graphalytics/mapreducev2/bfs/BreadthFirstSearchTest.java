@@ -55,7 +55,7 @@ public class BreadthFirstSearchTest extends BreadthFirstSearchValidationTest {
 			BreadthFirstSearchParameters parameters) throws Exception {
 		hadoopTestUtils.writeGraphToDirectory(graph, testFolders.getRawInputDirectory());
 		hadoopTestUtils.convertGraphToHadoopFormat(testFolders.getRawInputDirectory(), testFolders.getInputDirectory());
-		hadoopTestUtils.runMapReduceJob(new BreadthFirstSearchJobLauncher(), true, parameters, testFolders);
+		hadoopTestUtils.runMapReduceJob(createJobLauncher(), true, parameters, testFolders);
 		return parseOutput();
 	}
 
@@ -63,10 +63,14 @@ public class BreadthFirstSearchTest extends BreadthFirstSearchValidationTest {
 	public BreadthFirstSearchOutput executeUndirectedBreadthFirstSearch(GraphStructure graph,
 			BreadthFirstSearchParameters parameters) throws Exception {
 		hadoopTestUtils.writeGraphToDirectory(graph, testFolders.getInputDirectory());
-		hadoopTestUtils.runMapReduceJob(new BreadthFirstSearchJobLauncher(), false, parameters, testFolders);
+		hadoopTestUtils.runMapReduceJob(createJobLauncher(), false, parameters, testFolders);
 		return parseOutput();
 	}
 
+	protected BreadthFirstSearchJobLauncher createJobLauncher() {
+		return new BreadthFirstSearchJobLauncher();
+	}
+
 	private BreadthFirstSearchOutput parseOutput() throws IOException {
 		final Pattern WHITESPACE = Pattern.compile("[ \t]");
 		final Pattern DOLLAR = Pattern.compile("\\$");
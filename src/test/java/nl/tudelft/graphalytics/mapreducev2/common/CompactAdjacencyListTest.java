@@ -0,0 +1,220 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class CompactAdjacencyListTest {
+
+	@Test
+	public void testUndirectedRoundTrip() throws IOException {
+		assertUndirectedRoundTrip(5, 1, 2, 7, 100);
+		assertUndirectedRoundTrip(-3, -10, -4, -3, 0, 8);
+	}
+
+	@Test
+	public void testDirectedRoundTrip() throws IOException {
+		assertDirectedRoundTrip(5, new long[] { 1, 4 }, new long[] { 2, 3, 9 });
+		assertDirectedRoundTrip(-7, new long[] { -8, 6 }, new long[] { -100, -7 });
+	}
+
+	@Test
+	public void testUnsortedNeighbours() throws IOException {
+		assertUndirectedRoundTrip(10, 50, 3, 12, -4, 3, 1000000, 11);
+		assertDirectedRoundTrip(10, new long[] { 9, 2, 30 }, new long[] { 100, -1, 100, 0 });
+	}
+
+	@Test
+	public void testExtremeDifferences() throws IOException {
+		// Differences between these IDs overflow a long, and must wrap around when decoded
+		assertUndirectedRoundTrip(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, 0, Long.MAX_VALUE, -1);
+		assertUndirectedRoundTrip(Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE + 1);
+		assertDirectedRoundTrip(0, new long[] { Long.MIN_VALUE, Long.MAX_VALUE },
+				new long[] { Long.MAX_VALUE, Long.MIN_VALUE, 1 });
+	}
+
+	@Test
+	public void testEmptyNeighbourLists() throws IOException {
+		assertUndirectedRoundTrip(42);
+		assertDirectedRoundTrip(42, new long[0], new long[0]);
+		assertDirectedRoundTrip(42, new long[] { 1 }, new long[0]);
+		assertDirectedRoundTrip(42, new long[0], new long[] { 1 });
+	}
+
+	@Test
+	public void testTextFormat() {
+		CompactAdjacencyList adjacency = new CompactAdjacencyList();
+		Text text = new Text();
+
+		adjacency.clear(-5, false);
+		adjacency.addOutgoing(3);
+		adjacency.addOutgoing(Long.MIN_VALUE);
+		adjacency.toText(text);
+		assertThat(text.toString(), is(equalTo("-5 3 " + Long.MIN_VALUE)));
+
+		adjacency.clear(7, false);
+		adjacency.toText(text);
+		assertThat(text.toString(), is(equalTo("7")));
+
+		adjacency.clear(7, true);
+		adjacency.addIncoming(1);
+		adjacency.addIncoming(2);
+		adjacency.toText(text);
+		assertThat("a directed record without outgoing edges ends with a tab",
+				text.toString(), is(equalTo("7\t#1,2\t@\t")));
+
+		adjacency.clear(7, true);
+		adjacency.addOutgoing(8);
+		adjacency.toText(text);
+		assertThat(text.toString(), is(equalTo("7\t#\t@8")));
+	}
+
+	@Test
+	public void testSplitHubRecords() throws IOException {
+		// A hub written as multiple sub-vertex records with the same ID, read back into a single reused object
+		long hub = 1000;
+		DataOutputBuffer out = new DataOutputBuffer();
+		CompactAdjacencyList adjacency = new CompactAdjacencyList();
+		String[] expected = new String[4];
+		for (int record = 0; record < expected.length; record++) {
+			adjacency.clear(hub, true);
+			StringBuilder incoming = new StringBuilder();
+			StringBuilder outgoing = new StringBuilder();
+			// The first record is the largest, so later records are decoded into a larger buffer
+			int numNeighbours = (record == 0 ? 500 : 3 - record);
+			for (int i = 0; i < numNeighbours; i++) {
+				long neighbour = record * 10000 + i * 37 - 50;
+				if (i % 2 == 0) {
+					adjacency.addIncoming(neighbour);
+					incoming.append(incoming.length() > 0 ? "," : "").append(neighbour);
+				} else {
+					adjacency.addOutgoing(neighbour);
+					outgoing.append(outgoing.length() > 0 ? "," : "").append(neighbour);
+				}
+			}
+			adjacency.write(out);
+			expected[record] = hub + "\t#" + incoming + "\t@" + outgoing + (outgoing.length() == 0 ? "\t" : "");
+		}
+
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+		CompactAdjacencyList decoded = new CompactAdjacencyList();
+		Text text = new Text();
+		for (String record : expected) {
+			decoded.readFields(in);
+			assertThat(decoded.getVertexId(), is(equalTo(hub)));
+			decoded.toText(text);
+			assertThat(text.toString(), is(equalTo(record)));
+		}
+		assertThat("all records are read", in.available(), is(equalTo(0)));
+	}
+
+	@Test
+	public void testRandomRoundTrips() throws IOException {
+		Random random = new Random(42);
+		for (int test = 0; test < 200; test++) {
+			long vertexId = randomId(random);
+			long[] incoming = new long[random.nextInt(20)];
+			long[] outgoing = new long[random.nextInt(20)];
+			for (int i = 0; i < incoming.length; i++) {
+				incoming[i] = randomId(random);
+			}
+			for (int i = 0; i < outgoing.length; i++) {
+				outgoing[i] = randomId(random);
+			}
+			assertDirectedRoundTrip(vertexId, incoming, outgoing);
+			assertUndirectedRoundTrip(vertexId, outgoing);
+		}
+	}
+
+	private static long randomId(Random random) {
+		// Mix small IDs, which encode in a few bytes, with arbitrary longs
+		return (random.nextBoolean() ? random.nextInt(2000) - 1000 : random.nextLong());
+	}
+
+	private static void assertUndirectedRoundTrip(long vertexId, long... neighbours) throws IOException {
+		CompactAdjacencyList adjacency = new CompactAdjacencyList();
+		adjacency.clear(vertexId, false);
+		for (long neighbour : neighbours) {
+			adjacency.addOutgoing(neighbour);
+		}
+
+		CompactAdjacencyList decoded = roundTrip(adjacency);
+		assertThat(decoded.isDirected(), is(false));
+		assertThat(decoded.getVertexId(), is(equalTo(vertexId)));
+		assertThat(decoded.getNumIncoming(), is(equalTo(0)));
+		assertThat(toArray(decoded.getOutgoing(), decoded.getNumOutgoing()), is(equalTo(neighbours)));
+	}
+
+	private static void assertDirectedRoundTrip(long vertexId, long[] incoming, long[] outgoing) throws IOException {
+		CompactAdjacencyList adjacency = new CompactAdjacencyList();
+		adjacency.clear(vertexId, true);
+		for (long neighbour : incoming) {
+			adjacency.addIncoming(neighbour);
+		}
+		for (long neighbour : outgoing) {
+			adjacency.addOutgoing(neighbour);
+		}
+
+		CompactAdjacencyList decoded = roundTrip(adjacency);
+		assertThat(decoded.isDirected(), is(true));
+		assertThat(decoded.getVertexId(), is(equalTo(vertexId)));
+		assertThat(toArray(decoded.getIncoming(), decoded.getNumIncoming()), is(equalTo(incoming)));
+		assertThat(toArray(decoded.getOutgoing(), decoded.getNumOutgoing()), is(equalTo(outgoing)));
+	}
+
+	private static CompactAdjacencyList roundTrip(CompactAdjacencyList adjacency) throws IOException {
+		DataOutputBuffer out = new DataOutputBuffer();
+		adjacency.write(out);
+		DataInputBuffer in = new DataInputBuffer();
+		in.reset(out.getData(), out.getLength());
+
+		CompactAdjacencyList decoded = new CompactAdjacencyList();
+		decoded.readFields(in);
+		assertThat("the record is read completely", in.available(), is(equalTo(0)));
+
+		Text original = new Text();
+		Text copy = new Text();
+		adjacency.toText(original);
+		decoded.toText(copy);
+		assertThat(copy, is(equalTo(original)));
+		return decoded;
+	}
+
+	private static long[] toArray(CompactAdjacencyList.NeighbourIterator neighbours, int count) {
+		long[] result = new long[count];
+		for (int i = 0; i < count; i++) {
+			assertThat(neighbours.hasNext(), is(true));
+			result[i] = neighbours.next();
+		}
+		assertThat(neighbours.hasNext(), is(false));
+		return result;
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.common;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class MessageCombinerTest {
+
+	private static final long[] NUMBERS = {
+			0, 1, 2, 9, 10, 11, 19, 99, 100, 101, 1000, 123, 1234, 12, 20,
+			-1, -2, -9, -10, -11, -99, -100, -101, -123, -12,
+			Long.MAX_VALUE, Long.MAX_VALUE - 1, Long.MAX_VALUE / 10,
+			Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MIN_VALUE / 10,
+			922337203685477580L, -922337203685477580L, 1000000000000000000L, -1000000000000000000L
+	};
+
+	@Test
+	public void testCompareDecimalTextMatchesStringOrder() {
+		for (long first : NUMBERS) {
+			for (long second : NUMBERS) {
+				int expected = Integer.signum(Long.toString(first).compareTo(Long.toString(second)));
+				assertThat("comparison of " + first + " and " + second,
+						Integer.signum(MessageCombiner.compareDecimalText(first, second)), is(equalTo(expected)));
+			}
+		}
+	}
+
+	@Test
+	public void testCompareDecimalTextPrefixes() {
+		assertThat(MessageCombiner.compareDecimalText(1, 10) < 0, is(true));
+		assertThat(MessageCombiner.compareDecimalText(10, 100) < 0, is(true));
+		assertThat(MessageCombiner.compareDecimalText(100, 2) < 0, is(true));
+		assertThat(MessageCombiner.compareDecimalText(-1, -10) < 0, is(true));
+		assertThat(MessageCombiner.compareDecimalText(-100, 1) < 0, is(true));
+		assertThat(MessageCombiner.compareDecimalText(Long.MIN_VALUE, Long.MIN_VALUE), is(equalTo(0)));
+		assertThat(MessageCombiner.compareDecimalText(42, 42), is(equalTo(0)));
+	}
+
+	@Test
+	public void testTextMin() {
+		assertThat(MessageCombiner.TEXT_MIN.merge(9, 10), is(equalTo(10L)));
+		assertThat(MessageCombiner.TEXT_MIN.merge(100, 2), is(equalTo(100L)));
+		assertThat(MessageCombiner.TEXT_MIN.merge(-5, 3), is(equalTo(-5L)));
+	}
+
+	@Test
+	public void testWithoutCapacityWritesAllMessages() throws IOException {
+		MessageCollector output = new MessageCollector();
+		MessageCombiner combiner = new MessageCombiner(0, MessageCombiner.MIN);
+		combiner.collect(1, 5, output);
+		combiner.collect(1, 3, output);
+		combiner.collect(-7, Long.MIN_VALUE, output);
+		combiner.close();
+
+		assertThat(output.messages, is(equalTo(Arrays.asList("1\t5", "1\t3", "-7\t" + Long.MIN_VALUE))));
+	}
+
+	@Test
+	public void testFlushAtCapacityOne() throws IOException {
+		MessageCollector output = new MessageCollector();
+		MessageCombiner combiner = new MessageCombiner(1, MessageCombiner.MIN);
+		combiner.collect(1, 5, output);
+		combiner.collect(1, 3, output);
+		combiner.collect(1, 4, output);
+		assertThat("messages to a single vertex are merged", output.messages.isEmpty(), is(true));
+
+		combiner.collect(2, 7, output);
+		assertThat(output.messages, is(equalTo(Arrays.asList("1\t3"))));
+
+		combiner.collect(1, 6, output);
+		assertThat(output.messages, is(equalTo(Arrays.asList("1\t3", "2\t7"))));
+
+		combiner.close();
+		assertThat(output.messages, is(equalTo(Arrays.asList("1\t3", "2\t7", "1\t6"))));
+	}
+
+	@Test
+	public void testFlushAtCapacityThree() throws IOException {
+		MessageCollector output = new MessageCollector();
+		MessageCombiner combiner = new MessageCombiner(3, MessageCombiner.MIN);
+		combiner.collect(30, 2, output);
+		combiner.collect(10, 8, output);
+		combiner.collect(20, 5, output);
+		combiner.collect(10, 1, output);
+		combiner.collect(30, 4, output);
+		assertThat("a full combiner merges messages to known vertices", output.messages.isEmpty(), is(true));
+
+		combiner.collect(40, 9, output);
+		assertThat("merged messages are flushed in order of insertion",
+				output.messages, is(equalTo(Arrays.asList("30\t2", "10\t1", "20\t5"))));
+
+		combiner.collect(10, 7, output);
+		combiner.collect(40, 3, output);
+		combiner.flush();
+		combiner.flush();
+		assertThat(output.messages, is(equalTo(Arrays.asList("30\t2", "10\t1", "20\t5", "40\t3", "10\t7"))));
+
+		combiner.close();
+		assertThat("a flushed combiner is empty", output.messages.size(), is(equalTo(5)));
+	}
+
+	@Test
+	public void testCloseWithoutMessages() throws IOException {
+		new MessageCombiner(0, MessageCombiner.MIN).close();
+		new MessageCombiner(3, MessageCombiner.TEXT_MIN).close();
+	}
+
+	private static class MessageCollector implements OutputCollector<Text, Text> {
+		private final List<String> messages = new ArrayList<>();
+
+		@Override
+		public void collect(Text key, Text value) {
+			messages.add(key + "\t" + value);
+		}
+	}
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conn;
+
+/**
+ * Runs the connected components validation tests with messages combined in the mappers. The small capacity forces the
+ * combiners to flush while the map input is still being read.
+ *
+ * @author Tim Hegeman
+ */
+public class ConnectedComponentsCombinerTest extends ConnectedComponentsTest {
+
+	@Override
+	protected ConnectedComponentsJobLauncher createJobLauncher() {
+		ConnectedComponentsJobLauncher jobLauncher = super.createJobLauncher();
+		jobLauncher.setCombinerCapacity(2);
+		return jobLauncher;
+	}
+
+}
@@ -55,17 +55,21 @@ public class ConnectedComponentsTest extends ConnectedComponentsValidationTest {
 	public ConnectedComponentsOutput executeDirectedConnectedComponents(GraphStructure graph) throws Exception {
 		hadoopTestUtils.writeGraphToDirectory(graph, testFolders.getRawInputDirectory());
 		hadoopTestUtils.convertGraphToHadoopFormat(testFolders.getRawInputDirectory(), testFolders.getInputDirectory());
-		hadoopTestUtils.runMapReduceJob(new ConnectedComponentsJobLauncher(), true, null, testFolders);
+		hadoopTestUtils.runMapReduceJob(createJobLauncher(), true, null, testFolders);
 		return parseOutput();
 	}
 
 	@Override
 	public ConnectedComponentsOutput executeUndirectedConnectedComponents(GraphStructure graph) throws Exception {
 		hadoopTestUtils.writeGraphToDirectory(graph, testFolders.getInputDirectory());
-		hadoopTestUtils.runMapReduceJob(new ConnectedComponentsJobLauncher(), false, null, testFolders);
+		hadoopTestUtils.runMapReduceJob(createJobLauncher(), false, null, testFolders);
 		return parseOutput();
 	}
 
+	protected ConnectedComponentsJobLauncher createJobLauncher() {
+		return new ConnectedComponentsJobLauncher();
+	}
+
 	private ConnectedComponentsOutput parseOutput() throws IOException {
 		final Pattern WHITESPACE = Pattern.compile("[ \t]");
 		final Pattern DOLLAR = Pattern.compile("\\$");
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class EdgeListTest {
+
+	@Test
+	public void testSortOrder() {
+		EdgeList edges = new EdgeList(1);
+		edges.add(2, 1, true);
+		edges.add(1, 5, true);
+		edges.add(2, 1, false);
+		edges.add(1, -3, false);
+		edges.add(1, 5, false);
+		edges.sort();
+
+		long[][] expected = { { 1, -3, 0 }, { 1, 5, 0 }, { 1, 5, 1 }, { 2, 1, 0 }, { 2, 1, 1 } };
+		assertThat(edges.size(), is(equalTo(expected.length)));
+		for (int i = 0; i < expected.length; i++) {
+			assertThat(edges.getVertex(i), is(equalTo(expected[i][0])));
+			assertThat(edges.getNeighbour(i), is(equalTo(expected[i][1])));
+			assertThat(edges.isOutgoing(i), is(equalTo(expected[i][2] == 1)));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testSortRepeatedEdges() {
+		// A single edge repeated many times must not degrade the sort to quadratic time
+		EdgeList edges = new EdgeList(1 << 20);
+		for (int i = 0; i < 1 << 20; i++) {
+			edges.add(7, 8, true);
+		}
+		edges.sort();
+		assertThat(edges.size(), is(equalTo(1 << 20)));
+		assertThat(edges.getNeighbour(1 << 19), is(equalTo(8L)));
+	}
+
+	@Test(timeout = 10000)
+	public void testSortFewDistinctEdges() {
+		Random random = new Random(42);
+		EdgeList edges = new EdgeList(1 << 20);
+		for (int i = 0; i < 1 << 20; i++) {
+			edges.add(random.nextInt(4), random.nextInt(4), random.nextBoolean());
+		}
+		edges.sort();
+		for (int i = 1; i < edges.size(); i++) {
+			assertThat("edges are sorted at index " + i, compare(edges, i - 1, i) <= 0, is(true));
+		}
+	}
+
+	private static int compare(EdgeList edges, int i, int j) {
+		if (edges.getVertex(i) != edges.getVertex(j))
+			return Long.compare(edges.getVertex(i), edges.getVertex(j));
+		if (edges.getNeighbour(i) != edges.getNeighbour(j))
+			return Long.compare(edges.getNeighbour(i), edges.getNeighbour(j));
+		return Boolean.compare(edges.isOutgoing(i), edges.isOutgoing(j));
+	}
+
+}
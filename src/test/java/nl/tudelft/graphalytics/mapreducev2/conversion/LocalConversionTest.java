@@ -0,0 +1,71 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Tim Hegeman
+ */
+public class LocalConversionTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testOutputIsMovedIntoPlace() throws IOException {
+		File input = temporaryFolder.newFile("edges");
+		Files.write(input.toPath(), "1 2\n2 3\n3 1\n".getBytes(StandardCharsets.UTF_8));
+		File output = new File(temporaryFolder.getRoot(), "output");
+
+		new LocalConversion(input.getPath(), output.getPath(), BatchConversion.Format.DIRECTED_EDGES)
+				.withNumberOfReducers(2).withNumberOfThreads(2).run();
+
+		assertThat(new File(output, "_SUCCESS").exists(), is(true));
+		assertThat(new File(output, "part-r-00000").exists(), is(true));
+		assertThat(new File(output, "part-r-00001").exists(), is(true));
+		String[] files = temporaryFolder.getRoot().list();
+		Arrays.sort(files);
+		assertThat("the temporary directory is moved", files, is(equalTo(new String[] { "edges", "output" })));
+	}
+
+	@Test
+	public void testFailedConversionLeavesNoOutput() throws IOException {
+		File output = new File(temporaryFolder.getRoot(), "output");
+		try {
+			new LocalConversion(new File(temporaryFolder.getRoot(), "missing").getPath(), output.getPath(),
+					BatchConversion.Format.DIRECTED_EDGES).run();
+			fail("the conversion of a missing file succeeded");
+		} catch (IOException expected) {
+			// The input does not exist
+		}
+		assertThat(temporaryFolder.getRoot().list(), is(equalTo(new String[0])));
+	}
+
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class PartialAdjacencyTest {
+
+	@Test
+	public void testSortAndDeduplicate() {
+		PartialAdjacency adjacency = new PartialAdjacency();
+		adjacency.add(5, true);
+		adjacency.add(3, false);
+		adjacency.add(1, true);
+		adjacency.add(5, false);
+		adjacency.add(5, true);
+		adjacency.add(3, false);
+
+		assertThat(adjacency.sortAndDeduplicate(1), is(equalTo(2)));
+		assertThat(adjacency.size(), is(equalTo(3)));
+		assertThat(adjacency.getNeighbour(0), is(equalTo(3L)));
+		assertThat(adjacency.isOutgoing(0), is(false));
+		assertThat(adjacency.getNeighbour(1), is(equalTo(5L)));
+		assertThat(adjacency.isOutgoing(1), is(false));
+		assertThat(adjacency.getNeighbour(2), is(equalTo(5L)));
+		assertThat(adjacency.isOutgoing(2), is(true));
+	}
+
+	@Test(timeout = 10000)
+	public void testHubWithParallelEdges() {
+		// A hub with many parallel edges to few neighbours must not degrade the sort to quadratic time
+		PartialAdjacency adjacency = new PartialAdjacency();
+		int numEdges = 1 << 20;
+		for (int i = 0; i < numEdges; i++) {
+			adjacency.add(i % 3, i % 2 == 0);
+		}
+
+		assertThat(adjacency.sortAndDeduplicate(-1), is(equalTo(numEdges - 6)));
+		assertThat(adjacency.size(), is(equalTo(6)));
+		for (int i = 0; i < 6; i++) {
+			assertThat(adjacency.getNeighbour(i), is(equalTo((long) (i / 2))));
+			assertThat(adjacency.isOutgoing(i), is(equalTo(i % 2 == 1)));
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class SourceAlignedInputFormatTest {
+
+	/** Edges sorted by source vertex, with source vertices that are prefixes of each other. */
+	private static final String EDGES =
+			"1 2\n1 3\n1 4\n10 1\n10 2\n10 3\n10 4\n10 5\n10 6\n10 7\n10 8\n100 5\n11 1\n11\t2\n2 1\n";
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testBoundaryInsideRun() throws IOException, InterruptedException {
+		int boundary = EDGES.indexOf("10 5") + 2;
+		List<List<String>> splits = readSplits(EDGES, 0, boundary, EDGES.length());
+		assertThat(splits.get(0), is(equalTo(Arrays.asList(
+				"1 2", "1 3", "1 4", "10 1", "10 2", "10 3", "10 4", "10 5", "10 6", "10 7", "10 8"))));
+		assertThat(splits.get(1), is(equalTo(Arrays.asList("100 5", "11 1", "11\t2", "2 1"))));
+	}
+
+	@Test
+	public void testBoundaryAtLineStart() throws IOException, InterruptedException {
+		// The line starting at the boundary belongs to the first split, as it does for TextInputFormat
+		int boundary = EDGES.indexOf("11 1");
+		List<List<String>> splits = readSplits(EDGES, 0, boundary, EDGES.length());
+		assertThat(splits.get(0).get(splits.get(0).size() - 1), is(equalTo("11\t2")));
+		assertThat(splits.get(1), is(equalTo(Arrays.asList("2 1"))));
+	}
+
+	@Test
+	public void testRunLongerThanSplit() throws IOException, InterruptedException {
+		// The second split is entirely inside the run of vertex 10
+		int first = EDGES.indexOf("10 2") + 1;
+		int second = EDGES.indexOf("10 7") + 1;
+		List<List<String>> splits = readSplits(EDGES, 0, first, second, EDGES.length());
+		assertThat(splits.get(0).get(splits.get(0).size() - 1), is(equalTo("10 8")));
+		assertThat(splits.get(1).isEmpty(), is(true));
+		assertThat(splits.get(2).get(0), is(equalTo("100 5")));
+	}
+
+	@Test
+	public void testCrLfLineBreaks() throws IOException, InterruptedException {
+		String edges = EDGES.replace("\n", "\r\n");
+		// A boundary between the carriage return and the line feed that end a line of vertex 10
+		int boundary = edges.indexOf("\r\n10 6") + 1;
+		List<List<String>> splits = readSplits(edges, 0, boundary, edges.length());
+		assertThat(splits.get(0).get(splits.get(0).size() - 1), is(equalTo("10 8")));
+		assertThat(splits.get(1).get(0), is(equalTo("100 5")));
+
+		checkAllSplitSizes(edges);
+	}
+
+	@Test
+	public void testAllSplitSizes() throws IOException, InterruptedException {
+		checkAllSplitSizes(EDGES);
+		checkAllSplitSizes(EDGES.substring(0, EDGES.length() - 1));
+	}
+
+	/**
+	 * Reads a file with splits of every possible size, and checks that every line is read exactly once and that the
+	 * edges of each source vertex are read by a single split.
+	 */
+	private void checkAllSplitSizes(String edges) throws IOException, InterruptedException {
+		List<String> lines = Arrays.asList(edges.split("\r?\n"));
+		for (int splitSize = 1; splitSize <= edges.length(); splitSize++) {
+			int numSplits = (edges.length() + splitSize - 1) / splitSize;
+			int[] boundaries = new int[numSplits + 1];
+			for (int i = 0; i < numSplits; i++) {
+				boundaries[i] = i * splitSize;
+			}
+			boundaries[numSplits] = edges.length();
+
+			List<String> readLines = new ArrayList<>();
+			Set<String> readSources = new HashSet<>();
+			for (List<String> split : readSplits(edges, boundaries)) {
+				readLines.addAll(split);
+				Set<String> sources = new HashSet<>();
+				for (String line : split) {
+					sources.add(line.split("[ \t]")[0]);
+				}
+				for (String source : sources) {
+					assertThat("source " + source + " is read by one split of size " + splitSize,
+							readSources.add(source), is(true));
+				}
+			}
+			assertThat("lines read with splits of size " + splitSize, readLines, is(equalTo(lines)));
+		}
+	}
+
+	private List<List<String>> readSplits(String edges, int... boundaries) throws IOException, InterruptedException {
+		File file = temporaryFolder.newFile();
+		Files.write(file.toPath(), edges.getBytes(StandardCharsets.US_ASCII));
+		Path path = new Path(file.getPath());
+		TaskAttemptContext context = new TaskAttemptContextImpl(new Configuration(), new TaskAttemptID());
+
+		SourceAlignedInputFormat inputFormat = new SourceAlignedInputFormat();
+		List<List<String>> splits = new ArrayList<>();
+		for (int i = 0; i + 1 < boundaries.length; i++) {
+			FileSplit split = new FileSplit(path, boundaries[i], boundaries[i + 1] - boundaries[i], new String[0]);
+			List<String> lines = new ArrayList<>();
+			try (RecordReader<LongWritable, Text> reader = inputFormat.createRecordReader(split, context)) {
+				reader.initialize(split, context);
+				while (reader.nextKeyValue()) {
+					lines.add(reader.getCurrentValue().toString());
+				}
+			}
+			splits.add(lines);
+		}
+		return splits;
+	}
+
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.conversion;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class VertexIdSampleTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testMergeWeightsSamplesByVertexCount() {
+		// The first sample represents nine times as many vertices as the second
+		long[][] samples = { { 4, 1, 3, 2 }, { 10, 20, 30, 40 } };
+		long[] merged = VertexIdSample.merge(samples, new long[] { 900, 100 });
+		assertThat(merged.length, is(equalTo(8)));
+
+		int fromFirst = 0;
+		for (long id : merged) {
+			if (id < 10)
+				fromFirst++;
+		}
+		assertThat(fromFirst, is(equalTo(7)));
+		assertThat("the median is taken from the larger sample", merged[merged.length / 2] < 10, is(true));
+	}
+
+	@Test
+	public void testMergeEqualWeights() {
+		long[][] samples = { { 5, 1, 3 }, { 2, 6, 4 } };
+		assertThat(VertexIdSample.merge(samples, new long[] { 3, 3 }), is(equalTo(new long[] { 1, 2, 3, 4, 5, 6 })));
+	}
+
+	@Test
+	public void testMergeEmptySamples() {
+		assertThat(VertexIdSample.merge(new long[][] { {}, { 7 }, {} }, new long[] { 0, 1, 0 }),
+				is(equalTo(new long[] { 7 })));
+		assertThat(VertexIdSample.merge(new long[][] { {}, {} }, new long[] { 0, 0 }).length, is(equalTo(0)));
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		FileSystem fs = FileSystem.getLocal(new Configuration());
+		Path graphPath = new Path(temporaryFolder.getRoot().getPath());
+		assertThat(VertexIdSample.read(fs, graphPath), is(nullValue()));
+
+		// A partition with more vertices than fit in a sample, and a small one
+		VertexIdSample large = new VertexIdSample(0);
+		for (long id = 0; id < 10 * VertexIdSample.MAX_SAMPLE_SIZE; id++) {
+			large.addVertex(id);
+		}
+		large.write(fs, new Path(graphPath, VertexIdSample.FILE_PREFIX + 0));
+		VertexIdSample small = new VertexIdSample(1);
+		for (long id = -100; id < 0; id++) {
+			small.addVertex(id);
+		}
+		small.write(fs, new Path(graphPath, VertexIdSample.FILE_PREFIX + 1));
+
+		long[] sample = VertexIdSample.read(fs, graphPath);
+		assertThat(sample.length, is(equalTo(VertexIdSample.MAX_SAMPLE_SIZE + 100)));
+		int negative = 0;
+		for (int i = 0; i < sample.length; i++) {
+			assertThat("the sample is sorted", i == 0 || sample[i - 1] <= sample[i], is(true));
+			if (sample[i] < 0)
+				negative++;
+		}
+		// The small partition holds 100 of 100100 vertices
+		assertThat(negative, is(equalTo(10)));
+	}
+
+}
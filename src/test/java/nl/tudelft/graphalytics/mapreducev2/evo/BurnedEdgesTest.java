@@ -0,0 +1,191 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class BurnedEdgesTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private FileSystem fs;
+	private Path directory;
+
+	@Before
+	public void setUp() throws IOException {
+		fs = FileSystem.getLocal(new Configuration());
+		directory = new Path(temporaryFolder.getRoot().getPath());
+	}
+
+	@Test
+	public void testSortPairs() {
+		Random random = new Random(42);
+		for (int size : new int[] { 0, 1, 2, 3, 10, 1000 }) {
+			// Draw from a small range to get pairs with equal ambassadors and duplicate pairs
+			long[] pairs = new long[2 * size];
+			for (int i = 0; i < pairs.length; i++) {
+				pairs[i] = random.nextInt(20) - 5;
+			}
+			long[] expected = sortedPairs(pairs);
+
+			BurnedEdges.sortPairs(pairs, 0, size);
+			assertThat("sorted pairs of " + size + " edges", pairs, is(equalTo(expected)));
+		}
+	}
+
+	@Test
+	public void testSortPairsWithEqualPairs() {
+		long[] pairs = new long[2 * 500];
+		Arrays.fill(pairs, 7);
+		BurnedEdges.sortPairs(pairs, 0, 500);
+
+		long[] expected = new long[2 * 500];
+		Arrays.fill(expected, 7);
+		assertThat(pairs, is(equalTo(expected)));
+	}
+
+	@Test
+	public void testSortPairsInRange() {
+		long[] pairs = { 9, 9, 5, 2, 5, 1, 3, 0, 1, 1 };
+		BurnedEdges.sortPairs(pairs, 1, 4);
+		assertThat("pairs outside the range are not moved",
+				pairs, is(equalTo(new long[] { 9, 9, 3, 0, 5, 1, 5, 2, 1, 1 })));
+	}
+
+	@Test
+	public void testWriteSortsEdges() throws IOException {
+		BurnedEdges edges = new BurnedEdges();
+		// Add more edges than the initial capacity of the buffer
+		for (long i = 0; i < 1500; i++) {
+			edges.add(1500 - i, i % 3);
+		}
+		Path path = new Path(directory, "edges");
+		edges.write(fs, path);
+
+		long[] written = readEdges(path);
+		assertThat(written.length, is(equalTo(2 * 1500)));
+		assertThat(written, is(equalTo(sortedPairs(written))));
+	}
+
+	@Test
+	public void testMergeParts() throws IOException {
+		Path[] parts = {
+				writeEdges("part-0", 1, 10, 3, 30, 5, 50),
+				writeEdges("part-1"),
+				writeEdges("part-2", 2, 20, 3, 30, 3, 31, 6, 60),
+				writeEdges("part-3", 0, 1)
+		};
+		Path merged = new Path(directory, "merged");
+
+		assertThat(BurnedEdges.merge(fs, parts, merged), is(equalTo(8L)));
+		assertThat("duplicate pairs from different parts are all kept", readEdges(merged),
+				is(equalTo(new long[] { 0, 1, 1, 10, 2, 20, 3, 30, 3, 30, 3, 31, 5, 50, 6, 60 })));
+	}
+
+	@Test
+	public void testMergeSinglePart() throws IOException {
+		Path[] parts = { writeEdges("part-0", -3, 4, 1, 2, 1, 2) };
+		Path merged = new Path(directory, "merged");
+
+		assertThat(BurnedEdges.merge(fs, parts, merged), is(equalTo(3L)));
+		assertThat(readEdges(merged), is(equalTo(new long[] { -3, 4, 1, 2, 1, 2 })));
+	}
+
+	@Test
+	public void testMergeEmptyParts() throws IOException {
+		Path merged = new Path(directory, "merged");
+		assertThat(BurnedEdges.merge(fs, new Path[0], merged), is(equalTo(0L)));
+		assertThat(readEdges(merged).length, is(equalTo(0)));
+
+		Path[] parts = { writeEdges("part-0"), writeEdges("part-1") };
+		assertThat(BurnedEdges.merge(fs, parts, merged), is(equalTo(0L)));
+		assertThat(readEdges(merged).length, is(equalTo(0)));
+	}
+
+	@Test
+	public void testMergeOutputDirectory() throws IOException {
+		writeEdges(BurnedEdges.PART_FILE_PREFIX + "00000", 4, 40);
+		writeEdges(BurnedEdges.PART_FILE_PREFIX + "00001", 2, 20, 8, 80);
+		writeEdges("part-00000", 1, 10);
+		Path merged = new Path(directory, BurnedEdges.MERGED_FILE_NAME);
+
+		assertThat("only burned edges part files are merged",
+				BurnedEdges.merge(fs, directory, merged), is(equalTo(3L)));
+		assertThat(readEdges(merged), is(equalTo(new long[] { 2, 20, 4, 40, 8, 80 })));
+	}
+
+	private Path writeEdges(String name, long... pairs) throws IOException {
+		BurnedEdges edges = new BurnedEdges();
+		for (int i = 0; i < pairs.length; i += 2) {
+			edges.add(pairs[i], pairs[i + 1]);
+		}
+		Path path = new Path(directory, name);
+		edges.write(fs, path);
+		return path;
+	}
+
+	private long[] readEdges(Path path) throws IOException {
+		try (FSDataInputStream in = fs.open(path)) {
+			long[] pairs = new long[2 * (int)in.readLong()];
+			for (int i = 0; i < pairs.length; i++) {
+				pairs[i] = in.readLong();
+			}
+			assertThat("the file ends after the last edge", in.read(), is(equalTo(-1)));
+			return pairs;
+		}
+	}
+
+	private static long[] sortedPairs(long[] pairs) {
+		Long[][] edges = new Long[pairs.length / 2][];
+		for (int i = 0; i < edges.length; i++) {
+			edges[i] = new Long[] { pairs[2 * i], pairs[2 * i + 1] };
+		}
+		Arrays.sort(edges, new Comparator<Long[]>() {
+			@Override
+			public int compare(Long[] a, Long[] b) {
+				int comparison = a[0].compareTo(b[0]);
+				return comparison != 0 ? comparison : a[1].compareTo(b[1]);
+			}
+		});
+		long[] sorted = new long[pairs.length];
+		for (int i = 0; i < edges.length; i++) {
+			sorted[2 * i] = edges[i][0];
+			sorted[2 * i + 1] = edges[i][1];
+		}
+		return sorted;
+	}
+
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import nl.tudelft.graphalytics.mapreducev2.conversion.VertexIndexConversion;
+
+/**
+ * Runs the forest fire model validation tests on indexed input graphs, with a lookup threshold that makes the job
+ * read the ambassadors of an iteration from the vertex index whenever it supports lookups, instead of scanning the
+ * graph.
+ *
+ * @author Tim Hegeman
+ */
+public class ForestFireModelLookupTest extends ForestFireModelTest {
+
+	@Override
+	protected ForestFireModelJobLauncher createJobLauncher() throws Exception {
+		// The input graph is written by the time the job launcher is created
+		new VertexIndexConversion(testFolders.getInputDirectory().getPath()).run();
+
+		ForestFireModelJobLauncher jobLauncher = super.createJobLauncher();
+		jobLauncher.setLookupThreshold(Long.MAX_VALUE);
+		return jobLauncher;
+	}
+
+}
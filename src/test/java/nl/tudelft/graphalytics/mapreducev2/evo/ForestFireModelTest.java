@@ -58,7 +58,7 @@ public class ForestFireModelTest extends ForestFireModelValidationTest {
 			throws Exception {
 		hadoopTestUtils.writeGraphToDirectory(graph, testFolders.getRawInputDirectory());
 		hadoopTestUtils.convertGraphToHadoopFormat(testFolders.getRawInputDirectory(), testFolders.getInputDirectory());
-		hadoopTestUtils.runMapReduceJob(new ForestFireModelJobLauncher(), true, parameters, testFolders);
+		hadoopTestUtils.runMapReduceJob(createJobLauncher(), true, parameters, testFolders);
 		return parseOutput(true);
 	}
 
@@ -66,10 +66,14 @@ public class ForestFireModelTest extends ForestFireModelValidationTest {
 	public GraphStructure executeUndirectedForestFireModel(GraphStructure graph, ForestFireModelParameters parameters)
 			throws Exception {
 		hadoopTestUtils.writeGraphToDirectory(graph, testFolders.getInputDirectory());
-		hadoopTestUtils.runMapReduceJob(new ForestFireModelJobLauncher(), false, parameters, testFolders);
+		hadoopTestUtils.runMapReduceJob(createJobLauncher(), false, parameters, testFolders);
 		return parseOutput(false);
 	}
 
+	protected ForestFireModelJobLauncher createJobLauncher() throws Exception {
+		return new ForestFireModelJobLauncher();
+	}
+
 	private GraphStructure parseOutput(boolean outputIsDirected) throws IOException {
 		final Pattern DIRECTED_LINE_PATTERN = Pattern.compile("([0-9]+)[ \t]*#[0-9,]*[ \t]+@([0-9,]*)[ \t]*$");
 		final Pattern UNDIRECTED_LINE_PATTERN = Pattern.compile("([0-9]+)[ \t]*([0-9,]*)[ \t]*$");
@@ -0,0 +1,143 @@
+/**
+ * Copyright 2015 Delft University of Technology
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package nl.tudelft.graphalytics.mapreducev2.evo;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Tim Hegeman
+ */
+public class InitAmbassadorSamplerTest {
+
+	private static final int NUM_NEW_VERTICES = 25;
+	private static final long SEED = 1234;
+
+	@Test
+	public void testSelectionIsIndependentOfSplits() {
+		List<Long> vertices = new ArrayList<>();
+		for (long id = 0; id < 500; id++) {
+			vertices.add(id * 7 - 100);
+		}
+		vertices.add(Long.MAX_VALUE);
+		vertices.add(Long.MIN_VALUE);
+
+		long[] expected = sample(split(vertices, 1));
+		assertThat(sample(split(vertices, 2)), is(equalTo(expected)));
+		assertThat(sample(split(vertices, 3)), is(equalTo(expected)));
+		assertThat(sample(split(vertices, 64)), is(equalTo(expected)));
+		assertThat("one vertex per mapper never skips ranks",
+				sample(split(vertices, vertices.size())), is(equalTo(expected)));
+
+		// Splits of the vertices in a different order
+		List<Long> shuffled = new ArrayList<>(vertices);
+		Collections.shuffle(shuffled, new Random(42));
+		assertThat(sample(split(shuffled, 1)), is(equalTo(expected)));
+		assertThat(sample(split(shuffled, 5)), is(equalTo(expected)));
+	}
+
+	@Test
+	public void testSelectionDependsOnSeed() {
+		List<Long> vertices = new ArrayList<>();
+		for (long id = 0; id < 500; id++) {
+			vertices.add(id);
+		}
+		List<List<Long>> splits = split(vertices, 1);
+		assertThat(sample(splits, SEED), is(not(equalTo(sample(splits, SEED + 1)))));
+	}
+
+	@Test
+	public void testEveryNewVertexGetsCandidate() {
+		InitAmbassadorSampler sampler = new InitAmbassadorSampler(NUM_NEW_VERTICES, SEED);
+		for (int newVertex = 0; newVertex < NUM_NEW_VERTICES; newVertex++) {
+			assertThat(sampler.hasCandidate(newVertex), is(false));
+		}
+
+		sampler.offer(17);
+		for (int newVertex = 0; newVertex < NUM_NEW_VERTICES; newVertex++) {
+			assertThat("the only vertex is the candidate of every new vertex",
+					sampler.getCandidate(newVertex), is(equalTo(17L)));
+		}
+	}
+
+	@Test
+	public void testMergeCandidates() {
+		InitAmbassadorSampler sampler = new InitAmbassadorSampler(1, SEED);
+		assertThat(sampler.hasMergedCandidate(), is(false));
+
+		sampler.mergeCandidate(5, 0.5);
+		sampler.mergeCandidate(3, 0.5);
+		sampler.mergeCandidate(9, 0.75);
+		assertThat("equal ranks are decided by the lowest vertex ID", sampler.getMergedCandidate(), is(equalTo(3L)));
+
+		sampler.resetMerge();
+		assertThat(sampler.hasMergedCandidate(), is(false));
+	}
+
+	private static List<List<Long>> split(List<Long> vertices, int numMappers) {
+		List<List<Long>> splits = new ArrayList<>();
+		for (int mapper = 0; mapper < numMappers; mapper++) {
+			splits.add(new ArrayList<Long>());
+		}
+		// Assign contiguous blocks of vertices to mappers
+		for (int i = 0; i < vertices.size(); i++) {
+			splits.get((int)((long)i * numMappers / vertices.size())).add(vertices.get(i));
+		}
+		return splits;
+	}
+
+	private static long[] sample(List<List<Long>> splits) {
+		return sample(splits, SEED);
+	}
+
+	/**
+	 * Samples init ambassadors with one sampler per split, and merges their candidates as the reducer does.
+	 */
+	private static long[] sample(List<List<Long>> splits, long seed) {
+		List<InitAmbassadorSampler> mappers = new ArrayList<>();
+		for (List<Long> split : splits) {
+			InitAmbassadorSampler sampler = new InitAmbassadorSampler(NUM_NEW_VERTICES, seed);
+			for (long vertex : split) {
+				sampler.offer(vertex);
+			}
+			mappers.add(sampler);
+		}
+
+		InitAmbassadorSampler reducer = new InitAmbassadorSampler(0, seed);
+		long[] ambassadors = new long[NUM_NEW_VERTICES];
+		for (int newVertex = 0; newVertex < NUM_NEW_VERTICES; newVertex++) {
+			reducer.resetMerge();
+			for (InitAmbassadorSampler sampler : mappers) {
+				if (sampler.hasCandidate(newVertex)) {
+					reducer.mergeCandidate(sampler.toCandidateMessage(newVertex));
+				}
+			}
+			assertThat(reducer.hasMergedCandidate(), is(true));
+			ambassadors[newVertex] = reducer.getMergedCandidate();
+		}
+		return ambassadors;
+	}
+
+}